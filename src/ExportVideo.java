@@ -0,0 +1,201 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import objects.Display;
+import objects.JpegEncoder;
+import objects.MjpegAviWriter;
+import objects.Replay;
+import objects.SoftwareCanvas;
+import screens.LevelScreen;
+
+/**
+ * Exports a replay to a video without a window or a GPU, faster than the game plays it.
+ * The export is a pipeline of bounded queues: the game thread plays the replay and hands over the
+ * sprites drawn in each frame, the raster thread rasterises them on the software canvas (its bands
+ * in parallel), a pool of encoders compresses the frames to JPEG, and the writer thread stores them
+ * in order, as a Motion JPEG AVI file or as a sequence of JPEG files. Each stage only waits when the
+ * next one is behind by a full queue.
+ *
+ * Usage: {@code ExportVideo --replay FILE [--out FILE.avi | DIR] [--format avi|jpg] [--fps F]
+ * [--quality Q] [--threads T] [--config FILE]}
+ */
+public class ExportVideo {
+    /**
+     * The number of frames each queue of the pipeline holds
+     */
+    private static final int QUEUE_FRAMES = 8;
+
+    /**
+     * How long the game thread waits for room in the queue before checking that the other stages are still running
+     */
+    private static final long STALL_CHECK_MILLIS = 100;
+
+    /**
+     * The number of nanoseconds in a second
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Entry point of the exporter.
+     *
+     * @param args Command line arguments, see the class documentation
+     * @throws Exception If the replay cannot be read or the video cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        // 1) Read the arguments
+        String replayPath = null;
+        String out = null;
+        String format = "avi";
+        int fps = 60;
+        float quality = 0.85f;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String config = "res/app.properties";
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--replay": replayPath = value; break;
+                case "--out": out = value; break;
+                case "--format": format = value; break;
+                case "--fps": fps = Integer.parseInt(value); break;
+                case "--quality": quality = Float.parseFloat(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--config": config = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (replayPath == null) {
+            throw new IllegalArgumentException("No replay given, use --replay FILE");
+        }
+        if (!format.equals("avi") && !format.equals("jpg")) {
+            throw new IllegalArgumentException("Unknown format " + format + ", use avi or jpg");
+        }
+        if (out == null) {
+            out = format.equals("avi") ? "replay.avi" : "replay-frames";
+        }
+
+        // 2) Draw on the software canvas, before anything loads images
+        Properties gameProps = IOUtils.readPropertiesFile(config);
+        SoftwareCanvas canvas = Display.useCanvas(gameProps, threads);
+        Replay replay = Replay.read(replayPath);
+        LevelScreen level = LevelScreen.create(replay.getLevel(), replay.getSeed(), gameProps);
+        if (format.equals("jpg")) {
+            new File(out).mkdirs();
+        }
+
+        // 3) Start the stages after the game thread: raster, encoders and writer
+        BlockingQueue<SoftwareCanvas.DrawList> drawn = new ArrayBlockingQueue<>(QUEUE_FRAMES);
+        BlockingQueue<int[]> freeFrames = new ArrayBlockingQueue<>(QUEUE_FRAMES + threads);
+        for (int i = 0; i < QUEUE_FRAMES + threads; i++) {
+            freeFrames.add(new int[canvas.getWidth() * canvas.getHeight()]);
+        }
+        BlockingQueue<Future<byte[]>> encoded = new ArrayBlockingQueue<>(QUEUE_FRAMES);
+        ExecutorService encoders = Executors.newFixedThreadPool(threads);
+        ExecutorService stages = Executors.newFixedThreadPool(2);
+        int frameCount = replay.getFrameCount();
+        float jpegQuality = quality;
+        Future<?> raster = stages.submit(() -> {
+            for (int frame = 0; frame < frameCount; frame++) {
+                SoftwareCanvas.DrawList drawList = drawn.take();
+                int[] pixels = freeFrames.take();
+                canvas.rasterise(drawList, pixels);
+                canvas.recycle(drawList);
+                encoded.put(encoders.submit(() -> encodeJpeg(pixels, canvas, jpegQuality, freeFrames)));
+            }
+            return null;
+        });
+        String outPath = out;
+        boolean isAvi = format.equals("avi");
+        int frameRate = fps;
+        Future<Integer> writer = stages.submit(() -> writeFrames(encoded, frameCount, outPath, isAvi,
+                canvas, frameRate));
+
+        // 4) Play the replay on this thread, handing over the sprites drawn in each frame
+        long start = System.nanoTime();
+        try {
+            for (int frame = 0; frame < frameCount; frame++) {
+                level.update(replay.frame(frame));
+                SoftwareCanvas.DrawList drawList = canvas.takeDrawList();
+                while (!drawn.offer(drawList, STALL_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                    // A stage that is over before every frame is handed over has failed
+                    if (raster.isDone()) {
+                        raster.get();
+                    }
+                    if (writer.isDone()) {
+                        writer.get();
+                    }
+                }
+            }
+            raster.get();
+            int written = writer.get();
+
+            double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+            System.out.printf("%d frames exported to %s in %.2f s: %.0f frames/s, %.1fx real time%n",
+                    written, outPath, seconds, written / seconds, written / seconds / fps);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A stage of the export failed", e.getCause());
+        } finally {
+            stages.shutdownNow();
+            encoders.shutdownNow();
+            canvas.close();
+        }
+    }
+
+    /**
+     * Encodes a frame as a JPEG image, then gives its pixels back to be rasterised into again.
+     *
+     * @param pixels     The ARGB pixels of the frame
+     * @param canvas     The canvas the frame was rasterised on
+     * @param quality    The quality of the JPEG image, from 0 to 1
+     * @param freeFrames The pixels free to be rasterised into
+     * @return The JPEG image
+     * @throws IOException If the frame cannot be encoded
+     */
+    private static byte[] encodeJpeg(int[] pixels, SoftwareCanvas canvas, float quality,
+                                     BlockingQueue<int[]> freeFrames) throws IOException {
+        try {
+            return JpegEncoder.encode(pixels, canvas.getWidth(), canvas.getHeight(), quality);
+        } finally {
+            freeFrames.add(pixels);
+        }
+    }
+
+    /**
+     * Writes the encoded frames in order, as they become ready.
+     *
+     * @param encoded    The frames being encoded, in order
+     * @param frameCount The number of frames to write
+     * @param out        The AVI file or the directory of the JPEG files
+     * @param isAvi      Whether the frames are written to an AVI file rather than JPEG files
+     * @param canvas     The canvas the frames were rasterised on
+     * @param fps        The number of frames per second of the video
+     * @return The number of frames written
+     * @throws Exception If a frame cannot be encoded or written
+     */
+    private static int writeFrames(BlockingQueue<Future<byte[]>> encoded, int frameCount, String out,
+                                   boolean isAvi, SoftwareCanvas canvas, int fps) throws Exception {
+        if (!isAvi) {
+            for (int frame = 0; frame < frameCount; frame++) {
+                byte[] jpeg = encoded.take().get();
+                Files.write(new File(out, String.format("frame-%06d.jpg", frame)).toPath(), jpeg);
+            }
+            return frameCount;
+        }
+        try (MjpegAviWriter avi = new MjpegAviWriter(out, canvas.getWidth(), canvas.getHeight(), fps)) {
+            for (int frame = 0; frame < frameCount; frame++) {
+                avi.writeFrame(encoded.take().get());
+            }
+            return avi.getFrameCount();
+        }
+    }
+}
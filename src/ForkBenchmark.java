@@ -0,0 +1,175 @@
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import objects.Display;
+import objects.RandomControls;
+import screens.LevelScreen;
+
+/**
+ * Measures how fast a level can be forked and how much memory each fork takes, the costs the
+ * built-in player and the replay seeker pay for every branch and keyframe they make.
+ * Each level is created from a seed and played headless with random keys up to a chosen frame,
+ * then forked many times on the calling thread. The benchmark reports the forks made per second
+ * and the bytes allocated per fork, both right after forking and after playing a few frames on
+ * each fork, when the fork has copied the pages of the entities that moved.
+ *
+ * A fork shares every page of entity state with the original until one of them writes to it, but
+ * copies a small view object per entity, so the bytes of a bare fork grow with the entities of the
+ * level, and the bytes after a few frames also grow with the entities that moved.
+ *
+ * Usage: {@code ForkBenchmark [--levels 1,2] [--seed S] [--frames F] [--forks N] [--steps K] [--config FILE]}
+ * The same arguments always measure the same game states.
+ */
+public class ForkBenchmark {
+    /**
+     * The number of nanoseconds in a second
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The number of rounds of forks made before measuring, so that the forking code is compiled
+     */
+    private static final int WARM_UP_ROUNDS = 3;
+
+    /**
+     * Entry point of the benchmark.
+     *
+     * @param args Command line arguments, see the class documentation
+     * @throws Exception If the configuration cannot be read
+     */
+    public static void main(String[] args) throws Exception {
+        // 1) Read the arguments
+        String[] levels = {"1", "2"};
+        long seed = 0;
+        int frames = 600;
+        int forks = 20000;
+        int steps = 10;
+        String config = "res/app.properties";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--levels": levels = value.split(","); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--frames": frames = Integer.parseInt(value); break;
+                case "--forks": forks = Integer.parseInt(value); break;
+                case "--steps": steps = Integer.parseInt(value); break;
+                case "--config": config = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+
+        // 2) Simulate without a window, before anything loads images or fonts
+        Properties gameProps = IOUtils.readPropertiesFile(config);
+        Display.disable(gameProps);
+
+        for (String name : levels) {
+            // 3) Play the level up to the frame the forks are made at
+            int level = Integer.parseInt(name.trim());
+            LevelScreen screen = LevelScreen.create(level, seed, gameProps);
+            screen.setHeadless(true);
+            RandomControls random = new RandomControls(seed);
+            int played = 0;
+            while (played < frames) {
+                random.advance();
+                played++;
+                if (screen.update(random)) {
+                    break;
+                }
+            }
+
+            // 4) Measure bare forks, then forks each played a few frames, after warming both up
+            for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+                measure(screen, forks, 0, seed);
+                measure(screen, forks / steps + 1, steps, seed);
+            }
+            Measurement bare = measure(screen, forks, 0, seed);
+            Measurement stepped = measure(screen, forks / steps + 1, steps, seed);
+            System.out.printf("level %d, seed %d, frame %d: %.0f forks/s, %.0f bytes per fork; "
+                            + "%.0f bytes per fork after %d frames%n",
+                    level, seed, played, bare.getRate(), bare.getBytesPerFork(),
+                    stepped.getBytesPerFork(), steps);
+        }
+    }
+
+    /**
+     * Forks a level many times, playing each fork a few frames of random keys before dropping it.
+     *
+     * @param screen The level forked
+     * @param forks  The number of forks made
+     * @param steps  The number of frames played on each fork
+     * @param seed   The seed of the random keys played on the forks
+     * @return The time and the bytes taken by the forks
+     */
+    private static Measurement measure(LevelScreen screen, int forks, int steps, long seed) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        RandomControls random = new RandomControls(seed);
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < forks; i++) {
+            LevelScreen fork = screen.fork();
+            for (int step = 0; step < steps; step++) {
+                random.advance();
+                if (fork.update(random)) {
+                    break;
+                }
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        return new Measurement(forks, nanos, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+    }
+
+    /**
+     * The time and the bytes taken by a run of forks
+     */
+    private static class Measurement {
+        /**
+         * The number of forks made
+         */
+        private final int FORKS;
+
+        /**
+         * The time the forks took, in nanoseconds
+         */
+        private final long NANOS;
+
+        /**
+         * The bytes allocated by the forks
+         */
+        private final long ALLOCATED;
+
+        /**
+         * Constructs a measurement.
+         *
+         * @param forks     The number of forks made
+         * @param nanos     The time the forks took, in nanoseconds
+         * @param allocated The bytes allocated by the forks
+         */
+        private Measurement(int forks, long nanos, long allocated) {
+            this.FORKS = forks;
+            this.NANOS = nanos;
+            this.ALLOCATED = allocated;
+        }
+
+        /**
+         * Gets the number of forks made per second
+         *
+         * @return The forks per second
+         */
+        private double getRate() {
+            return FORKS / (NANOS / NANOS_PER_SECOND);
+        }
+
+        /**
+         * Gets the bytes allocated per fork
+         *
+         * @return The bytes per fork
+         */
+        private double getBytesPerFork() {
+            return (double) ALLOCATED / FORKS;
+        }
+    }
+}
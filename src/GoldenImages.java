@@ -0,0 +1,341 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import objects.Display;
+import objects.RandomControls;
+import objects.SoftwareCanvas;
+import screens.GameEndScreen;
+import screens.HomeScreen;
+import screens.LevelScreen;
+
+/**
+ * Checks chosen frames of every screen against golden images, to prove that changes to the
+ * rendering path draw the same pixels. Each frame is rendered on a software canvas of its own,
+ * the frames are rendered in parallel, and a frame passes if only a few of its pixels differ
+ * noticeably from its golden image. Levels are played with random keys from a seed, so a frame
+ * is the same every time it is rendered.
+ *
+ * Usage: {@code GoldenImages [--update true] [--golden DIR] [--out DIR] [--threads T] [--config FILE]}
+ * With {@code --update true} the golden images are rendered again instead of checked. The frames
+ * that fail are written to the output directory. The exit status is 1 if any frame fails.
+ */
+public class GoldenImages {
+    /**
+     * The constant representing a frame of the home screen
+     */
+    private static final int HOME = 0;
+
+    /**
+     * The constant representing a frame of a level
+     */
+    private static final int LEVEL = 1;
+
+    /**
+     * The constant representing a frame of the game end screen of a won game
+     */
+    private static final int GAME_WON = 2;
+
+    /**
+     * The constant representing a frame of the game end screen of a lost game
+     */
+    private static final int GAME_LOST = 3;
+
+    /**
+     * The score shown on the game end screens
+     */
+    private static final int FINAL_SCORE = 1234;
+
+    /**
+     * The frames checked
+     */
+    private static final GoldenFrame[] FRAMES = {
+            new GoldenFrame("home", HOME, 0, 0, 0),
+            new GoldenFrame("level1-seed1-frame0", LEVEL, 1, 1, 0),
+            new GoldenFrame("level1-seed1-frame300", LEVEL, 1, 1, 300),
+            new GoldenFrame("level2-seed2-frame0", LEVEL, 2, 2, 0),
+            new GoldenFrame("level2-seed2-frame300", LEVEL, 2, 2, 300),
+            new GoldenFrame("level2-seed5-frame600", LEVEL, 2, 5, 600),
+            new GoldenFrame("gameEnd-won", GAME_WON, 0, 0, 0),
+            new GoldenFrame("gameEnd-lost", GAME_LOST, 0, 0, 0)
+    };
+
+    /**
+     * The largest colour difference of two pixels still seen as the same, as a fraction of the
+     * largest possible difference
+     */
+    private static final double COLOUR_TOLERANCE = 0.1;
+
+    /**
+     * The largest fraction of the pixels of a frame that may differ from its golden image
+     */
+    private static final double MAX_DIFFERENT_PIXELS = 0.001;
+
+    /**
+     * The largest possible squared YIQ difference of two pixels
+     */
+    private static final double MAX_YIQ_DELTA = 35215;
+
+    /**
+     * The game configuration
+     */
+    private final Properties GAME_PROPS;
+
+    /**
+     * The message configuration
+     */
+    private final Properties MESSAGE_PROPS;
+
+    /**
+     * The directory of the golden images
+     */
+    private final String GOLDEN_DIR;
+
+    /**
+     * The directory the frames that fail are written to
+     */
+    private final String OUT_DIR;
+
+    /**
+     * Whether the golden images are rendered again instead of checked
+     */
+    private final boolean IS_UPDATE;
+
+    /**
+     * Constructs a checker.
+     *
+     * @param gameProps    Properties containing game configuration data
+     * @param messageProps Properties containing the messages of the screens
+     * @param goldenDir    The directory of the golden images
+     * @param outDir       The directory the frames that fail are written to
+     * @param isUpdate     Whether the golden images are rendered again instead of checked
+     */
+    private GoldenImages(Properties gameProps, Properties messageProps, String goldenDir, String outDir,
+                         boolean isUpdate) {
+        this.GAME_PROPS = gameProps;
+        this.MESSAGE_PROPS = messageProps;
+        this.GOLDEN_DIR = goldenDir;
+        this.OUT_DIR = outDir;
+        this.IS_UPDATE = isUpdate;
+    }
+
+    /**
+     * Renders a frame on a canvas of its own and checks it against its golden image, or updates the golden image.
+     *
+     * @param frame The frame to check
+     * @return The outcome of the check, on one line, starting with PASS, FAIL or UPDATED
+     * @throws Exception If the frame cannot be rendered or written
+     */
+    private String check(GoldenFrame frame) throws Exception {
+        SoftwareCanvas canvas = new SoftwareCanvas((int) Display.getWidth(), (int) Display.getHeight(), 1);
+        Display.setThreadCanvas(canvas);
+        try {
+            int[] pixels = render(frame, canvas);
+            String goldenPath = new File(GOLDEN_DIR, frame.NAME + ".png").getPath();
+            if (IS_UPDATE) {
+                canvas.writePng(goldenPath).get();
+                return "UPDATED " + frame.NAME;
+            }
+
+            int[] golden = canvas.readPng(goldenPath);
+            if (golden == null) {
+                return "FAIL " + frame.NAME + ": no golden image of the size of the screen at " + goldenPath;
+            }
+            int different = countDifferentPixels(golden, pixels);
+            if (different > MAX_DIFFERENT_PIXELS * pixels.length) {
+                String actualPath = new File(OUT_DIR, frame.NAME + ".png").getPath();
+                canvas.writePng(actualPath).get();
+                return "FAIL " + frame.NAME + ": " + different + " pixels differ, frame written to " + actualPath;
+            }
+            return "PASS " + frame.NAME + " (" + different + " pixels differ)";
+        } finally {
+            Display.setThreadCanvas(null);
+            canvas.close();
+        }
+    }
+
+    /**
+     * Renders a frame on the canvas of the calling thread.
+     *
+     * @param frame  The frame to render
+     * @param canvas The canvas of the calling thread
+     * @return The ARGB pixels of the frame
+     */
+    private int[] render(GoldenFrame frame, SoftwareCanvas canvas) {
+        switch (frame.SCREEN) {
+            case HOME:
+                new HomeScreen(GAME_PROPS, MESSAGE_PROPS).draw();
+                break;
+            case GAME_WON:
+            case GAME_LOST:
+                GameEndScreen gameEndScreen = new GameEndScreen(GAME_PROPS, MESSAGE_PROPS);
+                gameEndScreen.setIsWon(frame.SCREEN == GAME_WON);
+                gameEndScreen.setFinalScore(FINAL_SCORE);
+                gameEndScreen.draw();
+                break;
+            default:
+                // Play the level up to the frame, only rasterising the frame itself
+                LevelScreen level = LevelScreen.create(frame.LEVEL, frame.SEED, GAME_PROPS);
+                RandomControls controls = new RandomControls(frame.SEED);
+                for (int i = 0; i <= frame.FRAME; i++) {
+                    controls.advance();
+                    boolean isOver = level.update(controls);
+                    if (i == frame.FRAME || isOver) {
+                        break;
+                    }
+                    canvas.discardFrame();
+                }
+        }
+        return canvas.finishFrame();
+    }
+
+    /**
+     * Counts the pixels of a frame that differ noticeably from its golden image.
+     * Pixels are compared by their distance in the YIQ colour space, weighted as the eye sees it,
+     * so that tiny colour shifts (e.g. from another blending order) are not counted.
+     *
+     * @param golden The ARGB pixels of the golden image
+     * @param actual The ARGB pixels of the frame
+     * @return The number of pixels that differ
+     */
+    private static int countDifferentPixels(int[] golden, int[] actual) {
+        double maxDelta = COLOUR_TOLERANCE * COLOUR_TOLERANCE * MAX_YIQ_DELTA;
+        int different = 0;
+        for (int i = 0; i < actual.length; i++) {
+            if (golden[i] != actual[i] && yiqDelta(golden[i], actual[i]) > maxDelta) {
+                different++;
+            }
+        }
+        return different;
+    }
+
+    /**
+     * Computes the squared YIQ distance between two opaque pixels.
+     *
+     * @param first  The first ARGB pixel
+     * @param second The second ARGB pixel
+     * @return The squared YIQ distance between the pixels
+     */
+    private static double yiqDelta(int first, int second) {
+        int red = ((first >> 16) & 0xFF) - ((second >> 16) & 0xFF);
+        int green = ((first >> 8) & 0xFF) - ((second >> 8) & 0xFF);
+        int blue = (first & 0xFF) - (second & 0xFF);
+        double y = red * 0.29889531 + green * 0.58662247 + blue * 0.11448223;
+        double i = red * 0.59597799 - green * 0.27417610 - blue * 0.32180189;
+        double q = red * 0.21147017 - green * 0.52261711 + blue * 0.31114694;
+        return 0.5053 * y * y + 0.299 * i * i + 0.1957 * q * q;
+    }
+
+    /**
+     * Entry point of the checker.
+     *
+     * @param args Command line arguments, see the class documentation
+     * @throws Exception If a frame cannot be rendered or written
+     */
+    public static void main(String[] args) throws Exception {
+        // 1) Read the arguments
+        boolean isUpdate = false;
+        String goldenDir = "res/golden";
+        String outDir = "golden-failures";
+        int threads = Runtime.getRuntime().availableProcessors();
+        String config = "res/app.properties";
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--update": isUpdate = Boolean.parseBoolean(value); break;
+                case "--golden": goldenDir = value; break;
+                case "--out": outDir = value; break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--config": config = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // 2) Draw on software canvases, before anything loads images or fonts
+        Properties gameProps = IOUtils.readPropertiesFile(config);
+        Properties messageProps = IOUtils.readPropertiesFile("res/message.properties");
+        SoftwareCanvas sharedCanvas = Display.useCanvas(gameProps, 1);
+        new File(isUpdate ? goldenDir : outDir).mkdirs();
+        GoldenImages checker = new GoldenImages(gameProps, messageProps, goldenDir, outDir, isUpdate);
+
+        // 3) Check the frames in parallel, each on a canvas of its own
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        boolean isFailed = false;
+        try {
+            List<Future<String>> checks = new ArrayList<>(FRAMES.length);
+            for (GoldenFrame frame : FRAMES) {
+                checks.add(pool.submit(() -> checker.check(frame)));
+            }
+            for (Future<String> check : checks) {
+                String outcome;
+                try {
+                    outcome = check.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("A frame failed to render", e.getCause());
+                }
+                System.out.println(outcome);
+                isFailed |= outcome.startsWith("FAIL");
+            }
+        } finally {
+            pool.shutdownNow();
+            sharedCanvas.close();
+        }
+        if (isFailed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * A frame of a screen checked against its golden image
+     */
+    private static class GoldenFrame {
+        /**
+         * The name of the frame, which is also the name of its golden image
+         */
+        private final String NAME;
+
+        /**
+         * The screen the frame is of: HOME, LEVEL, GAME_WON or GAME_LOST
+         */
+        private final int SCREEN;
+
+        /**
+         * The level played, for a frame of a level
+         */
+        private final int LEVEL;
+
+        /**
+         * The seed of the level and of its random keys, for a frame of a level
+         */
+        private final long SEED;
+
+        /**
+         * The frame of the level checked, from 0
+         */
+        private final int FRAME;
+
+        /**
+         * Constructs a frame checked against its golden image.
+         *
+         * @param name   The name of the frame
+         * @param screen The screen the frame is of
+         * @param level  The level played, for a frame of a level
+         * @param seed   The seed of the level and of its random keys
+         * @param frame  The frame of the level checked, from 0
+         */
+        private GoldenFrame(String name, int screen, int level, long seed, int frame) {
+            this.NAME = name;
+            this.SCREEN = screen;
+            this.LEVEL = level;
+            this.SEED = seed;
+            this.FRAME = frame;
+        }
+    }
+}
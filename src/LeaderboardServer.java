@@ -0,0 +1,239 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import objects.ScoreClient;
+
+/**
+ * A local stand-in for the central leaderboard, so that score submission can be tried without a
+ * network. Batches posted to {@code /scores} are counted once per score id, and a chosen fraction
+ * of requests fail with 503 to exercise the client's retries and spool. {@code GET /scores} lists
+ * the best scores received.
+ *
+ * Usage: {@code LeaderboardServer [--port P] [--failures F] [--demo N] [--spool DIR]}
+ * With {@code --demo N} the server submits N random scores to itself through a {@link ScoreClient}
+ * and reports the client's metrics, then stops; otherwise it serves until killed.
+ */
+public class LeaderboardServer {
+    /**
+     * The path batches are posted to and the best scores are listed at
+     */
+    private static final String PATH = "/scores";
+
+    /**
+     * The number of best scores listed
+     */
+    private static final int LISTED = 10;
+
+    /**
+     * How often the demo checks whether every score has been sent
+     */
+    private static final long DEMO_POLL_MILLIS = 50;
+
+    /**
+     * The pattern of a score in a batch
+     */
+    private static final Pattern SCORE = Pattern.compile(
+            "\"id\":\"([^\"]+)\",\"score\":(-?\\d+),\"won\":(true|false)");
+
+    /**
+     * The score of each id received
+     */
+    private final Map<String, Integer> SCORES = new ConcurrentHashMap<>();
+
+    /**
+     * The number of requests received, including the failed ones
+     */
+    private final AtomicInteger REQUESTS = new AtomicInteger();
+
+    /**
+     * The fraction of requests that fail on purpose
+     */
+    private final double FAILURE_RATE;
+
+    /**
+     * The chance of each request failing
+     */
+    private final Random RANDOM = new Random();
+
+    /**
+     * The threads answering the requests
+     */
+    private final ExecutorService HANDLERS = Executors.newFixedThreadPool(2);
+
+    /**
+     * The HTTP server
+     */
+    private final HttpServer SERVER;
+
+    /**
+     * Starts a server on the loopback address.
+     *
+     * @param port        The port to listen on, or 0 for any free port
+     * @param failureRate The fraction of requests that fail on purpose, from 0 to 1
+     * @throws IOException If the port cannot be listened on
+     */
+    public LeaderboardServer(int port, double failureRate) throws IOException {
+        this.FAILURE_RATE = failureRate;
+        this.SERVER = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        SERVER.createContext(PATH, this::handle);
+        SERVER.setExecutor(HANDLERS);
+        SERVER.start();
+    }
+
+    /**
+     * Gets the address batches are posted to.
+     *
+     * @return The address of the server's scores
+     */
+    public String getEndpoint() {
+        return "http://localhost:" + SERVER.getAddress().getPort() + PATH;
+    }
+
+    /**
+     * Gets the number of different scores received
+     *
+     * @return The number of scores received
+     */
+    public int getScoreCount() {
+        return SCORES.size();
+    }
+
+    /**
+     * Stops the server.
+     */
+    public void stop() {
+        SERVER.stop(0);
+        HANDLERS.shutdownNow();
+    }
+
+    /**
+     * Answers a request: stores a posted batch, or lists the best scores.
+     *
+     * @param exchange The request and its response
+     * @throws IOException If the response cannot be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        REQUESTS.incrementAndGet();
+        try (exchange) {
+            if (exchange.getRequestMethod().equals("GET")) {
+                respond(exchange, 200, listBest());
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, "");
+                return;
+            }
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (RANDOM.nextDouble() < FAILURE_RATE) {
+                respond(exchange, 503, "");
+                return;
+            }
+            Matcher score = SCORE.matcher(body);
+            int received = 0;
+            while (score.find()) {
+                SCORES.putIfAbsent(score.group(1), Integer.parseInt(score.group(2)));
+                received++;
+            }
+            respond(exchange, received > 0 ? 200 : 400, "");
+        }
+    }
+
+    /**
+     * Lists the best scores received as JSON.
+     *
+     * @return The best scores, best first
+     */
+    private String listBest() {
+        List<Integer> best = new ArrayList<>(SCORES.values());
+        best.sort((a, b) -> Integer.compare(b, a));
+        return best.subList(0, Math.min(LISTED, best.size())).toString();
+    }
+
+    /**
+     * Sends a response.
+     *
+     * @param exchange The request and its response
+     * @param status   The status of the response
+     * @param body     The body of the response
+     * @throws IOException If the response cannot be sent
+     */
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Entry point of the server.
+     *
+     * @param args Command line arguments, see the class documentation
+     * @throws Exception If the server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        // 1) Read the arguments
+        int port = 8765;
+        double failures = 0;
+        int demoScores = 0;
+        String spoolDir = "score-spool";
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(value); break;
+                case "--failures": failures = Double.parseDouble(value); break;
+                case "--demo": demoScores = Integer.parseInt(value); break;
+                case "--spool": spoolDir = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // 2) Serve
+        LeaderboardServer server = new LeaderboardServer(port, failures);
+        System.out.println("Leaderboard listening at " + server.getEndpoint());
+        if (demoScores == 0) {
+            return;
+        }
+
+        // 3) Submit scores to it through a client, as a cabinet would, and wait for them to arrive
+        ScoreClient client = new ScoreClient(server.getEndpoint(), "demo", spoolDir);
+        Random random = new Random(1);
+        long worstSubmitNanos = 0;
+        for (int i = 0; i < demoScores; i++) {
+            long start = System.nanoTime();
+            client.submit(random.nextInt(10_000), random.nextBoolean());
+            worstSubmitNanos = Math.max(worstSubmitNanos, System.nanoTime() - start);
+        }
+        while (client.getSent() + client.getRejected() + client.getDropped() < demoScores
+                && client.getSpooledBatches() == 0) {
+            Thread.sleep(DEMO_POLL_MILLIS);
+        }
+        client.close();
+        server.stop();
+        System.out.printf("%d submitted (slowest %.1f us), %d sent, %d dropped, %d rejected, %d failed requests,"
+                        + " %d batches spooled, max queue depth %d%n",
+                demoScores, worstSubmitNanos / 1e3, client.getSent(), client.getDropped(), client.getRejected(),
+                client.getFailedRequests(), client.getSpooledBatches(), client.getMaxQueueDepth());
+        System.out.printf("Server: %d requests, %d different scores, best %s%n",
+                server.REQUESTS.get(), server.getScoreCount(), server.listBest());
+    }
+}
@@ -0,0 +1,130 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Future;
+import objects.Controls;
+import objects.Display;
+import objects.RandomControls;
+import objects.Replay;
+import objects.SoftwareCanvas;
+import screens.LevelScreen;
+
+/**
+ * Plays a game on a software canvas and writes its frames to PNG files, without a window or a GPU.
+ * The game is played from a replay, or with random keys on a level created from a seed.
+ *
+ * Usage: {@code RenderFrames [--replay FILE [--start N] | --level L --seed S] [--frames F] [--every K]
+ * [--out DIR] [--threads T] [--config FILE]}
+ * Every K-th frame is written to DIR/frame-NNNNNN.png; without an output directory the frames
+ * are only rasterised, e.g. to measure the canvas. With {@code --start N} the first N frames of
+ * the replay are played headless, without being rasterised, and rendering starts at its frame N.
+ */
+public class RenderFrames {
+    /**
+     * The number of nanoseconds in a second
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Entry point of the renderer.
+     *
+     * @param args Command line arguments, see the class documentation
+     * @throws Exception If the replay cannot be read or a frame cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        // 1) Read the arguments
+        String replayPath = null;
+        int start = 0;
+        int level = 1;
+        long seed = 0;
+        int maxFrames = 0;
+        int every = 1;
+        String outDir = null;
+        int threads = 0;
+        String config = "res/app.properties";
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--replay": replayPath = value; break;
+                case "--start": start = Integer.parseInt(value); break;
+                case "--level": level = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--frames": maxFrames = Integer.parseInt(value); break;
+                case "--every": every = Integer.parseInt(value); break;
+                case "--out": outDir = value; break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--config": config = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // 2) Draw on the software canvas, before anything loads images
+        Properties gameProps = IOUtils.readPropertiesFile(config);
+        SoftwareCanvas canvas = Display.useCanvas(gameProps, threads);
+        if (outDir != null) {
+            new File(outDir).mkdirs();
+        }
+
+        // 3) Create the level and the input steering Mario in it
+        Replay replay = replayPath == null ? null : Replay.read(replayPath);
+        if (replay != null) {
+            level = replay.getLevel();
+            seed = replay.getSeed();
+        }
+        LevelScreen screen = LevelScreen.create(level, seed, gameProps);
+        RandomControls random = new RandomControls(seed);
+
+        // 4) Play the replay's frames before the start headless, dropping anything drawn in them
+        boolean isOver = false;
+        if (replay != null && start > 0) {
+            screen.setHeadless(true);
+            for (int frame = 0; frame < Math.min(start, replay.getFrameCount()) && !isOver; frame++) {
+                isOver = screen.update(replay.frame(frame));
+                canvas.discardFrame();
+            }
+            screen.setHeadless(false);
+        }
+
+        // 5) Play the level, rasterising every frame and writing every K-th one in the background
+        List<Future<?>> writes = new ArrayList<>();
+        long rasterNanos = 0;
+        long startNanos = System.nanoTime();
+        int frames = 0;
+        try {
+            while (!isOver && (maxFrames == 0 || frames < maxFrames)
+                    && (replay == null || start + frames < replay.getFrameCount())) {
+                Controls controls;
+                if (replay != null) {
+                    controls = replay.frame(start + frames);
+                } else {
+                    random.advance();
+                    controls = random;
+                }
+                isOver = screen.update(controls);
+
+                long rasterStart = System.nanoTime();
+                canvas.finishFrame();
+                rasterNanos += System.nanoTime() - rasterStart;
+                if (outDir != null && frames % every == 0) {
+                    String name = String.format("frame-%06d.png", start + frames);
+                    writes.add(canvas.writePng(new File(outDir, name).getPath()));
+                }
+                frames++;
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            canvas.close();
+        }
+
+        // 6) Report the frame rates
+        double seconds = (System.nanoTime() - startNanos) / NANOS_PER_SECOND;
+        System.out.printf("%d frames (%d written) in %.2f s: %.0f frames/s overall, %.0f frames/s rasterised%n",
+                frames, writes.size(), seconds, frames / seconds, frames / (rasterNanos / NANOS_PER_SECOND));
+    }
+}
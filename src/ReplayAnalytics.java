@@ -0,0 +1,509 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import bagel.Keys;
+import objects.Controls;
+import objects.Display;
+import objects.Mario;
+import objects.Replay;
+import objects.SoftwareCanvas;
+import screens.LevelScreen;
+
+/**
+ * Analyses a directory of replays for level designers: where Mario goes, where he dies, how long
+ * he spends on each tier of platforms and how far players get (the funnel from starting a level
+ * to clearing it). Every replay is played again headless, the replays spread over a pool of threads
+ * that each count into primitive histograms of their own, merged once every replay is played.
+ * The position and death heatmaps of each level are drawn over its first frame, rendered on the
+ * software canvas, so that its background image, platforms and ladders show under the heat.
+ *
+ * Usage: {@code ReplayAnalytics --replays DIR [--out DIR] [--cell PX] [--threads T] [--config FILE]}
+ * Writes {@code heatmap-levelN.png}, {@code deaths-levelN.png} and {@code report.txt} to the output directory.
+ */
+public class ReplayAnalytics {
+    /**
+     * The number of levels
+     */
+    private static final int LEVELS = 2;
+
+    /**
+     * The opacity of the hottest cells of a heatmap, from 0 to 255
+     */
+    private static final int MAX_ALPHA = 200;
+
+    /**
+     * The colours of the heat scale, from the coldest to the hottest: blue, cyan, green, yellow, red
+     */
+    private static final int[] HEAT_SCALE = {0x0000FF, 0x00FFFF, 0x00FF00, 0xFFFF00, 0xFF0000};
+
+    /**
+     * The controls of a frame where no key is touched
+     */
+    private static final Controls NO_KEYS = new Controls() {
+        @Override
+        public boolean isDown(Keys key) {
+            return false;
+        }
+
+        @Override
+        public boolean wasPressed(Keys key) {
+            return false;
+        }
+    };
+
+    /**
+     * The number of milliseconds in a minute
+     */
+    private static final double MILLIS_PER_MINUTE = 60_000;
+
+    /**
+     * The number of frames in a second
+     */
+    private static final double FRAMES_PER_SECOND = 60;
+
+    /**
+     * The game configuration
+     */
+    private final Properties GAME_PROPS;
+
+    /**
+     * The size of a heatmap cell, in pixels
+     */
+    private final int CELL;
+
+    /**
+     * The number of heatmap cells across the screen
+     */
+    private final int COLUMNS;
+
+    /**
+     * The number of heatmap cells down the screen
+     */
+    private final int ROWS;
+
+    /**
+     * The heights of the tiers of platforms of each level, bottom tier first
+     */
+    private final double[][] TIER_HEIGHTS = new double[LEVELS + 1][];
+
+    /**
+     * Constructs an analysis.
+     *
+     * @param gameProps Properties containing game configuration data
+     * @param cell      The size of a heatmap cell, in pixels
+     */
+    private ReplayAnalytics(Properties gameProps, int cell) {
+        this.GAME_PROPS = gameProps;
+        this.CELL = cell;
+        this.COLUMNS = ((int) Display.getWidth() + cell - 1) / cell;
+        this.ROWS = ((int) Display.getHeight() + cell - 1) / cell;
+
+        // Each distinct height of platforms is a tier, counted from the bottom of the screen
+        for (int level = 1; level <= LEVELS; level++) {
+            TIER_HEIGHTS[level] = Arrays.stream(gameProps.getProperty("platforms.level" + level).split(";"))
+                    .mapToDouble(platform -> Double.parseDouble(platform.split(",")[1]))
+                    .distinct()
+                    .map(y -> -y).sorted().map(y -> -y)
+                    .toArray();
+        }
+    }
+
+    /**
+     * Plays a replay again and counts where Mario went into the histograms.
+     *
+     * @param path       The path of the replay
+     * @param histograms The histograms of the calling thread
+     * @throws IOException If the replay cannot be read
+     */
+    private void analyse(String path, Histograms histograms) throws IOException {
+        Replay replay = Replay.read(path);
+        int level = replay.getLevel();
+        LevelScreen screen = LevelScreen.create(level, replay.getSeed(), GAME_PROPS);
+        screen.setHeadless(true);
+        Mario mario = screen.getMario();
+        double[] tiers = TIER_HEIGHTS[level];
+        int highestTier = 0;
+        boolean hasWeapon = false;
+        boolean isOver = false;
+        histograms.games[level]++;
+
+        // 1) Count Mario's cell and tier every frame
+        for (int frame = 0; frame < replay.getFrameCount() && !isOver; frame++) {
+            isOver = screen.update(replay.frame(frame));
+            int cell = cellOf(mario.getX(), mario.getY());
+            if (cell >= 0) {
+                histograms.positions[level][cell]++;
+            }
+            int tier = tierOf(tiers, mario.getY());
+            histograms.tierFrames[level][tier]++;
+            highestTier = Math.max(highestTier, tier);
+            hasWeapon |= mario.holdHammer() || mario.holdBlaster();
+        }
+
+        // 2) Count how the game ended and how far it got
+        histograms.highestTiers[level][highestTier]++;
+        if (hasWeapon) {
+            histograms.armed[level]++;
+        }
+        if (!isOver) {
+            histograms.unfinished[level]++;
+        } else if (screen.isWon()) {
+            histograms.cleared[level]++;
+        } else if (screen.isTimeOut()) {
+            histograms.timedOut[level]++;
+        } else {
+            int cell = cellOf(mario.getX(), mario.getY());
+            if (cell >= 0) {
+                histograms.deaths[level][cell]++;
+            }
+            histograms.died[level]++;
+        }
+    }
+
+    /**
+     * Finds the heatmap cell of a point.
+     *
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     * @return The index of the cell, or -1 if the point is off the screen
+     */
+    private int cellOf(double x, double y) {
+        int column = (int) Math.floor(x / CELL);
+        int row = (int) Math.floor(y / CELL);
+        if (column < 0 || column >= COLUMNS || row < 0 || row >= ROWS) {
+            return -1;
+        }
+        return row * COLUMNS + column;
+    }
+
+    /**
+     * Finds the tier of platforms Mario is on or climbing from: the highest tier whose platforms are below him.
+     *
+     * @param tiers The heights of the tiers of platforms, bottom tier first
+     * @param y     The y-coordinate of Mario's centre
+     * @return The tier, from 0 for the bottom tier
+     */
+    private static int tierOf(double[] tiers, double y) {
+        int tier = 0;
+        while (tier + 1 < tiers.length && y < tiers[tier + 1]) {
+            tier++;
+        }
+        return tier;
+    }
+
+    /**
+     * Renders the first frame of a level, with no key touched, to draw its heatmaps over.
+     *
+     * @param level  The level
+     * @param canvas The software canvas the level is drawn on
+     * @return The ARGB pixels of the frame, row by row
+     */
+    private int[] renderBackdrop(int level, SoftwareCanvas canvas) {
+        LevelScreen screen = LevelScreen.create(level, 0, GAME_PROPS);
+        screen.update(NO_KEYS);
+        return canvas.finishFrame().clone();
+    }
+
+    /**
+     * Draws a heatmap over a frame of its level and writes it to a PNG file. The colour of a cell
+     * goes from blue to red with the logarithm of its count, so that rare cells still show.
+     *
+     * @param counts   The count of each cell
+     * @param backdrop The ARGB pixels of the frame drawn under the heat, row by row
+     * @param path     The path of the PNG file
+     * @throws IOException If the file cannot be written
+     */
+    private void drawHeatmap(long[] counts, int[] backdrop, String path) throws IOException {
+        int width = (int) Display.getWidth();
+        int height = (int) Display.getHeight();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        double maxLog = Math.log1p(Arrays.stream(counts).max().orElse(0));
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int base = backdrop[y * width + x] & 0xFFFFFF;
+                long count = counts[(y / CELL) * COLUMNS + x / CELL];
+                if (count == 0 || maxLog == 0) {
+                    image.setRGB(x, y, base);
+                    continue;
+                }
+                double heat = Math.log1p(count) / maxLog;
+                int alpha = (int) (MAX_ALPHA * (0.25 + 0.75 * heat));
+                int colour = heatColour(heat);
+                image.setRGB(x, y, blend(colour, base, alpha));
+            }
+        }
+        ImageIO.write(image, "png", new File(path));
+    }
+
+    /**
+     * Maps a heat to a colour, interpolating between the colours of the heat scale.
+     *
+     * @param heat The heat, from 0 to 1
+     * @return The RGB colour
+     */
+    private static int heatColour(double heat) {
+        double scaled = Math.min(1, Math.max(0, heat)) * (HEAT_SCALE.length - 1);
+        int from = Math.min(HEAT_SCALE.length - 2, (int) scaled);
+        int to = from + 1;
+        double fraction = scaled - from;
+        int colour = 0;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int low = (HEAT_SCALE[from] >> shift) & 0xFF;
+            int high = (HEAT_SCALE[to] >> shift) & 0xFF;
+            colour |= (int) Math.round(low + (high - low) * fraction) << shift;
+        }
+        return colour;
+    }
+
+    /**
+     * Blends a colour over another.
+     *
+     * @param over  The RGB colour on top
+     * @param under The RGB colour below
+     * @param alpha The opacity of the colour on top, from 0 to 255
+     * @return The blended RGB colour
+     */
+    private static int blend(int over, int under, int alpha) {
+        int result = 0;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int top = (over >> shift) & 0xFF;
+            int bottom = (under >> shift) & 0xFF;
+            result |= ((top * alpha + bottom * (255 - alpha)) / 255) << shift;
+        }
+        return result;
+    }
+
+    /**
+     * Writes the funnel, the endings and the time per tier of each level.
+     *
+     * @param total The merged histograms of every replay
+     * @param out   Where the report is written
+     */
+    private void report(Histograms total, PrintStream out) {
+        for (int level = 1; level <= LEVELS; level++) {
+            long games = total.games[level];
+            if (games == 0) {
+                continue;
+            }
+            out.printf("Level %d: %d games%n", level, games);
+            out.printf("  cleared %d, died %d, timed out %d, unfinished %d%n", total.cleared[level],
+                    total.died[level], total.timedOut[level], total.unfinished[level]);
+
+            // The funnel: how many games got at least this far
+            out.println("  funnel:");
+            out.printf("    started            %6d  100.0%%%n", games);
+            long reached = games;
+            for (int tier = 1; tier < TIER_HEIGHTS[level].length; tier++) {
+                reached -= total.highestTiers[level][tier - 1];
+                out.printf("    reached tier %-5d %6d %6.1f%%%n", tier, reached, 100.0 * reached / games);
+            }
+            out.printf("    picked up a weapon %6d %6.1f%%%n", total.armed[level], 100.0 * total.armed[level] / games);
+            out.printf("    cleared            %6d %6.1f%%%n", total.cleared[level],
+                    100.0 * total.cleared[level] / games);
+
+            // The time per tier, averaged over the games
+            out.println("  seconds per game on each tier:");
+            for (int tier = 0; tier < TIER_HEIGHTS[level].length; tier++) {
+                out.printf("    tier %d (y %.0f)  %7.1f%n", tier, TIER_HEIGHTS[level][tier],
+                        total.tierFrames[level][tier] / FRAMES_PER_SECOND / games);
+            }
+        }
+    }
+
+    /**
+     * Entry point of the analysis.
+     *
+     * @param args Command line arguments, see the class documentation
+     * @throws Exception If a replay cannot be read or an output cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        // 1) Read the arguments
+        String replayDir = null;
+        String outDir = "analytics";
+        int cell = 8;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String config = "res/app.properties";
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--replays": replayDir = value; break;
+                case "--out": outDir = value; break;
+                case "--cell": cell = Integer.parseInt(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--config": config = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (replayDir == null) {
+            throw new IllegalArgumentException("No replays given, use --replays DIR");
+        }
+        File[] files = new File(replayDir).listFiles((dir, name) -> name.endsWith(".replay"));
+        if (files == null || files.length == 0) {
+            throw new IllegalArgumentException("No .replay files in " + replayDir);
+        }
+
+        // 2) Render the levels' backdrops on the software canvas, before anything loads images
+        Properties gameProps = IOUtils.readPropertiesFile(config);
+        SoftwareCanvas canvas = Display.useCanvas(gameProps, 1);
+        ReplayAnalytics analytics = new ReplayAnalytics(gameProps, cell);
+        int[][] backdrops = new int[LEVELS + 1][];
+        for (int level = 1; level <= LEVELS; level++) {
+            backdrops[level] = analytics.renderBackdrop(level, canvas);
+        }
+        canvas.close();
+
+        // 3) Play the replays headless, each thread taking the next replay and counting into its own histograms
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Histograms>> workers = new ArrayList<>(threads);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < threads; i++) {
+            workers.add(pool.submit(() -> {
+                Histograms histograms = analytics.new Histograms();
+                for (int index = next.getAndIncrement(); index < files.length; index = next.getAndIncrement()) {
+                    analytics.analyse(files[index].getPath(), histograms);
+                }
+                return histograms;
+            }));
+        }
+        Histograms total = analytics.new Histograms();
+        try {
+            for (Future<Histograms> worker : workers) {
+                total.add(worker.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A replay failed to play", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        double minutes = (System.currentTimeMillis() - start) / MILLIS_PER_MINUTE;
+
+        // 4) Draw the heatmaps and write the report
+        new File(outDir).mkdirs();
+        for (int level = 1; level <= LEVELS; level++) {
+            if (total.games[level] > 0) {
+                analytics.drawHeatmap(total.positions[level], backdrops[level],
+                        new File(outDir, "heatmap-level" + level + ".png").getPath());
+                analytics.drawHeatmap(total.deaths[level], backdrops[level],
+                        new File(outDir, "deaths-level" + level + ".png").getPath());
+            }
+        }
+        try (PrintStream report = new PrintStream(new File(outDir, "report.txt"))) {
+            analytics.report(total, report);
+        }
+        analytics.report(total, System.out);
+        System.out.printf("%d replays analysed in %.2f s: %.0f sessions/minute, written to %s%n",
+                files.length, minutes * 60, files.length / minutes, outDir);
+    }
+
+    /**
+     * The counts of one thread's replays, indexed by level, then by cell or tier
+     */
+    private class Histograms {
+        /**
+         * The number of frames Mario spent in each heatmap cell
+         */
+        private final long[][] positions = new long[LEVELS + 1][ROWS * COLUMNS];
+
+        /**
+         * The number of deaths in each heatmap cell
+         */
+        private final long[][] deaths = new long[LEVELS + 1][ROWS * COLUMNS];
+
+        /**
+         * The number of frames Mario spent on each tier of platforms
+         */
+        private final long[][] tierFrames = new long[LEVELS + 1][];
+
+        /**
+         * The number of games whose highest tier reached was each tier
+         */
+        private final long[][] highestTiers = new long[LEVELS + 1][];
+
+        /**
+         * The number of games played
+         */
+        private final long[] games = new long[LEVELS + 1];
+
+        /**
+         * The number of games where Mario picked up the hammer or a blaster
+         */
+        private final long[] armed = new long[LEVELS + 1];
+
+        /**
+         * The number of games won
+         */
+        private final long[] cleared = new long[LEVELS + 1];
+
+        /**
+         * The number of games lost by dying
+         */
+        private final long[] died = new long[LEVELS + 1];
+
+        /**
+         * The number of games lost by running out of time
+         */
+        private final long[] timedOut = new long[LEVELS + 1];
+
+        /**
+         * The number of replays that end before their level does
+         */
+        private final long[] unfinished = new long[LEVELS + 1];
+
+        /**
+         * Constructs empty histograms.
+         */
+        private Histograms() {
+            for (int level = 1; level <= LEVELS; level++) {
+                tierFrames[level] = new long[TIER_HEIGHTS[level].length];
+                highestTiers[level] = new long[TIER_HEIGHTS[level].length];
+            }
+        }
+
+        /**
+         * Adds the counts of other histograms to these.
+         *
+         * @param other The histograms to add
+         */
+        private void add(Histograms other) {
+            for (int level = 1; level <= LEVELS; level++) {
+                addAll(positions[level], other.positions[level]);
+                addAll(deaths[level], other.deaths[level]);
+                addAll(tierFrames[level], other.tierFrames[level]);
+                addAll(highestTiers[level], other.highestTiers[level]);
+            }
+            addAll(games, other.games);
+            addAll(armed, other.armed);
+            addAll(cleared, other.cleared);
+            addAll(died, other.died);
+            addAll(timedOut, other.timedOut);
+            addAll(unfinished, other.unfinished);
+        }
+
+        /**
+         * Adds the counts of an array to another.
+         *
+         * @param to   The counts added to
+         * @param from The counts added
+         */
+        private void addAll(long[] to, long[] from) {
+            for (int i = 0; i < to.length; i++) {
+                to[i] += from[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+import bagel.Keys;
+import java.util.Properties;
+import java.util.Random;
+import objects.Controls;
+import objects.Display;
+import objects.Replay;
+import screens.LevelScreen;
+import screens.ReplaySeeker;
+
+/**
+ * Measures how fast a {@link ReplaySeeker} seeks through a replay, and checks that every level it
+ * seeks to is the level played straight from the start. The replay is read from a file, or recorded
+ * on a level created from a seed with no key ever pressed, in which Mario outlasts the time limit,
+ * so the same arguments always measure the same full-length game.
+ *
+ * The benchmark plays the replay straight through once, keeping Mario's position and the score
+ * after every frame. It then seeks to the end of the replay, which makes every keyframe, and then
+ * to frames drawn from a seeded random generator, comparing each level sought with straight play.
+ *
+ * Usage: {@code SeekBenchmark [--replay FILE | --level L --seed S] [--interval I] [--keyframes K]
+ * [--seeks N] [--config FILE]}
+ */
+public class SeekBenchmark {
+    /**
+     * The number of nanoseconds in a millisecond
+     */
+    private static final double NANOS_PER_MILLISECOND = 1e6;
+
+    /**
+     * The keys of a player who never presses anything
+     */
+    private static final Controls NO_KEYS = new Controls() {
+        @Override
+        public boolean isDown(Keys key) {
+            return false;
+        }
+
+        @Override
+        public boolean wasPressed(Keys key) {
+            return false;
+        }
+    };
+
+    /**
+     * Entry point of the benchmark.
+     *
+     * @param args Command line arguments, see the class documentation
+     * @throws Exception If the replay or the configuration cannot be read
+     */
+    public static void main(String[] args) throws Exception {
+        // 1) Read the arguments
+        String replayPath = null;
+        int level = 1;
+        long seed = 0;
+        int interval = 600;
+        int maxKeyframes = 64;
+        int seeks = 200;
+        String config = "res/app.properties";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--replay": replayPath = value; break;
+                case "--level": level = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--interval": interval = Integer.parseInt(value); break;
+                case "--keyframes": maxKeyframes = Integer.parseInt(value); break;
+                case "--seeks": seeks = Integer.parseInt(value); break;
+                case "--config": config = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+
+        // 2) Simulate without a window, before anything loads images or fonts
+        Properties gameProps = IOUtils.readPropertiesFile(config);
+        Display.disable(gameProps);
+
+        // 3) Play the replay straight through, recording it first if there is none
+        Replay replay = replayPath == null ? record(level, seed, gameProps) : Replay.read(replayPath);
+        LevelScreen straight = LevelScreen.create(replay.getLevel(), replay.getSeed(), gameProps);
+        straight.setHeadless(true);
+        double[] xs = new double[replay.getFrameCount() + 1];
+        double[] ys = new double[xs.length];
+        int[] scores = new int[xs.length];
+        int played = 0;
+        long start = System.nanoTime();
+        boolean isOver = false;
+        while (true) {
+            xs[played] = straight.getMario().getX();
+            ys[played] = straight.getMario().getY();
+            scores[played] = straight.getScore();
+            if (isOver || played == replay.getFrameCount()) {
+                break;
+            }
+            isOver = straight.update(replay.frame(played));
+            played++;
+        }
+        double straightMillis = (System.nanoTime() - start) / NANOS_PER_MILLISECOND;
+
+        // 4) Seek to the end, making every keyframe, then to random frames, checking each level sought
+        ReplaySeeker seeker = new ReplaySeeker(replay, gameProps, interval, maxKeyframes);
+        start = System.nanoTime();
+        int mismatches = check(seeker.seek(replay.getFrameCount()), played, xs, ys, scores);
+        double firstMillis = (System.nanoTime() - start) / NANOS_PER_MILLISECOND;
+        Random random = new Random(seed);
+        double totalMillis = 0;
+        double worstMillis = 0;
+        for (int i = 0; i < seeks; i++) {
+            int frame = random.nextInt(replay.getFrameCount() + 1);
+            long seekStart = System.nanoTime();
+            LevelScreen sought = seeker.seek(frame);
+            double millis = (System.nanoTime() - seekStart) / NANOS_PER_MILLISECOND;
+            totalMillis += millis;
+            worstMillis = Math.max(worstMillis, millis);
+            mismatches += check(sought, Math.min(frame, played), xs, ys, scores);
+        }
+
+        // 5) Report the seeks against straight play
+        System.out.printf("level %d, seed %d, %d frames (%s): straight play %.1f ms; "
+                        + "first seek to the end %.1f ms; %d seeks: %.2f ms on average, %.2f ms at worst; "
+                        + "%d keyframes every %d frames; %d mismatches%n",
+                replay.getLevel(), replay.getSeed(), replay.getFrameCount(),
+                isOver ? "level over after " + played : "level still running", straightMillis,
+                firstMillis, seeks, seeks == 0 ? 0 : totalMillis / seeks, worstMillis,
+                seeker.getKeyframeCount(), seeker.getInterval(), mismatches);
+    }
+
+    /**
+     * Records a game on a level created from a seed, in which no key is ever pressed.
+     *
+     * @param level     The level played
+     * @param seed      The seed the level is created from
+     * @param gameProps Properties containing game configuration data
+     * @return The replay of the game, up to the frame the level ended in
+     */
+    private static Replay record(int level, long seed, Properties gameProps) {
+        Replay replay = new Replay(level, seed);
+        LevelScreen screen = LevelScreen.create(level, seed, gameProps);
+        screen.setHeadless(true);
+        boolean isOver = false;
+        while (!isOver) {
+            replay.record(NO_KEYS);
+            isOver = screen.update(NO_KEYS);
+        }
+        return replay;
+    }
+
+    /**
+     * Checks a level sought against straight play.
+     *
+     * @param sought The level sought
+     * @param frame  The number of frames the level has played
+     * @param xs     Mario's x-coordinate after each number of frames of straight play
+     * @param ys     Mario's y-coordinate after each number of frames of straight play
+     * @param scores The score after each number of frames of straight play
+     * @return 1 if the level differs from straight play, 0 otherwise
+     */
+    private static int check(LevelScreen sought, int frame, double[] xs, double[] ys, int[] scores) {
+        boolean isSame = sought.getMario().getX() == xs[frame] && sought.getMario().getY() == ys[frame]
+                && sought.getScore() == scores[frame];
+        if (!isSame) {
+            System.out.println("Mismatch at frame " + frame);
+        }
+        return isSame ? 0 : 1;
+    }
+}
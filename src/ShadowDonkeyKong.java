@@ -1,8 +1,16 @@
 import bagel.*;
+import java.io.IOException;
 import java.util.Properties;
+import objects.FrameCapture;
+import objects.HighScoreTable;
+import objects.ScoreClient;
+import screens.AutoPlayer;
+import screens.Ghost;
 import screens.HomeScreen;
 import screens.Level1Screen;
 import screens.Level2Screen;
+import screens.LevelScreen;
+import screens.Telemetry;
 import screens.GameEndScreen;
 
 /**
@@ -40,11 +48,46 @@ public class ShadowDonkeyKong extends AbstractGame {
      */
     private Level2Screen level2Screen;
 
+    /**
+     * The built-in player steering Mario in level 2, or null if the player at the keyboard does
+     */
+    private AutoPlayer autoPlayer;
+
     /**
      * The game end screen object
      */
     private GameEndScreen gameEndScreen;
 
+    /**
+     * The capture of screenshots and clips of the levels, or null if capturing is disabled
+     */
+    private final FrameCapture FRAME_CAPTURE;
+
+    /**
+     * The best scores played on this machine, or null if they cannot be kept
+     */
+    private final HighScoreTable HIGH_SCORES;
+
+    /**
+     * The client submitting the final scores to the central leaderboard, or null if they are not submitted
+     */
+    private final ScoreClient SCORE_CLIENT;
+
+    /**
+     * The telemetry the levels' gameplay events are recorded to, or null if they are not recorded
+     */
+    private final Telemetry TELEMETRY;
+
+    /**
+     * Whether a ghost of the best run races the player through each level
+     */
+    private final boolean IS_GHOST_ENABLED;
+
+    /**
+     * The ghost racing the player through the current level, or null if there is none
+     */
+    private Ghost ghost;
+
     /**
      * The current level
      * 0: Home
@@ -74,11 +117,6 @@ public class ShadowDonkeyKong extends AbstractGame {
      */
     public static final int GAME_END = 3;
 
-    /**
-     * The constant represent bonus score for each time remaining left in seconds
-     */
-    public static final int TIME_LEFT_BONUS_SCORE = 3;
-
     /**
      * The static screen width
      */
@@ -108,6 +146,13 @@ public class ShadowDonkeyKong extends AbstractGame {
 
         // Initialize the home screen
         homeScreen = new HomeScreen(GAME_PROPS, MESSAGE_PROPS);
+        FRAME_CAPTURE = Boolean.parseBoolean(gameProps.getProperty("capture.enabled", "true"))
+                ? new FrameCapture(gameProps) : null;
+        HIGH_SCORES = openHighScores(gameProps);
+        SCORE_CLIENT = gameProps.getProperty("scores.url", "").isEmpty() ? null : new ScoreClient(gameProps);
+        TELEMETRY = Boolean.parseBoolean(gameProps.getProperty("telemetry.enabled", "false"))
+                ? openTelemetry(gameProps) : null;
+        IS_GHOST_ENABLED = Boolean.parseBoolean(gameProps.getProperty("ghost.enabled", "false"));
     }
 
     /**
@@ -128,53 +173,58 @@ public class ShadowDonkeyKong extends AbstractGame {
             if (input.wasPressed(Keys.ENTER)) {
                 // Start Level 1 when ENTER is pressed
                 level1Screen = new Level1Screen(GAME_PROPS);
+                if (TELEMETRY != null) {
+                    level1Screen.setTelemetry(TELEMETRY);
+                }
+                startGhost(level1Screen, LEVEL_1);
                 currentLevel = LEVEL_1;
             } else if (input.wasPressed(Keys.NUM_2)) {
                 // Skip to Level 2 when 2 is pressed
-                level2Screen = new Level2Screen(GAME_PROPS);
-                currentLevel = LEVEL_2;
+                startLevel2(0);
             } else {
                 homeScreen.update(input);
             }
         }
         // Level 1 Gameplay Screen
         else if (currentLevel == LEVEL_1) {
-            if (level1Screen.update(input)) {
+            boolean isOver = level1Screen.update(input);
+            captureFrame(input);
+            if (isOver) {
+                finishGhost(level1Screen.isLevelCompleted());
+
                 // Check if Level 1 is completed (won)
                 if (level1Screen.isLevelCompleted()) {
-                    // Calculate time bonus: 3 points per second remaining
-                    int timeLeft = level1Screen.getSecondsLeft();
-                    int timeBonus = timeLeft * TIME_LEFT_BONUS_SCORE;
-                    int totalScore = level1Screen.getScore() + timeBonus;
-
-                    // Create Level 2 and pass the updated score from Level 1 (including time bonus)
-                    level2Screen = new Level2Screen(GAME_PROPS);
-                    level2Screen.setScore(totalScore);
-                    currentLevel = LEVEL_2;
+                    // Create Level 2 and pass the score from Level 1 (already including the time bonus)
+                    startLevel2(level1Screen.getScore());
                 } else if (level1Screen.isTimeOut()) {
                     // Game over due to timeout - keep the current score
-                    endLevel(false, level1Screen.getScore(), 0);
+                    endLevel(false, level1Screen.getScore());
                 } else {
                     // Game over in Level 1 due to death - set score to 0
-                    endLevel(false, 0, 0);
+                    endLevel(false, 0);
                 }
             }
         }
         // Level 2 Gameplay Screen
         else if (currentLevel == LEVEL_2) {
-            if (level2Screen.update(input)) {
+            boolean isOver = autoPlayer == null
+                    ? level2Screen.update(input) : level2Screen.update(autoPlayer.nextControls(level2Screen));
+            captureFrame(input);
+            if (isOver) {
+                finishGhost(!level2Screen.isGameOver());
+
                 // For Level 2, check if the game is over due to death
                 if (level2Screen.isGameOver()) {
                     if (level2Screen.isTimeOut()) {
                         // Game over due to timeout - keep the current score
-                        endLevel(false, level2Screen.getScore(), 0);
+                        endLevel(false, level2Screen.getScore());
                     } else {
                         // Game over in Level 2 due to death - set score to 0
-                        endLevel(false, 0, 0);
+                        endLevel(false, 0);
                     }
                 } else {
-                    // Level 2 completed (won)
-                    endLevel(true, level2Screen.getScore(), level2Screen.getSecondsLeft());
+                    // Level 2 completed (won), the score already includes the time bonus
+                    endLevel(true, level2Screen.getScore());
                 }
             }
         }
@@ -190,20 +240,117 @@ public class ShadowDonkeyKong extends AbstractGame {
         }
     }
 
+    /**
+     * Opens the table of the best scores. The game is still played if it cannot be opened.
+     *
+     * @param gameProps Properties containing game configuration data, including the table's file
+     * @return The table of the best scores, or null if it cannot be opened
+     */
+    private static HighScoreTable openHighScores(Properties gameProps) {
+        String path = gameProps.getProperty("highScores.file", "highscores.dat");
+        try {
+            return new HighScoreTable(path, Integer.parseInt(gameProps.getProperty("highScores.size", "10")));
+        } catch (IOException e) {
+            System.err.println("High scores are not kept, " + path + " cannot be opened: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Starts the telemetry of this session. The game is still played if it cannot be started.
+     *
+     * @param gameProps Properties containing game configuration data, including the telemetry directory
+     * @return The telemetry of the session, or null if it cannot be started
+     */
+    private static Telemetry openTelemetry(Properties gameProps) {
+        String dir = gameProps.getProperty("telemetry.dir", "telemetry");
+        try {
+            return new Telemetry(dir);
+        } catch (IOException e) {
+            System.err.println("Telemetry is not recorded, " + dir + " cannot be written: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Captures the level frame just drawn if the capture key is pressed or held.
+     *
+     * @param input The Input object containing user input information
+     */
+    private void captureFrame(Input input) {
+        if (FRAME_CAPTURE != null) {
+            FRAME_CAPTURE.update(input);
+        }
+    }
+
+    /**
+     * Starts racing a ghost of the best run through a level, if ghosts are enabled.
+     *
+     * @param level       The level started
+     * @param levelNumber The number of the level
+     */
+    private void startGhost(LevelScreen level, int levelNumber) {
+        if (IS_GHOST_ENABLED) {
+            ghost = new Ghost(GAME_PROPS, levelNumber);
+            level.setGhost(ghost);
+        }
+    }
+
+    /**
+     * Ends the race of the current level's ghost, which keeps the player's run if it is the new best.
+     *
+     * @param isCleared Whether the player cleared the level
+     */
+    private void finishGhost(boolean isCleared) {
+        if (ghost != null) {
+            ghost.finish(isCleared);
+            ghost = null;
+        }
+    }
+
+    /**
+     * Starts level 2, played by the built-in player if the game is configured for it
+     * (e.g. attract mode or soak testing).
+     *
+     * @param initialScore The score carried over into level 2
+     */
+    private void startLevel2(int initialScore) {
+        level2Screen = new Level2Screen(GAME_PROPS);
+        level2Screen.setScore(initialScore);
+        if (TELEMETRY != null) {
+            level2Screen.setTelemetry(TELEMETRY);
+        }
+        startGhost(level2Screen, LEVEL_2);
+        if (Boolean.parseBoolean(GAME_PROPS.getProperty("autoPlayer.enabled", "false"))) {
+            autoPlayer = new AutoPlayer(GAME_PROPS);
+        }
+        currentLevel = LEVEL_2;
+    }
+
     /**
      * Transitions the game to the end screen with relevant game statistics.
      * Cleans up level resources and sets up the game end screen.
      *
      * @param isWon Whether the player won the game
      * @param finalScore The final score achieved by the player
-     * @param timeRemaining Remaining time when the level was completed
      */
-    private void endLevel(boolean isWon, int finalScore, int timeRemaining) {
+    private void endLevel(boolean isWon, int finalScore) {
         gameEndScreen = new GameEndScreen(GAME_PROPS, MESSAGE_PROPS);
         gameEndScreen.setIsWon(isWon);
-        gameEndScreen.setFinalScore(timeRemaining, finalScore);
+        gameEndScreen.setFinalScore(finalScore);
+        if (HIGH_SCORES != null) {
+            HIGH_SCORES.record(finalScore, isWon);
+            gameEndScreen.setBestScores(HIGH_SCORES.getBestScores());
+        }
+        if (SCORE_CLIENT != null) {
+            SCORE_CLIENT.submit(finalScore, isWon);
+        }
         level1Screen = null;
         level2Screen = null;
+        if (autoPlayer != null) {
+            autoPlayer.shutdown();
+            autoPlayer = null;
+        }
         currentLevel = GAME_END; // Game end screen
     }
 
@@ -230,11 +377,24 @@ public class ShadowDonkeyKong extends AbstractGame {
      * Loads property files and starts the game.
      *
      * @param args Command line arguments (not used)
+     * @throws InterruptedException If interrupted while the last screenshots, clips, scores and events are written
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         Properties gameProps = IOUtils.readPropertiesFile("res/app.properties");
         Properties messageProps = IOUtils.readPropertiesFile("res/message.properties");
         ShadowDonkeyKong game = new ShadowDonkeyKong(gameProps, messageProps);
         game.run();
+        if (game.FRAME_CAPTURE != null) {
+            game.FRAME_CAPTURE.close();
+        }
+        if (game.HIGH_SCORES != null) {
+            game.HIGH_SCORES.close();
+        }
+        if (game.SCORE_CLIENT != null) {
+            game.SCORE_CLIENT.close();
+        }
+        if (game.TELEMETRY != null) {
+            game.TELEMETRY.close();
+        }
     }
 }
\ No newline at end of file
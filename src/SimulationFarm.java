@@ -0,0 +1,344 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import objects.Controls;
+import objects.Display;
+import objects.RandomControls;
+import objects.Replay;
+import screens.AutoPlayer;
+import screens.Level2Screen;
+import screens.LevelScreen;
+
+/**
+ * Runs many independent games at once without any window, to stress the game engine.
+ * Each game is a level created from its own seed and steered by its own input: random keys,
+ * the built-in player (level 2 only) or a replay. The games are spread over a pool of threads,
+ * and the farm reports the simulated frame rate, the games won and lost, and the allocation rate.
+ *
+ * Usage: {@code SimulationFarm [--games N] [--threads T] [--inputs random,bot,replay:FILE]
+ * [--levels 1,2] [--seed S] [--frames F] [--config FILE] [--record DIR]}
+ * Inputs and levels are given to the games in turn; game i is created from seed S + i.
+ * A replay brings its own level and seed.
+ */
+public class SimulationFarm {
+    /**
+     * The number of bytes in a megabyte
+     */
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    /**
+     * The number of nanoseconds in a second
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The game configuration
+     */
+    private final Properties GAME_PROPS;
+
+    /**
+     * The pool the built-in players search on, shared by every game they play
+     */
+    private final ForkJoinPool BOT_POOL;
+
+    /**
+     * The directory the replay of every game is written to, or null if games are not recorded
+     */
+    private final String RECORD_DIR;
+
+    /**
+     * The most frames a game is played for, or 0 to play every game until its level ends
+     */
+    private final int MAX_FRAMES;
+
+    /**
+     * Constructs a farm.
+     *
+     * @param gameProps Properties containing game configuration data
+     * @param botPool   The pool the built-in players search on
+     * @param recordDir The directory the replays are written to, or null if games are not recorded
+     * @param maxFrames The most frames a game is played for, or 0 to play every game until its level ends
+     */
+    private SimulationFarm(Properties gameProps, ForkJoinPool botPool, String recordDir, int maxFrames) {
+        this.GAME_PROPS = gameProps;
+        this.BOT_POOL = botPool;
+        this.RECORD_DIR = recordDir;
+        this.MAX_FRAMES = maxFrames;
+    }
+
+    /**
+     * Plays one game to its end, on the calling thread.
+     *
+     * @param id    The number of the game in the farm
+     * @param level The level played
+     * @param seed  The seed the level is created from
+     * @param input The input steering Mario: "random", "bot" or "replay:FILE"
+     * @return The result of the game
+     * @throws IOException If the replay cannot be read or written
+     */
+    private GameResult play(int id, int level, long seed, String input) throws IOException {
+        com.sun.management.ThreadMXBean threads = threadBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+
+        // 1) Create the level and the input steering Mario in it
+        Replay replay = null;
+        if (input.startsWith("replay:")) {
+            replay = Replay.read(input.substring("replay:".length()));
+            level = replay.getLevel();
+            seed = replay.getSeed();
+        }
+        LevelScreen screen = LevelScreen.create(level, seed, GAME_PROPS);
+        screen.setHeadless(true);
+        RandomControls random = input.equals("random") ? new RandomControls(seed) : null;
+        AutoPlayer bot = null;
+        if (input.equals("bot")) {
+            if (level != 2) {
+                throw new IllegalArgumentException("The built-in player only plays level 2, not level " + level);
+            }
+            bot = new AutoPlayer(GAME_PROPS, BOT_POOL);
+        } else if (random == null && replay == null) {
+            throw new IllegalArgumentException("Unknown input " + input);
+        }
+        Replay recording = RECORD_DIR == null ? null : new Replay(level, seed);
+
+        // 2) Play the level until it ends, runs out of frames or its replay is over
+        int frames = 0;
+        boolean isOver = false;
+        try {
+            while (!isOver && (MAX_FRAMES == 0 || frames < MAX_FRAMES)
+                    && (replay == null || frames < replay.getFrameCount())) {
+                Controls controls;
+                if (bot != null) {
+                    controls = bot.nextControls((Level2Screen) screen);
+                } else if (replay != null) {
+                    controls = replay.frame(frames);
+                } else {
+                    random.advance();
+                    controls = random;
+                }
+                if (recording != null) {
+                    recording.record(controls);
+                }
+                isOver = screen.update(controls);
+                frames++;
+            }
+        } finally {
+            if (bot != null) {
+                bot.shutdown();
+            }
+        }
+
+        // 3) Keep the replay of the game
+        if (recording != null) {
+            recording.write(new File(RECORD_DIR, "game-" + id + ".replay").getPath());
+        }
+
+        return new GameResult(id, level, seed, input, frames, screen.isWon(), screen.getScore(),
+                System.nanoTime() - start, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+    }
+
+    /**
+     * Gets the thread bean of the JVM, which measures the bytes each thread has allocated.
+     *
+     * @return The thread bean of the JVM
+     */
+    private static com.sun.management.ThreadMXBean threadBean() {
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    /**
+     * Entry point of the farm.
+     *
+     * @param args Command line arguments, see the class documentation
+     * @throws Exception If a game fails
+     */
+    public static void main(String[] args) throws Exception {
+        // 1) Read the arguments
+        int games = 8;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String[] inputs = {"random"};
+        String[] levels = {"1", "2"};
+        long seed = 0;
+        int maxFrames = 0;
+        String config = "res/app.properties";
+        String recordDir = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--inputs": inputs = value.split(","); break;
+                case "--levels": levels = value.split(","); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--frames": maxFrames = Integer.parseInt(value); break;
+                case "--config": config = value; break;
+                case "--record": recordDir = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+
+        // 2) Simulate without a window, before anything loads images or fonts
+        Properties gameProps = IOUtils.readPropertiesFile(config);
+        Display.disable(gameProps);
+        if (recordDir != null) {
+            new File(recordDir).mkdirs();
+        }
+
+        // 3) Play the games on a pool of platform threads, the bots searching on a pool of their own
+        ForkJoinPool botPool = new ForkJoinPool(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        SimulationFarm farm = new SimulationFarm(gameProps, botPool, recordDir, maxFrames);
+        List<Future<GameResult>> played = new ArrayList<>(games);
+        long allocatedBefore = totalAllocatedBytes();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < games; i++) {
+                int id = i;
+                int level = Integer.parseInt(levels[i % levels.length].trim());
+                long gameSeed = seed + i;
+                String input = inputs[i % inputs.length].trim();
+                played.add(pool.submit(() -> farm.play(id, level, gameSeed, input)));
+            }
+
+            // 4) Report every game, then the whole farm
+            long frames = 0;
+            int won = 0;
+            for (Future<GameResult> result : played) {
+                GameResult game;
+                try {
+                    game = result.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("A game of the farm failed", e.getCause());
+                }
+                System.out.println(game);
+                frames += game.FRAMES;
+                won += game.IS_WON ? 1 : 0;
+            }
+            double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+            double allocated = (totalAllocatedBytes() - allocatedBefore) / BYTES_PER_MEGABYTE;
+            System.out.printf("%d games on %d threads: %d won, %d lost, %d frames in %.2f s (%.0f frames/s), "
+                            + "%.1f MB allocated (%.1f MB/s)%n",
+                    games, threads, won, games - won, frames, seconds, frames / seconds,
+                    allocated, allocated / seconds);
+        } finally {
+            pool.shutdownNow();
+            botPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Sums the bytes allocated by every live thread of the JVM.
+     *
+     * @return The bytes allocated by every live thread
+     */
+    private static long totalAllocatedBytes() {
+        long total = 0;
+        for (long allocated : threadBean().getThreadAllocatedBytes(threadBean().getAllThreadIds())) {
+            total += Math.max(allocated, 0);
+        }
+        return total;
+    }
+
+    /**
+     * The result of one game of the farm
+     */
+    private static class GameResult {
+        /**
+         * The number of the game in the farm
+         */
+        private final int ID;
+
+        /**
+         * The level played
+         */
+        private final int LEVEL;
+
+        /**
+         * The seed the level was created from
+         */
+        private final long SEED;
+
+        /**
+         * The input that steered Mario
+         */
+        private final String INPUT;
+
+        /**
+         * The number of frames played
+         */
+        private final int FRAMES;
+
+        /**
+         * Whether the level was won
+         */
+        private final boolean IS_WON;
+
+        /**
+         * The score at the end of the game
+         */
+        private final int SCORE;
+
+        /**
+         * The time the game took, in nanoseconds
+         */
+        private final long NANOS;
+
+        /**
+         * The bytes allocated by the thread playing the game
+         */
+        private final long ALLOCATED;
+
+        /**
+         * Constructs the result of a game.
+         *
+         * @param id        The number of the game in the farm
+         * @param level     The level played
+         * @param seed      The seed the level was created from
+         * @param input     The input that steered Mario
+         * @param frames    The number of frames played
+         * @param isWon     Whether the level was won
+         * @param score     The score at the end of the game
+         * @param nanos     The time the game took, in nanoseconds
+         * @param allocated The bytes allocated by the thread playing the game
+         */
+        private GameResult(int id, int level, long seed, String input, int frames, boolean isWon, int score,
+                           long nanos, long allocated) {
+            this.ID = id;
+            this.LEVEL = level;
+            this.SEED = seed;
+            this.INPUT = input;
+            this.FRAMES = frames;
+            this.IS_WON = isWon;
+            this.SCORE = score;
+            this.NANOS = nanos;
+            this.ALLOCATED = allocated;
+        }
+
+        /**
+         * Describes the game on one line.
+         *
+         * @return The description of the game
+         */
+        @Override
+        public String toString() {
+            double seconds = NANOS / NANOS_PER_SECOND;
+            return String.format("game %d: level %d, seed %d, %s, %s with score %d after %d frames "
+                            + "(%.0f frames/s, %.1f MB allocated)",
+                    ID, LEVEL, SEED, INPUT, IS_WON ? "won" : "lost", SCORE, FRAMES,
+                    FRAMES / seconds, ALLOCATED / BYTES_PER_MEGABYTE);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package objects;
+
+/**
+ * The archetypes of the game's entities: each archetype is a fixed set of components,
+ * and every entity of an archetype lives in the archetype's own chunks of the {@link EntityStore}.
+ * Systems (gravity, landing, drawing) only visit the archetypes holding the components they need.
+ *
+ * @author Minh Triet Pham
+ */
+public enum Archetype {
+    /**
+     * Scenery that never moves (platforms)
+     */
+    SCENERY(EntityStore.SCENERY),
+
+    /**
+     * Scenery that falls onto the platforms when the level starts (ladders)
+     */
+    FALLING_SCENERY(EntityStore.SCENERY | EntityStore.GRAVITY | EntityStore.LANDING),
+
+    /**
+     * Bodies that fall and rest on the platforms (barrels, Donkey Kong)
+     */
+    FALLING_BODY(EntityStore.GRAVITY | EntityStore.LANDING),
+
+    /**
+     * Enemies that fall onto a platform and then patrol it (normal and intelligent monkeys)
+     */
+    PATROLLER(EntityStore.GRAVITY | EntityStore.PATROL),
+
+    /**
+     * The player (Mario), who is moved by his own update
+     */
+    PLAYER(EntityStore.PLAYER),
+
+    /**
+     * Projectiles flying in a straight line (bullets, bananas)
+     */
+    PROJECTILE(EntityStore.PROJECTILE),
+
+    /**
+     * Items that Mario can pick up (hammer, blasters)
+     */
+    PICKUP(EntityStore.PICKUP);
+
+    /**
+     * The components of the archetype, a combination of the component bits of {@link EntityStore}
+     */
+    private final int COMPONENTS;
+
+    /**
+     * Constructs an archetype with the given components.
+     *
+     * @param components The components of the archetype
+     */
+    Archetype(int components) {
+        this.COMPONENTS = components;
+    }
+
+    /**
+     * Checks whether the archetype has every one of the given components.
+     *
+     * @param components The components to check
+     * @return True if the archetype has all of them, false otherwise
+     */
+    public boolean has(int components) {
+        return (COMPONENTS & components) == components;
+    }
+}
@@ -12,7 +12,7 @@ public class Banana extends ProjectileEntity{
     /**
      * The image representing the banana
      */
-    private final Image BANANA_IMAGE;   
+    private final Sprite BANANA_IMAGE;   
 
     /**
      * The horizontal speed of the banana
@@ -23,17 +23,39 @@ public class Banana extends ProjectileEntity{
      * The maximum travel distance of the banana
      */
     private static final int MAX_DISTANCE = Physics.BANANA_MAX_DISTANCE;
+
+    /**
+     * The frame in which the banana has flown its maximum distance
+     */
+    private final int DESPAWN_TICK;
     
     /**
      * Creates a new banana projectile at the specified position.
+     * The banana flies in a straight line, so the frame in which it despawns is worked out here, once.
      *
      * @param startX The initial x-coordinate
      * @param startY The initial y-coordinate
      * @param directionRight Whether the banana moves right (true) or left (false)
+     * @param store The store holding the state of the level's entities
+     */
+    public Banana(double startX, double startY, boolean directionRight, EntityStore store) {
+        super(startX, startY, directionRight, MOVE_SPEED, store);
+        this.BANANA_IMAGE = SpriteAtlas.get("res/banana.png");
+        setSize(BANANA_IMAGE);
+        this.DESPAWN_TICK = firstTickWhere(tick -> getDistanceAt(tick) >= MAX_DISTANCE,
+                (int) Math.ceil(MAX_DISTANCE / MOVE_SPEED));
+    }
+
+    /**
+     * Creates a copy of a banana for a fork of the level's store.
+     *
+     * @param original The banana to copy
+     * @param store The fork of the original banana's store
      */
-    public Banana(double startX, double startY, boolean directionRight) {
-        super(startX, startY, directionRight);
-        this.BANANA_IMAGE = new Image("res/banana.png");
+    public Banana(Banana original, EntityStore store) {
+        super(original, store);
+        this.BANANA_IMAGE = original.BANANA_IMAGE;
+        this.DESPAWN_TICK = original.DESPAWN_TICK;
     }
 
     /**
@@ -49,26 +71,23 @@ public class Banana extends ProjectileEntity{
         }
 
         // Move the banana horizontally
-        if (this.isFacingRight()) {
-            this.setX(getX() + MOVE_SPEED);
-        } else {
-            this.setX(getX() - MOVE_SPEED);
-        }
-        this.setDistanceTravelled(getDistanceTravelled() + MOVE_SPEED);
+        advance();
 
         // Check if we've reached max distance
-        if (getDistanceTravelled() >= MAX_DISTANCE) {
+        if (getTick() >= DESPAWN_TICK) {
             this.deactivate();
             return false;
         }
 
         // Draw the banana
-        draw();
+        if (!isHeadless()) {
+            draw();
+        }
         return true;
     }
 
     /**
-     * Checks if the banana is colliding with Mario.
+     * Checks if the banana is colliding with Mario, anywhere along its movement in this frame.
      *
      * @param mario The Mario object to check collision with
      * @return True if colliding, false otherwise
@@ -77,7 +96,7 @@ public class Banana extends ProjectileEntity{
         if (!this.isActive()) {
             return false;
         }
-        return getBoundingBox().intersects(mario.getBoundingBox());
+        return SweptCollision.collides(getPreviousBoundingBox(), getBoundingBox(), mario.getBoundingBox());
     }
 
     /**
@@ -95,6 +114,15 @@ public class Banana extends ProjectileEntity{
         );
     }
 
+    /**
+     * Gets the bounding box of the banana at the start of the current frame, before it last moved.
+     *
+     * @return A {@link Rectangle} representing the banana's collision area one frame ago.
+     */
+    public Rectangle getPreviousBoundingBox() {
+        return getBoundingBoxAt(getTick() - 1, BANANA_IMAGE.getWidth(), BANANA_IMAGE.getHeight());
+    }
+
     /**
      * Draws the banana on screen.
      */
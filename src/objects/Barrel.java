@@ -12,54 +12,41 @@ public class Barrel extends StaticOnPlatformEntity{
     /**
      * The image representing the barrel
      */
-    private final Image BARREL_IMAGE;
-
-    /**
-     * Signal of whether the barrel has been destroyed or not, initialized to be
-     * false as the barrel is not destroyed at the start of the game
-     */
-    private boolean isDestroyed = false;
+    private final Sprite BARREL_IMAGE;
 
     /**
      * Constructs a new Barrel at the specified starting position.
      *
      * @param startX The initial x-coordinate of the barrel.
      * @param startY The initial y-coordinate of the barrel.
+     * @param store  The store holding the state of the level's entities.
+     */
+    public Barrel(double startX, double startY, EntityStore store) {
+        super(startX, startY, store, Archetype.FALLING_BODY, Physics.BARREL_GRAVITY, Physics.BARREL_TERMINAL_VELOCITY);
+        this.BARREL_IMAGE = SpriteAtlas.get("res/barrel.png"); // Load barrel sprite
+        setSize(BARREL_IMAGE);
+    }
+
+    /**
+     * Constructs a copy of a barrel for a fork of the level's store.
+     *
+     * @param original The barrel to copy.
+     * @param store    The fork of the original barrel's store.
      */
-    public Barrel(double startX, double startY) {
-        super(startX, startY);
-        this.BARREL_IMAGE = new Image("res/barrel.png"); // Load barrel sprite
+    public Barrel(Barrel original, EntityStore store) {
+        super(original, store);
+        this.BARREL_IMAGE = original.BARREL_IMAGE;
     }
 
     /**
-     * Updates the barrel's position, applies gravity, checks for platform collisions,
-     * and renders the barrel if it is not destroyed.
+     * Lands the barrel on the platform it fell onto, unless it has been destroyed.
      *
      * @param platforms An array of platforms for collision detection.
      */
     @Override
-    public void update(Platform[] platforms) {
-        if (!isDestroyed) {
-            // 1) Apply gravity
-            this.setVelocityY(getVelocityY() + Physics.BARREL_GRAVITY);
-            if (this.getVelocityY() > Physics.BARREL_TERMINAL_VELOCITY) {
-                this.setVelocityY(Physics.BARREL_TERMINAL_VELOCITY);
-            }
-            this.setY(getY() + getVelocityY());
-
-            // 2) Check for platform collisions
-            for (Platform platform : platforms) {
-                if (this.getBoundingBox().intersects(platform.getBoundingBox())) {
-                    // Position the barrel on top of the platform
-                    double newY = platform.getY() - (platform.getHeight() / 2) - (BARREL_IMAGE.getHeight() / 2);
-                    this.setY(newY);
-                    this.setVelocityY(0); // Stop falling
-                    break;
-                }
-            }
-
-            // 3) Draw the barrel
-            draw();
+    public void land(Platform[] platforms) {
+        if (!isDestroyed()) {
+            super.land(platforms);
         }
     }
 
@@ -68,7 +55,7 @@ public class Barrel extends StaticOnPlatformEntity{
      */
     @Override
     public void draw() {
-        if (!isDestroyed) {
+        if (!isDestroyed()) {
             BARREL_IMAGE.draw(getX(), getY());
         }
     }
@@ -81,7 +68,7 @@ public class Barrel extends StaticOnPlatformEntity{
      */
     @Override
     public Rectangle getBoundingBox() {
-        if (isDestroyed) {
+        if (isDestroyed()) {
             return new Rectangle(-1000, -1000, 0, 0); // Off-screen if destroyed
         }
         return new Rectangle(
@@ -93,10 +80,10 @@ public class Barrel extends StaticOnPlatformEntity{
     }
 
     /**
-     * Marks the barrel as destroyed, preventing it from being drawn or updated.
+     * Marks the barrel as destroyed, preventing it from being drawn or falling any further.
      */
     public void destroy() {
-        isDestroyed = true;
+        removeFromPlay();
     }
 
     /**
@@ -105,15 +92,15 @@ public class Barrel extends StaticOnPlatformEntity{
      * @return {@code true} if the barrel is destroyed, {@code false} otherwise.
      */
     public boolean isDestroyed() {
-        return isDestroyed;
+        return !isInPlay();
     }
 
     /**
      * Retrieves the barrel's image.
      *
-     * @return An {@link Image} representing the barrel.
+     * @return A {@link Sprite} representing the barrel.
      */
-    public Image getBarrelImage() {
+    public Sprite getBarrelImage() {
         return this.BARREL_IMAGE;
     }
 }
@@ -12,7 +12,7 @@ public class Blaster extends CollectibleEntity{
     /**
      * The image representing the blaster
      */
-    private final Image BLASTER_IMAGE;
+    private final Sprite BLASTER_IMAGE;
 
     /**
      * The initial number of bullets provided by this blaster
@@ -24,28 +24,23 @@ public class Blaster extends CollectibleEntity{
      *
      * @param x The x-coordinate of the blaster.
      * @param y The y-coordinate of the blaster.
+     * @param store The store holding the state of the level's entities.
      */
-    public Blaster(double x, double y) {
-        super(x, y);
-        this.BLASTER_IMAGE = new Image("res/blaster.png");
+    public Blaster(double x, double y, EntityStore store) {
+        super(x, y, store);
+        this.BLASTER_IMAGE = SpriteAtlas.get("res/blaster.png");
+        setSize(BLASTER_IMAGE);
     }
 
     /**
-     * Gets the width of the blaster image.
+     * Constructs a copy of a Blaster for a fork of the level's store.
      *
-     * @return The width of the blaster image.
+     * @param original The blaster to copy.
+     * @param store The fork of the original blaster's store.
      */
-    public double getWidth() {
-        return BLASTER_IMAGE.getWidth();
-    }
-    
-    /**
-     * Gets the height of the blaster image.
-     *
-     * @return The height of the blaster image.
-     */
-    public double getHeight() {
-        return BLASTER_IMAGE.getHeight();
+    public Blaster(Blaster original, EntityStore store) {
+        super(original, store);
+        this.BLASTER_IMAGE = original.BLASTER_IMAGE;
     }
 
     /**
@@ -1,5 +1,4 @@
 package objects;
-import bagel.*;
 import bagel.util.Rectangle;
 /**
  * Represents a bullet fired by Mario when using a blaster.
@@ -11,17 +10,17 @@ public class Bullet extends ProjectileEntity{
     /**
      * The image representing the bullet facing left
      */
-    private final Image BULLET_IMAGE_LEFT;
+    private final Sprite BULLET_IMAGE_LEFT;
 
     /**
      * The image representing the bullet facing right
      */
-    private final Image BULLET_IMAGE_RIGHT;
+    private final Sprite BULLET_IMAGE_RIGHT;
 
     /**
      * The current image of the bullet
      */
-    private final Image currentImage;
+    private final Sprite currentImage;
 
     /**
      * The speed of the bullet
@@ -33,19 +32,81 @@ public class Bullet extends ProjectileEntity{
      */
     private static final double MAX_TRAVEL_DISTANCE = Physics.BULLET_MAX_TRAVEL_DISTANCE;
     
+    /**
+     * The frame in which the bullet has flown its maximum distance or left the screen
+     */
+    private final int DESPAWN_TICK;
+
+    /**
+     * The first frame in which the bullet hits a platform, or {@link #NEVER}
+     */
+    private final int PLATFORM_HIT_TICK;
+
+    /**
+     * The first frame in which the bullet hits Donkey Kong, or {@link #NEVER}
+     */
+    private int donkeyHitTick;
+
+    /**
+     * The y-coordinate of Donkey Kong when the donkey hit was scheduled
+     */
+    private double donkeyY;
+
     /**
      * Constructs a new bullet at Mario's position traveling in the direction Mario is facing.
+     * Bullets fly in a straight line, so the frames in which the bullet despawns and hits
+     * the platforms and Donkey Kong are all worked out here, once.
      *
      * @param startX       The x-coordinate where the bullet starts.
      * @param startY       The y-coordinate where the bullet starts.
      * @param isFacingRight Whether the bullet should travel right (true) or left (false).
+     * @param platforms    The platforms of the level, which never move.
+     * @param donkey       Donkey Kong.
+     * @param store        The store holding the state of the level's entities.
      */
-    public Bullet(double startX, double startY, boolean isFacingRight) {
-        super(startX, startY, isFacingRight);
-        this.BULLET_IMAGE_LEFT = new Image("res/bullet_left.png");
-        this.BULLET_IMAGE_RIGHT = new Image("res/bullet_right.png");
+    public Bullet(double startX, double startY, boolean isFacingRight, Platform[] platforms, Donkey donkey,
+                  EntityStore store) {
+        super(startX, startY, isFacingRight, BULLET_SPEED, store);
+        this.BULLET_IMAGE_LEFT = SpriteAtlas.get("res/bullet_left.png");
+        this.BULLET_IMAGE_RIGHT = SpriteAtlas.get("res/bullet_right.png");
         // Set initial image based on direction
         this.currentImage = isFacingRight ? BULLET_IMAGE_RIGHT : BULLET_IMAGE_LEFT;
+        setSize(currentImage);
+
+        // 1) The bullet despawns once it has flown its maximum distance or left the screen
+        double screenWidth = Display.getWidth();
+        this.DESPAWN_TICK = firstTickWhere(
+                tick -> getDistanceAt(tick) >= MAX_TRAVEL_DISTANCE
+                        || getXAt(tick) < 0 || getXAt(tick) > screenWidth,
+                (int) Math.ceil(MAX_TRAVEL_DISTANCE / BULLET_SPEED));
+
+        // 2) The first platform the bullet flies into
+        int platformHitTick = NEVER;
+        for (Platform platform : platforms) {
+            platformHitTick = Math.min(platformHitTick, firstTickHitting(platform.getBoundingBox(),
+                    currentImage.getWidth(), currentImage.getHeight(), 1));
+        }
+        this.PLATFORM_HIT_TICK = platformHitTick;
+
+        // 3) The frame in which the bullet reaches Donkey Kong
+        scheduleDonkeyHit(donkey);
+    }
+
+    /**
+     * Constructs a copy of a bullet for a fork of the level's store, keeping its scheduled hits.
+     *
+     * @param original The bullet to copy.
+     * @param store    The fork of the original bullet's store.
+     */
+    public Bullet(Bullet original, EntityStore store) {
+        super(original, store);
+        this.BULLET_IMAGE_LEFT = original.BULLET_IMAGE_LEFT;
+        this.BULLET_IMAGE_RIGHT = original.BULLET_IMAGE_RIGHT;
+        this.currentImage = original.currentImage;
+        this.DESPAWN_TICK = original.DESPAWN_TICK;
+        this.PLATFORM_HIT_TICK = original.PLATFORM_HIT_TICK;
+        this.donkeyHitTick = original.donkeyHitTick;
+        this.donkeyY = original.donkeyY;
     }
     
     /**
@@ -60,27 +121,60 @@ public class Bullet extends ProjectileEntity{
         }
         
         // Move bullet in the appropriate direction
-        if (this.isFacingRight()) {
-            this.setX(getX() + BULLET_SPEED);
-        } else {
-            this.setX(getX() - BULLET_SPEED);
-        }
-        this.setDistanceTravelled(getDistanceTravelled() + BULLET_SPEED);
-        
-        // Check if bullet has reached its maximum travel distance
-        if (this.getDistanceTravelled() >= MAX_TRAVEL_DISTANCE) {
-            this.deactivate();
-            return false;
-        }
+        advance();
         
-        // Check if bullet is off-screen
-        if (getX() < 0 || getX() > bagel.Window.getWidth()) {
+        // Check if bullet has reached its maximum travel distance or left the screen
+        if (getTick() >= DESPAWN_TICK) {
             this.deactivate();
             return false;
         }
         
         return true;
     }
+
+    /**
+     * Checks whether the bullet hits Donkey Kong in the current frame.
+     * The hit is rescheduled if Donkey Kong has moved since it was worked out.
+     *
+     * @param donkey Donkey Kong.
+     * @return {@code true} if the bullet hits Donkey Kong, {@code false} otherwise.
+     */
+    public boolean isHittingDonkey(Donkey donkey) {
+        if (donkey.getY() != donkeyY) {
+            scheduleDonkeyHit(donkey);
+        }
+        return getTick() == donkeyHitTick;
+    }
+
+    /**
+     * Checks whether the bullet hits a platform in the current frame.
+     *
+     * @return {@code true} if the bullet hits a platform, {@code false} otherwise.
+     */
+    public boolean isHittingPlatform() {
+        return getTick() == PLATFORM_HIT_TICK;
+    }
+
+    /**
+     * Checks whether the bullet is on its way to hit Donkey Kong, before any platform stops it
+     * or it flies out of range. A monkey in the way can still stop it.
+     *
+     * @return {@code true} if the bullet is going to hit Donkey Kong, {@code false} otherwise.
+     */
+    public boolean isOnTarget() {
+        return donkeyHitTick != NEVER && donkeyHitTick <= PLATFORM_HIT_TICK && donkeyHitTick < DESPAWN_TICK;
+    }
+
+    /**
+     * Works out the first frame, from the current one on, in which the bullet reaches Donkey Kong.
+     *
+     * @param donkey Donkey Kong.
+     */
+    private void scheduleDonkeyHit(Donkey donkey) {
+        this.donkeyY = donkey.getY();
+        this.donkeyHitTick = firstTickHitting(donkey.getBoundingBox(),
+                currentImage.getWidth(), currentImage.getHeight(), Math.max(1, getTick()));
+    }
     
     /**
      * Gets the bounding box for collision detection.
@@ -97,6 +191,15 @@ public class Bullet extends ProjectileEntity{
         );
     }
 
+    /**
+     * Gets the bounding box of the bullet at the start of the current frame, before it last moved.
+     *
+     * @return A {@link Rectangle} representing the bullet's collision area one frame ago.
+     */
+    public Rectangle getPreviousBoundingBox() {
+        return getBoundingBoxAt(getTick() - 1, currentImage.getWidth(), currentImage.getHeight());
+    }
+
     /**
      * Draws the bullet on the screen.
      */
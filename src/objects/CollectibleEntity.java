@@ -10,25 +10,29 @@ import bagel.util.Rectangle;
  */
 public abstract class CollectibleEntity extends Entity{
     /**
-     * Whether the object has been collected
+     * Constructs a CollectibleEntity at the specified position, not collected yet
+     * @param startX The initial x-coordinate of this entity
+     * @param startY The initial y-coordinate of this entity
+     * @param store The store holding the state of the level's entities
      */
-    private boolean isCollected;
+    public CollectibleEntity(double startX, double startY, EntityStore store) {
+        super(startX, startY, store, Archetype.PICKUP);
+    }
 
     /**
-     * Constructs a CollectibleEntity at the specified position and initialize the isCollected flag to be false
-     * @param startX The initial x-coordinate of this entity
-     * @param startY The initial y-coordinate of this entity
+     * Constructs a copy of a CollectibleEntity for a fork of its store
+     * @param original The entity to copy
+     * @param store The fork of the original entity's store
      */
-    public CollectibleEntity(double startX, double startY) {
-        super(startX, startY);
-        this.isCollected = false;
+    public CollectibleEntity(CollectibleEntity original, EntityStore store) {
+        super(original, store);
     }
 
     /**
      * Method to mark the signal of this object to be collected
      */
     public void collect() {
-        this.isCollected = true;
+        removeFromPlay();
     }
 
     /**
@@ -37,7 +41,7 @@ public abstract class CollectibleEntity extends Entity{
      * @return Whether the object has been collected
      */
     public boolean isCollected() {
-        return isCollected;
+        return !isInPlay();
     }
 
     /**
@@ -0,0 +1,27 @@
+package objects;
+import bagel.*;
+
+/**
+ * The keys steering Mario in one frame.
+ * The player's keyboard is one source of controls, a program choosing Mario's inputs
+ * (e.g. a bot searching ahead on forks of the level) is another.
+ *
+ * @author Minh Triet Pham
+ */
+public interface Controls {
+    /**
+     * Checks whether a key is held down in this frame.
+     *
+     * @param key The key to check
+     * @return True if the key is down, false otherwise
+     */
+    boolean isDown(Keys key);
+
+    /**
+     * Checks whether a key was pressed in this frame.
+     *
+     * @param key The key to check
+     * @return True if the key was pressed this frame, false otherwise
+     */
+    boolean wasPressed(Keys key);
+}
@@ -0,0 +1,141 @@
+package objects;
+import bagel.*;
+import java.util.Properties;
+
+/**
+ * The display the game is drawn on: Bagel's window, a {@link SoftwareCanvas} rasterised on the CPU
+ * (e.g. on a server without a GPU), or none at all when games are only simulated (e.g. by a
+ * simulation farm). Without a window no image or font is ever loaded and the size of the screen
+ * comes from the game's properties; without any display every level is headless.
+ *
+ * @author Minh Triet Pham
+ */
+public class Display {
+    /**
+     * Whether the game is drawn at all, on the window or on the software canvas
+     */
+    private static volatile boolean isEnabled = true;
+
+    /**
+     * Whether the game is drawn on Bagel's window
+     */
+    private static volatile boolean hasWindow = true;
+
+    /**
+     * The canvas the game is drawn on instead of the window, or null if there is none
+     */
+    private static volatile SoftwareCanvas canvas = null;
+
+    /**
+     * The canvas each thread draws on instead of the shared one, e.g. when several screens are rendered at once
+     */
+    private static final ThreadLocal<SoftwareCanvas> THREAD_CANVAS = new ThreadLocal<>();
+
+    /**
+     * The width of the screen when there is no window
+     */
+    private static volatile double width;
+
+    /**
+     * The height of the screen when there is no window
+     */
+    private static volatile double height;
+
+    /**
+     * Runs the game without a display. Must be called before any level is created.
+     *
+     * @param gameProps Properties containing game configuration data, including the window size
+     */
+    public static void disable(Properties gameProps) {
+        useWindowSize(gameProps);
+        hasWindow = false;
+        isEnabled = false;
+    }
+
+    /**
+     * Draws the game on a canvas rasterised on the CPU instead of the window.
+     * Must be called before any level is created. Text is drawn on the canvas too, from the glyph
+     * sheets {@link GameFont} rasterises once per font.
+     *
+     * @param gameProps Properties containing game configuration data, including the window size
+     * @param threads   The number of threads rasterising and writing the frames
+     * @return The canvas the game is drawn on
+     */
+    public static SoftwareCanvas useCanvas(Properties gameProps, int threads) {
+        useWindowSize(gameProps);
+        canvas = new SoftwareCanvas((int) width, (int) height, threads);
+        hasWindow = false;
+        isEnabled = true;
+        return canvas;
+    }
+
+    /**
+     * Reads the size of the screen from the configured window size.
+     *
+     * @param gameProps Properties containing game configuration data, including the window size
+     */
+    private static void useWindowSize(Properties gameProps) {
+        width = Integer.parseInt(gameProps.getProperty("window.width"));
+        height = Integer.parseInt(gameProps.getProperty("window.height"));
+    }
+
+    /**
+     * Checks whether the game is drawn at all.
+     *
+     * @return True if there is a window or a software canvas, false if the game is only simulated
+     */
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Checks whether the game is drawn on Bagel's window, so that images and fonts can be loaded.
+     *
+     * @return True if there is a window, false otherwise
+     */
+    public static boolean hasWindow() {
+        return hasWindow;
+    }
+
+    /**
+     * Makes the calling thread draw on a canvas of its own, e.g. when several screens are rendered at once.
+     * The game must already draw on a software canvas.
+     *
+     * @param threadCanvas The canvas the thread draws on, or null to draw on the shared canvas again
+     */
+    public static void setThreadCanvas(SoftwareCanvas threadCanvas) {
+        if (threadCanvas == null) {
+            THREAD_CANVAS.remove();
+        } else {
+            THREAD_CANVAS.set(threadCanvas);
+        }
+    }
+
+    /**
+     * Gets the canvas the calling thread draws on instead of the window.
+     *
+     * @return The canvas of the thread if it has one, else the shared software canvas, or null if there is none
+     */
+    public static SoftwareCanvas getCanvas() {
+        SoftwareCanvas threadCanvas = THREAD_CANVAS.get();
+        return threadCanvas != null ? threadCanvas : canvas;
+    }
+
+    /**
+     * Gets the width of the screen.
+     *
+     * @return The width of the window, or of the configured window if there is no window
+     */
+    public static double getWidth() {
+        return hasWindow ? Window.getWidth() : width;
+    }
+
+    /**
+     * Gets the height of the screen.
+     *
+     * @return The height of the window, or of the configured window if there is no window
+     */
+    public static double getHeight() {
+        return hasWindow ? Window.getHeight() : height;
+    }
+}
@@ -12,7 +12,7 @@ public class Donkey extends StaticOnPlatformEntity{
     /**
      * The image representing Donkey Kong
      */
-    private final Image DONKEY_IMAGE;
+    private final Sprite DONKEY_IMAGE;
 
     /**
      * The initial health of Donkey Kong
@@ -29,13 +29,27 @@ public class Donkey extends StaticOnPlatformEntity{
      *
      * @param startX The initial x-coordinate of Donkey.
      * @param startY The initial y-coordinate of Donkey.
+     * @param store  The store holding the state of the level's entities.
      */
-    public Donkey(double startX, double startY) {
-        super(startX, startY);
-        this.DONKEY_IMAGE = new Image("res/donkey_kong.png"); // Load Donkey Kong sprite
+    public Donkey(double startX, double startY, EntityStore store) {
+        super(startX, startY, store, Archetype.FALLING_BODY, Physics.DONKEY_GRAVITY, Physics.DONKEY_TERMINAL_VELOCITY);
+        this.DONKEY_IMAGE = SpriteAtlas.get("res/donkey_kong.png"); // Load Donkey Kong sprite
+        setSize(DONKEY_IMAGE);
         this.health = INITIAL_HEALTH;
     }
 
+    /**
+     * Constructs a copy of Donkey for a fork of the level's store.
+     *
+     * @param original The Donkey to copy.
+     * @param store    The fork of the original Donkey's store.
+     */
+    public Donkey(Donkey original, EntityStore store) {
+        super(original, store);
+        this.DONKEY_IMAGE = original.DONKEY_IMAGE;
+        this.health = original.health;
+    }
+
     /**
      * Decreases Donkey Kong's health by the specified amount.
      * 
@@ -66,47 +80,6 @@ public class Donkey extends StaticOnPlatformEntity{
         return this.health > 0;
     }
 
-    /**
-     * Updates Donkey's position by applying gravity and checking for platform collisions.
-     * If Donkey lands on a platform, the velocity is reset to zero.
-     *
-     * @param platforms An array of platforms Donkey can land on.
-     */
-    @Override
-    public void update(Platform[] platforms) {
-        // Apply gravity
-        this.setVelocityY(getVelocityY() + Physics.DONKEY_GRAVITY);
-        this.setY(getY() + getVelocityY());
-        if (this.getVelocityY() > Physics.DONKEY_TERMINAL_VELOCITY) {
-            this.setVelocityY(Physics.DONKEY_TERMINAL_VELOCITY);
-        }
-
-        // Check for platform collisions
-        for (Platform platform : platforms) {
-            if (isTouchingPlatform(platform)) {
-                // Position Donkey on top of the platform
-                double newY = platform.getY() - (platform.getHeight() / 2) - (DONKEY_IMAGE.getHeight() / 2);
-                this.setY(newY);
-                this.setVelocityY(0); // Stop downward movement
-                break;
-            }
-        }
-
-        // Draw Donkey
-        draw();
-    }
-
-    /**
-     * Checks if Donkey is colliding with a given platform.
-     *
-     * @param platform The platform to check for collision.
-     * @return {@code true} if Donkey is touching the platform, {@code false} otherwise.
-     */
-    private boolean isTouchingPlatform(Platform platform) {
-        Rectangle donkeyBounds = getBoundingBox();
-        return donkeyBounds.intersects(platform.getBoundingBox());
-    }
-
     /**
      * Draws Donkey on the screen.
      */
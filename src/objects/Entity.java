@@ -3,61 +3,183 @@ package objects;
 /**
  * Base class for all objects in the game
  * Set the x and y coordinates of the entity
- * 
- * @author Minh Triet Pham 
+ * The state of the entity lives in a slot of its level's {@link EntityStore}, the entity object
+ * is a typed view of that slot.
+ *
+ * @author Minh Triet Pham
  */
 public abstract class Entity {
     /**
-     * The x coordinates of the Entity
+     * The store holding the state of the Entity
      */
-    private double x;
+    private final EntityStore STORE;
 
     /**
-     * The y coordinates of the Entity
+     * The generational handle of the Entity in its store
      */
-    private double y;
+    private final int HANDLE;
 
     /**
-     * Constructs a Hammer at the specified position.
+     * The slot of the Entity in its store
+     */
+    private final int INDEX;
+
+    /**
+     * Constructs an Entity at the specified position.
      *
      * @param x The initial x-coordinate of the entity
      * @param y The initial y-coordinate of the entity
+     * @param store The store holding the state of the level's entities
+     * @param archetype The archetype of the entity, which decides the systems it takes part in
      */
-    public Entity(double x, double y) {
-        this.x = x;
-        this.y = y;
+    public Entity(double x, double y, EntityStore store, Archetype archetype) {
+        this.STORE = store;
+        this.HANDLE = store.create(archetype, this, x, y);
+        this.INDEX = store.indexOf(HANDLE);
+    }
+
+    /**
+     * Constructs a copy of an Entity for a fork of its store, viewing the same slot in the fork.
+     *
+     * @param original The entity to copy
+     * @param store The fork of the original entity's store
+     */
+    protected Entity(Entity original, EntityStore store) {
+        this.STORE = store;
+        this.HANDLE = original.HANDLE;
+        this.INDEX = original.INDEX;
+        store.adopt(HANDLE, this);
     }
 
     /**
      * Get the x coordinates of the Entity
-     * 
+     *
      * @return The x-coordinate of the entity
      */
-    public double getX() { return this.x; }
+    public double getX() { return STORE.getX(INDEX); }
 
     /**
      * Get the y coordinates of the Entity
-     * 
+     *
      * @return The y-coordinate of the entity
      */
-    public double getY() { return this.y; }
+    public double getY() { return STORE.getY(INDEX); }
 
     /**
      * Set the x coordinates of the Entity
-     * 
+     *
      * @param x The new x-coordinate of the entity
      */
     public void setX(double x) {
-        this.x = x;
+        STORE.setX(INDEX, x);
     }
 
     /**
      * Set the y coordinates of the Entity
-     * 
+     *
      * @param y The new y-coordinate of the entity
      */
     public void setY(double y) {
-        this.y = y;
+        STORE.setY(INDEX, y);
+    }
+
+    /**
+     * Get the width of the Entity
+     *
+     * @return The width of the entity
+     */
+    public double getWidth() {
+        return STORE.getWidth(INDEX);
+    }
+
+    /**
+     * Get the height of the Entity
+     *
+     * @return The height of the entity
+     */
+    public double getHeight() {
+        return STORE.getHeight(INDEX);
+    }
+
+    /**
+     * Set the size of the Entity to the size of the sprite it is currently drawn with
+     *
+     * @param sprite The sprite whose size the entity takes
+     */
+    protected void setSize(Sprite sprite) {
+        STORE.setSize(INDEX, sprite.getWidth(), sprite.getHeight());
+    }
+
+    /**
+     * Return the generational handle of the Entity, which stays valid until the entity is released
+     *
+     * @return The handle of the entity
+     */
+    public int getHandle() {
+        return HANDLE;
+    }
+
+    /**
+     * Return the store holding the state of the Entity
+     *
+     * @return The store of the entity
+     */
+    protected EntityStore getStore() {
+        return STORE;
+    }
+
+    /**
+     * Return the slot of the Entity in its store
+     *
+     * @return The slot index of the entity
+     */
+    protected int getIndex() {
+        return INDEX;
+    }
+
+    /**
+     * Checks whether the entity is simulated without being drawn, because its store is headless
+     *
+     * @return True if the entity is not drawn, false otherwise
+     */
+    protected boolean isHeadless() {
+        return STORE.isHeadless();
+    }
+
+    /**
+     * Makes the entity fall under gravity, integrated together with every other falling entity.
+     *
+     * @param gravity          The gravity applied to the entity every frame
+     * @param terminalVelocity The terminal velocity of the entity
+     */
+    protected void makeFalling(double gravity, double terminalVelocity) {
+        STORE.setGravity(INDEX, gravity, terminalVelocity);
+        STORE.setFlag(INDEX, EntityStore.FALLING, true);
+    }
+
+    /**
+     * Checks whether the entity is still in play (alive, not destroyed, not collected)
+     *
+     * @return True if the entity is in play, false otherwise
+     */
+    protected boolean isInPlay() {
+        return STORE.hasFlag(INDEX, EntityStore.ACTIVE);
+    }
+
+    /**
+     * Takes the entity out of play, which also stops it from falling.
+     */
+    protected void removeFromPlay() {
+        STORE.setFlag(INDEX, EntityStore.ACTIVE, false);
+        STORE.stopFalling(INDEX);
+    }
+
+    /**
+     * Releases the slot of the entity once it is gone for good, e.g. a removed projectile.
+     * The entity must not be used afterwards.
+     */
+    public void release() {
+        STORE.release(HANDLE);
     }
 
     /**
@@ -0,0 +1,803 @@
+package objects;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * The state of every entity of a level, kept in dense parallel columns (structure of arrays).
+ * Each entity owns one slot holding its position, velocity, size and flags, and the entity
+ * objects (Mario, Barrel, NormalMonkey, ...) are typed views that read and write their slot.
+ *
+ * The columns are split into pages, one per chunk of slots, each with a fixed layout: the double
+ * columns one after the other, then the int columns.
+ *
+ * A store can be forked for lookahead search. The fork shares every page with the original,
+ * and whichever store first writes to a shared page copies it (copy-on-write), so a fork only
+ * costs the pages of the entities that change afterwards. A store can also be headless, e.g. a
+ * fork played by a search, in which case its entities are simulated without being drawn.
+ *
+ * Entities are referred to by generational handles: the slot index combined with the slot's
+ * generation, which changes every time the slot is released. A handle kept after its entity
+ * was released is therefore recognised as stale instead of silently pointing at whatever
+ * entity reuses the slot.
+ *
+ * Slots are handed out in chunks, and each chunk belongs to a single {@link Archetype}, so the
+ * entities of an archetype sit together in the arrays. Systems such as the gravity pass only walk
+ * the chunks of the archetypes holding the components they need, so adding a kind of entity adds
+ * no per-frame cost to the systems that do not concern it.
+ *
+ * @author Minh Triet Pham
+ */
+public class EntityStore {
+    /**
+     * The flag of an entity that is still in play (alive, not destroyed, not collected)
+     */
+    public static final int ACTIVE = 1;
+
+    /**
+     * The flag of an entity that is moved by the level's gravity pass
+     */
+    public static final int FALLING = 1 << 1;
+
+    /**
+     * The component of entities drawn as part of the level's scenery
+     */
+    public static final int SCENERY = 1;
+
+    /**
+     * The component of entities moved by the level's gravity pass
+     */
+    public static final int GRAVITY = 1 << 1;
+
+    /**
+     * The component of entities that come to rest on the platforms they fall onto
+     */
+    public static final int LANDING = 1 << 2;
+
+    /**
+     * The component of entities patrolling the platform they landed on
+     */
+    public static final int PATROL = 1 << 3;
+
+    /**
+     * The component of the player
+     */
+    public static final int PLAYER = 1 << 4;
+
+    /**
+     * The component of projectiles
+     */
+    public static final int PROJECTILE = 1 << 5;
+
+    /**
+     * The component of items the player can pick up
+     */
+    public static final int PICKUP = 1 << 6;
+
+    /**
+     * Every archetype, in the order their chunks are visited by the systems
+     */
+    private static final Archetype[] ARCHETYPES = Archetype.values();
+
+    /**
+     * The number of consecutive slots in a chunk
+     */
+    private static final int CHUNK_SIZE = 16;
+
+    /**
+     * The number of bits of a handle holding the slot index
+     */
+    private static final int INDEX_BITS = 20;
+
+    /**
+     * The mask extracting the slot index from a handle
+     */
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+
+    /**
+     * The mask keeping generations within the bits of a handle left after the index, so handles stay positive
+     */
+    private static final int GENERATION_MASK = (1 << (31 - INDEX_BITS)) - 1;
+
+    /**
+     * The number of slots the store has room for at first, grown when needed
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The double column holding the x-coordinate of each entity
+     */
+    private static final int X_COLUMN = 0;
+
+    /**
+     * The double column holding the y-coordinate of each entity
+     */
+    private static final int Y_COLUMN = 1;
+
+    /**
+     * The double column holding the y-coordinate of each entity before it last fell
+     */
+    private static final int PREVIOUS_Y_COLUMN = 2;
+
+    /**
+     * The double column holding the vertical velocity of each entity
+     */
+    private static final int VELOCITY_Y_COLUMN = 3;
+
+    /**
+     * The double column holding the gravity applied to each falling entity every frame
+     */
+    private static final int GRAVITY_COLUMN = 4;
+
+    /**
+     * The double column holding the terminal velocity of each falling entity
+     */
+    private static final int TERMINAL_VELOCITY_COLUMN = 5;
+
+    /**
+     * The double column holding the width of each entity
+     */
+    private static final int WIDTH_COLUMN = 6;
+
+    /**
+     * The double column holding the height of each entity
+     */
+    private static final int HEIGHT_COLUMN = 7;
+
+    /**
+     * The number of double columns
+     */
+    private static final int DOUBLE_COLUMNS = 8;
+
+    /**
+     * The int column holding the flags of each entity, a combination of {@link #ACTIVE} and {@link #FALLING}
+     */
+    private static final int FLAGS_COLUMN = 0;
+
+    /**
+     * The int column holding the generation of each slot, incremented when the slot is released
+     */
+    private static final int GENERATION_COLUMN = 1;
+
+    /**
+     * The number of int columns
+     */
+    private static final int INT_COLUMNS = 2;
+
+    /**
+     * The number of bytes each slot takes in its page
+     */
+    private static final int SLOT_BYTES = DOUBLE_COLUMNS * Double.BYTES + INT_COLUMNS * Integer.BYTES;
+
+    /**
+     * The number of bytes of a page, which holds one chunk of slots
+     */
+    private static final int PAGE_BYTES = CHUNK_SIZE * SLOT_BYTES;
+
+    /**
+     * The offset of the first int column in a page
+     */
+    private static final int INT_COLUMNS_OFFSET = DOUBLE_COLUMNS * CHUNK_SIZE * Double.BYTES;
+
+    /**
+     * The offset of the y-coordinate column in a page
+     */
+    private static final int Y_OFFSET = Y_COLUMN * CHUNK_SIZE * Double.BYTES;
+
+    /**
+     * The offset of the previous y-coordinate column in a page
+     */
+    private static final int PREVIOUS_Y_OFFSET = PREVIOUS_Y_COLUMN * CHUNK_SIZE * Double.BYTES;
+
+    /**
+     * The offset of the vertical velocity column in a page
+     */
+    private static final int VELOCITY_Y_OFFSET = VELOCITY_Y_COLUMN * CHUNK_SIZE * Double.BYTES;
+
+    /**
+     * The offset of the gravity column in a page
+     */
+    private static final int GRAVITY_OFFSET = GRAVITY_COLUMN * CHUNK_SIZE * Double.BYTES;
+
+    /**
+     * The offset of the terminal velocity column in a page
+     */
+    private static final int TERMINAL_VELOCITY_OFFSET = TERMINAL_VELOCITY_COLUMN * CHUNK_SIZE * Double.BYTES;
+
+    /**
+     * The offset of the flags column in a page
+     */
+    private static final int FLAGS_OFFSET = INT_COLUMNS_OFFSET + FLAGS_COLUMN * CHUNK_SIZE * Integer.BYTES;
+
+    /**
+     * The page holding each chunk of slots
+     */
+    private ByteBuffer[] pages;
+
+    /**
+     * Whether each page belongs to this store alone and can be written in place,
+     * rather than being shared with a fork and copied before its first write
+     */
+    private boolean[] ownedPages;
+
+    /**
+     * The entity viewing each slot, or null if the slot is free
+     */
+    private Entity[] views;
+
+    /**
+     * The first slot of every chunk of each archetype
+     */
+    private final int[][] chunks;
+
+    /**
+     * The number of chunks of each archetype
+     */
+    private final int[] chunkCounts;
+
+    /**
+     * The free slots of each archetype's chunks, used as a stack
+     */
+    private final int[][] freeSlots;
+
+    /**
+     * The number of free slots of each archetype
+     */
+    private final int[] freeCounts;
+
+    /**
+     * The archetype owning each slot
+     */
+    private Archetype[] archetypes;
+
+    /**
+     * The number of slots in chunks, every slot below it belongs to an archetype
+     */
+    private int count = 0;
+
+    /**
+     * Whether the entities are simulated without being drawn
+     */
+    private boolean isHeadless = false;
+
+    /**
+     * Constructs an empty store.
+     */
+    public EntityStore() {
+        this.pages = new ByteBuffer[INITIAL_CAPACITY / CHUNK_SIZE];
+        this.ownedPages = new boolean[INITIAL_CAPACITY / CHUNK_SIZE];
+        this.views = new Entity[INITIAL_CAPACITY];
+        this.archetypes = new Archetype[INITIAL_CAPACITY];
+        this.chunks = new int[ARCHETYPES.length][1];
+        this.chunkCounts = new int[ARCHETYPES.length];
+        this.freeSlots = new int[ARCHETYPES.length][CHUNK_SIZE];
+        this.freeCounts = new int[ARCHETYPES.length];
+    }
+
+    /**
+     * Constructs a fork of a store, sharing every page with it.
+     * Neither store owns the shared pages any more, so each copies a page before writing to it.
+     * The original is written to here: every one of its pages is marked shared.
+     * The fork starts with the original's entity objects, which the copies made for the fork replace.
+     *
+     * @param original The store to fork
+     */
+    private EntityStore(EntityStore original) {
+        this.pages = original.pages.clone();
+        this.ownedPages = new boolean[original.ownedPages.length];
+        Arrays.fill(original.ownedPages, false);
+        this.views = original.views.clone();
+        this.archetypes = original.archetypes.clone();
+        this.chunks = new int[ARCHETYPES.length][];
+        this.freeSlots = new int[ARCHETYPES.length][];
+        for (int a = 0; a < ARCHETYPES.length; a++) {
+            this.chunks[a] = original.chunks[a].clone();
+            this.freeSlots[a] = original.freeSlots[a].clone();
+        }
+        this.chunkCounts = original.chunkCounts.clone();
+        this.freeCounts = original.freeCounts.clone();
+        this.count = original.count;
+        this.isHeadless = original.isHeadless;
+    }
+
+    /**
+     * Forks the store, e.g. so a search can try inputs on a copy of the world and throw it away.
+     * No page is copied until one of the two stores writes to it.
+     *
+     * Forking writes to this store, marking all its pages shared so that it copies them before its
+     * next writes. It must therefore not run while this store is being played, or forked, on another thread.
+     *
+     * @return The fork of the store
+     */
+    public EntityStore fork() {
+        return new EntityStore(this);
+    }
+
+    /**
+     * Makes an entity object the view of its slot in this store, when the entities are copied for a fork.
+     *
+     * @param handle The handle of the entity, the same in the fork as in the original
+     * @param view   The entity object viewing the slot in this store
+     */
+    void adopt(int handle, Entity view) {
+        views[indexOf(handle)] = view;
+    }
+
+    /**
+     * Allocates a zeroed buffer.
+     *
+     * @param bytes The size of the buffer in bytes
+     * @return The buffer, in the platform's byte order
+     */
+    private ByteBuffer allocate(int bytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Gets the page of a slot, copying it first if it is shared with a fork.
+     *
+     * @param page The page to write to
+     * @return The page, owned by this store
+     */
+    private ByteBuffer writablePage(int page) {
+        if (!ownedPages[page]) {
+            ByteBuffer copy = allocate(PAGE_BYTES);
+            copy.put(0, pages[page], 0, PAGE_BYTES);
+            pages[page] = copy;
+            ownedPages[page] = true;
+        }
+        return pages[page];
+    }
+
+    /**
+     * Reads a slot of a double column.
+     *
+     * @param column The double column
+     * @param index  The slot
+     * @return The value
+     */
+    private double readDouble(int column, int index) {
+        return pages[index / CHUNK_SIZE].getDouble((column * CHUNK_SIZE + index % CHUNK_SIZE) * Double.BYTES);
+    }
+
+    /**
+     * Writes a slot of a double column.
+     *
+     * @param column The double column
+     * @param index  The slot
+     * @param value  The new value
+     */
+    private void writeDouble(int column, int index, double value) {
+        writablePage(index / CHUNK_SIZE).putDouble((column * CHUNK_SIZE + index % CHUNK_SIZE) * Double.BYTES, value);
+    }
+
+    /**
+     * Reads a slot of an int column.
+     *
+     * @param column The int column
+     * @param index  The slot
+     * @return The value
+     */
+    private int readInt(int column, int index) {
+        return pages[index / CHUNK_SIZE].getInt(
+                INT_COLUMNS_OFFSET + (column * CHUNK_SIZE + index % CHUNK_SIZE) * Integer.BYTES);
+    }
+
+    /**
+     * Writes a slot of an int column.
+     *
+     * @param column The int column
+     * @param index  The slot
+     * @param value  The new value
+     */
+    private void writeInt(int column, int index, int value) {
+        writablePage(index / CHUNK_SIZE).putInt(
+                INT_COLUMNS_OFFSET + (column * CHUNK_SIZE + index % CHUNK_SIZE) * Integer.BYTES, value);
+    }
+
+    /**
+     * Creates an active entity at rest in a chunk of its archetype and returns its handle.
+     *
+     * @param archetype The archetype of the entity
+     * @param view      The entity object viewing the slot
+     * @param startX    The initial x-coordinate of the entity
+     * @param startY    The initial y-coordinate of the entity
+     * @return The handle of the entity
+     */
+    public int create(Archetype archetype, Entity view, double startX, double startY) {
+        int a = archetype.ordinal();
+        if (freeCounts[a] == 0) {
+            addChunk(archetype);
+        }
+        int index = freeSlots[a][--freeCounts[a]];
+        views[index] = view;
+        writeDouble(X_COLUMN, index, startX);
+        writeDouble(Y_COLUMN, index, startY);
+        writeDouble(PREVIOUS_Y_COLUMN, index, startY);
+        writeDouble(VELOCITY_Y_COLUMN, index, 0);
+        writeDouble(GRAVITY_COLUMN, index, 0);
+        writeDouble(TERMINAL_VELOCITY_COLUMN, index, 0);
+        writeDouble(WIDTH_COLUMN, index, 0);
+        writeDouble(HEIGHT_COLUMN, index, 0);
+        writeInt(FLAGS_COLUMN, index, ACTIVE);
+        return (readInt(GENERATION_COLUMN, index) << INDEX_BITS) | index;
+    }
+
+    /**
+     * Releases an entity so that its slot can be reused. Its handle becomes stale.
+     *
+     * @param handle The handle of the entity
+     */
+    public void release(int handle) {
+        int index = indexOf(handle);
+        writeInt(FLAGS_COLUMN, index, 0);
+        views[index] = null;
+        int generation = readInt(GENERATION_COLUMN, index);
+        writeInt(GENERATION_COLUMN, index, (generation + 1) & GENERATION_MASK);
+        pushFree(archetypes[index].ordinal(), index);
+    }
+
+    /**
+     * Adds a chunk of free slots to an archetype, at the end of the arrays.
+     *
+     * @param archetype The archetype that needs more slots
+     */
+    private void addChunk(Archetype archetype) {
+        int a = archetype.ordinal();
+        int base = count;
+        count += CHUNK_SIZE;
+        if (count > views.length) {
+            grow(count * 2);
+        }
+        pages[base / CHUNK_SIZE] = allocate(PAGE_BYTES);
+        ownedPages[base / CHUNK_SIZE] = true;
+        if (chunkCounts[a] == chunks[a].length) {
+            chunks[a] = Arrays.copyOf(chunks[a], chunkCounts[a] * 2);
+        }
+        chunks[a][chunkCounts[a]++] = base;
+
+        // 1) Push the slots from the last one, so the chunk is filled from its first slot
+        for (int index = base + CHUNK_SIZE - 1; index >= base; index--) {
+            archetypes[index] = archetype;
+            pushFree(a, index);
+        }
+    }
+
+    /**
+     * Pushes a free slot on the stack of its archetype.
+     *
+     * @param a     The ordinal of the archetype
+     * @param index The free slot
+     */
+    private void pushFree(int a, int index) {
+        if (freeCounts[a] == freeSlots[a].length) {
+            freeSlots[a] = Arrays.copyOf(freeSlots[a], freeCounts[a] * 2);
+        }
+        freeSlots[a][freeCounts[a]++] = index;
+    }
+
+    /**
+     * Checks whether a handle still refers to a live entity.
+     *
+     * @param handle The handle of the entity
+     * @return True if the entity has not been released, false otherwise
+     */
+    public boolean isLive(int handle) {
+        int index = handle & INDEX_MASK;
+        return index < count && views[index] != null
+                && readInt(GENERATION_COLUMN, index) == handle >>> INDEX_BITS;
+    }
+
+    /**
+     * Gets the slot of an entity.
+     *
+     * @param handle The handle of the entity
+     * @return The slot index of the entity
+     * @throws IllegalStateException if the entity has already been released
+     */
+    public int indexOf(int handle) {
+        if (!isLive(handle)) {
+            throw new IllegalStateException("Stale entity handle " + handle);
+        }
+        return handle & INDEX_MASK;
+    }
+
+    /**
+     * Grows the page table and the per-slot arrays to the given number of slots.
+     * The pages themselves never move.
+     *
+     * @param capacity The new number of slots
+     */
+    private void grow(int capacity) {
+        pages = Arrays.copyOf(pages, capacity / CHUNK_SIZE);
+        ownedPages = Arrays.copyOf(ownedPages, capacity / CHUNK_SIZE);
+        views = Arrays.copyOf(views, capacity);
+        archetypes = Arrays.copyOf(archetypes, capacity);
+    }
+
+    /**
+     * Applies gravity to every falling entity, limits it to the entity's terminal velocity and moves the entity.
+     * Only the chunks of archetypes with the {@link #GRAVITY} component are visited.
+     */
+    public void integrate() {
+        for (Archetype archetype : ARCHETYPES) {
+            if (!archetype.has(GRAVITY)) {
+                continue;
+            }
+            int a = archetype.ordinal();
+            for (int c = 0; c < chunkCounts[a]; c++) {
+                integrateChunk(chunks[a][c] / CHUNK_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Applies gravity to the falling entities of one chunk, walking its page's columns from slot to slot.
+     * A chunk with nothing falling is left as it is, so it stays shared with its forks; otherwise the
+     * page is made writable once and every slot is moved, the slots at rest keeping their values.
+     *
+     * @param chunk The chunk, i.e. the index of its page
+     */
+    private void integrateChunk(int chunk) {
+        // 1) Skip the chunk unless one of its entities is falling
+        ByteBuffer page = pages[chunk];
+        int anyFlags = 0;
+        for (int at = FLAGS_OFFSET; at < FLAGS_OFFSET + CHUNK_SIZE * Integer.BYTES; at += Integer.BYTES) {
+            anyFlags |= page.getInt(at);
+        }
+        if ((anyFlags & FALLING) == 0) {
+            return;
+        }
+
+        // 2) Move every falling slot, writing the slots at rest back unchanged
+        page = writablePage(chunk);
+        for (int slot = 0; slot < CHUNK_SIZE; slot++) {
+            int at = slot * Double.BYTES;
+            boolean isFalling = (page.getInt(FLAGS_OFFSET + slot * Integer.BYTES) & FALLING) != 0;
+            double y = page.getDouble(Y_OFFSET + at);
+            double previousY = page.getDouble(PREVIOUS_Y_OFFSET + at);
+            double velocityY = page.getDouble(VELOCITY_Y_OFFSET + at);
+            double fallingVelocityY = Math.min(page.getDouble(TERMINAL_VELOCITY_OFFSET + at),
+                    velocityY + page.getDouble(GRAVITY_OFFSET + at));
+            page.putDouble(PREVIOUS_Y_OFFSET + at, isFalling ? y : previousY);
+            page.putDouble(VELOCITY_Y_OFFSET + at, isFalling ? fallingVelocityY : velocityY);
+            page.putDouble(Y_OFFSET + at, isFalling ? y + fallingVelocityY : y);
+        }
+    }
+
+    /**
+     * Runs a system on every entity still in play whose archetype has all the given components.
+     * The system is typed by the caller, who knows which entity classes hold those components.
+     *
+     * @param components The components the entities must have
+     * @param system     The system run on each entity
+     * @param <T>        The entity class holding the components
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> void forEach(int components, Consumer<T> system) {
+        for (Archetype archetype : ARCHETYPES) {
+            if (!archetype.has(components)) {
+                continue;
+            }
+            int a = archetype.ordinal();
+            for (int c = 0; c < chunkCounts[a]; c++) {
+                int end = chunks[a][c] + CHUNK_SIZE;
+                for (int i = chunks[a][c]; i < end; i++) {
+                    if (hasFlag(i, ACTIVE)) {
+                        system.accept((T) views[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws every entity still in play whose archetype has all the given components.
+     * A headless store draws nothing.
+     *
+     * @param components The components the entities must have
+     */
+    public void draw(int components) {
+        if (isHeadless) {
+            return;
+        }
+        forEach(components, Entity::draw);
+    }
+
+    /**
+     * Applies gravity to a single entity and moves it, for an entity whose fall depends on
+     * what happened earlier in its own update.
+     *
+     * @param index The slot of the entity
+     */
+    public void integrate(int index) {
+        ByteBuffer page = writablePage(index / CHUNK_SIZE);
+        int at = index % CHUNK_SIZE * Double.BYTES;
+        double y = page.getDouble(Y_OFFSET + at);
+        double velocityY = Math.min(page.getDouble(TERMINAL_VELOCITY_OFFSET + at),
+                page.getDouble(VELOCITY_Y_OFFSET + at) + page.getDouble(GRAVITY_OFFSET + at));
+        page.putDouble(PREVIOUS_Y_OFFSET + at, y);
+        page.putDouble(VELOCITY_Y_OFFSET + at, velocityY);
+        page.putDouble(Y_OFFSET + at, y + velocityY);
+    }
+
+    /**
+     * Moves a single entity by its current velocity without applying gravity (e.g. Mario on a ladder).
+     *
+     * @param index The slot of the entity
+     */
+    public void drift(int index) {
+        double y = readDouble(Y_COLUMN, index);
+        writeDouble(PREVIOUS_Y_COLUMN, index, y);
+        writeDouble(Y_COLUMN, index, y + readDouble(VELOCITY_Y_COLUMN, index));
+    }
+
+    /**
+     * Sets the gravity and terminal velocity of an entity.
+     *
+     * @param index            The slot of the entity
+     * @param gravity          The gravity applied to the entity every frame
+     * @param terminalVelocity The terminal velocity of the entity
+     */
+    public void setGravity(int index, double gravity, double terminalVelocity) {
+        writeDouble(GRAVITY_COLUMN, index, gravity);
+        writeDouble(TERMINAL_VELOCITY_COLUMN, index, terminalVelocity);
+    }
+
+    /**
+     * Stops an entity from falling, e.g. once it walks along a platform or is destroyed.
+     * The entity keeps its position, which can still be set directly.
+     *
+     * @param index The slot of the entity
+     */
+    public void stopFalling(int index) {
+        setFlag(index, FALLING, false);
+        writeDouble(VELOCITY_Y_COLUMN, index, 0);
+    }
+
+    /**
+     * Checks whether an entity has a flag.
+     *
+     * @param index The slot of the entity
+     * @param flag  The flag, {@link #ACTIVE} or {@link #FALLING}
+     * @return True if the flag is set, false otherwise
+     */
+    public boolean hasFlag(int index, int flag) {
+        return (readInt(FLAGS_COLUMN, index) & flag) != 0;
+    }
+
+    /**
+     * Sets or clears a flag of an entity.
+     *
+     * @param index The slot of the entity
+     * @param flag  The flag, {@link #ACTIVE} or {@link #FALLING}
+     * @param isSet Whether the flag is set
+     */
+    public void setFlag(int index, int flag, boolean isSet) {
+        int flags = readInt(FLAGS_COLUMN, index);
+        writeInt(FLAGS_COLUMN, index, isSet ? flags | flag : flags & ~flag);
+    }
+
+    /**
+     * Gets the x-coordinate of an entity.
+     *
+     * @param index The slot of the entity
+     * @return The x-coordinate of the entity
+     */
+    public double getX(int index) {
+        return readDouble(X_COLUMN, index);
+    }
+
+    /**
+     * Sets the x-coordinate of an entity.
+     *
+     * @param index The slot of the entity
+     * @param x     The new x-coordinate of the entity
+     */
+    public void setX(int index, double x) {
+        writeDouble(X_COLUMN, index, x);
+    }
+
+    /**
+     * Gets the y-coordinate of an entity.
+     *
+     * @param index The slot of the entity
+     * @return The y-coordinate of the entity
+     */
+    public double getY(int index) {
+        return readDouble(Y_COLUMN, index);
+    }
+
+    /**
+     * Sets the y-coordinate of an entity.
+     *
+     * @param index The slot of the entity
+     * @param y     The new y-coordinate of the entity
+     */
+    public void setY(int index, double y) {
+        writeDouble(Y_COLUMN, index, y);
+    }
+
+    /**
+     * Gets the y-coordinate of an entity before it last fell.
+     *
+     * @param index The slot of the entity
+     * @return The previous y-coordinate of the entity
+     */
+    public double getPreviousY(int index) {
+        return readDouble(PREVIOUS_Y_COLUMN, index);
+    }
+
+    /**
+     * Gets the vertical velocity of an entity.
+     *
+     * @param index The slot of the entity
+     * @return The vertical velocity of the entity
+     */
+    public double getVelocityY(int index) {
+        return readDouble(VELOCITY_Y_COLUMN, index);
+    }
+
+    /**
+     * Sets the vertical velocity of an entity.
+     *
+     * @param index     The slot of the entity
+     * @param velocityY The new vertical velocity of the entity
+     */
+    public void setVelocityY(int index, double velocityY) {
+        writeDouble(VELOCITY_Y_COLUMN, index, velocityY);
+    }
+
+    /**
+     * Gets the width of an entity.
+     *
+     * @param index The slot of the entity
+     * @return The width of the entity
+     */
+    public double getWidth(int index) {
+        return readDouble(WIDTH_COLUMN, index);
+    }
+
+    /**
+     * Gets the height of an entity.
+     *
+     * @param index The slot of the entity
+     * @return The height of the entity
+     */
+    public double getHeight(int index) {
+        return readDouble(HEIGHT_COLUMN, index);
+    }
+
+    /**
+     * Sets the size of an entity, usually the size of its current sprite.
+     *
+     * @param index  The slot of the entity
+     * @param width  The new width of the entity
+     * @param height The new height of the entity
+     */
+    public void setSize(int index, double width, double height) {
+        writeDouble(WIDTH_COLUMN, index, width);
+        writeDouble(HEIGHT_COLUMN, index, height);
+    }
+
+    /**
+     * Makes the entities simulated without being drawn, or drawn again.
+     * A fork of a headless store is headless too.
+     *
+     * @param headless Whether the entities are simulated without being drawn
+     */
+    public void setHeadless(boolean headless) {
+        this.isHeadless = headless;
+    }
+
+    /**
+     * Checks whether the entities are simulated without being drawn.
+     *
+     * @return True if the store is headless, false otherwise
+     */
+    public boolean isHeadless() {
+        return isHeadless;
+    }
+}
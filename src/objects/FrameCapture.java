@@ -0,0 +1,357 @@
+package objects;
+import bagel.Input;
+import bagel.Keys;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.lwjgl.opengl.GL11.GL_PACK_ALIGNMENT;
+import static org.lwjgl.opengl.GL11.GL_RGBA;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_BYTE;
+import static org.lwjgl.opengl.GL11.glPixelStorei;
+import static org.lwjgl.opengl.GL11.glReadPixels;
+import static org.lwjgl.stb.STBImageWrite.stbi_write_png;
+import static org.lwjgl.system.MemoryUtil.memAlloc;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Captures screenshots and clips of the levels while they are played on the window.
+ * Pressing the capture key grabs the framebuffer with a single read into a pooled buffer and
+ * writes it to a PNG file; holding it keeps grabbing every frame into a ring of JPEG images
+ * holding the last seconds of play, written as a Motion JPEG AVI clip once the key is released.
+ * The game thread only ever reads the framebuffer: converting, encoding and writing happen on
+ * the encoder thread, and a frame is dropped rather than waited for when every buffer is busy.
+ * A frame of a clip dropped that way is replaced by the frame before it, so that the clip keeps
+ * one frame per frame played and plays back in real time even when the encoder falls behind.
+ *
+ * @author Minh Triet Pham
+ */
+public class FrameCapture {
+    /**
+     * The number of colour channels read from the framebuffer (RGBA)
+     */
+    private static final int CHANNELS = 4;
+
+    /**
+     * The fewest frames of a clip worth writing, so that a short press only takes a screenshot
+     */
+    private static final int MIN_CLIP_FRAMES = 30;
+
+    /**
+     * The format of the time the captured files are named after
+     */
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    /**
+     * The key capturing the screen
+     */
+    private final Keys KEY;
+
+    /**
+     * The directory the screenshots and clips are written to
+     */
+    private final String DIR;
+
+    /**
+     * The width of the framebuffer
+     */
+    private final int WIDTH;
+
+    /**
+     * The height of the framebuffer
+     */
+    private final int HEIGHT;
+
+    /**
+     * The number of frames per second of the clips
+     */
+    private final int FPS;
+
+    /**
+     * The quality of the JPEG frames of the clips, from 0 to 1
+     */
+    private final float QUALITY;
+
+    /**
+     * The RGBA buffers free to grab a frame into
+     */
+    private final BlockingQueue<ByteBuffer> FREE_BUFFERS;
+
+    /**
+     * The thread converting, encoding and writing the grabbed frames, in the order they were grabbed
+     */
+    private final ExecutorService ENCODER;
+
+    /**
+     * The JPEG frames of the clip, a ring overwriting its oldest frame once full; only used by the encoder thread
+     */
+    private final byte[][] CLIP_RING;
+
+    /**
+     * The ARGB pixels of the frame being encoded, row by row from the top; only used by the encoder thread
+     */
+    private final int[] ARGB;
+
+    /**
+     * The task repeating the last frame of the clip in place of a dropped frame
+     */
+    private final Runnable REPEAT_CLIP_FRAME = this::repeatClipFrame;
+
+    /**
+     * The position of the oldest frame of the clip in the ring; only used by the encoder thread
+     */
+    private int ringStart = 0;
+
+    /**
+     * The number of frames of the clip in the ring; only used by the encoder thread
+     */
+    private int ringCount = 0;
+
+    /**
+     * The number of frames of the clip that repeat the frame before them in place of a dropped
+     * frame; only used by the encoder thread
+     */
+    private int clipDroppedFrames = 0;
+
+    /**
+     * Whether the capture key is held since it was pressed in a level
+     */
+    private boolean isHeld = false;
+
+    /**
+     * The number of frames dropped because every buffer was busy
+     */
+    private int droppedFrames = 0;
+
+    /**
+     * Constructs the capture of the window's framebuffer.
+     *
+     * @param gameProps Properties containing game configuration data, including the capture settings
+     */
+    public FrameCapture(Properties gameProps) {
+        this.KEY = Keys.valueOf(gameProps.getProperty("capture.key", "F12"));
+        this.DIR = gameProps.getProperty("capture.dir", "captures");
+        this.WIDTH = (int) Display.getWidth();
+        this.HEIGHT = (int) Display.getHeight();
+        this.FPS = Integer.parseInt(gameProps.getProperty("capture.fps", "60"));
+        this.QUALITY = Float.parseFloat(gameProps.getProperty("capture.quality", "0.85"));
+        int buffers = Integer.parseInt(gameProps.getProperty("capture.buffers", "6"));
+        int clipSeconds = Integer.parseInt(gameProps.getProperty("capture.clipSeconds", "10"));
+        this.FREE_BUFFERS = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            FREE_BUFFERS.add(memAlloc(WIDTH * HEIGHT * CHANNELS));
+        }
+        this.ENCODER = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "frame-capture");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.CLIP_RING = new byte[clipSeconds * FPS][];
+        this.ARGB = new int[WIDTH * HEIGHT];
+    }
+
+    /**
+     * Captures the frame just drawn if the capture key is pressed or held. Called once per frame
+     * by the game after a level is drawn, and never waits for the encoder thread.
+     *
+     * @param input The Input object containing user input information
+     */
+    public void update(Input input) {
+        if (input.wasPressed(KEY)) {
+            // 1) A press takes a screenshot, which also starts a new clip
+            isHeld = true;
+            ByteBuffer frame = grab();
+            if (frame != null) {
+                ENCODER.execute(() -> encodeScreenshot(frame));
+            }
+        } else if (isHeld && input.isDown(KEY)) {
+            // 2) Every frame the key is held is added to the clip, a dropped one as the frame before it
+            ByteBuffer frame = grab();
+            if (frame != null) {
+                ENCODER.execute(() -> encodeClipFrame(frame, true));
+            } else {
+                ENCODER.execute(REPEAT_CLIP_FRAME);
+            }
+        } else if (isHeld) {
+            // 3) The clip is written once the key is released
+            isHeld = false;
+            ENCODER.execute(this::writeClip);
+        }
+    }
+
+    /**
+     * Writes the clip being held, waits for every pending screenshot and clip to be written, then
+     * stops the encoder thread and frees the native buffers, which are all free again by then.
+     *
+     * @throws InterruptedException If interrupted while waiting for the encoder thread
+     */
+    public void close() throws InterruptedException {
+        if (isHeld) {
+            isHeld = false;
+            ENCODER.execute(this::writeClip);
+        }
+        ENCODER.shutdown();
+        ENCODER.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        for (ByteBuffer buffer = FREE_BUFFERS.poll(); buffer != null; buffer = FREE_BUFFERS.poll()) {
+            memFree(buffer);
+        }
+    }
+
+    /**
+     * Gets the number of frames dropped because every buffer was busy
+     *
+     * @return The number of frames dropped
+     */
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Reads the framebuffer into a free buffer with a single read.
+     *
+     * @return The buffer holding the frame, bottom row first, or null if every buffer is busy
+     */
+    private ByteBuffer grab() {
+        ByteBuffer frame = FREE_BUFFERS.poll();
+        if (frame == null) {
+            droppedFrames++;
+            return null;
+        }
+        glPixelStorei(GL_PACK_ALIGNMENT, 1);
+        glReadPixels(0, 0, WIDTH, HEIGHT, GL_RGBA, GL_UNSIGNED_BYTE, frame);
+        return frame;
+    }
+
+    /**
+     * Writes a grabbed frame to a PNG file and starts a new clip with it. Runs on the encoder thread.
+     *
+     * @param frame The buffer holding the frame, bottom row first, freed once written
+     */
+    private void encodeScreenshot(ByteBuffer frame) {
+        // 1) Flip the rows in place, since PNG files start with the top row
+        byte[] top = new byte[WIDTH * CHANNELS];
+        byte[] bottom = new byte[WIDTH * CHANNELS];
+        for (int row = 0; row < HEIGHT / 2; row++) {
+            int topOffset = row * top.length;
+            int bottomOffset = (HEIGHT - 1 - row) * bottom.length;
+            frame.get(topOffset, top).get(bottomOffset, bottom);
+            frame.put(topOffset, bottom).put(bottomOffset, top);
+        }
+
+        // 2) Write the screenshot, then keep the frame as the first of the clip
+        String path = newPath("screenshot", "png");
+        if (!stbi_write_png(path, WIDTH, HEIGHT, CHANNELS, frame, WIDTH * CHANNELS)) {
+            System.err.println("Failed to write " + path);
+        }
+        ringStart = 0;
+        ringCount = 0;
+        clipDroppedFrames = 0;
+        encodeClipFrame(frame, false);
+    }
+
+    /**
+     * Compresses a grabbed frame to JPEG and adds it to the clip. Runs on the encoder thread.
+     *
+     * @param frame      The buffer holding the frame, freed once compressed
+     * @param isBottomUp Whether the frame starts with its bottom row, as read from the framebuffer
+     */
+    private void encodeClipFrame(ByteBuffer frame, boolean isBottomUp) {
+        // 1) Convert the frame to top-down ARGB, and free its buffer at once
+        for (int row = 0; row < HEIGHT; row++) {
+            int from = (isBottomUp ? HEIGHT - 1 - row : row) * WIDTH * CHANNELS;
+            int to = row * WIDTH;
+            for (int x = 0; x < WIDTH; x++) {
+                int offset = from + x * CHANNELS;
+                ARGB[to + x] = 0xFF000000 | (frame.get(offset) & 0xFF) << 16
+                        | (frame.get(offset + 1) & 0xFF) << 8 | (frame.get(offset + 2) & 0xFF);
+            }
+        }
+        FREE_BUFFERS.add(frame);
+
+        // 2) Compress it into the ring, overwriting the oldest frame once the ring is full
+        byte[] jpeg;
+        try {
+            jpeg = JpegEncoder.encode(ARGB, WIDTH, HEIGHT, QUALITY);
+        } catch (IOException e) {
+            System.err.println("Failed to encode a frame of the clip: " + e.getMessage());
+            return;
+        }
+        addClipFrame(jpeg);
+    }
+
+    /**
+     * Adds the last frame of the clip again, in place of a frame dropped because every buffer was busy.
+     * Nothing is added if the clip has no frame yet. Runs on the encoder thread.
+     */
+    private void repeatClipFrame() {
+        if (ringCount > 0) {
+            addClipFrame(CLIP_RING[(ringStart + ringCount - 1) % CLIP_RING.length]);
+            clipDroppedFrames++;
+        }
+    }
+
+    /**
+     * Adds a JPEG frame to the clip, overwriting the oldest frame once the ring is full.
+     * Runs on the encoder thread.
+     *
+     * @param jpeg The JPEG frame
+     */
+    private void addClipFrame(byte[] jpeg) {
+        CLIP_RING[(ringStart + ringCount) % CLIP_RING.length] = jpeg;
+        if (ringCount < CLIP_RING.length) {
+            ringCount++;
+        } else {
+            ringStart = (ringStart + 1) % CLIP_RING.length;
+        }
+    }
+
+    /**
+     * Writes the frames of the clip to an AVI file, oldest first, then empties the ring.
+     * Runs on the encoder thread.
+     */
+    private void writeClip() {
+        // 1) Write the clip if it is long enough, reporting the frames that had to be repeated
+        if (ringCount >= MIN_CLIP_FRAMES) {
+            String path = newPath("clip", "avi");
+            boolean isWritten = true;
+            try (MjpegAviWriter avi = new MjpegAviWriter(path, WIDTH, HEIGHT, FPS)) {
+                for (int i = 0; i < ringCount; i++) {
+                    avi.writeFrame(CLIP_RING[(ringStart + i) % CLIP_RING.length]);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to write " + path + ": " + e.getMessage());
+                isWritten = false;
+            }
+            if (isWritten) {
+                System.out.println("Wrote " + path + ": " + ringCount + " frames at " + FPS + " fps, "
+                        + clipDroppedFrames + " dropped frames repeated since the clip started");
+            }
+        }
+
+        // 2) Empty the ring for the next clip
+        Arrays.fill(CLIP_RING, null);
+        ringStart = 0;
+        ringCount = 0;
+        clipDroppedFrames = 0;
+    }
+
+    /**
+     * Makes the path of a new captured file, named after the current time.
+     *
+     * @param kind      What the file holds, e.g. screenshot or clip
+     * @param extension The extension of the file
+     * @return The path of the file, in the capture directory
+     */
+    private String newPath(String kind, String extension) {
+        new File(DIR).mkdirs();
+        return new File(DIR, kind + "-" + LocalDateTime.now().format(FILE_TIME) + "." + extension).getPath();
+    }
+}
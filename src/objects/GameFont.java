@@ -0,0 +1,204 @@
+package objects;
+import bagel.*;
+import java.awt.Color;
+import java.awt.FontFormatException;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A font the game's text is drawn with, on the window or on the software canvas.
+ * On the window, the text is drawn by Bagel. On the software canvas, every printable ASCII character
+ * of the font is rasterised once into a glyph sheet, and each character of a text is drawn as a
+ * sprite of that sheet. Without a display, nothing is drawn.
+ *
+ * @author Minh Triet Pham
+ */
+public class GameFont {
+    /**
+     * The first character of the glyph sheet
+     */
+    private static final char FIRST_CHAR = ' ';
+
+    /**
+     * The last character of the glyph sheet
+     */
+    private static final char LAST_CHAR = '~';
+
+    /**
+     * The number of glyphs in each row of the glyph sheet
+     */
+    private static final int GLYPHS_PER_ROW = 16;
+
+    /**
+     * The empty border kept around each glyph, so that glyphs overhanging their advance are not cut
+     */
+    private static final int PADDING = 2;
+
+    /**
+     * The glyph sheets rasterised so far, keyed by font path and size
+     */
+    private static final Map<String, GlyphSheet> SHEETS = new ConcurrentHashMap<>();
+
+    /**
+     * The font drawn by Bagel on the window, or null if there is no window
+     */
+    private final Font FONT;
+
+    /**
+     * The glyphs drawn on the software canvas, or null if there is no software canvas
+     */
+    private final GlyphSheet SHEET;
+
+    /**
+     * Constructs a font.
+     *
+     * @param path The path of the TrueType font file
+     * @param size The size of the font, in pixels
+     */
+    public GameFont(String path, int size) {
+        this.FONT = Display.hasWindow() ? new Font(path, size) : null;
+        this.SHEET = !Display.hasWindow() && Display.isEnabled()
+                ? SHEETS.computeIfAbsent(path + ":" + size, key -> new GlyphSheet(path, size))
+                : null;
+    }
+
+    /**
+     * Draws a string with the left of its baseline at the given position.
+     *
+     * @param text The string to draw
+     * @param x    The x-coordinate of the start of the string
+     * @param y    The y-coordinate of the baseline of the string
+     */
+    public void drawString(String text, double x, double y) {
+        if (FONT != null) {
+            FONT.drawString(text, x, y);
+        } else if (SHEET != null) {
+            SHEET.drawString(text, x, y);
+        }
+    }
+
+    /**
+     * Gets the width of a string drawn with the font.
+     *
+     * @param text The string
+     * @return The width of the string, or 0 if there is no display
+     */
+    public double getWidth(String text) {
+        if (FONT != null) {
+            return FONT.getWidth(text);
+        }
+        return SHEET != null ? SHEET.getWidth(text) : 0;
+    }
+
+    /**
+     * The printable characters of a font rasterised once on the CPU, each in its own cell of a sheet
+     */
+    private static class GlyphSheet {
+        /**
+         * The sprite of each character in its cell of the sheet
+         */
+        private final Sprite[] GLYPHS;
+
+        /**
+         * The advance of each character, i.e. how far the next character starts after it
+         */
+        private final int[] ADVANCES;
+
+        /**
+         * The height of the font above its baseline
+         */
+        private final int ASCENT;
+
+        /**
+         * Rasterises the printable characters of a font.
+         *
+         * @param path The path of the TrueType font file
+         * @param size The size of the font, in pixels
+         */
+        private GlyphSheet(String path, int size) {
+            // 1) Load the font and measure its cells
+            java.awt.Font font;
+            try {
+                font = java.awt.Font.createFont(java.awt.Font.TRUETYPE_FONT, new File(path)).deriveFont((float) size);
+            } catch (FontFormatException | IOException ex) {
+                throw new IllegalStateException("Failed to load the font " + path, ex);
+            }
+            BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D probeGraphics = probe.createGraphics();
+            FontMetrics metrics = probeGraphics.getFontMetrics(font);
+            probeGraphics.dispose();
+            int count = LAST_CHAR - FIRST_CHAR + 1;
+            int cellWidth = metrics.getMaxAdvance() + 2 * PADDING;
+            int cellHeight = metrics.getAscent() + metrics.getDescent() + 2 * PADDING;
+            int rows = (count + GLYPHS_PER_ROW - 1) / GLYPHS_PER_ROW;
+            int sheetWidth = GLYPHS_PER_ROW * cellWidth;
+            this.ASCENT = metrics.getAscent();
+            this.ADVANCES = new int[count];
+            this.GLYPHS = new Sprite[count];
+
+            // 2) Draw every character in white in its own cell
+            BufferedImage sheet = new BufferedImage(sheetWidth, rows * cellHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = sheet.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setFont(font);
+            graphics.setColor(Color.WHITE);
+            for (int i = 0; i < count; i++) {
+                String glyph = String.valueOf((char) (FIRST_CHAR + i));
+                int cellX = (i % GLYPHS_PER_ROW) * cellWidth;
+                int cellY = (i / GLYPHS_PER_ROW) * cellHeight;
+                graphics.drawString(glyph, cellX + PADDING, cellY + PADDING + ASCENT);
+                ADVANCES[i] = metrics.stringWidth(glyph);
+            }
+            graphics.dispose();
+
+            // 3) Register a sprite for each cell of the sheet
+            int[] pixels = sheet.getRGB(0, 0, sheetWidth, sheet.getHeight(), null, 0, sheetWidth);
+            for (int i = 0; i < count; i++) {
+                GLYPHS[i] = new Sprite(null, pixels, sheetWidth, (i % GLYPHS_PER_ROW) * cellWidth,
+                        (i / GLYPHS_PER_ROW) * cellHeight, cellWidth, cellHeight);
+            }
+        }
+
+        /**
+         * Draws a string on the software canvas, character by character. Characters missing from the sheet are skipped.
+         *
+         * @param text The string to draw
+         * @param x    The x-coordinate of the start of the string
+         * @param y    The y-coordinate of the baseline of the string
+         */
+        private void drawString(String text, double x, double y) {
+            double penX = x;
+            for (int i = 0; i < text.length(); i++) {
+                int glyph = text.charAt(i) - FIRST_CHAR;
+                if (glyph < 0 || glyph >= GLYPHS.length) {
+                    continue;
+                }
+                GLYPHS[glyph].drawFromTopLeft(penX - PADDING, y - ASCENT - PADDING);
+                penX += ADVANCES[glyph];
+            }
+        }
+
+        /**
+         * Gets the width of a string drawn with the sheet.
+         *
+         * @param text The string
+         * @return The width of the string
+         */
+        private double getWidth(String text) {
+            int width = 0;
+            for (int i = 0; i < text.length(); i++) {
+                int glyph = text.charAt(i) - FIRST_CHAR;
+                if (glyph >= 0 && glyph < ADVANCES.length) {
+                    width += ADVANCES[glyph];
+                }
+            }
+            return width;
+        }
+    }
+}
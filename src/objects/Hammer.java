@@ -1,5 +1,4 @@
 package objects;
-import bagel.Image;
 import bagel.util.Rectangle;
 
 /**
@@ -12,24 +11,30 @@ public class Hammer extends CollectibleEntity{
     /**
      * The image representing the hammer
      */
-    private final Image HAMMER_IMAGE;
-
-    /**
-     * The width and height of the hammer
-     */
-    private final double WIDTH, HEIGHT;
+    private final Sprite HAMMER_IMAGE;
 
     /**
      * Constructs a Hammer at the specified position.
      *
      * @param startX The initial x-coordinate of the hammer.
      * @param startY The initial y-coordinate of the hammer.
+     * @param store  The store holding the state of the level's entities.
+     */
+    public Hammer(double startX, double startY, EntityStore store) {
+        super(startX, startY, store);
+        this.HAMMER_IMAGE = SpriteAtlas.get("res/hammer.png");
+        setSize(HAMMER_IMAGE);
+    }
+
+    /**
+     * Constructs a copy of a Hammer for a fork of the level's store.
+     *
+     * @param original The hammer to copy.
+     * @param store    The fork of the original hammer's store.
      */
-    public Hammer(double startX, double startY) {
-        super(startX, startY);
-        this.HAMMER_IMAGE = new Image("res/hammer.png");
-        this.WIDTH = HAMMER_IMAGE.getWidth();
-        this.HEIGHT = HAMMER_IMAGE.getHeight();
+    public Hammer(Hammer original, EntityStore store) {
+        super(original, store);
+        this.HAMMER_IMAGE = original.HAMMER_IMAGE;
     }
 
     /**
@@ -44,10 +49,10 @@ public class Hammer extends CollectibleEntity{
             return new Rectangle(-1000, -1000, 0, 0); // Move off-screen if collected
         }
         return new Rectangle(
-                getX() - (WIDTH / 2),  // Center-based positioning
-                getY() - (HEIGHT / 2),
-                WIDTH,
-                HEIGHT
+                getX() - (getWidth() / 2),  // Center-based positioning
+                getY() - (getHeight() / 2),
+                getWidth(),
+                getHeight()
         );
     }
 
@@ -0,0 +1,447 @@
+package objects;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * The best scores ever played on this machine, kept in a small memory-mapped file.
+ * The file is an append-only log of fixed-size records, each with a checksum, so a record torn by
+ * a power cut is recognised when the file is loaded: the log is read up to it, and the next score
+ * recorded is written over it. No intact record is ever written over. Recording a score only writes into the mapped memory; forcing it to the disk and compacting
+ * the log down to the best scores happen on a background thread, the compacted log replacing the
+ * file with an atomic rename. The thread recording a score never waits: if the background thread
+ * is busy with the file, the score is left for it to write. The best scores are published as an
+ * immutable list whenever a score is recorded, so reading them never waits either.
+ *
+ * @author Minh Triet Pham
+ */
+public class HighScoreTable implements AutoCloseable {
+    /**
+     * The tag at the start of the file
+     */
+    private static final int MAGIC = 0x5344484B;
+
+    /**
+     * The version of the file layout
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the header: the tag and the version
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * The size of a record: the time, the score, the flags and the checksum of the first three
+     */
+    private static final int RECORD_SIZE = 20;
+
+    /**
+     * The size of the checked part of a record
+     */
+    private static final int CHECKED_SIZE = 16;
+
+    /**
+     * The flag of a record of a won game
+     */
+    private static final int WON = 1;
+
+    /**
+     * The size of the file, which the log is compacted to fit in
+     */
+    private static final int FILE_SIZE = 4096;
+
+    /**
+     * The fraction of the file the log may fill before it is compacted
+     */
+    private static final double COMPACT_AT = 0.75;
+
+    /**
+     * The number of best scores kept
+     */
+    private final int SIZE;
+
+    /**
+     * The path of the file
+     */
+    private final Path PATH;
+
+    /**
+     * The lock guarding the mapped file and the best scores
+     */
+    private final ReentrantLock LOCK = new ReentrantLock();
+
+    /**
+     * The scores recorded but not yet written to the log
+     */
+    private final Queue<HighScore> PENDING = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether a flush of the log is already waiting on the background thread
+     */
+    private final AtomicBoolean IS_FLUSH_QUEUED = new AtomicBoolean(false);
+
+    /**
+     * The thread forcing the log to the disk and compacting it
+     */
+    private final ExecutorService FLUSHER;
+
+    /**
+     * The checksum of the records
+     */
+    private final CRC32C CHECKSUM = new CRC32C();
+
+    /**
+     * The checked part of the record being written or read
+     */
+    private final ByteBuffer CHECKED = ByteBuffer.allocate(CHECKED_SIZE);
+
+    /**
+     * The best scores written to the log, best first, guarded by the lock
+     */
+    private final List<HighScore> BEST = new ArrayList<>();
+
+    /**
+     * The best scores of every score recorded, best first, written or not: an unmodifiable list
+     * replaced whenever a score is recorded, so that it is read without the lock
+     */
+    private final AtomicReference<List<HighScore>> PUBLISHED_BEST = new AtomicReference<>(List.of());
+
+    /**
+     * The mapped file
+     */
+    private MappedByteBuffer log;
+
+    /**
+     * The position the next record is written at
+     */
+    private int end;
+
+    /**
+     * Opens the table, creating its file if there is none, and loads every intact record of the log.
+     *
+     * @param path The path of the file
+     * @param size The number of best scores kept
+     * @throws IOException If the file cannot be read or created
+     */
+    public HighScoreTable(String path, int size) throws IOException {
+        if (size < 1 || HEADER_SIZE + size * RECORD_SIZE > COMPACT_AT * FILE_SIZE) {
+            throw new IllegalArgumentException("A high score table keeps between 1 and "
+                    + (int) ((COMPACT_AT * FILE_SIZE - HEADER_SIZE) / RECORD_SIZE) + " scores, not " + size);
+        }
+        this.PATH = Paths.get(path);
+        this.SIZE = size;
+        if (!Files.exists(PATH)) {
+            writeCompacted();
+        }
+        this.log = map(PATH);
+        if (log.getInt(0) != MAGIC || log.getInt(4) != VERSION) {
+            throw new IOException(path + " is not a high score table");
+        }
+
+        // Read records up to the first torn or never written one
+        for (end = HEADER_SIZE; end + RECORD_SIZE <= FILE_SIZE; end += RECORD_SIZE) {
+            HighScore score = readRecord(end);
+            if (score == null) {
+                break;
+            }
+            rank(BEST, score);
+        }
+        PUBLISHED_BEST.set(Collections.unmodifiableList(new ArrayList<>(BEST)));
+        this.FLUSHER = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "high-scores");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Records the final score of a game. Writes it into the mapped log at once unless the background
+     * thread is busy with the file, in which case the score is written by the background thread.
+     * It is safe on the disk once the background thread has forced the log, but is among the best
+     * scores at once.
+     *
+     * @param score The final score
+     * @param isWon Whether the game was won
+     */
+    public void record(int score, boolean isWon) {
+        HighScore recorded = new HighScore(score, isWon, System.currentTimeMillis());
+        publish(recorded);
+        PENDING.add(recorded);
+        if (LOCK.tryLock()) {
+            try {
+                writePending();
+            } finally {
+                LOCK.unlock();
+            }
+        }
+        if (IS_FLUSH_QUEUED.compareAndSet(false, true)) {
+            FLUSHER.execute(this::flush);
+        }
+    }
+
+    /**
+     * Gets the best scores recorded, including those left for the background thread to write.
+     * Never waits for the background thread, even while it is forcing or compacting the file.
+     *
+     * @return The best scores, best first, as an unmodifiable list
+     */
+    public List<HighScore> getBestScores() {
+        return PUBLISHED_BEST.get();
+    }
+
+    /**
+     * Places a recorded score among the published best scores, replacing the list rather than
+     * changing it, so that readers never see it half updated.
+     *
+     * @param score The score recorded
+     */
+    private void publish(HighScore score) {
+        List<HighScore> published;
+        List<HighScore> best;
+        do {
+            published = PUBLISHED_BEST.get();
+            best = new ArrayList<>(published);
+            rank(best, score);
+        } while (!PUBLISHED_BEST.compareAndSet(published, Collections.unmodifiableList(best)));
+    }
+
+    /**
+     * Writes and forces every pending score, then stops the background thread.
+     *
+     * @throws InterruptedException If interrupted while waiting for the background thread
+     */
+    @Override
+    public void close() throws InterruptedException {
+        FLUSHER.execute(this::flush);
+        FLUSHER.shutdown();
+        FLUSHER.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Writes the pending scores, compacting the log first if it is too full, then forces the log
+     * to the disk. Runs on the background thread. The log is forced without the lock, so that a
+     * score recorded meanwhile is still written into the mapped memory at once.
+     */
+    private void flush() {
+        IS_FLUSH_QUEUED.set(false);
+        MappedByteBuffer written;
+        LOCK.lock();
+        try {
+            // 1) Compact the log if it is too full for the pending scores
+            if (end > COMPACT_AT * FILE_SIZE || !writePending()) {
+                writeCompacted();
+                log = map(PATH);
+                end = HEADER_SIZE + Math.min(BEST.size(), SIZE) * RECORD_SIZE;
+                writePending();
+            }
+            written = log;
+        } catch (IOException e) {
+            System.err.println("Failed to write " + PATH + ": " + e.getMessage());
+            return;
+        } finally {
+            LOCK.unlock();
+        }
+
+        // 2) Make the written records safe from a power cut
+        written.force();
+    }
+
+    /**
+     * Appends the pending scores to the log while there is room. Called with the lock held.
+     *
+     * @return True if every pending score was written, false if the log is full
+     */
+    private boolean writePending() {
+        HighScore score;
+        while ((score = PENDING.peek()) != null) {
+            if (end + RECORD_SIZE > FILE_SIZE) {
+                return false;
+            }
+            writeRecord(log, end, score);
+            end += RECORD_SIZE;
+            rank(BEST, PENDING.poll());
+        }
+        return true;
+    }
+
+    /**
+     * Writes the best scores to a new file next to the table, forces it, and atomically replaces the
+     * table's file with it, so that a power cut leaves either the old or the new file whole.
+     * Called with the lock held, or before the table is shared.
+     *
+     * @throws IOException If the file cannot be written
+     */
+    private void writeCompacted() throws IOException {
+        Path compacted = PATH.resolveSibling(PATH.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            file.putInt(0, MAGIC).putInt(4, VERSION);
+            int at = HEADER_SIZE;
+            for (int i = 0; i < Math.min(BEST.size(), SIZE); i++) {
+                writeRecord(file, at, BEST.get(i));
+                at += RECORD_SIZE;
+            }
+            file.force();
+        }
+        Files.move(compacted, PATH, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // Make the rename itself safe, where the directory can be forced
+        Path directory = PATH.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every file system can force a directory; the rename is still atomic
+        }
+    }
+
+    /**
+     * Writes a record with its checksum, the checksum last.
+     *
+     * @param file  The mapped file
+     * @param at    The position of the record
+     * @param score The score recorded
+     */
+    private void writeRecord(MappedByteBuffer file, int at, HighScore score) {
+        CHECKED.clear();
+        CHECKED.putLong(score.TIME).putInt(score.SCORE).putInt(score.IS_WON ? WON : 0);
+        file.put(at, CHECKED.array(), 0, CHECKED_SIZE);
+        file.putInt(at + CHECKED_SIZE, checksum());
+    }
+
+    /**
+     * Reads a record, checking its checksum.
+     *
+     * @param at The position of the record
+     * @return The score recorded, or null if the record is torn or was never written
+     */
+    private HighScore readRecord(int at) {
+        log.get(at, CHECKED.array(), 0, CHECKED_SIZE);
+        if (log.getInt(at + CHECKED_SIZE) != checksum()) {
+            return null;
+        }
+        return new HighScore(CHECKED.getInt(8), (CHECKED.getInt(12) & WON) != 0, CHECKED.getLong(0));
+    }
+
+    /**
+     * Computes the checksum of the checked part of the current record.
+     *
+     * @return The checksum
+     */
+    private int checksum() {
+        CHECKSUM.reset();
+        CHECKSUM.update(CHECKED.array(), 0, CHECKED_SIZE);
+        return (int) CHECKSUM.getValue();
+    }
+
+    /**
+     * Places a score among best scores, after the equal ones, dropping the worst beyond the table's size.
+     *
+     * @param best  The best scores, best first
+     * @param score The score to place
+     */
+    private void rank(List<HighScore> best, HighScore score) {
+        int at = best.size();
+        while (at > 0 && best.get(at - 1).SCORE < score.SCORE) {
+            at--;
+        }
+        if (at < SIZE) {
+            best.add(at, score);
+            if (best.size() > SIZE) {
+                best.remove(SIZE);
+            }
+        }
+    }
+
+    /**
+     * Maps the whole of a table's file.
+     *
+     * @param path The path of the file
+     * @return The mapped file
+     * @throws IOException If the file cannot be mapped
+     */
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        }
+    }
+
+    /**
+     * A score recorded in the table
+     */
+    public static class HighScore {
+        /**
+         * The final score of the game
+         */
+        private final int SCORE;
+
+        /**
+         * Whether the game was won
+         */
+        private final boolean IS_WON;
+
+        /**
+         * The time the game ended, in milliseconds since the epoch
+         */
+        private final long TIME;
+
+        /**
+         * Constructs a recorded score.
+         *
+         * @param score The final score of the game
+         * @param isWon Whether the game was won
+         * @param time  The time the game ended, in milliseconds since the epoch
+         */
+        private HighScore(int score, boolean isWon, long time) {
+            this.SCORE = score;
+            this.IS_WON = isWon;
+            this.TIME = time;
+        }
+
+        /**
+         * Gets the final score of the game
+         *
+         * @return The final score
+         */
+        public int getScore() {
+            return SCORE;
+        }
+
+        /**
+         * Checks whether the game was won
+         *
+         * @return True if the game was won
+         */
+        public boolean isWon() {
+            return IS_WON;
+        }
+
+        /**
+         * Gets the time the game ended
+         *
+         * @return The time, in milliseconds since the epoch
+         */
+        public long getTime() {
+            return TIME;
+        }
+    }
+}
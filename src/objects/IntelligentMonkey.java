@@ -12,12 +12,12 @@ public class IntelligentMonkey extends NormalMonkey {
     /**
      * The image representing the intelligent monkey facing left
      */
-    private final Image INTELLIGENT_MONKEY_LEFT_IMAGE;
+    private final Sprite INTELLIGENT_MONKEY_LEFT_IMAGE;
 
     /**
      * The image representing the intelligent monkey facing right
      */
-    private final Image INTELLIGENT_MONKEY_RIGHT_IMAGE;
+    private final Sprite INTELLIGENT_MONKEY_RIGHT_IMAGE;
 
     /**
      * Creates a new Intelligent Monkey with specified starting position, direction, and movement route.
@@ -26,20 +26,35 @@ public class IntelligentMonkey extends NormalMonkey {
      * @param startY       The initial y-coordinate
      * @param facingRight  Whether the monkey initially faces right (true) or left (false)
      * @param routeArray   Array of distances for the monkey's movement pattern
-     * @param platforms    Array of platforms in the game
+     * @param platforms    Index of the platforms in the game
+     * @param id           The id of the monkey, unique within its level
+     * @param store        The store holding the state of the level's entities
      */
-    public IntelligentMonkey(double startX, double startY, boolean facingRight, int[] routeArray, Platform[] platforms) {
-        super(startX, startY, facingRight, routeArray, platforms);
+    public IntelligentMonkey(double startX, double startY, boolean facingRight, int[] routeArray, PlatformIndex platforms,
+                             int id, EntityStore store) {
+        super(startX, startY, facingRight, routeArray, platforms, id, store);
         
         // Override the normal monkey images with intelligent monkey images
-        INTELLIGENT_MONKEY_LEFT_IMAGE = new Image("res/intelli_monkey_left.png");
-        INTELLIGENT_MONKEY_RIGHT_IMAGE = new Image("res/intelli_monkey_right.png");
+        INTELLIGENT_MONKEY_LEFT_IMAGE = SpriteAtlas.get("res/intelli_monkey_left.png");
+        INTELLIGENT_MONKEY_RIGHT_IMAGE = SpriteAtlas.get("res/intelli_monkey_right.png");
         
         // Replace inherited image variables with intelligent monkey images
         this.setMONKEY_LEFT_IMAGE(INTELLIGENT_MONKEY_LEFT_IMAGE);
         this.setMONKEY_RIGHT_IMAGE(INTELLIGENT_MONKEY_RIGHT_IMAGE);
     }
 
+    /**
+     * Creates a copy of an Intelligent Monkey for a fork of the level's store.
+     *
+     * @param original The monkey to copy
+     * @param store    The fork of the original monkey's store
+     */
+    public IntelligentMonkey(IntelligentMonkey original, EntityStore store) {
+        super(original, store);
+        INTELLIGENT_MONKEY_LEFT_IMAGE = original.INTELLIGENT_MONKEY_LEFT_IMAGE;
+        INTELLIGENT_MONKEY_RIGHT_IMAGE = original.INTELLIGENT_MONKEY_RIGHT_IMAGE;
+    }
+
     /**
      * Updates the intelligent monkey's state for the current frame.
      * Banana shooting is now handled by Level2Screen.
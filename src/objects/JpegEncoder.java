@@ -0,0 +1,65 @@
+package objects;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Compresses ARGB frames to JPEG images, e.g. for Motion JPEG videos.
+ * Each thread encoding frames keeps its own image and JPEG writer, so frames can be encoded on
+ * several threads at once without creating either for every frame.
+ *
+ * @author Minh Triet Pham
+ */
+public class JpegEncoder {
+    /**
+     * The image each thread copies its frames into, created on its first frame of a size
+     */
+    private static final ThreadLocal<BufferedImage> IMAGE = new ThreadLocal<>();
+
+    /**
+     * The JPEG writer of each thread, reused for every frame it encodes
+     */
+    private static final ThreadLocal<ImageWriter> WRITER =
+            ThreadLocal.withInitial(() -> ImageIO.getImageWritersByFormatName("jpeg").next());
+
+    /**
+     * Encodes a frame as a JPEG image. The pixels are no longer needed once this returns.
+     *
+     * @param pixels  The ARGB pixels of the frame, row by row from the top
+     * @param width   The width of the frame
+     * @param height  The height of the frame
+     * @param quality The quality of the JPEG image, from 0 to 1
+     * @return The JPEG image
+     * @throws IOException If the frame cannot be encoded
+     */
+    public static byte[] encode(int[] pixels, int width, int height, float quality) throws IOException {
+        // 1) Copy the pixels straight into the image of this thread
+        BufferedImage image = IMAGE.get();
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            IMAGE.set(image);
+        }
+        int[] imagePixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(pixels, 0, imagePixels, 0, imagePixels.length);
+
+        // 2) Compress the image with the JPEG writer of this thread
+        ImageWriter jpegWriter = WRITER.get();
+        ImageWriteParam param = jpegWriter.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream stream = new MemoryCacheImageOutputStream(jpeg)) {
+            jpegWriter.setOutput(stream);
+            jpegWriter.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            jpegWriter.reset();
+        }
+        return jpeg.toByteArray();
+    }
+}
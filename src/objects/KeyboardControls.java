@@ -0,0 +1,48 @@
+package objects;
+import bagel.*;
+
+/**
+ * The controls of a player at the keyboard, read from Bagel's input of the frame.
+ * One instance is kept per level and pointed at each frame's input, so reading the keyboard does not allocate.
+ *
+ * @author Minh Triet Pham
+ */
+public class KeyboardControls implements Controls {
+    /**
+     * The input of the frame, or null before the first frame
+     */
+    private Input input;
+
+    /**
+     * Points the controls at the input of a frame.
+     *
+     * @param input The input of the frame
+     * @return These controls, reading the input of the frame
+     */
+    public KeyboardControls read(Input input) {
+        this.input = input;
+        return this;
+    }
+
+    /**
+     * Checks whether a key is held down in this frame.
+     *
+     * @param key The key to check
+     * @return True if the key is down, false otherwise
+     */
+    @Override
+    public boolean isDown(Keys key) {
+        return input.isDown(key);
+    }
+
+    /**
+     * Checks whether a key was pressed in this frame.
+     *
+     * @param key The key to check
+     * @return True if the key was pressed this frame, false otherwise
+     */
+    @Override
+    public boolean wasPressed(Keys key) {
+        return input.wasPressed(key);
+    }
+}
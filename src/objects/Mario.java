@@ -11,11 +11,6 @@ import java.util.List;
  * @author Minh Triet Pham
  */
 public class Mario extends Entity{
-    /**
-     * The vertical velocity of Mario
-     */
-    private double velocityY = 0;
-
     /**
      * Whether Mario is currently jumping
      */
@@ -39,37 +34,37 @@ public class Mario extends Entity{
     /**
      * The current image of Mario based on different states
      */ 
-    private Image marioImage;
+    private Sprite marioImage;
 
     /**
      * The image representing Mario facing right
      */
-    private final Image MARIO_RIGHT_IMAGE;
+    private final Sprite MARIO_RIGHT_IMAGE;
 
     /**
      * The image representing Mario facing left
      */
-    private final Image MARIO_LEFT_IMAGE;
+    private final Sprite MARIO_LEFT_IMAGE;
 
     /**
      * The image representing Mario with a hammer facing left
      */
-    private final Image MARIO_HAMMER_LEFT_IMAGE;
+    private final Sprite MARIO_HAMMER_LEFT_IMAGE;
 
     /**
      * The image representing Mario with a hammer facing right
      */
-    private final Image MARIO_HAMMER_RIGHT_IMAGE;
+    private final Sprite MARIO_HAMMER_RIGHT_IMAGE;
 
     /**
      * The image representing Mario with a blaster facing left
      */
-    private final Image MARIO_BLASTER_LEFT_IMAGE;
+    private final Sprite MARIO_BLASTER_LEFT_IMAGE;
 
     /**
      * The image representing Mario with a blaster facing right
      */
-    private final Image MARIO_BLASTER_RIGHT_IMAGE;
+    private final Sprite MARIO_BLASTER_RIGHT_IMAGE;
 
     /**
      * List to manage active bullets
@@ -91,16 +86,6 @@ public class Mario extends Entity{
      */
     private static final double CLIMB_SPEED = Physics.MARIO_CLIMB_SPEED;
 
-    /**
-     * The height of Mario
-     */
-    private static double height;
-
-    /**
-     * The width of Mario
-     */
-    private static double width;
-
     /**
      * Whether Mario is facing right
      */ 
@@ -111,23 +96,51 @@ public class Mario extends Entity{
      *
      * @param startX Initial x-coordinate.
      * @param startY Initial y-coordinate.
+     * @param store  The store holding the state of the level's entities.
      */
-    public Mario(double startX, double startY) {
-        super(startX, startY);
+    public Mario(double startX, double startY, EntityStore store) {
+        super(startX, startY, store, Archetype.PLAYER);
+
+        // Mario's fall depends on his ladder handling earlier in the same update,
+        // so he is integrated on his own rather than with the level's other falling entities
+        getStore().setGravity(getIndex(), Physics.MARIO_GRAVITY, Physics.MARIO_TERMINAL_VELOCITY);
 
         // Load images for different Mario states
-        this.MARIO_RIGHT_IMAGE = new Image("res/mario_right.png");
-        this.MARIO_LEFT_IMAGE = new Image("res/mario_left.png");
-        this.MARIO_HAMMER_RIGHT_IMAGE = new Image("res/mario_hammer_right.png");
-        this.MARIO_HAMMER_LEFT_IMAGE = new Image("res/mario_hammer_left.png");
-        this.MARIO_BLASTER_RIGHT_IMAGE = new Image("res/mario_blaster_right.png");
-        this.MARIO_BLASTER_LEFT_IMAGE = new Image("res/mario_blaster_left.png");
+        this.MARIO_RIGHT_IMAGE = SpriteAtlas.get("res/mario_right.png");
+        this.MARIO_LEFT_IMAGE = SpriteAtlas.get("res/mario_left.png");
+        this.MARIO_HAMMER_RIGHT_IMAGE = SpriteAtlas.get("res/mario_hammer_right.png");
+        this.MARIO_HAMMER_LEFT_IMAGE = SpriteAtlas.get("res/mario_hammer_left.png");
+        this.MARIO_BLASTER_RIGHT_IMAGE = SpriteAtlas.get("res/mario_blaster_right.png");
+        this.MARIO_BLASTER_LEFT_IMAGE = SpriteAtlas.get("res/mario_blaster_left.png");
 
         // Default Mario starts facing right
         this.marioImage = MARIO_RIGHT_IMAGE;
+        setSize(marioImage);
+    }
 
-        width = marioImage.getWidth();
-        height = marioImage.getHeight();
+    /**
+     * Constructs a copy of Mario for a fork of the level's store, with copies of his bullets.
+     *
+     * @param original The Mario to copy.
+     * @param store    The fork of the original Mario's store.
+     */
+    public Mario(Mario original, EntityStore store) {
+        super(original, store);
+        this.MARIO_RIGHT_IMAGE = original.MARIO_RIGHT_IMAGE;
+        this.MARIO_LEFT_IMAGE = original.MARIO_LEFT_IMAGE;
+        this.MARIO_HAMMER_RIGHT_IMAGE = original.MARIO_HAMMER_RIGHT_IMAGE;
+        this.MARIO_HAMMER_LEFT_IMAGE = original.MARIO_HAMMER_LEFT_IMAGE;
+        this.MARIO_BLASTER_RIGHT_IMAGE = original.MARIO_BLASTER_RIGHT_IMAGE;
+        this.MARIO_BLASTER_LEFT_IMAGE = original.MARIO_BLASTER_LEFT_IMAGE;
+        this.marioImage = original.marioImage;
+        this.isJumping = original.isJumping;
+        this.hasHammer = original.hasHammer;
+        this.hasBlaster = original.hasBlaster;
+        this.bulletCount = original.bulletCount;
+        this.isFacingRight = original.isFacingRight;
+        for (Bullet bullet : original.bullets) {
+            this.bullets.add(new Bullet(bullet, store));
+        }
     }
 
     /**
@@ -186,6 +199,15 @@ public class Mario extends Entity{
         return this.hasBlaster && bulletCount > 0;
     }
 
+    /**
+     * Checks which way Mario is facing.
+     *
+     * @return {@code true} if Mario is facing right, {@code false} if he is facing left.
+     */
+    public boolean isFacingRight() {
+        return this.isFacingRight;
+    }
+
     /**
      * Gets the current number of bullets Mario has.
      *
@@ -195,6 +217,21 @@ public class Mario extends Entity{
         return this.bulletCount;
     }
 
+    /**
+     * Gets the number of Mario's bullets in flight that are going to hit Donkey Kong.
+     *
+     * @return The number of bullets on target.
+     */
+    public int getBulletsOnTarget() {
+        int onTarget = 0;
+        for (Bullet bullet : bullets) {
+            if (bullet.isOnTarget()) {
+                onTarget++;
+            }
+        }
+        return onTarget;
+    }
+
     /**
      * Gets Mario's bounding box for collision detection.
      *
@@ -202,10 +239,10 @@ public class Mario extends Entity{
      */
     public Rectangle getBoundingBox() {
         return new Rectangle(
-                getX() - (width / 2),
-                getY() - (height / 2),
-                width,
-                height
+                getX() - (getWidth() / 2),
+                getY() - (getHeight() / 2),
+                getWidth(),
+                getHeight()
         );
     }
 
@@ -213,7 +250,7 @@ public class Mario extends Entity{
      * Updates Mario's movement, jumping, ladder climbing, weapon collection, and interactions.
      * This method is called every frame to process player input and update Mario's state.
      *
-     * @param input     The player's input (keyboard/mouse).
+     * @param controls  The keys steering Mario this frame (the player's keyboard or a bot).
      * @param ladders   The array of ladders in the game that Mario can climb.
      * @param platforms The array of platforms in the game that Mario can walk on.
      * @param hammer    The hammer object that Mario can collect and use.
@@ -221,10 +258,10 @@ public class Mario extends Entity{
      * @param donkey    Donkey Kong object (needed for bullet collision checks).
      * @param monkeys   Array of monkeys (needed for bullet collision checks, can be null in level 1).
      */
-    public void update(Input input, Ladder[] ladders, Platform[] platforms, Hammer hammer, 
+    public void update(Controls controls, Ladder[] ladders, Platform[] platforms, Hammer hammer, 
                     Blaster[] blasters, Donkey donkey, NormalMonkey[] monkeys) {
         // 1) Horizontal movement
-        handleHorizontalMovement(input);
+        handleHorizontalMovement(controls);
 
         // 2) Update Mario's current sprite
         updateSprite();
@@ -236,32 +273,31 @@ public class Mario extends Entity{
         }
         
         // 4) Handle shooting if Mario has a blaster
-        if (hasBlaster && bulletCount > 0 && input.wasPressed(Keys.S)) {
-            shootBullet();
+        if (hasBlaster && bulletCount > 0 && controls.wasPressed(Keys.S)) {
+            shootBullet(platforms, donkey);
         }
         
         // 5) Update and check all active bullets
-        updateBullets(donkey, monkeys, platforms);
+        updateBullets(donkey, monkeys);
         
         // 6) Ladder logic – check if on a ladder
         boolean isOnLadder;
-        isOnLadder = handleLadders(input, ladders);
+        isOnLadder = handleLadders(controls, ladders);
 
         // 7) Jump logic: if on platform but let's queue jump if needed
-        boolean wantsToJump = input.wasPressed(Keys.SPACE);
+        boolean wantsToJump = controls.wasPressed(Keys.SPACE);
 
-        // 8) If not on ladder, apply gravity, move Mario
+        // 8) + 9) If not on ladder, apply gravity, then actually move Mario vertically
+        Rectangle boundsBeforeFall = getBoundingBox();
         if (!isOnLadder) {
-            velocityY += Physics.MARIO_GRAVITY;
-            velocityY = Math.min(Physics.MARIO_TERMINAL_VELOCITY, velocityY);
+            getStore().integrate(getIndex());
+        } else {
+            getStore().drift(getIndex());
         }
 
-        // 9) Actually move Mario vertically after gravity
-        this.setY(getY() + velocityY);
-
-        // 10) Check for platform collision AFTER Mario moves
+        // 10) Check for platform collision AFTER Mario moves, along the whole fall of this frame
         boolean onPlatform;
-        onPlatform = handlePlatforms(platforms, hammer);
+        onPlatform = handlePlatforms(platforms, hammer, boundsBeforeFall);
 
         // 11) If we are on the platform, allow jumping
         handleJumping(onPlatform, wantsToJump);
@@ -270,17 +306,40 @@ public class Mario extends Entity{
         enforceBoundaries();
 
         // 13) Draw Mario and active bullets
-        draw();
+        if (!isHeadless()) {
+            draw();
+        }
+    }
+
+    /**
+     * Gets Mario's vertical velocity.
+     *
+     * @return The vertical velocity of Mario.
+     */
+    private double getVelocityY() {
+        return getStore().getVelocityY(getIndex());
+    }
+
+    /**
+     * Sets Mario's vertical velocity.
+     *
+     * @param velocityY The new vertical velocity of Mario.
+     */
+    private void setVelocityY(double velocityY) {
+        getStore().setVelocityY(getIndex(), velocityY);
     }
 
     /**
      * Creates a new bullet and adds it to the active bullets list.
      * Decreases the bullet count.
+     *
+     * @param platforms The platforms the bullet may fly into.
+     * @param donkey    Donkey Kong, whom the bullet may hit.
      */
-    private void shootBullet() {
+    private void shootBullet(Platform[] platforms, Donkey donkey) {
         if (bulletCount > 0) {
             // Creates a new bullet and adds it to the active bullets list for tracking
-            bullets.add(new Bullet(getX(), getY(), isFacingRight));
+            bullets.add(new Bullet(getX(), getY(), isFacingRight, platforms, donkey, getStore()));
 
             // Decreases the bullet count
             bulletCount--;
@@ -294,12 +353,13 @@ public class Mario extends Entity{
 
     /**
      * Updates all active bullets and checks for collisions.
+     * Hits on Donkey Kong and the platforms were scheduled when each bullet was fired,
+     * so only the moving monkeys are tested against the bullets every frame.
      * 
      * @param donkey    The Donkey Kong object to check for bullet hits.
      * @param monkeys   Array of NormalMonkey/IntelligentMonkey objects (can be null in level 1).
-     * @param platforms Array of platforms to check for bullet collisions.
      */
-    private void updateBullets(Donkey donkey, NormalMonkey[] monkeys, Platform[] platforms) {
+    private void updateBullets(Donkey donkey, NormalMonkey[] monkeys) {
         List<Bullet> bulletsToRemove = new ArrayList<>();
         
         for (Bullet bullet : bullets) {
@@ -313,25 +373,23 @@ public class Mario extends Entity{
             }
             
             // Check for collision with Donkey Kong
-            if (bullet.getBoundingBox().intersects(donkey.getBoundingBox())) {
+            if (bullet.isHittingDonkey(donkey)) {
                 donkey.decreaseHealth(1);
                 bulletsToRemove.add(bullet);
                 continue;
             }
             
             // Check for collision with platforms
-            for (Platform platform : platforms) {
-                if (bullet.getBoundingBox().intersects(platform.getBoundingBox())) {
-                    bulletsToRemove.add(bullet);
-                    break;
-                }
+            if (bullet.isHittingPlatform()) {
+                bulletsToRemove.add(bullet);
             }
             
             // Check for collision with monkeys (if in level 2)
             if (monkeys != null) {
                 for (NormalMonkey monkey : monkeys) {
                     if (monkey != null && monkey.isAlive() && 
-                        bullet.getBoundingBox().intersects(monkey.getBoundingBox())) {
+                        SweptCollision.collides(bullet.getPreviousBoundingBox(), bullet.getBoundingBox(),
+                                monkey.getBoundingBox())) {
                         monkey.hit(); // This works for both NormalMonkey and IntelligentMonkey
                         bulletsToRemove.add(bullet);
                         break;
@@ -340,38 +398,44 @@ public class Mario extends Entity{
             }
         }
         
-        // Remove bullets that hit something or went off-screen
-        bullets.removeAll(bulletsToRemove);
+        // Remove bullets that hit something or went off-screen, freeing their slots in the store
+        for (Bullet bullet : bulletsToRemove) {
+            if (bullets.remove(bullet)) {
+                bullet.release();
+            }
+        }
     }
 
     /**
      * Handles Mario's interaction with platforms to determine if he is standing on one.
+     * The whole fall of this frame is checked, so Mario lands even if he fell past
+     * the top of a platform in a single frame.
      *
      * @param platforms An array of {@link Platform} objects representing the platforms in the game.
      * @param hammer    A {@link Hammer} object (not used in this method, but might be for future logic).
+     * @param before    Mario's bounding box before he fell this frame.
      * @return {@code true} if Mario is standing on a platform, {@code false} otherwise.
      */
-    private boolean handlePlatforms(Platform[] platforms, Hammer hammer) {
+    private boolean handlePlatforms(Platform[] platforms, Hammer hammer, Rectangle before) {
         boolean onPlatform = false;
 
         // We'll only snap Mario to a platform if he's moving downward (velocityY >= 0)
         // so we don't kill his jump in mid-air.
-        if (velocityY >= 0) {
+        if (getVelocityY() >= 0) {
+            Rectangle marioBounds = getBoundingBox();
             for (Platform platform : platforms) {
-                Rectangle marioBounds    = getBoundingBox();
                 Rectangle platformBounds = platform.getBoundingBox();
 
-                if (marioBounds.intersects(platformBounds)) {
-                    double marioBottom = marioBounds.bottom();
+                if (SweptCollision.collides(before, marioBounds, platformBounds)) {
                     double platformTop = platformBounds.top();
 
-                    // If Mario's bottom is at or above the platform's top
-                    // and not far below it (a small threshold based on velocity)
-                    if (marioBottom <= platformTop + velocityY) {
+                    // If Mario's bottom was at or above the platform's top before he fell,
+                    // he has landed on it rather than walked into it from below
+                    if (before.bottom() <= platformTop) {
                         // Snap Mario so his bottom = the platform top
                         double newY = platformTop - (marioImage.getHeight() / 2);
                         this.setY(newY);
-                        velocityY = 0;
+                        setVelocityY(0);
                         isJumping = false;
                         onPlatform = true;
                         break; // We found a platform collision
@@ -385,11 +449,11 @@ public class Mario extends Entity{
     /**
      * Handles Mario's interaction with ladders, allowing him to climb up or down.
      *
-     * @param input   The {@link Input} object that checks for user key presses.
+     * @param controls The {@link Controls} that check for key presses.
      * @param ladders An array of {@link Ladder} objects representing ladders in the game.
      * @return {@code true} if Mario is on a ladder, {@code false} otherwise.
      */
-    private boolean handleLadders(Input input, Ladder[] ladders) {
+    private boolean handleLadders(Controls controls, Ladder[] ladders) {
         boolean isOnLadder = false;
         for (Ladder ladder : ladders) {
             double ladderLeft  = ladder.getX() - (ladder.getWidth() / 2);
@@ -405,38 +469,38 @@ public class Mario extends Entity{
                     isOnLadder = true;
 
                     // Stop Mario from sliding up when not moving
-                    if (!input.isDown(Keys.UP) && !input.isDown(Keys.DOWN)) {
-                        velocityY = 0;  // Prevent sliding inertia effect
+                    if (!controls.isDown(Keys.UP) && !controls.isDown(Keys.DOWN)) {
+                        setVelocityY(0);  // Prevent sliding inertia effect
                     }
 
                     // ----------- Climb UP -----------
-                    if (input.isDown(Keys.UP)) {
+                    if (controls.isDown(Keys.UP)) {
                         this.setY(getY() - CLIMB_SPEED);
-                        velocityY = 0;
+                        setVelocityY(0);
                     }
 
                     // ----------- Climb DOWN -----------
-                    if (input.isDown(Keys.DOWN)) {
+                    if (controls.isDown(Keys.DOWN)) {
                         double nextY = getY() + CLIMB_SPEED;
                         double nextBottom = nextY + (marioImage.getHeight() / 2);
 
                         if (marioBottom > ladderTop && nextBottom <= ladderBottom) {
                             this.setY(nextY);
-                            velocityY = 0;
+                            setVelocityY(0);
                         } else if (marioBottom == ladderBottom) {
-                            velocityY = 0;
+                            setVelocityY(0);
                         } else if (ladderBottom - marioBottom < CLIMB_SPEED) {
                             this.setY(getY() + ladderBottom - marioBottom);
-                            velocityY = 0;
+                            setVelocityY(0);
                         }
                     }
                 }
-            } else if (marioBottom == ladderTop && input.isDown(Keys.DOWN) && (marioRight - marioImage.getWidth() / 2 > ladderLeft && marioRight - marioImage.getWidth() / 2  < ladderRight)) {
+            } else if (marioBottom == ladderTop && controls.isDown(Keys.DOWN) && (marioRight - marioImage.getWidth() / 2 > ladderLeft && marioRight - marioImage.getWidth() / 2  < ladderRight)) {
                 double nextY = getY() + CLIMB_SPEED;
                 this.setY(nextY);
-                velocityY = 0; // ignore gravity
-            } else if (marioBottom == ladderBottom && input.isDown(Keys.DOWN) && (marioRight - marioImage.getWidth() / 2 > ladderLeft && marioRight - marioImage.getWidth() / 2  < ladderRight)) {
-                velocityY = 0; // ignore gravity
+                setVelocityY(0); // ignore gravity
+            } else if (marioBottom == ladderBottom && controls.isDown(Keys.DOWN) && (marioRight - marioImage.getWidth() / 2 > ladderLeft && marioRight - marioImage.getWidth() / 2  < ladderRight)) {
+                setVelocityY(0); // ignore gravity
             }
         }
         return isOnLadder;
@@ -445,13 +509,13 @@ public class Mario extends Entity{
     /** 
      * Handles horizontal movement based on player input. 
      * 
-     * @param input The player's input (keyboard/mouse).
+     * @param controls The keys steering Mario this frame.
      */
-    private void handleHorizontalMovement(Input input) {
-        if (input.isDown(Keys.LEFT)) {
+    private void handleHorizontalMovement(Controls controls) {
+        if (controls.isDown(Keys.LEFT)) {
             this.setX(getX() - MOVE_SPEED);
             isFacingRight = false;
-        } else if (input.isDown(Keys.RIGHT)) {
+        } else if (controls.isDown(Keys.RIGHT)) {
             this.setX(getX() + MOVE_SPEED);
             isFacingRight = true;
         }
@@ -462,7 +526,7 @@ public class Mario extends Entity{
      */
     private void updateSprite() {
         // Remember the old image and its bottom
-        Image oldImage = marioImage;
+        Sprite oldImage = marioImage;
         double oldHeight = oldImage.getHeight();
         double oldBottom = getY() + (oldHeight / 2);
 
@@ -484,8 +548,7 @@ public class Mario extends Entity{
         this.setY(getY() - shift);
 
         // Update the recorded width/height to match the new image
-        width = marioImage.getWidth();
-        height = newHeight;
+        setSize(marioImage);
     }
 
     /** 
@@ -523,15 +586,15 @@ public class Mario extends Entity{
     private void handleJumping(boolean onPlatform, boolean wantsToJump) {
         // If Mario is on a platform and wants to jump, set the jump velocity
         if (onPlatform && wantsToJump) {
-            velocityY = JUMP_STRENGTH;
+            setVelocityY(JUMP_STRENGTH);
             isJumping = true;
         }
 
         // If Mario is below the bottom of the screen, set his position to the bottom of the screen
         double bottomOfMario = getY() + (marioImage.getHeight() / 2);
-        if (bottomOfMario > Window.getHeight()) {
-            this.setY(Window.getHeight() - (marioImage.getHeight() / 2));
-            velocityY = 0;
+        if (bottomOfMario > Display.getHeight()) {
+            this.setY(Display.getHeight() - (marioImage.getHeight() / 2));
+            setVelocityY(0);
             isJumping = false;
         }
     }
@@ -549,7 +612,7 @@ public class Mario extends Entity{
         }
 
         // Prevent Mario from moving beyond the right edge of the screen
-        double maxX = Window.getWidth() - halfW;
+        double maxX = Display.getWidth() - halfW;
         if (getX() > maxX) {
             this.setX(maxX);
         }
@@ -558,12 +621,12 @@ public class Mario extends Entity{
         double bottomOfMario = getY() + (marioImage.getHeight() / 2);
 
         // Prevent Mario from falling below the bottom of the screen
-        if (bottomOfMario > Window.getHeight()) {
+        if (bottomOfMario > Display.getHeight()) {
             // Reposition Mario to stand on the bottom edge
-            this.setY(Window.getHeight() - (marioImage.getHeight() / 2));
+            this.setY(Display.getHeight() - (marioImage.getHeight() / 2));
 
             // Stop vertical movement and reset jumping state
-            velocityY = 0;
+            setVelocityY(0);
             isJumping = false;
         }
     }
@@ -647,7 +710,7 @@ public class Mario extends Entity{
         return isJumping
                 && Math.abs(this.getX() - barrel.getX()) <= 1
                 && (this.getY() < barrel.getY())
-                && ((this.getY() + height / 2) >= (barrel.getY() + barrel.getBarrelImage().getHeight() / 2
-                - (JUMP_STRENGTH * JUMP_STRENGTH) / (2 * Physics.MARIO_GRAVITY) - height / 2));
+                && ((this.getY() + getHeight() / 2) >= (barrel.getY() + barrel.getBarrelImage().getHeight() / 2
+                - (JUMP_STRENGTH * JUMP_STRENGTH) / (2 * Physics.MARIO_GRAVITY) - getHeight() / 2));
     }
 }
\ No newline at end of file
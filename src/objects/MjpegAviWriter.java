@@ -0,0 +1,242 @@
+package objects;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes JPEG frames into an AVI file as a Motion JPEG video stream.
+ * The headers are written first with the sizes left blank, each frame is appended as a chunk of
+ * the movie list as soon as it is ready, and the sizes and the index are filled in when the file is closed.
+ *
+ * @author Minh Triet Pham
+ */
+public class MjpegAviWriter implements AutoCloseable {
+    /**
+     * The size of the RIFF header, the header list and the start of the movie list
+     */
+    private static final int HEADER_SIZE = 224;
+
+    /**
+     * The position of the size of the RIFF file
+     */
+    private static final int RIFF_SIZE_POSITION = 4;
+
+    /**
+     * The position of the number of frames in the main AVI header
+     */
+    private static final int TOTAL_FRAMES_POSITION = 48;
+
+    /**
+     * The position of the number of frames in the stream header
+     */
+    private static final int STREAM_LENGTH_POSITION = 140;
+
+    /**
+     * The position of the size of the movie list
+     */
+    private static final int MOVIE_SIZE_POSITION = 216;
+
+    /**
+     * The position of the "movi" tag, which the index offsets are relative to
+     */
+    private static final int MOVIE_TAG_POSITION = 220;
+
+    /**
+     * The flag marking a frame of the index as a key frame (every JPEG frame is)
+     */
+    private static final int KEY_FRAME = 0x10;
+
+    /**
+     * The flag telling players that the file has an index
+     */
+    private static final int HAS_INDEX = 0x10;
+
+    /**
+     * The number of frames first made room for in the index
+     */
+    private static final int INITIAL_FRAMES = 1024;
+
+    /**
+     * The file written
+     */
+    private final FileChannel FILE;
+
+    /**
+     * The header of the chunk of each frame
+     */
+    private final ByteBuffer CHUNK_HEADER = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The offset of each frame from the "movi" tag
+     */
+    private int[] offsets = new int[INITIAL_FRAMES];
+
+    /**
+     * The size of each frame
+     */
+    private int[] sizes = new int[INITIAL_FRAMES];
+
+    /**
+     * The number of frames written
+     */
+    private int frameCount = 0;
+
+    /**
+     * The position the next frame is written at
+     */
+    private long position = HEADER_SIZE;
+
+    /**
+     * Opens an AVI file and writes its headers.
+     *
+     * @param path   The path of the file
+     * @param width  The width of the frames
+     * @param height The height of the frames
+     * @param fps    The number of frames per second
+     * @throws IOException If the file cannot be written
+     */
+    public MjpegAviWriter(String path, int width, int height, int fps) throws IOException {
+        this.FILE = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        // 1) RIFF file and header list
+        putTag(header, "RIFF").putInt(0);
+        putTag(header, "AVI ");
+        putTag(header, "LIST").putInt(192);
+        putTag(header, "hdrl");
+
+        // 2) Main AVI header
+        putTag(header, "avih").putInt(56);
+        header.putInt(1_000_000 / fps).putInt(0).putInt(0).putInt(HAS_INDEX);
+        header.putInt(0).putInt(0).putInt(1).putInt(width * height * 3);
+        header.putInt(width).putInt(height).putInt(0).putInt(0).putInt(0).putInt(0);
+
+        // 3) Stream list: a Motion JPEG video stream
+        putTag(header, "LIST").putInt(116);
+        putTag(header, "strl");
+        putTag(header, "strh").putInt(56);
+        putTag(header, "vids");
+        putTag(header, "MJPG");
+        header.putInt(0).putShort((short) 0).putShort((short) 0).putInt(0);
+        header.putInt(1).putInt(fps).putInt(0).putInt(0).putInt(width * height * 3).putInt(-1).putInt(0);
+        header.putShort((short) 0).putShort((short) 0).putShort((short) width).putShort((short) height);
+        putTag(header, "strf").putInt(40);
+        header.putInt(40).putInt(width).putInt(height).putShort((short) 1).putShort((short) 24);
+        putTag(header, "MJPG");
+        header.putInt(width * height * 3).putInt(0).putInt(0).putInt(0).putInt(0);
+
+        // 4) Start of the movie list, which the frames are appended to
+        putTag(header, "LIST").putInt(0);
+        putTag(header, "movi");
+        header.flip();
+        writeFully(header, 0);
+    }
+
+    /**
+     * Appends a frame to the video.
+     *
+     * @param jpeg The frame, encoded as a JPEG image
+     * @throws IOException If the file cannot be written
+     */
+    public void writeFrame(byte[] jpeg) throws IOException {
+        if (frameCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * frameCount);
+            sizes = Arrays.copyOf(sizes, 2 * frameCount);
+        }
+        offsets[frameCount] = (int) (position - MOVIE_TAG_POSITION);
+        sizes[frameCount] = jpeg.length;
+        frameCount++;
+
+        // Each chunk is padded to an even size
+        CHUNK_HEADER.clear();
+        putTag(CHUNK_HEADER, "00dc").putInt(jpeg.length);
+        CHUNK_HEADER.flip();
+        writeFully(CHUNK_HEADER, position);
+        writeFully(ByteBuffer.wrap(jpeg), position + 8);
+        position += 8 + jpeg.length + (jpeg.length & 1);
+    }
+
+    /**
+     * Writes the index and fills in the sizes of the headers, then closes the file.
+     *
+     * @throws IOException If the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            // 1) The index of every frame
+            long moviEnd = position;
+            ByteBuffer index = ByteBuffer.allocate(8 + 16 * frameCount).order(ByteOrder.LITTLE_ENDIAN);
+            putTag(index, "idx1").putInt(16 * frameCount);
+            for (int i = 0; i < frameCount; i++) {
+                putTag(index, "00dc").putInt(KEY_FRAME).putInt(offsets[i]).putInt(sizes[i]);
+            }
+            index.flip();
+            writeFully(index, position);
+            position += index.capacity();
+
+            // 2) The sizes left blank in the headers
+            patch(RIFF_SIZE_POSITION, (int) (position - 8));
+            patch(TOTAL_FRAMES_POSITION, frameCount);
+            patch(STREAM_LENGTH_POSITION, frameCount);
+            patch(MOVIE_SIZE_POSITION, (int) (moviEnd - MOVIE_SIZE_POSITION - 4));
+        } finally {
+            FILE.close();
+        }
+    }
+
+    /**
+     * Gets the number of frames written
+     *
+     * @return The number of frames written
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Overwrites a size in the headers.
+     *
+     * @param at    The position of the size
+     * @param value The size
+     * @throws IOException If the file cannot be written
+     */
+    private void patch(long at, int value) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value);
+        buffer.flip();
+        writeFully(buffer, at);
+    }
+
+    /**
+     * Writes the whole of a buffer at a position of the file.
+     *
+     * @param buffer The buffer to write
+     * @param at     The position to write it at
+     * @throws IOException If the file cannot be written
+     */
+    private void writeFully(ByteBuffer buffer, long at) throws IOException {
+        long offset = at;
+        while (buffer.hasRemaining()) {
+            offset += FILE.write(buffer, offset);
+        }
+    }
+
+    /**
+     * Puts a four-character tag into a buffer.
+     *
+     * @param buffer The buffer
+     * @param tag    The four-character tag
+     * @return The buffer
+     */
+    private static ByteBuffer putTag(ByteBuffer buffer, String tag) {
+        for (int i = 0; i < 4; i++) {
+            buffer.put((byte) tag.charAt(i));
+        }
+        return buffer;
+    }
+}
@@ -1,5 +1,4 @@
 package objects;
-import bagel.*;
 import bagel.util.Rectangle;
 
 /**
@@ -13,22 +12,17 @@ public class NormalMonkey extends Entity{
     /**
      * The image representing the monkey facing left
      */
-    private Image MONKEY_LEFT_IMAGE;
+    private Sprite MONKEY_LEFT_IMAGE;
 
     /**
      * The image representing the monkey facing right
      */
-    private Image MONKEY_RIGHT_IMAGE;
+    private Sprite MONKEY_RIGHT_IMAGE;
 
     /**
      * The current image of the monkey
      */
-    private Image currentImage;
-
-    /**
-     * The initial velocity of the monkey
-     */
-    private double velocityY = 0;
+    private Sprite currentImage;
 
     /**
      * Signal of whether the monkey is facing right
@@ -46,30 +40,36 @@ public class NormalMonkey extends Entity{
     private final int[] routeDistances;
 
     /**
-     * The current route index of the monkey
+     * The index of the platforms in the game - to find the platform the monkey is standing on
      */
-    private int currentRouteIndex = 0;
+    private final PlatformIndex platformIndex;
 
     /**
-     * The distance moved by the monkey - to check if the monkey has completed 
-     * the current route segment or not
+     * The platform the monkey was last standing on, or null if it has not landed yet
      */
-    private int distanceMoved = 0;
+    private Platform supportPlatform = null;
 
     /**
-     * Signal of whether the monkey is still in the game
+     * The tolerance used when checking whether the monkey is standing on a platform.
+     * When the monkey is on the platform, the bottom of the monkey is exactly touching
+     * the top of the platform, which would otherwise be detected as not touching
      */
-    private boolean isAlive = true;
+    private static final double PLATFORM_TOLERANCE = 5.0;
+    
+    /**
+     * The compiled patrol of the monkey, or null until the monkey has landed on a platform
+     */
+    private PatrolTimeline patrol = null;
 
     /**
-     * The array of platforms in the game - to check if the monkey is touching a platform
+     * The number of frames the monkey has been patrolling its platform
      */
-    private Platform[] platforms; 
-    
+    private long patrolFrame = 0;
+
     /**
-     * Signal of whether the monkey has changed direction in a single frame
+     * The id of the monkey, unique within its level
      */
-    private boolean hasChangedDirection = false;
+    private final int id;
 
     /**
      * Creates a new Normal Monkey with specified starting position, direction, and movement route.
@@ -78,22 +78,69 @@ public class NormalMonkey extends Entity{
      * @param startY       The initial y-coordinate
      * @param facingRight  Whether the monkey initially faces right (true) or left (false)
      * @param routeArray   Array of distances for the monkey's movement pattern
-     * @param platforms    Array of platforms in the game
+     * @param platforms    Index of the platforms in the game
+     * @param id           The id of the monkey, unique within its level
+     * @param store        The store holding the state of the level's entities
      */
-    public NormalMonkey(double startX, double startY, boolean facingRight, int[] routeArray, Platform[] platforms) {
-        super(startX, startY);
+    public NormalMonkey(double startX, double startY, boolean facingRight, int[] routeArray, PlatformIndex platforms,
+                        int id, EntityStore store) {
+        super(startX, startY, store, Archetype.PATROLLER);
+        makeFalling(Physics.MONKEY_GRAVITY, Physics.MONKEY_TERMINAL_VELOCITY);
+        this.id = id;
         this.isFacingRight = facingRight;
         this.routeDistances = routeArray;
 
         // Load monkey images
-        MONKEY_LEFT_IMAGE = new Image("res/normal_monkey_left.png");
-        MONKEY_RIGHT_IMAGE = new Image("res/normal_monkey_right.png");
+        MONKEY_LEFT_IMAGE = SpriteAtlas.get("res/normal_monkey_left.png");
+        MONKEY_RIGHT_IMAGE = SpriteAtlas.get("res/normal_monkey_right.png");
         
         // Set initial image based on direction
         currentImage = isFacingRight ? MONKEY_RIGHT_IMAGE : MONKEY_LEFT_IMAGE;
+        setSize(currentImage);
+
+        // Initialize platforms index
+        this.platformIndex = platforms;
+    }
+
+    /**
+     * Constructs a copy of a monkey for a fork of the level's store.
+     * The platforms never change, so the copy shares them with the original.
+     *
+     * @param original The monkey to copy
+     * @param store    The fork of the original monkey's store
+     */
+    public NormalMonkey(NormalMonkey original, EntityStore store) {
+        super(original, store);
+        this.MONKEY_LEFT_IMAGE = original.MONKEY_LEFT_IMAGE;
+        this.MONKEY_RIGHT_IMAGE = original.MONKEY_RIGHT_IMAGE;
+        this.currentImage = original.currentImage;
+        this.isFacingRight = original.isFacingRight;
+        this.routeDistances = original.routeDistances;
+        this.platformIndex = original.platformIndex;
+        this.supportPlatform = original.supportPlatform;
+        this.patrol = original.patrol == null ? null : new PatrolTimeline(original.patrol);
+        this.patrolFrame = original.patrolFrame;
+        this.id = original.id;
+    }
+
+    /**
+     * Lands the monkey on the platform it fell onto since the falling entities were last integrated.
+     * Once the monkey has landed, the rest of its walk along the platform is compiled and it stops falling.
+     */
+    public void land() {
+        // If the monkey is not alive or already walks along its platform, there is nothing to land
+        if (!isAlive() || patrol != null) {
+            return;
+        }
+
+        // Handle collisions between the monkey and platforms along the whole fall of this frame
+        handlePlatformCollisions(getStore().getPreviousY(getIndex()));
 
-        // Initialize platforms array
-        this.platforms = platforms;
+        // Once landed, compile the rest of the walk along the platform
+        if (supportPlatform != null && routeDistances != null && routeDistances.length > 0) {
+            patrol = compilePatrol(supportPlatform);
+            getStore().stopFalling(getIndex());
+        }
     }
 
     /**
@@ -101,158 +148,89 @@ public class NormalMonkey extends Entity{
      */ 
     public void update() {
         // If the monkey is not alive, do not update
-        if (!isAlive) {
+        if (!isAlive()) {
             return;
         }
-        
-        // Reset direction change flag at the start of each update
-        hasChangedDirection = false;
-
-        // Apply gravity to the monkey
-        applyGravity();
-
-        // Handle collisions between the monkey and platforms
-        handlePlatformCollisions(platforms);
 
         // Move the monkey along its predefined route
-        moveAlongRoute();
-        
+        if (patrol != null) {
+            followPatrol();
+        }
+
         // Update the image based on direction
         currentImage = isFacingRight ? MONKEY_RIGHT_IMAGE : MONKEY_LEFT_IMAGE;
+        setSize(currentImage);
 
         // Draw the monkey on screen
-        draw();
-    }
-
-    /**
-     * Applies gravity to the monkey, increasing its downward velocity.
-     */
-    private void applyGravity() {
-        // Apply gravity to the monkey
-        velocityY += Physics.MONKEY_GRAVITY;
-
-        // If the velocity is too high, set it to the terminal velocity
-        if (velocityY > Physics.MONKEY_TERMINAL_VELOCITY) {
-            velocityY = Physics.MONKEY_TERMINAL_VELOCITY;
+        if (!isHeadless()) {
+            draw();
         }
-
-        // Update the monkey's position
-        this.setY(getY() + velocityY);
     }
 
     /**
      * Handles collisions between the monkey and platforms.
      * If the monkey lands on a platform, position is adjusted and velocity is reset.
      *
-     * @param platforms Array of platforms in the game
+     * @param previousY The y-coordinate of the monkey before it fell this frame
      */
-    private void handlePlatformCollisions(Platform[] platforms) {
+    private void handlePlatformCollisions(double previousY) {
         // Check if the monkey is touching a platform
-        for (Platform platform : platforms) {
-            if (isTouchingPlatform(platform)) {
-                // Position monkey on top of the platform that it is touching
-                double newY = platform.getY() - (platform.getHeight() / 2) - (currentImage.getHeight() / 2);
-                this.setY(newY);    
-
-                // Stop falling
-                velocityY = 0;
-
-                // Break out of the loop once found a platform monkey is touching
-                break;
-            }
+        Platform platform = getCurrentPlatform(previousY);
+        if (platform != null) {
+            // Position monkey on top of the platform that it is touching
+            double newY = platform.getY() - (platform.getHeight() / 2) - (currentImage.getHeight() / 2);
+            this.setY(newY);
+
+            // Stop falling
+            getStore().setVelocityY(getIndex(), 0);
         }
     }
 
     /**
-     * Gets the current platform the monkey is standing on
-     * 
+     * Gets the current platform the monkey is standing on.
+     * The platform from the previous frame is checked first, which is almost always still
+     * the right one; the platform index is only searched once the monkey has left it.
+     *
+     * @param previousY The y-coordinate of the monkey before it fell this frame
      * @return The platform the monkey is on, or null if not on any platform
      */
-    private Platform getCurrentPlatform() {
-        // Check if the monkey is touching a platform
-        for (Platform platform : platforms) {
-            if (isTouchingPlatform(platform)) {
-                return platform;
-            }
+    private Platform getCurrentPlatform(double previousY) {
+        if (supportPlatform == null || !isTouchingPlatform(supportPlatform)) {
+            double left = getX() - (currentImage.getWidth() / 2);
+            double right = left + currentImage.getWidth();
+            double bottom = getY() - (currentImage.getHeight() / 2) + currentImage.getHeight();
+            double previousBottom = previousY - (currentImage.getHeight() / 2) + currentImage.getHeight();
+            supportPlatform = platformIndex.findSupport(left, right, previousBottom, bottom, PLATFORM_TOLERANCE);
         }
-
-        // Return null if the monkey is not touching any platform
-        return null;
+        return supportPlatform;
     }
 
     /**
-     * Moves the monkey according to its predefined route pattern.
+     * Compiles the monkey's walk along the platform it has landed on.
      * The monkey moves a certain distance in one direction, then reverses and moves
-     * the next distance in the sequence.
+     * the next distance in the sequence, turning early at the platform or screen edges.
+     *
+     * @param platform The platform the monkey has landed on
+     * @return The compiled patrol of the monkey
      */
-    private void moveAlongRoute() {
-        // Skip if no route or inactive
-        if (routeDistances == null || routeDistances.length == 0) {
-            return;
-        }
-        
-        // Get current platform that the monkey is on
-        Platform currentPlatform = getCurrentPlatform();
-        if (currentPlatform == null) {
-            return; // Wait until we land on a platform
-        }
-        
-        // Get current target distance from route
-        int targetDistance = routeDistances[currentRouteIndex];
-        
-        // Calculate boundaries for collision detection
-        double monkeyHalfWidth = currentImage.getWidth() / 2;
-        double screenWidth = Window.getWidth(); 
-        double platformLeftEdge = currentPlatform.getX() - (currentPlatform.getWidth() / 2);
-        double platformRightEdge = currentPlatform.getX() + (currentPlatform.getWidth() / 2);
-        
-        // Calculate next position for the monkey
-        double nextX = getX() + (isFacingRight ? MOVE_SPEED : -MOVE_SPEED);
-        
-        // Check if the monkey would hit the screen boundary
-        if (nextX - monkeyHalfWidth < 0 || nextX + monkeyHalfWidth > screenWidth) {
-            // Change direction due to screen boundary
-            reverseDirection();
-            return;
-        }
-        
-        // Check if the monkey would fall off the platform
-        if ((isFacingRight && nextX + monkeyHalfWidth > platformRightEdge) ||
-            (!isFacingRight && nextX - monkeyHalfWidth < platformLeftEdge)) {
-            // Change direction due to platform edge
-            reverseDirection();
-            return;
-        }
-        
-        // Check if the monkey has completed the current route segment
-        if (distanceMoved >= targetDistance) {
-            // Change direction due to completing route segment
-            reverseDirection();
-            return;
-        }
-        
-        // Safe to move - update position and distance counter
-        this.setX(nextX);
-        distanceMoved++;
+    private PatrolTimeline compilePatrol(Platform platform) {
+        double platformLeftEdge = platform.getX() - (platform.getWidth() / 2);
+        double platformRightEdge = platform.getX() + (platform.getWidth() / 2);
+        return new PatrolTimeline(getX(), isFacingRight, routeDistances, MOVE_SPEED,
+                MONKEY_LEFT_IMAGE.getWidth() / 2, MONKEY_RIGHT_IMAGE.getWidth() / 2,
+                platformLeftEdge, platformRightEdge, Display.getWidth());
     }
-    
+
     /**
-     * Helper method to reverse direction and update route tracking
+     * Moves the monkey to its position in the current frame of its patrol.
+     * The monkey stands on its platform with the sprite it was facing at the start of the frame.
      */
-    private void reverseDirection() {
-        if (!hasChangedDirection) {
-            // Reset the distance moved
-            distanceMoved = 0;
-
-            // Update the current route index
-            currentRouteIndex = (currentRouteIndex + 1) % routeDistances.length;
-
-            // Update the direction of the monkey
-            isFacingRight = !isFacingRight;
-
-            // Set the flag to true to indicate that the direction has changed
-            hasChangedDirection = true;
-        }
+    private void followPatrol() {
+        patrol.seek(patrolFrame++);
+        Sprite standingImage = patrol.isMovingRight() ? MONKEY_RIGHT_IMAGE : MONKEY_LEFT_IMAGE;
+        this.setX(patrol.getX());
+        this.setY(supportPlatform.getY() - (supportPlatform.getHeight() / 2) - (standingImage.getHeight() / 2));
+        isFacingRight = patrol.isFacingRight();
     }
 
     /**
@@ -262,31 +240,18 @@ public class NormalMonkey extends Entity{
      * @return True if touching, false otherwise
      */
     private boolean isTouchingPlatform(Platform platform) {
-        // Get monkey's bounding box
-        Rectangle monkeyBox = getBoundingBox();
-
-        // Get platform's bounding box
-        Rectangle platformBox = platform.getBoundingBox();
+        // Get the edges of the monkey's bounding box
+        double monkeyLeft = getX() - (currentImage.getWidth() / 2);
+        double monkeyRight = monkeyLeft + currentImage.getWidth();
+        double monkeyBottom = getY() - (currentImage.getHeight() / 2) + currentImage.getHeight();
 
         // First, check if the monkey is directly above the platform
-        boolean isAbovePlatform = (monkeyBox.left() < platformBox.right() &&
-                monkeyBox.right() > platformBox.left());
+        boolean isAbovePlatform = (monkeyLeft < platform.getRight() &&
+                monkeyRight > platform.getLeft());
 
         // Check if the bottom of the monkey is touching or slightly above/below the top of platform
-        double monkeyBottom = monkeyBox.bottom();
-        double platformTop = platformBox.top();
-
-        // Add some tolerance for detection as when the monkey is on the platform,
-        // the bottom of the monkey is exactly touching the top of the platform, which 
-        // would be detected as not touching
-        double tolerance = 5.0;
-
-        // Check if the monkey is on the platform
-        boolean isOnPlatform = isAbovePlatform &&
-                (Math.abs(monkeyBottom - platformTop) <= tolerance);
-
-        // Return true if the monkey is on the platform, false otherwise
-        return isOnPlatform;
+        return isAbovePlatform &&
+                (Math.abs(monkeyBottom - platform.getTop()) <= PLATFORM_TOLERANCE);
     }
 
     /**
@@ -320,11 +285,20 @@ public class NormalMonkey extends Entity{
         return isFacingRight;
     }
 
+    /**
+     * Gets the id of the monkey
+     *
+     * @return The id of the monkey, unique within its level
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Handles the monkey being hit by a bullet
      */
     public void hit() {
-        isAlive = false;
+        removeFromPlay();
     }
     
     /**
@@ -333,7 +307,7 @@ public class NormalMonkey extends Entity{
      * @return True if the monkey is alive, false otherwise
      */
     public boolean isAlive() {
-        return isAlive;
+        return isInPlay();
     }
 
     /**
@@ -341,7 +315,7 @@ public class NormalMonkey extends Entity{
      * 
      * @param MONKEY_LEFT_IMAGE The image representing the monkey facing left
      */
-    public void setMONKEY_LEFT_IMAGE(Image MONKEY_LEFT_IMAGE) {
+    public void setMONKEY_LEFT_IMAGE(Sprite MONKEY_LEFT_IMAGE) {
         this.MONKEY_LEFT_IMAGE = MONKEY_LEFT_IMAGE;
     }
 
@@ -350,7 +324,7 @@ public class NormalMonkey extends Entity{
      * 
      * @param MONKEY_RIGHT_IMAGE The image representing the monkey facing right
      */
-    public void setMONKEY_RIGHT_IMAGE(Image MONKEY_RIGHT_IMAGE) {
+    public void setMONKEY_RIGHT_IMAGE(Sprite MONKEY_RIGHT_IMAGE) {
         this.MONKEY_RIGHT_IMAGE = MONKEY_RIGHT_IMAGE;
     }
 }
\ No newline at end of file
@@ -0,0 +1,270 @@
+package objects;
+import java.util.Arrays;
+
+/**
+ * The patrol of a monkey along its platform, compiled into a piecewise-linear timeline.
+ * Once a monkey has landed, its walk is fully determined by its route distances, the platform
+ * edges and the screen bounds, so the timeline is worked out once and the monkey's position
+ * at any later frame can be looked up directly instead of being stepped frame by frame.
+ *
+ * Each segment of the timeline is a run of frames moving in one direction followed by a single
+ * frame in which the monkey turns around, exactly like the frame-by-frame movement. The walk
+ * always ends up repeating itself, so only the segments up to the first repeat are stored.
+ *
+ * @author Minh Triet Pham
+ */
+public class PatrolTimeline {
+    /**
+     * The number of segments first made room for while compiling a timeline
+     */
+    private static final int INITIAL_SEGMENTS = 16;
+
+    /**
+     * The frame at which each segment starts
+     */
+    private final long[] segmentStarts;
+
+    /**
+     * The x-coordinate of the monkey at the start of each segment
+     */
+    private final double[] segmentXs;
+
+    /**
+     * The direction the monkey walks during each segment
+     */
+    private final boolean[] segmentRights;
+
+    /**
+     * The number of frames the monkey moves during each segment, before turning around
+     */
+    private final int[] segmentMoves;
+
+    /**
+     * The first segment of the repeating part of the timeline
+     */
+    private final int loopSegment;
+
+    /**
+     * The frame at which the stored segments end and the loop starts again
+     */
+    private final long timelineEnd;
+
+    /**
+     * The distance the monkey moves each frame
+     */
+    private final double speed;
+
+    /**
+     * The segment found by the last lookup, usually still the right one for the next frame
+     */
+    private int segment = 0;
+
+    /**
+     * The x-coordinate found by the last lookup
+     */
+    private double x;
+
+    /**
+     * The direction the monkey was facing at the start of the last looked up frame
+     */
+    private boolean isMovingRight;
+
+    /**
+     * The direction the monkey was facing at the end of the last looked up frame
+     */
+    private boolean isFacingRight;
+
+    /**
+     * Compiles the patrol of a monkey that has just landed on its platform.
+     *
+     * @param startX          The x-coordinate of the monkey when it lands
+     * @param facingRight     Whether the monkey faces right when it lands
+     * @param routeDistances  The number of frames the monkey walks before each turn
+     * @param speed           The distance the monkey moves each frame
+     * @param leftHalfWidth   Half the width of the monkey while facing left
+     * @param rightHalfWidth  Half the width of the monkey while facing right
+     * @param platformLeft    The x-coordinate of the platform's left edge
+     * @param platformRight   The x-coordinate of the platform's right edge
+     * @param screenWidth     The width of the screen
+     */
+    public PatrolTimeline(double startX, boolean facingRight, int[] routeDistances, double speed,
+                          double leftHalfWidth, double rightHalfWidth,
+                          double platformLeft, double platformRight, double screenWidth) {
+        this.speed = speed;
+
+        // The direction flips and the route moves on with every segment, so two segments can only
+        // start in the same state if they are a whole number of these periods apart
+        int period = routeDistances.length % 2 == 0 ? routeDistances.length : 2 * routeDistances.length;
+        long[] starts = new long[INITIAL_SEGMENTS];
+        double[] xs = new double[INITIAL_SEGMENTS];
+        boolean[] rights = new boolean[INITIAL_SEGMENTS];
+        int[] moves = new int[INITIAL_SEGMENTS];
+        int count = 0;
+
+        // Walk the route exactly like the frame-by-frame movement until a segment repeats
+        double currentX = startX;
+        boolean right = facingRight;
+        int routeIndex = 0;
+        long frame = 0;
+        int repeated = -1;
+        while (repeated < 0) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * count);
+                xs = Arrays.copyOf(xs, 2 * count);
+                rights = Arrays.copyOf(rights, 2 * count);
+                moves = Arrays.copyOf(moves, 2 * count);
+            }
+            starts[count] = frame;
+            xs[count] = currentX;
+            rights[count] = right;
+
+            // Move until the screen edge, the platform edge or the route distance stops the monkey
+            double halfWidth = right ? rightHalfWidth : leftHalfWidth;
+            int moved = 0;
+            while (true) {
+                double nextX = currentX + (right ? speed : -speed);
+                if (nextX - halfWidth < 0 || nextX + halfWidth > screenWidth) {
+                    break;
+                }
+                if ((right && nextX + halfWidth > platformRight) || (!right && nextX - halfWidth < platformLeft)) {
+                    break;
+                }
+                if (moved >= routeDistances[routeIndex]) {
+                    break;
+                }
+                currentX = nextX;
+                moved++;
+            }
+            moves[count++] = moved;
+
+            // Turn around, which takes one more frame
+            frame += moved + 1;
+            routeIndex = (routeIndex + 1) % routeDistances.length;
+            right = !right;
+
+            // Look for an earlier segment starting in the same state, comparing the exact bits of x
+            long xBits = Double.doubleToLongBits(currentX);
+            for (int earlier = count - period; earlier >= 0 && repeated < 0; earlier -= period) {
+                if (Double.doubleToLongBits(xs[earlier]) == xBits) {
+                    repeated = earlier;
+                }
+            }
+        }
+
+        this.segmentStarts = Arrays.copyOf(starts, count);
+        this.segmentXs = Arrays.copyOf(xs, count);
+        this.segmentRights = Arrays.copyOf(rights, count);
+        this.segmentMoves = Arrays.copyOf(moves, count);
+        this.loopSegment = repeated;
+        this.timelineEnd = frame;
+        seek(0);
+    }
+
+    /**
+     * Constructs a copy of a timeline, e.g. for a fork of the monkey walking it.
+     * The compiled segments never change, so only the state of the last lookup is copied.
+     *
+     * @param original The timeline to copy
+     */
+    public PatrolTimeline(PatrolTimeline original) {
+        this.speed = original.speed;
+        this.segmentStarts = original.segmentStarts;
+        this.segmentXs = original.segmentXs;
+        this.segmentRights = original.segmentRights;
+        this.segmentMoves = original.segmentMoves;
+        this.loopSegment = original.loopSegment;
+        this.timelineEnd = original.timelineEnd;
+        this.segment = original.segment;
+        this.x = original.x;
+        this.isMovingRight = original.isMovingRight;
+        this.isFacingRight = original.isFacingRight;
+    }
+
+    /**
+     * Looks up the monkey's state after the given frame of its patrol, where frame 0 is the
+     * frame in which it landed. Frames far in the future cost the same as the next frame.
+     *
+     * @param frame The frame of the patrol
+     */
+    public void seek(long frame) {
+        // Fold frames past the stored segments back into the repeating part
+        if (frame >= timelineEnd) {
+            long loopStart = segmentStarts[loopSegment];
+            frame = loopStart + (frame - loopStart) % (timelineEnd - loopStart);
+        }
+
+        // Find the segment, checking the current and next segment before searching
+        if (!isInSegment(segment, frame)) {
+            int next = segment + 1 < segmentStarts.length ? segment + 1 : loopSegment;
+            segment = isInSegment(next, frame) ? next : findSegment(frame);
+        }
+
+        // Move along the segment, or turn around on its last frame
+        int offset = (int) (frame - segmentStarts[segment]);
+        boolean right = segmentRights[segment];
+        int moved = Math.min(offset + 1, segmentMoves[segment]);
+        x = segmentXs[segment] + moved * (right ? speed : -speed);
+        isMovingRight = right;
+        isFacingRight = offset < segmentMoves[segment] ? right : !right;
+    }
+
+    /**
+     * Checks whether a frame falls inside a segment.
+     *
+     * @param index The index of the segment
+     * @param frame The frame, already folded into the stored segments
+     * @return True if the frame is in the segment, false otherwise
+     */
+    private boolean isInSegment(int index, long frame) {
+        long start = segmentStarts[index];
+        return frame >= start && frame <= start + segmentMoves[index];
+    }
+
+    /**
+     * Binary searches the segment containing a frame.
+     *
+     * @param frame The frame, already folded into the stored segments
+     * @return The index of the segment containing the frame
+     */
+    private int findSegment(long frame) {
+        int low = 0;
+        int high = segmentStarts.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (segmentStarts[middle] <= frame) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the x-coordinate of the monkey after the last looked up frame.
+     *
+     * @return The x-coordinate of the monkey
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Checks which way the monkey was facing at the start of the last looked up frame,
+     * which decides the sprite it stood on the platform with during that frame.
+     *
+     * @return True if the monkey was facing right, false otherwise
+     */
+    public boolean isMovingRight() {
+        return isMovingRight;
+    }
+
+    /**
+     * Checks which way the monkey is facing after the last looked up frame.
+     *
+     * @return True if the monkey is facing right, false otherwise
+     */
+    public boolean isFacingRight() {
+        return isFacingRight;
+    }
+}
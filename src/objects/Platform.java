@@ -12,28 +12,33 @@ public class Platform extends Entity{
     /**
      * The image representing the platform
      */ 
-    private final Image PLATFORM_IMAGE;
+    private final Sprite PLATFORM_IMAGE;
 
     /**
-     * The width and height of the platform
+     * The left, right and top edges of the platform, which never move
      */
-    private final double WIDTH, HEIGHT;
+    private final double LEFT, RIGHT, TOP;
 
     /**
      * Constructs a platform at the specified position.
      *
      * @param startX The initial x-coordinate of the platform.
      * @param startY The initial y-coordinate of the platform.
+     * @param store  The store holding the state of the level's entities.
      */
-    public Platform(double startX, double startY) {
-        super(startX, startY);
+    public Platform(double startX, double startY, EntityStore store) {
+        super(startX, startY, store, Archetype.SCENERY);
 
         // Load platform sprite
-        this.PLATFORM_IMAGE = new Image("res/platform.png");
+        this.PLATFORM_IMAGE = SpriteAtlas.get("res/platform.png");
 
         // Set platform dimensions based on the image size
-        this.WIDTH = PLATFORM_IMAGE.getWidth();
-        this.HEIGHT = PLATFORM_IMAGE.getHeight();
+        setSize(PLATFORM_IMAGE);
+
+        // Cache the edges used by collision checks
+        this.LEFT = startX - (getWidth() / 2);
+        this.RIGHT = LEFT + getWidth();
+        this.TOP = startY - (getHeight() / 2);
     }
 
     /**
@@ -45,21 +50,30 @@ public class Platform extends Entity{
     }
 
     /**
-     * Retrieves the width of the platform.
+     * Retrieves the x-coordinate of the platform's left edge.
+     *
+     * @return The left edge of the platform.
+     */
+    public double getLeft() {
+        return LEFT;
+    }
+
+    /**
+     * Retrieves the x-coordinate of the platform's right edge.
      *
-     * @return The width of the platform.
+     * @return The right edge of the platform.
      */
-    public double getWidth() {
-        return WIDTH;
+    public double getRight() {
+        return RIGHT;
     }
 
     /**
-     * Retrieves the height of the platform.
+     * Retrieves the y-coordinate of the platform's top edge.
      *
-     * @return The height of the platform.
+     * @return The top edge of the platform.
      */
-    public double getHeight() {
-        return HEIGHT;
+    public double getTop() {
+        return TOP;
     }
 
     /**
@@ -70,10 +84,10 @@ public class Platform extends Entity{
      */
     public Rectangle getBoundingBox() {
         return new Rectangle(
-                getX() - (WIDTH / 2),
-                getY() - (HEIGHT / 2),
-                WIDTH,
-                HEIGHT
+                getX() - (getWidth() / 2),
+                getY() - (getHeight() / 2),
+                getWidth(),
+                getHeight()
         );
     }
 }
@@ -0,0 +1,114 @@
+package objects;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * An index of the platforms of a level, sorted by the height of their top edge.
+ * It finds the platform supporting an entity by binary searching the platforms whose top
+ * is close to the entity's bottom, instead of testing every platform in the level.
+ *
+ * @author Minh Triet Pham
+ */
+public class PlatformIndex {
+    /**
+     * The platforms in their original level order
+     */
+    private final Platform[] platforms;
+
+    /**
+     * The platforms sorted by the y-coordinate of their top edge
+     */
+    private final Platform[] byTop;
+
+    /**
+     * The top edges of the sorted platforms, kept in a primitive array for the binary search
+     */
+    private final double[] tops;
+
+    /**
+     * The original level order of each sorted platform
+     */
+    private final int[] order;
+
+    /**
+     * Constructs an index over the platforms of a level.
+     *
+     * @param platforms The array of platforms in the game
+     */
+    public PlatformIndex(Platform[] platforms) {
+        this.platforms = platforms;
+        Integer[] sorted = new Integer[platforms.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, Comparator.comparingDouble(i -> platforms[i].getTop()));
+
+        this.byTop = new Platform[platforms.length];
+        this.tops = new double[platforms.length];
+        this.order = new int[platforms.length];
+        for (int i = 0; i < sorted.length; i++) {
+            byTop[i] = platforms[sorted[i]];
+            tops[i] = byTop[i].getTop();
+            order[i] = sorted[i];
+        }
+    }
+
+    /**
+     * Finds the platform supporting an entity, i.e. a platform under the entity whose top
+     * is within the tolerance of the entity's bottom. The entity may have moved vertically during
+     * the frame: every platform whose top its bottom passed also qualifies, so an entity falling
+     * further than the tolerance in one frame still lands.
+     * If several platforms qualify, the one that comes first in the level order is returned.
+     *
+     * @param left           The x-coordinate of the entity's left edge
+     * @param right          The x-coordinate of the entity's right edge
+     * @param previousBottom The y-coordinate of the entity's bottom edge at the start of the frame
+     * @param bottom         The y-coordinate of the entity's bottom edge at the end of the frame
+     * @param tolerance      The maximum distance between the entity's bottom and the platform's top
+     * @return The supporting platform, or null if there is none
+     */
+    public Platform findSupport(double left, double right, double previousBottom, double bottom,
+                                double tolerance) {
+        double low = Math.min(previousBottom, bottom) - tolerance;
+        double high = Math.max(previousBottom, bottom) + tolerance;
+        Platform support = null;
+        int supportOrder = Integer.MAX_VALUE;
+        for (int i = firstTopAtLeast(low); i < tops.length && tops[i] <= high; i++) {
+            Platform platform = byTop[i];
+            if (order[i] < supportOrder && left < platform.getRight() && right > platform.getLeft()) {
+                support = platform;
+                supportOrder = order[i];
+            }
+        }
+        return support;
+    }
+
+    /**
+     * Finds the first sorted platform whose top is at or below the given y-coordinate.
+     *
+     * @param y The y-coordinate to search for
+     * @return The index of the first such platform, or the number of platforms if there is none
+     */
+    private int firstTopAtLeast(double y) {
+        int low = 0;
+        int high = tops.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tops[middle] < y) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the platforms in their original level order.
+     *
+     * @return The array of platforms in the game
+     */
+    public Platform[] getPlatforms() {
+        return platforms;
+    }
+}
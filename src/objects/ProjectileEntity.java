@@ -1,6 +1,7 @@
 package objects;
 
 import bagel.util.Rectangle;
+import java.util.function.IntPredicate;
 
 /**
  * Abstract Class that extended from Entity to be a base class for Bullet and Banana classes
@@ -8,11 +9,6 @@ import bagel.util.Rectangle;
  * @author Minh Triet Pham
  */
 public abstract class ProjectileEntity extends Entity{
-    /** 
-     * Whether this entity is still exist on the screen or not
-     */
-    private boolean active = true;
-
     /**
      * The distance travelled by the entity - to check if it has reached its maximum distance
      */
@@ -23,15 +19,53 @@ public abstract class ProjectileEntity extends Entity{
      */
     private final boolean isFacingRight;
 
+    /**
+     * The tick returned when a projectile never reaches a target
+     */
+    public static final int NEVER = Integer.MAX_VALUE;
+
+    /**
+     * The x-coordinate the entity was spawned at
+     */
+    private final double START_X;
+
+    /**
+     * The distance the entity moves each frame
+     */
+    private final double SPEED;
+
+    /**
+     * The number of frames the entity has moved since it was spawned
+     */
+    private int tick = 0;
+
     /**
      * Constructs a ProjectileEntity at the specified position and specified direction
      * @param startX The initial x-coordinate of this entity
      * @param startY The initial y-coordinate of this entity
      * @param isFacingRight Whether the entity is facing right or not 
+     * @param speed The distance the entity moves each frame
+     * @param store The store holding the state of the level's entities
      */
-    public ProjectileEntity(double startX, double startY, boolean isFacingRight) {
-        super(startX, startY);
+    public ProjectileEntity(double startX, double startY, boolean isFacingRight, double speed, EntityStore store) {
+        super(startX, startY, store, Archetype.PROJECTILE);
         this.isFacingRight = isFacingRight;
+        this.START_X = startX;
+        this.SPEED = speed;
+    }
+
+    /**
+     * Constructs a copy of a ProjectileEntity for a fork of its store
+     * @param original The entity to copy
+     * @param store The fork of the original entity's store
+     */
+    public ProjectileEntity(ProjectileEntity original, EntityStore store) {
+        super(original, store);
+        this.distanceTravelled = original.distanceTravelled;
+        this.isFacingRight = original.isFacingRight;
+        this.START_X = original.START_X;
+        this.SPEED = original.SPEED;
+        this.tick = original.tick;
     }
 
     /**
@@ -58,7 +92,7 @@ public abstract class ProjectileEntity extends Entity{
      * Deactivates the entity, removing it from the game.
      */
     public void deactivate() {
-        active = false;
+        removeFromPlay();
     }
 
     /**
@@ -67,7 +101,7 @@ public abstract class ProjectileEntity extends Entity{
      * @return True if active, false otherwise
      */
     public boolean isActive() {
-        return active;
+        return isInPlay();
     }
 
     /**
@@ -96,4 +130,104 @@ public abstract class ProjectileEntity extends Entity{
     public boolean isFacingRight() {
         return this.isFacingRight;
     }
+
+    /**
+     * Moves the entity one frame further along its straight line.
+     * The position is worked out from the number of frames moved, so it is exactly
+     * the position predicted when the entity's lifetime and hits were scheduled.
+     */
+    protected void advance() {
+        tick++;
+        this.setX(getXAt(tick));
+        this.setDistanceTravelled(tick * SPEED);
+    }
+
+    /**
+     * Return the number of frames the entity has moved since it was spawned
+     * 
+     * @return The number of frames moved
+     */
+    public int getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Gets the x-coordinate of the entity after it has moved for the given number of frames.
+     *
+     * @param tick The number of frames moved
+     * @return The x-coordinate of the entity at that tick
+     */
+    public double getXAt(int tick) {
+        return isFacingRight ? START_X + tick * SPEED : START_X - tick * SPEED;
+    }
+
+    /**
+     * Gets the distance the entity has travelled after the given number of frames.
+     *
+     * @param tick The number of frames moved
+     * @return The distance travelled at that tick
+     */
+    public double getDistanceAt(int tick) {
+        return tick * SPEED;
+    }
+
+    /**
+     * Gets the bounding box of the entity after it has moved for the given number of frames.
+     *
+     * @param tick   The number of frames moved
+     * @param width  The width of the entity
+     * @param height The height of the entity
+     * @return The bounding box at that tick
+     */
+    protected Rectangle getBoundingBoxAt(int tick, double width, double height) {
+        return new Rectangle(getXAt(tick) - (width / 2), getY() - (height / 2), width, height);
+    }
+
+    /**
+     * Finds the first frame from which a condition holds for good, e.g. the frame in which the
+     * entity has flown its maximum distance. The estimate is corrected against the condition itself,
+     * so rounding in the estimate never moves the result.
+     *
+     * @param condition The condition, false up to some frame and true from then on
+     * @param estimate  The estimated first frame
+     * @return The first frame, at least 1, in which the condition holds
+     */
+    protected static int firstTickWhere(IntPredicate condition, int estimate) {
+        int tick = Math.max(1, estimate);
+        while (tick > 1 && condition.test(tick - 1)) {
+            tick--;
+        }
+        while (!condition.test(tick)) {
+            tick++;
+        }
+        return tick;
+    }
+
+    /**
+     * Finds the first frame, from the given one on, in which the entity will overlap a static target.
+     * The entity flies in a straight line at a constant speed, so the frame is estimated from the gap
+     * to the near side of the target and only the few frames around the estimate are checked.
+     *
+     * @param target   The bounding box of the target, which does not move
+     * @param width    The width of the entity
+     * @param height   The height of the entity
+     * @param fromTick The first frame to consider
+     * @return The first frame in which the entity overlaps the target, or {@link #NEVER}
+     */
+    protected int firstTickHitting(Rectangle target, double width, double height, int fromTick) {
+        // 1) Estimate when the leading edge of the entity reaches the near side of the target
+        double gap = isFacingRight
+                ? target.left() - (START_X + width / 2)
+                : (START_X - width / 2) - target.right();
+        int estimate = (int) Math.max(fromTick, Math.ceil(gap / SPEED));
+
+        // 2) Check the frames around the estimate, a target missed there is never hit
+        int first = Math.max(fromTick, estimate - 2);
+        for (int t = first; t <= estimate + 2; t++) {
+            if (getBoundingBoxAt(t, width, height).intersects(target)) {
+                return t;
+            }
+        }
+        return NEVER;
+    }
 }
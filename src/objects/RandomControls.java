@@ -0,0 +1,105 @@
+package objects;
+import bagel.*;
+import java.util.Random;
+
+/**
+ * Controls pressing random keys, e.g. to stress the game with simulated players.
+ * Mario holds a random direction (or nothing) for a random number of frames, and now and then
+ * jumps or shoots. The keys only depend on the seed, so a game played with them can be played again.
+ *
+ * @author Minh Triet Pham
+ */
+public class RandomControls implements Controls {
+    /**
+     * The directions Mario can hold, or null to hold nothing
+     */
+    private static final Keys[] DIRECTIONS = {null, Keys.LEFT, Keys.RIGHT, Keys.UP, Keys.DOWN};
+
+    /**
+     * The most frames a direction is held for
+     */
+    private static final int MAX_HOLD_FRAMES = 60;
+
+    /**
+     * The chance of jumping in a frame
+     */
+    private static final double JUMP_CHANCE = 0.02;
+
+    /**
+     * The chance of shooting in a frame
+     */
+    private static final double SHOOT_CHANCE = 0.02;
+
+    /**
+     * The random numbers choosing the keys
+     */
+    private final Random RANDOM;
+
+    /**
+     * The direction held, or null if none is
+     */
+    private Keys held = null;
+
+    /**
+     * The number of frames the held direction is still held for
+     */
+    private int holdFrames = 0;
+
+    /**
+     * The key pressed in the current frame, or null if none is
+     */
+    private Keys pressed = null;
+
+    /**
+     * Constructs random controls.
+     *
+     * @param seed The seed of the random keys
+     */
+    public RandomControls(long seed) {
+        this.RANDOM = new Random(seed);
+    }
+
+    /**
+     * Chooses the keys of the next frame. Must be called once before every frame the controls steer.
+     */
+    public void advance() {
+        // 1) Once the held direction has run out, hold a new one for a while
+        if (holdFrames == 0) {
+            held = DIRECTIONS[RANDOM.nextInt(DIRECTIONS.length)];
+            holdFrames = 1 + RANDOM.nextInt(MAX_HOLD_FRAMES);
+        }
+        holdFrames--;
+
+        // 2) Now and then jump or shoot
+        double roll = RANDOM.nextDouble();
+        if (roll < JUMP_CHANCE) {
+            pressed = Keys.SPACE;
+        } else if (roll < JUMP_CHANCE + SHOOT_CHANCE) {
+            pressed = Keys.S;
+        } else {
+            pressed = null;
+        }
+    }
+
+    /**
+     * Checks whether a key is held down in this frame.
+     *
+     * @param key The key to check
+     * @return True if the key is down, false otherwise
+     */
+    @Override
+    public boolean isDown(Keys key) {
+        return key == held || key == pressed;
+    }
+
+    /**
+     * Checks whether a key was pressed in this frame.
+     *
+     * @param key The key to check
+     * @return True if the key was pressed this frame, false otherwise
+     */
+    @Override
+    public boolean wasPressed(Keys key) {
+        return key == pressed;
+    }
+}
@@ -0,0 +1,259 @@
+package objects;
+import bagel.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The keys steering Mario in every frame of a game, with the level and seed the game was played on.
+ * A level is deterministic once created from its seed, so playing the keys again on a level created
+ * from the same seed plays the same game. Each frame takes two bytes: the keys held down and the keys
+ * pressed in the frame, one bit per key.
+ *
+ * @author Minh Triet Pham
+ */
+public class Replay {
+    /**
+     * The keys recorded, one bit each
+     */
+    private static final Keys[] KEYS = {Keys.LEFT, Keys.RIGHT, Keys.UP, Keys.DOWN, Keys.SPACE, Keys.S};
+
+    /**
+     * The first bytes of a replay file ("SDKR")
+     */
+    private static final int MAGIC = 0x53444B52;
+
+    /**
+     * The version of the replay file format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The number of frames room is first made for
+     */
+    private static final int INITIAL_FRAMES = 1024;
+
+    /**
+     * The level the game was played on
+     */
+    private final int LEVEL;
+
+    /**
+     * The seed the level was created from
+     */
+    private final long SEED;
+
+    /**
+     * The keys of every frame, two bytes per frame
+     */
+    private ByteBuffer frames;
+
+    /**
+     * The number of frames recorded
+     */
+    private int frameCount;
+
+    /**
+     * Constructs an empty replay, to record a game in.
+     *
+     * @param level The level the game is played on
+     * @param seed  The seed the level is created from
+     */
+    public Replay(int level, long seed) {
+        this(level, seed, ByteBuffer.allocate(2 * INITIAL_FRAMES), 0);
+    }
+
+    /**
+     * Constructs a replay of recorded frames.
+     *
+     * @param level      The level the game was played on
+     * @param seed       The seed the level was created from
+     * @param frames     The keys of every frame, two bytes per frame
+     * @param frameCount The number of frames recorded
+     */
+    private Replay(int level, long seed, ByteBuffer frames, int frameCount) {
+        this.LEVEL = level;
+        this.SEED = seed;
+        this.frames = frames;
+        this.frameCount = frameCount;
+    }
+
+    /**
+     * Records the keys of the next frame.
+     *
+     * @param controls The controls steering Mario in the frame
+     */
+    public void record(Controls controls) {
+        if (2 * (frameCount + 1) > frames.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocate(2 * frames.capacity());
+            grown.put(0, frames, 0, 2 * frameCount);
+            frames = grown;
+        }
+        int down = 0;
+        int pressed = 0;
+        for (int i = 0; i < KEYS.length; i++) {
+            if (controls.isDown(KEYS[i])) {
+                down |= 1 << i;
+            }
+            if (controls.wasPressed(KEYS[i])) {
+                pressed |= 1 << i;
+            }
+        }
+        frames.put(2 * frameCount, (byte) down);
+        frames.put(2 * frameCount + 1, (byte) pressed);
+        frameCount++;
+    }
+
+    /**
+     * Gets the controls of a recorded frame.
+     *
+     * @param frame The frame, from 0
+     * @return The controls steering Mario in the frame
+     */
+    public Controls frame(int frame) {
+        if (frame < 0 || frame >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame " + frame + " of a replay of " + frameCount + " frames");
+        }
+        return new RecordedKeys(frames.get(2 * frame), frames.get(2 * frame + 1));
+    }
+
+    /**
+     * Gets the number of frames recorded
+     *
+     * @return The number of frames recorded
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Gets the level the game was played on
+     *
+     * @return The level the game was played on
+     */
+    public int getLevel() {
+        return LEVEL;
+    }
+
+    /**
+     * Gets the seed the level was created from
+     *
+     * @return The seed the level was created from
+     */
+    public long getSeed() {
+        return SEED;
+    }
+
+    /**
+     * Writes the replay to a file.
+     *
+     * @param path The path of the file
+     * @throws IOException If the file cannot be written
+     */
+    public void write(String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(LEVEL);
+            out.writeLong(SEED);
+            out.writeInt(frameCount);
+            byte[] keys = new byte[2 * frameCount];
+            frames.get(0, keys);
+            out.write(keys);
+        }
+    }
+
+    /**
+     * Reads a replay from a file.
+     *
+     * @param path The path of the file
+     * @return The replay in the file
+     * @throws IOException If the file cannot be read or is not a replay
+     */
+    public static Replay read(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a replay");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(path + " is a replay of unsupported version " + version);
+            }
+            int level = in.readInt();
+            long seed = in.readLong();
+            int frameCount = in.readInt();
+            byte[] frames = new byte[2 * frameCount];
+            in.readFully(frames);
+            return new Replay(level, seed, ByteBuffer.wrap(frames), frameCount);
+        }
+    }
+
+    /**
+     * The keys of one recorded frame
+     */
+    private static class RecordedKeys implements Controls {
+        /**
+         * The keys held down, one bit per key
+         */
+        private final int DOWN;
+
+        /**
+         * The keys pressed in the frame, one bit per key
+         */
+        private final int PRESSED;
+
+        /**
+         * Constructs the keys of a recorded frame.
+         *
+         * @param down    The keys held down, one bit per key
+         * @param pressed The keys pressed in the frame, one bit per key
+         */
+        private RecordedKeys(int down, int pressed) {
+            this.DOWN = down;
+            this.PRESSED = pressed;
+        }
+
+        /**
+         * Checks whether a key is held down in this frame.
+         *
+         * @param key The key to check
+         * @return True if the key is down, false otherwise
+         */
+        @Override
+        public boolean isDown(Keys key) {
+            return hasBit(DOWN, key);
+        }
+
+        /**
+         * Checks whether a key was pressed in this frame.
+         *
+         * @param key The key to check
+         * @return True if the key was pressed this frame, false otherwise
+         */
+        @Override
+        public boolean wasPressed(Keys key) {
+            return hasBit(PRESSED, key);
+        }
+
+        /**
+         * Checks whether the bit of a key is set.
+         *
+         * @param bits The keys, one bit per key
+         * @param key  The key to check
+         * @return True if the bit of the key is set, false otherwise (or if the key is not recorded)
+         */
+        private static boolean hasBit(int bits, Keys key) {
+            for (int i = 0; i < KEYS.length; i++) {
+                if (KEYS[i] == key) {
+                    return (bits & (1 << i)) != 0;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package objects;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Submits the final scores of games to a central leaderboard over HTTP without slowing the game.
+ * Submitting a score only offers it to a bounded queue. A background thread takes the scores in
+ * batches, posts each batch as JSON, and retries with exponential backoff when the leaderboard
+ * cannot be reached. Batches that still fail are spooled to files and sent again, oldest first,
+ * once the leaderboard is back, including after a restart. Each score carries an id, so a batch
+ * sent twice (e.g. after a lost response) is only counted once by the leaderboard.
+ *
+ * @author Minh Triet Pham
+ */
+public class ScoreClient implements AutoCloseable {
+    /**
+     * The number of scores the queue holds before further scores are dropped
+     */
+    private static final int QUEUE_CAPACITY = 256;
+
+    /**
+     * The largest number of scores sent in one request
+     */
+    private static final int BATCH_SIZE = 32;
+
+    /**
+     * How long the sender waits for more scores to fill a batch once it has one
+     */
+    private static final long LINGER_MILLIS = 200;
+
+    /**
+     * The number of times a batch is sent before it is spooled
+     */
+    private static final int MAX_ATTEMPTS = 4;
+
+    /**
+     * The backoff before the second attempt, doubled for each further attempt
+     */
+    private static final long BASE_BACKOFF_MILLIS = 250;
+
+    /**
+     * The longest backoff between two attempts
+     */
+    private static final long MAX_BACKOFF_MILLIS = 8000;
+
+    /**
+     * How long the spooled batches are left before they are sent again, while the leaderboard cannot be reached
+     */
+    private static final long SPOOL_RETRY_MILLIS = 30_000;
+
+    /**
+     * How long a request may take before it counts as failed
+     */
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * How long closing the client waits for the batch being sent
+     */
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000;
+
+    /**
+     * The names a cabinet may have, so that it can be put into JSON without escaping
+     */
+    private static final Pattern CABINET_NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+    /**
+     * The pattern of the name of a spooled batch, holding its sequence number
+     */
+    private static final Pattern SPOOLED_NAME = Pattern.compile("batch-(\\d+)\\.json");
+
+    /**
+     * The address the batches are posted to
+     */
+    private final URI ENDPOINT;
+
+    /**
+     * The name of the machine the games are played on, sent with every batch
+     */
+    private final String CABINET;
+
+    /**
+     * The directory the batches that cannot be sent are spooled to
+     */
+    private final File SPOOL_DIR;
+
+    /**
+     * The scores waiting to be sent
+     */
+    private final BlockingQueue<String> QUEUE = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /**
+     * The HTTP client posting the batches
+     */
+    private final HttpClient HTTP;
+
+    /**
+     * The thread sending the batches
+     */
+    private final Thread SENDER;
+
+    /**
+     * The jitter of the backoffs, so that cabinets do not retry in step
+     */
+    private final Random JITTER = new Random();
+
+    /**
+     * The number of scores submitted so far, part of each score's id
+     */
+    private final AtomicLong SUBMITTED = new AtomicLong();
+
+    /**
+     * The largest number of scores ever waiting in the queue
+     */
+    private final AtomicInteger MAX_QUEUE_DEPTH = new AtomicInteger();
+
+    /**
+     * The number of scores dropped because the queue was full
+     */
+    private final AtomicInteger DROPPED = new AtomicInteger();
+
+    /**
+     * The number of scores accepted by the leaderboard
+     */
+    private final AtomicInteger SENT = new AtomicInteger();
+
+    /**
+     * The number of requests that failed and were retried or spooled
+     */
+    private final AtomicInteger FAILED_REQUESTS = new AtomicInteger();
+
+    /**
+     * The number of scores rejected by the leaderboard as invalid, which are not sent again
+     */
+    private final AtomicInteger REJECTED = new AtomicInteger();
+
+    /**
+     * The number of spooled batches, whether spooled by this client or left from an earlier run
+     */
+    private final AtomicInteger SPOOLED_BATCHES = new AtomicInteger();
+
+    /**
+     * The time the spooled batches are next sent again, as returned by {@link System#nanoTime()}
+     */
+    private long nextSpoolAttempt = System.nanoTime();
+
+    /**
+     * The sequence number of the next spooled batch, after every batch already in the spool; only used by the sender thread
+     */
+    private long nextSpoolSequence;
+
+    /**
+     * Whether the client is closing, so that the sender spools what is left instead of sending it
+     */
+    private volatile boolean isClosing = false;
+
+    /**
+     * Constructs a client and starts its sender thread.
+     *
+     * @param endpoint The address the batches are posted to
+     * @param cabinet  The name of the machine the games are played on: letters, digits, '.', '_' and '-'
+     * @param spoolDir The directory the batches that cannot be sent are spooled to
+     * @throws IllegalArgumentException If the name of the cabinet has other characters
+     */
+    public ScoreClient(String endpoint, String cabinet, String spoolDir) {
+        if (!CABINET_NAME.matcher(cabinet).matches()) {
+            throw new IllegalArgumentException("Invalid cabinet name \"" + cabinet + "\"");
+        }
+        this.ENDPOINT = URI.create(endpoint);
+        this.CABINET = cabinet;
+        this.SPOOL_DIR = new File(spoolDir);
+        SPOOL_DIR.mkdirs();
+        File[] spooled = spooledFiles();
+        SPOOLED_BATCHES.set(spooled.length);
+        this.nextSpoolSequence = spooled.length == 0 ? 0 : sequenceOf(spooled[spooled.length - 1]) + 1;
+        this.HTTP = HttpClient.newBuilder().connectTimeout(REQUEST_TIMEOUT).build();
+        this.SENDER = new Thread(this::send, "score-client");
+        SENDER.setDaemon(true);
+        SENDER.start();
+    }
+
+    /**
+     * Constructs a client from the game's configuration.
+     *
+     * @param gameProps Properties containing game configuration data, including the leaderboard settings
+     */
+    public ScoreClient(Properties gameProps) {
+        this(gameProps.getProperty("scores.url"), gameProps.getProperty("scores.cabinet", "cabinet"),
+                gameProps.getProperty("scores.spoolDir", "score-spool"));
+    }
+
+    /**
+     * Submits the final score of a game. Never waits: if the queue is full the score is dropped and counted.
+     *
+     * @param score The final score
+     * @param isWon Whether the game was won
+     * @return True if the score was queued, false if it was dropped
+     */
+    public boolean submit(int score, boolean isWon) {
+        String json = "{\"id\":\"" + CABINET + "-" + System.currentTimeMillis() + "-" + SUBMITTED.incrementAndGet()
+                + "\",\"score\":" + score + ",\"won\":" + isWon + "}";
+        if (!QUEUE.offer(json)) {
+            DROPPED.incrementAndGet();
+            return false;
+        }
+        MAX_QUEUE_DEPTH.accumulateAndGet(QUEUE.size(), Math::max);
+        return true;
+    }
+
+    /**
+     * Spools the scores still waiting, then stops the sender thread.
+     *
+     * @throws InterruptedException If interrupted while waiting for the sender thread
+     */
+    @Override
+    public void close() throws InterruptedException {
+        isClosing = true;
+        SENDER.interrupt();
+        SENDER.join(CLOSE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Gets the number of scores waiting to be sent
+     *
+     * @return The depth of the queue
+     */
+    public int getQueueDepth() {
+        return QUEUE.size();
+    }
+
+    /**
+     * Gets the largest number of scores ever waiting to be sent
+     *
+     * @return The largest depth of the queue
+     */
+    public int getMaxQueueDepth() {
+        return MAX_QUEUE_DEPTH.get();
+    }
+
+    /**
+     * Gets the number of scores dropped because the queue was full
+     *
+     * @return The number of scores dropped
+     */
+    public int getDropped() {
+        return DROPPED.get();
+    }
+
+    /**
+     * Gets the number of scores accepted by the leaderboard
+     *
+     * @return The number of scores sent
+     */
+    public int getSent() {
+        return SENT.get();
+    }
+
+    /**
+     * Gets the number of requests that failed and were retried or spooled
+     *
+     * @return The number of failed requests
+     */
+    public int getFailedRequests() {
+        return FAILED_REQUESTS.get();
+    }
+
+    /**
+     * Gets the number of scores rejected by the leaderboard as invalid
+     *
+     * @return The number of scores rejected
+     */
+    public int getRejected() {
+        return REJECTED.get();
+    }
+
+    /**
+     * Gets the number of batches spooled and not yet sent
+     *
+     * @return The number of spooled batches
+     */
+    public int getSpooledBatches() {
+        return SPOOLED_BATCHES.get();
+    }
+
+    /**
+     * Sends the queued scores in batches until the client is closed. Runs on the sender thread.
+     */
+    private void send() {
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (!isClosing) {
+                // 1) Wait for a score, then give others a moment to join its batch
+                String first = QUEUE.poll(SPOOL_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+                    while (batch.size() < BATCH_SIZE) {
+                        String next = QUEUE.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+
+                    // 2) Send the batch, spooling it if the leaderboard cannot be reached
+                    String body = toJson(batch);
+                    if (postWithRetry(body, batch.size())) {
+                        nextSpoolAttempt = System.nanoTime();
+                    } else {
+                        spool(body);
+                    }
+                    batch.clear();
+                }
+
+                // 3) Send the spooled batches again once the leaderboard may be back
+                if (SPOOLED_BATCHES.get() > 0 && System.nanoTime() - nextSpoolAttempt >= 0) {
+                    sendSpooled();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closing: the batch being sent and the queued scores are spooled below
+        }
+        QUEUE.drainTo(batch);
+        if (!batch.isEmpty()) {
+            spool(toJson(batch));
+        }
+    }
+
+    /**
+     * Sends the spooled batches, oldest first, until one fails.
+     *
+     * @throws InterruptedException If the client is closed while sending
+     */
+    private void sendSpooled() throws InterruptedException {
+        for (File file : spooledFiles()) {
+            String body;
+            try {
+                body = Files.readString(file.toPath());
+            } catch (IOException e) {
+                continue;
+            }
+            int size = body.split("\"id\":", -1).length - 1;
+            if (post(body, size) == null) {
+                nextSpoolAttempt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SPOOL_RETRY_MILLIS);
+                return;
+            }
+            if (file.delete()) {
+                SPOOLED_BATCHES.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Posts a batch, retrying with exponential backoff and jitter while the failure may pass.
+     *
+     * @param body The batch as JSON
+     * @param size The number of scores in the batch
+     * @return True if the leaderboard answered, false if the batch should be spooled
+     * @throws InterruptedException If the client is closed while sending
+     */
+    private boolean postWithRetry(String body, int size) throws InterruptedException {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+                Thread.sleep(backoff / 2 + (long) (JITTER.nextDouble() * backoff / 2));
+            }
+            if (post(body, size) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Posts a batch once.
+     *
+     * @param body The batch as JSON
+     * @param size The number of scores in the batch
+     * @return True if the batch was accepted, false if it was rejected as invalid, or null if the
+     * request failed and may be retried
+     * @throws InterruptedException If the client is closed while sending
+     */
+    private Boolean post(String body, int size) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(ENDPOINT)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        int status;
+        try {
+            status = HTTP.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            FAILED_REQUESTS.incrementAndGet();
+            return null;
+        }
+        if (status / 100 == 2) {
+            SENT.addAndGet(size);
+            return true;
+        }
+        if (status / 100 == 4 && status != 429) {
+            REJECTED.addAndGet(size);
+            return false;
+        }
+        // Overloaded or failing (429 or 5xx): worth trying again
+        FAILED_REQUESTS.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Writes a batch to a new file of the spool, atomically so a half-written batch is never sent.
+     * Each batch takes the next sequence number, so no batch ever replaces another.
+     *
+     * @param body The batch as JSON
+     */
+    private void spool(String body) {
+        Path spooled = new File(SPOOL_DIR, String.format("batch-%019d.json", nextSpoolSequence++)).toPath();
+        Path partial = spooled.resolveSibling(spooled.getFileName() + ".tmp");
+        try {
+            Files.writeString(partial, body);
+            if (Files.exists(spooled)) {
+                throw new IOException("the batch file already exists");
+            }
+            Files.move(partial, spooled, StandardCopyOption.ATOMIC_MOVE);
+            SPOOLED_BATCHES.incrementAndGet();
+        } catch (IOException e) {
+            System.err.println("Failed to spool scores to " + spooled + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lists the spooled batches, oldest first.
+     *
+     * @return The files of the spooled batches
+     */
+    private File[] spooledFiles() {
+        File[] files = SPOOL_DIR.listFiles((dir, name) -> SPOOLED_NAME.matcher(name).matches());
+        if (files == null) {
+            return new File[0];
+        }
+        // The names hold the sequence numbers of the batches, padded so they sort in that order
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+     * Gets the sequence number of a spooled batch from the name of its file.
+     *
+     * @param file The file of the spooled batch
+     * @return The sequence number of the batch
+     */
+    private static long sequenceOf(File file) {
+        Matcher name = SPOOLED_NAME.matcher(file.getName());
+        return name.matches() ? Long.parseLong(name.group(1)) : -1;
+    }
+
+    /**
+     * Wraps scores into the JSON body of a batch.
+     *
+     * @param scores The scores, each as JSON
+     * @return The batch as JSON
+     */
+    private String toJson(List<String> scores) {
+        return "{\"cabinet\":\"" + CABINET + "\",\"scores\":[" + String.join(",", scores) + "]}";
+    }
+}
@@ -0,0 +1,466 @@
+package objects;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.lwjgl.system.MemoryStack;
+import static org.lwjgl.stb.STBImage.stbi_image_free;
+import static org.lwjgl.stb.STBImage.stbi_load;
+import static org.lwjgl.stb.STBImageWrite.stbi_write_png;
+import static org.lwjgl.system.MemoryUtil.memAlloc;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * A screen rasterised on the CPU into an ARGB framebuffer, for drawing the game without a GPU.
+ * While a frame is played, every sprite drawn is only recorded, including the glyphs of text. Once the frame is over, the
+ * framebuffer is split into bands of rows, and the bands are rasterised in parallel, each
+ * compositing every recorded sprite that crosses it in the order they were drawn.
+ * Frames are written to PNG files in the background, so the game never waits for the encoder
+ * unless every buffer of the writers is busy. The sprites drawn in a frame can also be taken as a
+ * {@link DrawList} and rasterised later on another thread, e.g. while the next frames are played.
+ *
+ * @author Minh Triet Pham
+ */
+public class SoftwareCanvas {
+    /**
+     * The number of bands of rows rasterised by each thread, so that busy bands even out
+     */
+    private static final int BANDS_PER_THREAD = 4;
+
+    /**
+     * The number of sprites first made room for in a frame
+     */
+    private static final int INITIAL_DRAWS = 256;
+
+    /**
+     * The number of frames each writer thread can have waiting to be encoded
+     */
+    private static final int BUFFERS_PER_WRITER = 2;
+
+    /**
+     * The opacity of a sprite drawn opaque
+     */
+    private static final int OPAQUE = 0xFF;
+
+    /**
+     * The colour the framebuffer is cleared to before each frame (opaque black)
+     */
+    private static final int CLEAR_COLOUR = 0xFF000000;
+
+    /**
+     * The number of colour channels of a written PNG (RGBA)
+     */
+    private static final int CHANNELS = 4;
+
+    /**
+     * The width of the framebuffer
+     */
+    private final int WIDTH;
+
+    /**
+     * The height of the framebuffer
+     */
+    private final int HEIGHT;
+
+    /**
+     * The ARGB pixels of the last rasterised frame, row by row
+     */
+    private final int[] PIXELS;
+
+    /**
+     * The pool the bands of a frame are rasterised on
+     */
+    private final ForkJoinPool POOL;
+
+    /**
+     * The threads encoding and writing PNG files
+     */
+    private final ExecutorService WRITERS;
+
+    /**
+     * The RGBA buffers free to hold a frame waiting to be written
+     */
+    private final BlockingQueue<ByteBuffer> FREE_BUFFERS;
+
+    /**
+     * The tasks rasterising each band of rows
+     */
+    private final List<Callable<Void>> BANDS;
+
+    /**
+     * The draw lists taken and given back, ready to record another frame
+     */
+    private final Queue<DrawList> FREE_DRAW_LISTS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The sprites drawn in the current frame
+     */
+    private DrawList current = new DrawList();
+
+    /**
+     * The draw list being rasterised by the bands
+     */
+    private DrawList bandDrawList;
+
+    /**
+     * The pixels the bands are rasterising into
+     */
+    private int[] bandPixels;
+
+    /**
+     * Constructs a canvas.
+     *
+     * @param width   The width of the framebuffer
+     * @param height  The height of the framebuffer
+     * @param threads The number of threads rasterising the frames and writing them, or 0 for every core
+     */
+    public SoftwareCanvas(int width, int height, int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.WIDTH = width;
+        this.HEIGHT = height;
+        this.PIXELS = new int[width * height];
+        this.POOL = new ForkJoinPool(poolSize);
+        this.WRITERS = Executors.newFixedThreadPool(poolSize);
+        this.FREE_BUFFERS = new ArrayBlockingQueue<>(poolSize * BUFFERS_PER_WRITER);
+        for (int i = 0; i < poolSize * BUFFERS_PER_WRITER; i++) {
+            FREE_BUFFERS.add(memAlloc(width * height * CHANNELS));
+        }
+
+        // Split the framebuffer into bands of rows, the last band taking what is left
+        int bandCount = Math.min(height, poolSize * BANDS_PER_THREAD);
+        int bandRows = (height + bandCount - 1) / bandCount;
+        this.BANDS = new ArrayList<>(bandCount);
+        for (int top = 0; top < height; top += bandRows) {
+            int from = top;
+            int to = Math.min(height, top + bandRows);
+            BANDS.add(() -> {
+                rasteriseBand(from, to);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Records a sprite drawn in the current frame. Called by {@link Sprite#draw(double, double)}
+     * on the thread playing the game.
+     *
+     * @param sprite The sprite drawn
+     * @param left   The x-coordinate of the sprite's top-left corner
+     * @param top    The y-coordinate of the sprite's top-left corner
+     */
+    void draw(Sprite sprite, double left, double top) {
+        current.add(sprite, (int) Math.round(left), (int) Math.round(top), OPAQUE);
+    }
+
+    /**
+     * Records a sprite drawn translucently in the current frame. Called by
+     * {@link Sprite#draw(double, double, double)} on the thread playing the game.
+     *
+     * @param sprite  The sprite drawn
+     * @param left    The x-coordinate of the sprite's top-left corner
+     * @param top     The y-coordinate of the sprite's top-left corner
+     * @param opacity The opacity of the sprite, from 0 to 255
+     */
+    void draw(Sprite sprite, double left, double top, int opacity) {
+        current.add(sprite, (int) Math.round(left), (int) Math.round(top), opacity);
+    }
+
+    /**
+     * Rasterises every sprite drawn since the last frame, then starts recording the next frame.
+     *
+     * @return The ARGB pixels of the frame, row by row, valid until the next frame is finished
+     */
+    public int[] finishFrame() {
+        rasterise(current, PIXELS);
+        discardFrame();
+        return PIXELS;
+    }
+
+    /**
+     * Drops every sprite drawn since the last frame without rasterising them, e.g. for frames
+     * played only to reach the one that is needed.
+     */
+    public void discardFrame() {
+        current.clear();
+    }
+
+    /**
+     * Takes the sprites drawn since the last frame, to be rasterised later, and starts recording the next frame.
+     *
+     * @return The sprites drawn in the frame, to be given back with {@link #recycle(DrawList)} once rasterised
+     */
+    public DrawList takeDrawList() {
+        DrawList taken = current;
+        DrawList next = FREE_DRAW_LISTS.poll();
+        current = next != null ? next : new DrawList();
+        return taken;
+    }
+
+    /**
+     * Gives back a draw list that has been rasterised, so that it can record another frame.
+     *
+     * @param drawList The draw list taken with {@link #takeDrawList()}
+     */
+    public void recycle(DrawList drawList) {
+        drawList.clear();
+        FREE_DRAW_LISTS.add(drawList);
+    }
+
+    /**
+     * Rasterises the sprites of a frame into a framebuffer, its bands of rows in parallel.
+     * Frames are rasterised one at a time.
+     *
+     * @param drawList The sprites drawn in the frame
+     * @param pixels   The ARGB pixels to rasterise into, of the size of the canvas
+     */
+    public synchronized void rasterise(DrawList drawList, int[] pixels) {
+        bandDrawList = drawList;
+        bandPixels = pixels;
+        try {
+            for (Future<Void> band : POOL.invokeAll(BANDS)) {
+                band.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A band of the frame failed to rasterise", e.getCause());
+        } finally {
+            bandDrawList = null;
+            bandPixels = null;
+        }
+    }
+
+    /**
+     * Writes the last finished frame to a PNG file in the background.
+     * Only waits if every buffer of the writers already holds a frame waiting to be written.
+     *
+     * @param path The path of the PNG file
+     * @return The pending write, which fails if the file cannot be written
+     * @throws InterruptedException If interrupted while waiting for a free buffer
+     */
+    public Future<?> writePng(String path) throws InterruptedException {
+        // 1) Copy the frame as RGBA into a free buffer, on this thread, so the next frame can be drawn
+        ByteBuffer rgba = FREE_BUFFERS.take();
+        for (int i = 0; i < PIXELS.length; i++) {
+            int pixel = PIXELS[i];
+            int offset = i * CHANNELS;
+            rgba.put(offset, (byte) (pixel >> 16));
+            rgba.put(offset + 1, (byte) (pixel >> 8));
+            rgba.put(offset + 2, (byte) pixel);
+            rgba.put(offset + 3, (byte) (pixel >>> 24));
+        }
+
+        // 2) Encode and write it on a writer thread, then free the buffer again
+        return WRITERS.submit(() -> {
+            try {
+                if (!stbi_write_png(path, WIDTH, HEIGHT, CHANNELS, rgba, WIDTH * CHANNELS)) {
+                    throw new IllegalStateException("Failed to write " + path);
+                }
+            } finally {
+                FREE_BUFFERS.add(rgba);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Waits for every pending PNG file to be written, then stops the threads of the canvas and
+     * frees the native buffers of the writers, which are all free again once the writers have finished.
+     *
+     * @throws InterruptedException If interrupted while waiting for the writers
+     */
+    public void close() throws InterruptedException {
+        POOL.shutdown();
+        WRITERS.shutdown();
+        WRITERS.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        for (ByteBuffer buffer = FREE_BUFFERS.poll(); buffer != null; buffer = FREE_BUFFERS.poll()) {
+            memFree(buffer);
+        }
+    }
+
+    /**
+     * Gets the width of the framebuffer
+     *
+     * @return The width of the framebuffer
+     */
+    public int getWidth() {
+        return WIDTH;
+    }
+
+    /**
+     * Gets the height of the framebuffer
+     *
+     * @return The height of the framebuffer
+     */
+    public int getHeight() {
+        return HEIGHT;
+    }
+
+    /**
+     * Reads a PNG file of the size of the framebuffer, e.g. a frame written earlier.
+     *
+     * @param path The path of the PNG file
+     * @return The ARGB pixels of the image, row by row, or null if the file cannot be read or has another size
+     */
+    public int[] readPng(String path) {
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+            ByteBuffer rgba = stbi_load(path, w, h, channels, CHANNELS);
+            if (rgba == null) {
+                return null;
+            }
+            try {
+                if (w.get(0) != WIDTH || h.get(0) != HEIGHT) {
+                    return null;
+                }
+                int[] argb = new int[WIDTH * HEIGHT];
+                for (int i = 0; i < argb.length; i++) {
+                    int offset = i * CHANNELS;
+                    argb[i] = (rgba.get(offset + 3) & 0xFF) << 24 | (rgba.get(offset) & 0xFF) << 16
+                            | (rgba.get(offset + 1) & 0xFF) << 8 | (rgba.get(offset + 2) & 0xFF);
+                }
+                return argb;
+            } finally {
+                stbi_image_free(rgba);
+            }
+        }
+    }
+
+    /**
+     * Rasterises one band of rows: clears it, then composites every sprite of the frame crossing it.
+     *
+     * @param from The first row of the band
+     * @param to   The row after the last row of the band
+     */
+    private void rasteriseBand(int from, int to) {
+        DrawList drawList = bandDrawList;
+        int[] pixels = bandPixels;
+        Arrays.fill(pixels, from * WIDTH, to * WIDTH, CLEAR_COLOUR);
+        for (int i = 0; i < drawList.count; i++) {
+            Sprite sprite = drawList.sprites[i];
+            int left = drawList.lefts[i];
+            int top = drawList.tops[i];
+            int opacity = drawList.opacities[i];
+            int width = (int) sprite.getWidth();
+            int height = (int) sprite.getHeight();
+
+            // 1) Clip the sprite to the band and the framebuffer
+            int firstRow = Math.max(top, from);
+            int lastRow = Math.min(top + height, to);
+            int firstColumn = Math.max(left, 0);
+            int lastColumn = Math.min(left + width, WIDTH);
+            if (firstRow >= lastRow || firstColumn >= lastColumn) {
+                continue;
+            }
+
+            // 2) Composite every visible pixel over the framebuffer
+            int[] source = sprite.getPixels();
+            int stride = sprite.getStride();
+            int sourceX = sprite.getSectionX() - left;
+            int sourceY = sprite.getSectionY() - top;
+            for (int y = firstRow; y < lastRow; y++) {
+                int sourceRow = (y + sourceY) * stride + sourceX;
+                int row = y * WIDTH;
+                for (int x = firstColumn; x < lastColumn; x++) {
+                    int pixel = source[sourceRow + x];
+                    int alpha = opacity == OPAQUE ? pixel >>> 24 : ((pixel >>> 24) * opacity + 127) / OPAQUE;
+                    if (alpha == 0xFF) {
+                        pixels[row + x] = pixel;
+                    } else if (alpha != 0) {
+                        pixels[row + x] = blend(pixel, pixels[row + x], alpha);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Blends a translucent pixel over an opaque one.
+     *
+     * @param pixel      The ARGB pixel drawn
+     * @param background The opaque ARGB pixel it is drawn over
+     * @param alpha      The alpha of the pixel drawn
+     * @return The opaque ARGB pixel blended
+     */
+    private static int blend(int pixel, int background, int alpha) {
+        int inverse = 0xFF - alpha;
+        int red = (((pixel >> 16) & 0xFF) * alpha + ((background >> 16) & 0xFF) * inverse + 127) / 0xFF;
+        int green = (((pixel >> 8) & 0xFF) * alpha + ((background >> 8) & 0xFF) * inverse + 127) / 0xFF;
+        int blue = ((pixel & 0xFF) * alpha + (background & 0xFF) * inverse + 127) / 0xFF;
+        return CLEAR_COLOUR | red << 16 | green << 8 | blue;
+    }
+
+    /**
+     * The sprites drawn in one frame, in the order they were drawn, with the positions and opacities they were drawn at
+     */
+    public static class DrawList {
+        /**
+         * The sprites drawn, in order
+         */
+        private Sprite[] sprites = new Sprite[INITIAL_DRAWS];
+
+        /**
+         * The x-coordinates of the top-left corners of the sprites drawn
+         */
+        private int[] lefts = new int[INITIAL_DRAWS];
+
+        /**
+         * The y-coordinates of the top-left corners of the sprites drawn
+         */
+        private int[] tops = new int[INITIAL_DRAWS];
+
+        /**
+         * The opacities of the sprites drawn, from 0 to 255
+         */
+        private int[] opacities = new int[INITIAL_DRAWS];
+
+        /**
+         * The number of sprites drawn
+         */
+        private int count = 0;
+
+        /**
+         * Records a sprite drawn.
+         *
+         * @param sprite  The sprite drawn
+         * @param left    The x-coordinate of the sprite's top-left corner
+         * @param top     The y-coordinate of the sprite's top-left corner
+         * @param opacity The opacity of the sprite, from 0 to 255
+         */
+        private void add(Sprite sprite, int left, int top, int opacity) {
+            if (count == sprites.length) {
+                sprites = Arrays.copyOf(sprites, 2 * count);
+                lefts = Arrays.copyOf(lefts, 2 * count);
+                tops = Arrays.copyOf(tops, 2 * count);
+                opacities = Arrays.copyOf(opacities, 2 * count);
+            }
+            sprites[count] = sprite;
+            lefts[count] = left;
+            tops[count] = top;
+            opacities[count] = opacity;
+            count++;
+        }
+
+        /**
+         * Forgets every sprite drawn.
+         */
+        private void clear() {
+            Arrays.fill(sprites, 0, count, null);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package objects;
+import bagel.*;
+
+/**
+ * Represents a single sprite image inside the shared sprite atlas.
+ * A sprite only remembers where its pixels live in the atlas texture, so every entity
+ * drawing the same sprite shares one texture instead of loading its own copy.
+ *
+ * @author Minh Triet Pham
+ */
+public class Sprite {
+    /**
+     * The texture that holds the pixels of this sprite, or null if there is no window
+     */
+    private final Image TEXTURE;
+
+    /**
+     * The draw options selecting this sprite's section of the texture
+     */
+    private final DrawOptions SECTION;
+
+    /**
+     * The draw options selecting this sprite's section of the texture and blending it translucently
+     */
+    private final DrawOptions TRANSLUCENT_SECTION;
+
+    /**
+     * The opacity the translucent draw options blend with, or -1 before the sprite is first drawn translucently
+     */
+    private double translucentOpacity = -1;
+
+    /**
+     * The ARGB pixels of the texture, for drawing on a software canvas, or null if there is none
+     */
+    private final int[] PIXELS;
+
+    /**
+     * The width of a row of the pixels of the texture
+     */
+    private final int STRIDE;
+
+    /**
+     * The position of the sprite's top-left corner inside the texture
+     */
+    private final int SECTION_X, SECTION_Y;
+
+    /**
+     * The width and height of the sprite
+     */
+    private final double WIDTH, HEIGHT;
+
+    /**
+     * Constructs a sprite covering a section of an atlas texture.
+     *
+     * @param texture The atlas texture that holds the sprite, or null if there is no window
+     * @param pixels  The ARGB pixels of the atlas, or null if there is no software canvas
+     * @param stride  The width of a row of the pixels of the atlas
+     * @param x       The x-coordinate of the sprite's top-left corner inside the texture
+     * @param y       The y-coordinate of the sprite's top-left corner inside the texture
+     * @param width   The width of the sprite
+     * @param height  The height of the sprite
+     */
+    public Sprite(Image texture, int[] pixels, int stride, int x, int y, int width, int height) {
+        this.TEXTURE = texture;
+        this.SECTION = new DrawOptions().setSection(x, y, width, height);
+        this.TRANSLUCENT_SECTION = new DrawOptions().setSection(x, y, width, height);
+        this.PIXELS = pixels;
+        this.STRIDE = stride;
+        this.SECTION_X = x;
+        this.SECTION_Y = y;
+        this.WIDTH = width;
+        this.HEIGHT = height;
+    }
+
+    /**
+     * Constructs a sprite covering a whole texture, used for images that are not packed.
+     *
+     * @param texture The texture of the sprite
+     */
+    public Sprite(Image texture) {
+        this(texture, null, 0, 0, 0, (int) texture.getWidth(), (int) texture.getHeight());
+    }
+
+    /**
+     * Constructs a sprite covering a whole image loaded without a window, used for images that are not packed.
+     *
+     * @param pixels The ARGB pixels of the image
+     * @param width  The width of the image
+     * @param height The height of the image
+     */
+    public Sprite(int[] pixels, int width, int height) {
+        this(null, pixels, width, 0, 0, width, height);
+    }
+
+    /**
+     * Draws the sprite centred at the given position.
+     *
+     * @param x The x-coordinate of the sprite's centre
+     * @param y The y-coordinate of the sprite's centre
+     */
+    public void draw(double x, double y) {
+        SoftwareCanvas canvas = Display.getCanvas();
+        if (canvas != null) {
+            canvas.draw(this, x - WIDTH / 2, y - HEIGHT / 2);
+        } else {
+            TEXTURE.draw(x, y, SECTION);
+        }
+    }
+
+    /**
+     * Draws the sprite translucently, centred at the given position, e.g. for a ghost.
+     *
+     * @param x       The x-coordinate of the sprite's centre
+     * @param y       The y-coordinate of the sprite's centre
+     * @param opacity The opacity of the sprite, from 0 (invisible) to 1 (opaque)
+     */
+    public void draw(double x, double y, double opacity) {
+        SoftwareCanvas canvas = Display.getCanvas();
+        if (canvas != null) {
+            canvas.draw(this, x - WIDTH / 2, y - HEIGHT / 2, (int) Math.round(opacity * 0xFF));
+        } else {
+            // Only set the blend colour when the opacity changes, so that drawing does not allocate
+            if (opacity != translucentOpacity) {
+                TRANSLUCENT_SECTION.setBlendColour(1, 1, 1, opacity);
+                translucentOpacity = opacity;
+            }
+            TEXTURE.draw(x, y, TRANSLUCENT_SECTION);
+        }
+    }
+
+    /**
+     * Draws the sprite with its top-left corner at the given position, on the window or on the software canvas.
+     *
+     * @param x The x-coordinate of the sprite's top-left corner
+     * @param y The y-coordinate of the sprite's top-left corner
+     */
+    public void drawFromTopLeft(double x, double y) {
+        SoftwareCanvas canvas = Display.getCanvas();
+        if (canvas != null) {
+            canvas.draw(this, x, y);
+        } else {
+            TEXTURE.drawFromTopLeft(x, y, SECTION);
+        }
+    }
+
+    /**
+     * Retrieves the ARGB pixels of the texture holding the sprite.
+     *
+     * @return The pixels of the texture, or null if there is no software canvas
+     */
+    int[] getPixels() {
+        return PIXELS;
+    }
+
+    /**
+     * Retrieves the width of a row of the pixels of the texture.
+     *
+     * @return The width of a row of the pixels
+     */
+    int getStride() {
+        return STRIDE;
+    }
+
+    /**
+     * Retrieves the x-coordinate of the sprite's top-left corner inside the texture.
+     *
+     * @return The x-coordinate of the sprite inside the texture
+     */
+    int getSectionX() {
+        return SECTION_X;
+    }
+
+    /**
+     * Retrieves the y-coordinate of the sprite's top-left corner inside the texture.
+     *
+     * @return The y-coordinate of the sprite inside the texture
+     */
+    int getSectionY() {
+        return SECTION_Y;
+    }
+
+    /**
+     * Retrieves the width of the sprite.
+     *
+     * @return The width of the sprite
+     */
+    public double getWidth() {
+        return WIDTH;
+    }
+
+    /**
+     * Retrieves the height of the sprite.
+     *
+     * @return The height of the sprite
+     */
+    public double getHeight() {
+        return HEIGHT;
+    }
+}
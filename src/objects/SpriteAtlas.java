@@ -0,0 +1,266 @@
+package objects;
+import bagel.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.lwjgl.stb.STBRPContext;
+import org.lwjgl.stb.STBRPNode;
+import org.lwjgl.stb.STBRPRect;
+import org.lwjgl.system.MemoryStack;
+import static org.lwjgl.stb.STBImage.stbi_failure_reason;
+import static org.lwjgl.stb.STBImage.stbi_image_free;
+import static org.lwjgl.stb.STBImage.stbi_load;
+import static org.lwjgl.stb.STBImageWrite.stbi_write_png;
+import static org.lwjgl.stb.STBRectPack.stbrp_init_target;
+import static org.lwjgl.stb.STBRectPack.stbrp_pack_rects;
+import static org.lwjgl.system.MemoryUtil.memCalloc;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Packs all entity sprites in res/ into a single texture when the game starts.
+ * The sprites are loaded and packed with stb, the packed atlas is written to a temporary PNG
+ * and loaded once, and every entity then draws its own section of that one texture.
+ *
+ * @author Minh Triet Pham
+ */
+public class SpriteAtlas {
+    /**
+     * The sprite images packed into the atlas
+     */
+    private static final String[] ATLAS_SPRITES = {
+            "res/mario_right.png", "res/mario_left.png",
+            "res/mario_hammer_right.png", "res/mario_hammer_left.png",
+            "res/mario_blaster_right.png", "res/mario_blaster_left.png",
+            "res/normal_monkey_right.png", "res/normal_monkey_left.png",
+            "res/intelli_monkey_right.png", "res/intelli_monkey_left.png",
+            "res/bullet_right.png", "res/bullet_left.png",
+            "res/banana.png", "res/barrel.png", "res/blaster.png", "res/hammer.png",
+            "res/donkey_kong.png", "res/ladder.png", "res/platform.png"
+    };
+
+    /**
+     * The smallest atlas size tried, doubled until every sprite fits
+     */
+    private static final int MIN_ATLAS_SIZE = 256;
+
+    /**
+     * The largest atlas size allowed
+     */
+    private static final int MAX_ATLAS_SIZE = 4096;
+
+    /**
+     * The empty border kept around each sprite so neighbours never bleed into each other
+     */
+    private static final int PADDING = 1;
+
+    /**
+     * The number of colour channels of the atlas (RGBA)
+     */
+    private static final int CHANNELS = 4;
+
+    /**
+     * The sprites that have been created so far, keyed by image path
+     */
+    private static final Map<String, Sprite> SPRITES = new ConcurrentHashMap<>();
+
+    /**
+     * Signal of whether the atlas has already been packed, set once every atlas sprite is registered
+     */
+    private static volatile boolean isPacked = false;
+
+    /**
+     * Gets the sprite for an image path, packing the atlas on first use.
+     * Images that are not part of the atlas (e.g. the background) are loaded as standalone textures, once.
+     *
+     * @param path The path of the image in res/
+     * @return The sprite for the image
+     */
+    public static Sprite get(String path) {
+        if (!isPacked) {
+            packOnce();
+        }
+        return SPRITES.computeIfAbsent(path, SpriteAtlas::loadStandalone);
+    }
+
+    /**
+     * Loads an image that is not part of the atlas, as a texture if there is a window and as
+     * ARGB pixels loaded with stb otherwise.
+     *
+     * @param path The path of the image in res/
+     * @return The sprite covering the whole image
+     */
+    private static Sprite loadStandalone(String path) {
+        if (Display.hasWindow()) {
+            return new Sprite(new Image(path));
+        }
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+            ByteBuffer pixels = stbi_load(path, w, h, channels, CHANNELS);
+            if (pixels == null) {
+                throw new IllegalStateException("Failed to load " + path + ": " + stbi_failure_reason());
+            }
+            int[] argb = toArgb(pixels, w.get(0) * h.get(0));
+            stbi_image_free(pixels);
+            return new Sprite(argb, w.get(0), h.get(0));
+        }
+    }
+
+    /**
+     * Packs the atlas unless another thread already has, e.g. when a simulation farm creates
+     * several levels at once.
+     */
+    private static synchronized void packOnce() {
+        if (!isPacked) {
+            pack();
+        }
+    }
+
+    /**
+     * Loads every atlas sprite with stb, packs them into one texture and registers
+     * a sprite for each of them. Without a window, the sprites are drawn from the atlas pixels
+     * on the software canvas, or only keep their size if there is no display at all.
+     */
+    private static void pack() {
+        int count = ATLAS_SPRITES.length;
+        ByteBuffer[] pixels = new ByteBuffer[count];
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            // 1) Load every sprite as RGBA pixels
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+            for (int i = 0; i < count; i++) {
+                pixels[i] = stbi_load(ATLAS_SPRITES[i], w, h, channels, CHANNELS);
+                if (pixels[i] == null) {
+                    throw new IllegalStateException("Failed to load " + ATLAS_SPRITES[i]
+                            + ": " + stbi_failure_reason());
+                }
+                widths[i] = w.get(0);
+                heights[i] = h.get(0);
+            }
+
+            // 2) Pack the sprite rectangles, doubling the atlas until everything fits
+            STBRPRect.Buffer rects = STBRPRect.malloc(count, stack);
+            int size = MIN_ATLAS_SIZE;
+            while (!packRects(rects, widths, heights, size, stack)) {
+                size *= 2;
+                if (size > MAX_ATLAS_SIZE) {
+                    throw new IllegalStateException("Sprites do not fit into a "
+                            + MAX_ATLAS_SIZE + "x" + MAX_ATLAS_SIZE + " atlas");
+                }
+            }
+
+            // 3) Copy every sprite into its packed position and upload the atlas once
+            ByteBuffer atlasPixels = memCalloc(size * size * CHANNELS);
+            for (int i = 0; i < count; i++) {
+                STBRPRect rect = rects.get(i);
+                copyInto(atlasPixels, size, pixels[i], widths[i], heights[i], rect.x(), rect.y());
+            }
+            Image atlas = Display.hasWindow() ? new Image(writeAtlas(atlasPixels, size)) : null;
+            int[] atlasArgb = Display.getCanvas() != null ? toArgb(atlasPixels, size * size) : null;
+            memFree(atlasPixels);
+
+            // 4) Register a sprite for each section of the atlas
+            for (int i = 0; i < count; i++) {
+                STBRPRect rect = rects.get(i);
+                SPRITES.put(ATLAS_SPRITES[i],
+                        new Sprite(atlas, atlasArgb, size, rect.x(), rect.y(), widths[i], heights[i]));
+            }
+            isPacked = true;
+        } finally {
+            for (ByteBuffer buffer : pixels) {
+                if (buffer != null) {
+                    stbi_image_free(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tries to pack all sprite rectangles into a square atlas of the given size.
+     *
+     * @param rects   The rectangles to pack, one per sprite
+     * @param widths  The widths of the sprites
+     * @param heights The heights of the sprites
+     * @param size    The width and height of the atlas
+     * @param stack   The stack used for the packer's temporary memory
+     * @return True if every rectangle was packed, false otherwise
+     */
+    private static boolean packRects(STBRPRect.Buffer rects, int[] widths, int[] heights,
+                                     int size, MemoryStack stack) {
+        for (int i = 0; i < rects.capacity(); i++) {
+            rects.get(i)
+                    .id(i)
+                    .w(widths[i] + PADDING)
+                    .h(heights[i] + PADDING);
+        }
+        STBRPContext context = STBRPContext.malloc(stack);
+        STBRPNode.Buffer nodes = STBRPNode.malloc(size, stack);
+        stbrp_init_target(context, size, size, nodes);
+        return stbrp_pack_rects(context, rects) == 1;
+    }
+
+    /**
+     * Copies the pixels of a sprite into the atlas.
+     *
+     * @param atlas     The atlas pixels
+     * @param atlasSize The width and height of the atlas
+     * @param sprite    The sprite pixels
+     * @param width     The width of the sprite
+     * @param height    The height of the sprite
+     * @param x         The x-coordinate of the sprite inside the atlas
+     * @param y         The y-coordinate of the sprite inside the atlas
+     */
+    private static void copyInto(ByteBuffer atlas, int atlasSize, ByteBuffer sprite,
+                                 int width, int height, int x, int y) {
+        int rowBytes = width * CHANNELS;
+        for (int row = 0; row < height; row++) {
+            ByteBuffer source = sprite.slice(row * rowBytes, rowBytes);
+            atlas.put(((y + row) * atlasSize + x) * CHANNELS, source, 0, rowBytes);
+        }
+    }
+
+    /**
+     * Converts RGBA pixels loaded with stb to the ARGB pixels a software canvas draws.
+     *
+     * @param rgba  The RGBA pixels
+     * @param count The number of pixels
+     * @return The ARGB pixels
+     */
+    private static int[] toArgb(ByteBuffer rgba, int count) {
+        int[] argb = new int[count];
+        for (int i = 0; i < count; i++) {
+            int offset = i * CHANNELS;
+            argb[i] = (rgba.get(offset + 3) & 0xFF) << 24 | (rgba.get(offset) & 0xFF) << 16
+                    | (rgba.get(offset + 1) & 0xFF) << 8 | (rgba.get(offset + 2) & 0xFF);
+        }
+        return argb;
+    }
+
+    /**
+     * Writes the packed atlas to a temporary PNG so that it can be loaded as a single texture.
+     *
+     * @param atlasPixels The atlas pixels
+     * @param size        The width and height of the atlas
+     * @return The path of the written PNG
+     */
+    private static String writeAtlas(ByteBuffer atlasPixels, int size) {
+        try {
+            File file = File.createTempFile("sprite-atlas", ".png");
+            file.deleteOnExit();
+            if (!stbi_write_png(file.getPath(), size, size, CHANNELS, atlasPixels, size * CHANNELS)) {
+                throw new IllegalStateException("Failed to write the sprite atlas");
+            }
+            return file.getPath();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to create the sprite atlas file", ex);
+        }
+    }
+}
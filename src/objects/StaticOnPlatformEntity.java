@@ -9,18 +9,29 @@ import bagel.util.Rectangle;
  * @author Minh Triet Pham
  */
 public abstract class StaticOnPlatformEntity extends Entity{
-    /**
-     * The initial velocity of the entity
-     */
-    private double velocityY = 0;
-
     /**
      * Constructs a new StaticOnPlatformEntity at the specified starting position.
+     * The entity falls with the level's other falling entities.
      * @param startX The initial x-coordinate of Donkey.
      * @param startY The initial y-coordinate of Donkey.
+     * @param store The store holding the state of the level's entities.
+     * @param archetype The archetype of the entity.
+     * @param gravity The gravity applied to the entity every frame.
+     * @param terminalVelocity The terminal velocity of the entity.
      */
-    public StaticOnPlatformEntity(double startX, double startY) {
-        super(startX, startY);
+    public StaticOnPlatformEntity(double startX, double startY, EntityStore store, Archetype archetype,
+                                  double gravity, double terminalVelocity) {
+        super(startX, startY, store, archetype);
+        makeFalling(gravity, terminalVelocity);
+    }
+
+    /**
+     * Constructs a copy of a StaticOnPlatformEntity for a fork of its store.
+     * @param original The entity to copy.
+     * @param store The fork of the original entity's store.
+     */
+    public StaticOnPlatformEntity(StaticOnPlatformEntity original, EntityStore store) {
+        super(original, store);
     }
 
     /**
@@ -29,7 +40,7 @@ public abstract class StaticOnPlatformEntity extends Entity{
      * @return The current velocityY of this StaticOnPlatformEntity
      */
     public double getVelocityY() {
-        return velocityY;
+        return getStore().getVelocityY(getIndex());
     }
 
     /**
@@ -38,16 +49,29 @@ public abstract class StaticOnPlatformEntity extends Entity{
      * @param velocityY The new velocityY of this StaticOnPlatformEntity
      */
     public void setVelocityY(double velocityY) {
-        this.velocityY = velocityY;
+        getStore().setVelocityY(getIndex(), velocityY);
     }
 
     /**
-     * Abstract methods that will be overridden in Donkey, Barrel and Ladder classes
-     * Update the entity based on the platforms and gravity
+     * Lands the entity on the first platform it fell onto since the falling entities were last integrated.
+     * The whole fall of the frame is checked, and the entity comes to rest on the platform it landed on.
      * 
      * @param platforms The array of platforms in the game
      */
-    public abstract void update(Platform[] platforms);
+    public void land(Platform[] platforms) {
+        Rectangle before = new Rectangle(
+                getX() - (getWidth() / 2),
+                getStore().getPreviousY(getIndex()) - (getHeight() / 2),
+                getWidth(),
+                getHeight()
+        );
+        Platform platform = SweptCollision.findLanding(before, getBoundingBox(), platforms);
+        if (platform != null) {
+            // Position the entity on top of the platform
+            this.setY(platform.getTop() - (getHeight() / 2));
+            this.setVelocityY(0); // Stop falling
+        }
+    }
 
     /**
      * Abstract methods that will be overridden in Donkey, Barrel and Ladder classes
@@ -0,0 +1,94 @@
+package objects;
+
+import bagel.util.Rectangle;
+
+/**
+ * Continuous (swept) collision between axis-aligned bounding boxes.
+ * A box that moves further in one frame than the thickness of what it should hit can jump
+ * straight over it, so besides checking where a box ends up, the whole movement of the box
+ * during the frame is checked against the target.
+ *
+ * @author Minh Triet Pham
+ */
+public class SweptCollision {
+    /**
+     * The time of impact returned when the moving box never enters the target
+     */
+    public static final double NO_IMPACT = Double.POSITIVE_INFINITY;
+
+    /**
+     * Finds when a box moving in a straight line during one frame starts to overlap a target.
+     * The time is a fraction of the movement: 0 means the boxes already overlap at the start,
+     * and a box that only touches the target at the very end of the movement does not count.
+     *
+     * @param before The bounding box at the start of the frame
+     * @param after  The bounding box at the end of the frame, of the same size
+     * @param target The bounding box of the target, which does not move during the frame
+     * @return The time of impact between 0 and 1, or {@link #NO_IMPACT}
+     */
+    public static double timeOfImpact(Rectangle before, Rectangle after, Rectangle target) {
+        double dx = after.left() - before.left();
+        double dy = after.top() - before.top();
+
+        // 1) Find when the box enters and leaves the target along each axis
+        double entryX, exitX, entryY, exitY;
+        if (dx == 0) {
+            if (before.left() >= target.right() || before.right() <= target.left()) {
+                return NO_IMPACT;
+            }
+            entryX = Double.NEGATIVE_INFINITY;
+            exitX = Double.POSITIVE_INFINITY;
+        } else {
+            entryX = (dx > 0 ? target.left() - before.right() : target.right() - before.left()) / dx;
+            exitX = (dx > 0 ? target.right() - before.left() : target.left() - before.right()) / dx;
+        }
+        if (dy == 0) {
+            if (before.top() >= target.bottom() || before.bottom() <= target.top()) {
+                return NO_IMPACT;
+            }
+            entryY = Double.NEGATIVE_INFINITY;
+            exitY = Double.POSITIVE_INFINITY;
+        } else {
+            entryY = (dy > 0 ? target.top() - before.bottom() : target.bottom() - before.top()) / dy;
+            exitY = (dy > 0 ? target.bottom() - before.top() : target.top() - before.bottom()) / dy;
+        }
+
+        // 2) The boxes overlap once they overlap on both axes, until they stop overlapping on either
+        double entry = Math.max(entryX, entryY);
+        double exit = Math.min(exitX, exitY);
+        if (entry >= exit || entry >= 1 || exit <= 0) {
+            return NO_IMPACT;
+        }
+        return Math.max(0, entry);
+    }
+
+    /**
+     * Checks whether a box overlaps a target at the end of a frame or passed through it during the frame.
+     *
+     * @param before The bounding box at the start of the frame
+     * @param after  The bounding box at the end of the frame, of the same size
+     * @param target The bounding box of the target
+     * @return True if the box hit the target during the frame, false otherwise
+     */
+    public static boolean collides(Rectangle before, Rectangle after, Rectangle target) {
+        return after.intersects(target) || timeOfImpact(before, after, target) != NO_IMPACT;
+    }
+
+    /**
+     * Finds the platform a falling box lands on during a frame.
+     * As with the frame-by-frame check, the first platform in the level's order wins.
+     *
+     * @param before    The bounding box at the start of the frame
+     * @param after     The bounding box at the end of the frame, of the same size
+     * @param platforms The platforms of the level
+     * @return The platform hit during the frame, or null if none was hit
+     */
+    public static Platform findLanding(Rectangle before, Rectangle after, Platform[] platforms) {
+        for (Platform platform : platforms) {
+            if (collides(before, after, platform.getBoundingBox())) {
+                return platform;
+            }
+        }
+        return null;
+    }
+}
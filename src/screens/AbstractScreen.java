@@ -1,6 +1,9 @@
 package screens;
 import bagel.*;
 import java.util.Properties;
+import objects.Display;
+import objects.Sprite;
+import objects.SpriteAtlas;
 
 /**
  * An abstract class that serves as a base for all game screens.
@@ -11,9 +14,9 @@ import java.util.Properties;
  */
 public abstract class AbstractScreen {
     /**
-     * The background image for the screen
+     * The background image for the screen, or null if there is no display
      */ 
-    protected final Image BACKGROUND_IMAGE; 
+    protected final Sprite BACKGROUND_IMAGE; 
     
     /**
      * Constructs the AbstractScreen with a background image.
@@ -21,8 +24,17 @@ public abstract class AbstractScreen {
      * @param gameProps Properties file containing image paths and other configuration.
      */
     public AbstractScreen(Properties gameProps) {
-        // Load the background image from properties
-        BACKGROUND_IMAGE = new Image(gameProps.getProperty("backgroundImage"));
+        // Load the background image from properties, unless the game is only simulated
+        BACKGROUND_IMAGE = Display.isEnabled() ? SpriteAtlas.get(gameProps.getProperty("backgroundImage")) : null;
+    }
+
+    /**
+     * Constructs a copy of a screen sharing its background image, e.g. for a fork of a level.
+     *
+     * @param original The screen to copy.
+     */
+    protected AbstractScreen(AbstractScreen original) {
+        BACKGROUND_IMAGE = original.BACKGROUND_IMAGE;
     }
     
     /**
@@ -0,0 +1,652 @@
+package screens;
+import bagel.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import objects.Blaster;
+import objects.Controls;
+import objects.Donkey;
+import objects.Hammer;
+import objects.Ladder;
+import objects.Mario;
+import objects.Physics;
+
+/**
+ * A built-in player choosing Mario's inputs in Level 2 by beam search over forks of the level.
+ * Mario plays moves (walk, climb, jump, shoot) held for a few frames each. While Mario plays a move,
+ * the player searches ahead from the level as it will be once the move is over: every move is tried
+ * on a fork of each of the most promising branches, the forks are played in parallel on a
+ * {@link ForkJoinPool}, and only the best branches are kept to be extended by the next moves.
+ * When Mario's move is over, he plays the first move of the best branch found.
+ *
+ * The level is deterministic once created, so the level searched from is exactly the one Mario
+ * reaches at the end of his move. The search is spread over the frames of the move: a frame only
+ * searches one more move ahead if the last one took less than what is left of the frame's
+ * thinking budget, so the game keeps its frame rate.
+ *
+ * @author Minh Triet Pham
+ */
+public class AutoPlayer {
+    /**
+     * The number of frames each move is held for
+     */
+    private static final int MOVE_FRAMES = 8;
+
+    /**
+     * Every move Mario can play
+     */
+    private static final Move[] MOVES = Move.values();
+
+    /**
+     * The reward for each point of health Donkey Kong has lost, or is going to lose to a bullet on its way
+     */
+    private static final double DONKEY_HIT_REWARD = 1000;
+
+    /**
+     * The reward for holding a weapon that can win the level: the hammer, or a blaster with enough
+     * bullets. It outweighs the cost of any route, so picking up a weapon always pays off
+     */
+    private static final double WEAPON_REWARD = 5000;
+
+    /**
+     * The reward for each bullet left, so that bullets are not wasted
+     */
+    private static final double BULLET_REWARD = 20;
+
+    /**
+     * The reward for winning the level, above any other state
+     */
+    private static final double WIN_REWARD = 1_000_000;
+
+    /**
+     * The weight of the level's score, small so that points never distract Mario from winning
+     */
+    private static final double SCORE_WEIGHT = 0.05;
+
+    /**
+     * The distance from Donkey Kong Mario shoots him from, well within the bullets' range
+     * but far enough not to be cornered next to him
+     */
+    private static final double SHOOTING_DISTANCE = Physics.BULLET_MAX_TRAVEL_DISTANCE * 0.6;
+
+    /**
+     * The largest vertical gap between two positions still counted as the same floor
+     */
+    private static final double FLOOR_TOLERANCE = 60;
+
+    /**
+     * The cost of a pixel climbed, relative to a pixel walked
+     */
+    private static final double CLIMB_WEIGHT = Physics.MARIO_MOVE_SPEED / Physics.MARIO_CLIMB_SPEED;
+
+    /**
+     * The extra cost of dropping to a lower floor without a ladder
+     */
+    private static final double FALL_PENALTY = 400;
+
+    /**
+     * The extra cost of a higher floor with no ladder leading to it, which Mario cannot reach
+     */
+    private static final double UNREACHABLE_PENALTY = 10000;
+
+    /**
+     * The cost used when no weapon is left to pick up
+     */
+    private static final double NO_WEAPON_COST = 5000;
+
+    /**
+     * The largest number of ladders a route is planned through
+     */
+    private static final int MAX_LADDER_HOPS = 8;
+
+    /**
+     * The size of the grid Mario's position is snapped to when telling branches apart
+     */
+    private static final double POSITION_GRID = 2;
+
+    /**
+     * The order of the branches, best first
+     */
+    private static final Comparator<Branch> BEST_FIRST = Comparator.comparingDouble((Branch branch) -> branch.score)
+            .reversed();
+
+    /**
+     * The pool the branches of the search are played on
+     */
+    private final ForkJoinPool POOL;
+
+    /**
+     * Whether the pool is the player's own, to be shut down with the player
+     */
+    private final boolean OWNS_POOL;
+
+    /**
+     * The number of branches kept after each move of the search
+     */
+    private final int BEAM_WIDTH;
+
+    /**
+     * The number of moves the search looks ahead at most
+     */
+    private final int MAX_DEPTH;
+
+    /**
+     * The time the search may spend in each frame, in nanoseconds
+     */
+    private final long THINKING_BUDGET;
+
+    /**
+     * The move Mario is playing, or null before the first frame
+     */
+    private Move move = null;
+
+    /**
+     * The number of frames of the current move already played
+     */
+    private int moveFrame = 0;
+
+    /**
+     * The branches the search extends next
+     */
+    private List<Branch> beam = new ArrayList<>();
+
+    /**
+     * The best branch found by the search so far, or null if none was found
+     */
+    private Branch best = null;
+
+    /**
+     * The number of moves the search has looked ahead
+     */
+    private int depth = 0;
+
+    /**
+     * The time the last move of the search took, in nanoseconds
+     */
+    private long moveSearchTime = 0;
+
+    /**
+     * Constructs a player, configured by the autoPlayer properties of the game.
+     *
+     * @param gameProps Properties containing game configuration data
+     */
+    public AutoPlayer(Properties gameProps) {
+        this(gameProps, null);
+    }
+
+    /**
+     * Constructs a player searching on a pool shared with other players, e.g. when many games are
+     * simulated at once, or on a pool of its own if none is given.
+     *
+     * @param gameProps  Properties containing game configuration data
+     * @param sharedPool The pool the branches of the search are played on, or null for a pool of its own
+     */
+    public AutoPlayer(Properties gameProps, ForkJoinPool sharedPool) {
+        int threads = Integer.parseInt(gameProps.getProperty("autoPlayer.threads", "0"));
+        this.OWNS_POOL = sharedPool == null;
+        this.POOL = OWNS_POOL
+                ? new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors())
+                : sharedPool;
+        this.BEAM_WIDTH = Integer.parseInt(gameProps.getProperty("autoPlayer.beamWidth", "6"));
+        this.MAX_DEPTH = Integer.parseInt(gameProps.getProperty("autoPlayer.maxDepth", "12"));
+        this.THINKING_BUDGET = (long) (Double.parseDouble(
+                gameProps.getProperty("autoPlayer.thinkingBudgetMillis", "8")) * 1_000_000);
+    }
+
+    /**
+     * Chooses Mario's controls for the next frame of a level, thinking ahead within the frame's budget.
+     * Must be called once before every update of the level.
+     *
+     * @param level The level played, about to be updated
+     * @return The controls steering Mario in the level's next update
+     */
+    public Controls nextControls(Level2Screen level) {
+        long deadline = System.nanoTime() + THINKING_BUDGET;
+
+        // 1) Once the current move is over, play the first move of the best branch and search on from its end
+        if (move == null || moveFrame == MOVE_FRAMES) {
+            move = best == null ? Move.IDLE : best.FIRST_MOVE;
+            moveFrame = 0;
+            startSearch(level);
+        }
+
+        // 2) Think until the budget of the frame is spent
+        think(deadline);
+
+        // 3) Steer Mario with the current move
+        return move.controls(moveFrame++ == 0);
+    }
+
+    /**
+     * Stops the threads of the player once it is no longer needed. A shared pool is left running.
+     */
+    public void shutdown() {
+        if (OWNS_POOL) {
+            POOL.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts a new search from the level as it will be once Mario has played the current move.
+     *
+     * @param level The level played
+     */
+    private void startSearch(Level2Screen level) {
+        Level2Screen fork = level.fork();
+        fork.setHeadless(true);
+        Branch root = new Branch(fork, null, move).play();
+
+        beam = new ArrayList<>();
+        if (!root.isOver) {
+            beam.add(root);
+        }
+        best = null;
+        depth = 0;
+    }
+
+    /**
+     * Extends the search one move at a time, for as long as the next move fits before the deadline.
+     * The first move of a search is always searched, so Mario never plays without a plan.
+     *
+     * @param deadline The time the search must stop at, as given by {@link System#nanoTime()}
+     */
+    private void think(long deadline) {
+        while (!beam.isEmpty() && depth < MAX_DEPTH
+                && (depth == 0 || System.nanoTime() + moveSearchTime < deadline)) {
+            long start = System.nanoTime();
+            searchNextMove();
+            moveSearchTime = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Tries every move on a fork of every branch of the beam, then keeps the best distinct branches.
+     */
+    private void searchNextMove() {
+        // 1) Fork every branch once per useful move, on this thread, since forking writes to the world forked
+        List<Callable<Branch>> plays = new ArrayList<>(beam.size() * MOVES.length);
+        for (Branch parent : beam) {
+            boolean canShoot = canShoot(parent.WORLD.getMario());
+            for (Move next : MOVES) {
+                if (next.IS_SHOT && !canShoot) {
+                    continue;
+                }
+                Level2Screen fork = parent.WORLD.fork();
+                Branch child = new Branch(fork, parent.FIRST_MOVE == null ? next : parent.FIRST_MOVE, next);
+                plays.add(child::play);
+            }
+        }
+
+        // 2) Play the forks in parallel
+        List<Branch> children = new ArrayList<>(plays.size());
+        try {
+            for (Future<Branch> played : POOL.invokeAll(plays)) {
+                children.add(played.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            beam = new ArrayList<>();
+            return;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A branch of the search failed", e.getCause());
+        }
+
+        // 3) Keep the best distinct branches still in play, and stop as soon as a branch wins
+        children.sort(BEST_FIRST);
+        List<Branch> next = new ArrayList<>(BEAM_WIDTH);
+        Set<Long> seen = new HashSet<>();
+        for (Branch child : children) {
+            if (child.isWon) {
+                best = child;
+                beam = new ArrayList<>();
+                return;
+            }
+            if (!child.isOver && next.size() < BEAM_WIDTH && seen.add(child.key())) {
+                next.add(child);
+            }
+        }
+        if (!next.isEmpty()) {
+            best = next.get(0);
+        }
+        beam = next;
+        depth++;
+    }
+
+    /**
+     * Scores a level from Mario's point of view: the damage done to Donkey Kong, the weapon Mario
+     * holds, and how far Mario still is from where he uses it, or from the nearest weapon.
+     *
+     * @param world The level to score
+     * @return The score of the level, higher is better
+     */
+    private static double evaluate(Level2Screen world) {
+        Mario mario = world.getMario();
+        Donkey donkey = world.getDonkey();
+        Ladder[] ladders = world.getLadders();
+        double marioBottom = bottomOf(mario.getY(), mario.getHeight());
+        double donkeyBottom = bottomOf(donkey.getY(), donkey.getHeight());
+        int hitsNeeded = donkey.getHealth() - mario.getBulletsOnTarget();
+        double score = world.getScore() * SCORE_WEIGHT - hitsNeeded * DONKEY_HIT_REWARD
+                + mario.getBulletCount() * BULLET_REWARD;
+
+        // 1) With the hammer, reach Donkey Kong
+        if (mario.holdHammer()) {
+            return score + WEAPON_REWARD
+                    - routeCost(ladders, mario.getX(), marioBottom, donkey.getX(), donkeyBottom, MAX_LADDER_HOPS);
+        }
+
+        // 2) Find the nearest weapon still lying in the level
+        double weaponCost = NO_WEAPON_COST;
+        Hammer hammer = world.getHammer();
+        if (hammer != null && !hammer.isCollected()) {
+            weaponCost = Math.min(weaponCost, routeCost(ladders, mario.getX(), marioBottom,
+                    hammer.getX(), bottomOf(hammer.getY(), hammer.getHeight()), MAX_LADDER_HOPS));
+        }
+        for (Blaster blaster : world.getBlasters()) {
+            if (blaster != null && !blaster.isCollected()) {
+                weaponCost = Math.min(weaponCost, routeCost(ladders, mario.getX(), marioBottom,
+                        blaster.getX(), bottomOf(blaster.getY(), blaster.getHeight()), MAX_LADDER_HOPS));
+            }
+        }
+
+        // 3) With enough bullets to finish Donkey Kong, or no weapon left to pick up, get to the shooting distance
+        if (canShoot(mario) && (mario.getBulletCount() >= hitsNeeded || weaponCost >= NO_WEAPON_COST)) {
+            double cost = routeCost(ladders, mario.getX(), marioBottom, donkey.getX(), donkeyBottom, MAX_LADDER_HOPS);
+            return score + WEAPON_REWARD - Math.abs(cost - SHOOTING_DISTANCE);
+        }
+
+        // 4) Otherwise, go for the nearest weapon
+        return score - weaponCost;
+    }
+
+    /**
+     * Checks whether Mario holds a blaster with bullets left.
+     *
+     * @param mario Mario
+     * @return True if Mario can shoot, false otherwise
+     */
+    private static boolean canShoot(Mario mario) {
+        return mario.holdBlaster() && mario.getBulletCount() > 0;
+    }
+
+    /**
+     * Estimates the cost of walking from one position to another, climbing the ladders on the way.
+     * Positions are given by the bottom of the entity, so that two entities on the same floor match.
+     *
+     * @param ladders    The ladders of the level
+     * @param fromX      The x-coordinate the route starts at
+     * @param fromBottom The bottom of the entity at the start of the route
+     * @param toX        The x-coordinate the route ends at
+     * @param toBottom   The bottom of the entity at the end of the route
+     * @param hops       The number of ladders the route may still climb
+     * @return The estimated cost of the route, in pixels walked
+     */
+    private static double routeCost(Ladder[] ladders, double fromX, double fromBottom,
+                                    double toX, double toBottom, int hops) {
+        double rise = toBottom - fromBottom;
+        if (Math.abs(rise) <= FLOOR_TOLERANCE) {
+            return Math.abs(toX - fromX);
+        }
+
+        // Without a ladder, a lower floor is only reached by falling, and a higher one not at all
+        double cost = Math.abs(toX - fromX) + Math.abs(rise) * CLIMB_WEIGHT
+                + (rise > 0 ? FALL_PENALTY : UNREACHABLE_PENALTY);
+        if (hops == 0) {
+            return cost;
+        }
+        for (Ladder ladder : ladders) {
+            double top = ladder.getY() - ladder.getHeight() / 2;
+            double bottom = ladder.getY() + ladder.getHeight() / 2;
+
+            // The ladder must reach the floor the route starts on, and lead to another floor towards the target
+            if (fromBottom < top - FLOOR_TOLERANCE || fromBottom > bottom + FLOOR_TOLERANCE) {
+                continue;
+            }
+            double end = rise < 0 ? top : bottom;
+            if (Math.abs(end - fromBottom) <= FLOOR_TOLERANCE) {
+                continue;
+            }
+            cost = Math.min(cost, Math.abs(ladder.getX() - fromX) + Math.abs(end - fromBottom) * CLIMB_WEIGHT
+                    + routeCost(ladders, ladder.getX(), end, toX, toBottom, hops - 1));
+        }
+        return cost;
+    }
+
+    /**
+     * Gets the bottom of an entity.
+     *
+     * @param y      The y-coordinate of the entity's centre
+     * @param height The height of the entity
+     * @return The y-coordinate of the entity's bottom
+     */
+    private static double bottomOf(double y, double height) {
+        return y + height / 2;
+    }
+
+    /**
+     * A move of Mario, held for {@link #MOVE_FRAMES} frames.
+     * A key the move presses (jump, shoot) is only pressed on the move's first frame.
+     */
+    private enum Move {
+        /**
+         * Stand still
+         */
+        IDLE(null, null),
+
+        /**
+         * Walk left
+         */
+        LEFT(Keys.LEFT, null),
+
+        /**
+         * Walk right
+         */
+        RIGHT(Keys.RIGHT, null),
+
+        /**
+         * Climb up a ladder
+         */
+        UP(Keys.UP, null),
+
+        /**
+         * Climb down a ladder
+         */
+        DOWN(Keys.DOWN, null),
+
+        /**
+         * Jump on the spot
+         */
+        JUMP(null, Keys.SPACE),
+
+        /**
+         * Jump to the left
+         */
+        JUMP_LEFT(Keys.LEFT, Keys.SPACE),
+
+        /**
+         * Jump to the right
+         */
+        JUMP_RIGHT(Keys.RIGHT, Keys.SPACE),
+
+        /**
+         * Turn left and shoot
+         */
+        SHOOT_LEFT(Keys.LEFT, Keys.S),
+
+        /**
+         * Turn right and shoot
+         */
+        SHOOT_RIGHT(Keys.RIGHT, Keys.S);
+
+        /**
+         * Whether the move shoots, which is only worth trying while Mario can shoot
+         */
+        private final boolean IS_SHOT;
+
+        /**
+         * The controls of the move's first frame
+         */
+        private final Controls FIRST_FRAME;
+
+        /**
+         * The controls of the move's other frames
+         */
+        private final Controls LATER_FRAMES;
+
+        /**
+         * Constructs a move.
+         *
+         * @param held    The key held for the whole move, or null if none
+         * @param pressed The key pressed at the start of the move, or null if none
+         */
+        Move(Keys held, Keys pressed) {
+            this.IS_SHOT = pressed == Keys.S;
+            this.FIRST_FRAME = new HeldKeys(held, pressed);
+            this.LATER_FRAMES = new HeldKeys(held, null);
+        }
+
+        /**
+         * Gets the controls of a frame of the move.
+         *
+         * @param isFirstFrame Whether the frame is the move's first
+         * @return The controls of the frame
+         */
+        private Controls controls(boolean isFirstFrame) {
+            return isFirstFrame ? FIRST_FRAME : LATER_FRAMES;
+        }
+    }
+
+    /**
+     * The controls of one frame of a move: at most one key held and one key pressed.
+     */
+    private static class HeldKeys implements Controls {
+        /**
+         * The key held down, or null if none
+         */
+        private final Keys HELD;
+
+        /**
+         * The key pressed this frame, or null if none
+         */
+        private final Keys PRESSED;
+
+        /**
+         * Constructs the controls of a frame.
+         *
+         * @param held    The key held down, or null if none
+         * @param pressed The key pressed this frame, or null if none
+         */
+        private HeldKeys(Keys held, Keys pressed) {
+            this.HELD = held;
+            this.PRESSED = pressed;
+        }
+
+        /**
+         * Checks whether a key is held down in this frame, a pressed key being down too.
+         *
+         * @param key The key to check
+         * @return True if the key is down, false otherwise
+         */
+        @Override
+        public boolean isDown(Keys key) {
+            return key == HELD || key == PRESSED;
+        }
+
+        /**
+         * Checks whether a key was pressed in this frame.
+         *
+         * @param key The key to check
+         * @return True if the key was pressed this frame, false otherwise
+         */
+        @Override
+        public boolean wasPressed(Keys key) {
+            return key == PRESSED;
+        }
+    }
+
+    /**
+     * A branch of the search: a fork of the level, played move after move from the search's start.
+     */
+    private static class Branch {
+        /**
+         * The fork of the level played by the branch
+         */
+        private final Level2Screen WORLD;
+
+        /**
+         * The first move of the branch, the one Mario plays if the branch is chosen, or null for the root
+         */
+        private final Move FIRST_MOVE;
+
+        /**
+         * The last move of the branch, played on the fork by {@link #play()}
+         */
+        private final Move LAST_MOVE;
+
+        /**
+         * The score of the branch once played
+         */
+        private double score;
+
+        /**
+         * Whether the level ended during the branch
+         */
+        private boolean isOver = false;
+
+        /**
+         * Whether the level ended in a win during the branch
+         */
+        private boolean isWon = false;
+
+        /**
+         * Constructs a branch that has yet to play its last move.
+         *
+         * @param world     The fork of the level played by the branch
+         * @param firstMove The first move of the branch, or null for the root
+         * @param lastMove  The move the branch plays next
+         */
+        private Branch(Level2Screen world, Move firstMove, Move lastMove) {
+            this.WORLD = world;
+            this.FIRST_MOVE = firstMove;
+            this.LAST_MOVE = lastMove;
+        }
+
+        /**
+         * Plays the last move of the branch on its fork, then scores the branch.
+         *
+         * @return This branch
+         */
+        private Branch play() {
+            for (int frame = 0; frame < MOVE_FRAMES && !isOver; frame++) {
+                if (WORLD.update(LAST_MOVE.controls(frame == 0))) {
+                    isOver = true;
+                    isWon = !WORLD.isGameOver();
+                }
+            }
+            score = isWon ? WIN_REWARD : evaluate(WORLD);
+            return this;
+        }
+
+        /**
+         * Gets a key telling apart branches that reached different states, so that the beam
+         * is not filled with moves that all led Mario to the same place.
+         *
+         * @return The key of the branch's state
+         */
+        private long key() {
+            Mario mario = WORLD.getMario();
+            long x = Math.round(mario.getX() / POSITION_GRID);
+            long y = Math.round(mario.getY() / POSITION_GRID);
+            long weapon = (mario.holdHammer() ? 1 : 0) | (mario.holdBlaster() ? 2 : 0);
+            return x | (y << 16) | ((long) mario.getBulletCount() << 32) | (weapon << 40)
+                    | ((long) WORLD.getDonkey().getHealth() << 48);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package screens;
 import bagel.*;
+import java.util.List;
 import java.util.Properties;
+import objects.Display;
+import objects.GameFont;
+import objects.HighScoreTable.HighScore;
 
 /**
  * Represents the screen displayed at the end of the game.
- * It shows whether the player won or lost, displays the final score,
- * and waits for the player to press SPACE to continue.
+ * It shows whether the player won or lost, displays the final score and the best scores
+ * played on this machine, and waits for the player to press SPACE to continue.
  * 
  * @author Minh Triet Pham
  */
@@ -30,21 +34,41 @@ public class GameEndScreen extends AbstractScreen {
      */
     private final String SCORE_MESSAGE;
 
+    /**
+     * The heading displayed above the best scores
+     */
+    private final String BEST_SCORES_TXT;
+
     /**
      * The font used for displaying the win/loss message
      */
-    private final Font STATUS_FONT;
+    private final GameFont STATUS_FONT;
 
     /**
      * The font used for displaying the final score
      */
-    private final Font SCORE_FONT;
+    private final GameFont SCORE_FONT;
 
     /**
      * The vertical position for the win/loss message
      */
     private final int STATUS_Y;
 
+    /**
+     * The vertical position for the heading of the best scores
+     */
+    private final int SCORES_Y;
+
+    /**
+     * The most best scores displayed
+     */
+    private final int MAX_BEST_SCORES = 10;
+
+    /**
+     * The difference in vertical position between two lines of the best scores
+     */
+    private final int BEST_SCORE_DIFF_Y = 25;
+
     /**
      * The difference in vertical position between the win/loss message and the final score
      */
@@ -55,21 +79,21 @@ public class GameEndScreen extends AbstractScreen {
      */
     private final int MESSAGE_DIFF_Y_2 = 100;
 
-    /**
-     * The weight of the scores
-     */
-    private final double TIME_WEIGHT = 3.0;
-
     /**
      * The final score from this playthrough
      */
-    private double finalScore = 0.0;
+    private int finalScore = 0;
 
     /**
      * Indicates whether the player won or lost
      */
     private boolean isWon;
 
+    /**
+     * The lines of the best scores played on this machine, best first, formatted once when they are set
+     */
+    private String[] bestScoreTexts = new String[0];
+
     /**
      * Constructs the GameEndScreen, loading required resources such as images, fonts, and text.
      *
@@ -84,15 +108,17 @@ public class GameEndScreen extends AbstractScreen {
         this.GAME_LOST_TXT = msgProps.getProperty("gameEnd.lost");
         this.CONTINUE_GAME_TXT = msgProps.getProperty("gameEnd.continue");
         this.SCORE_MESSAGE = msgProps.getProperty("gameEnd.score");
+        this.BEST_SCORES_TXT = msgProps.getProperty("gameEnd.bestScores");
 
-        // Load the vertical position of the status text
+        // Load the vertical positions of the status text and the best scores
         this.STATUS_Y = Integer.parseInt(gameProps.getProperty("gameEnd.status.y"));
+        this.SCORES_Y = Integer.parseInt(gameProps.getProperty("gameEnd.scores.y"));
 
         // Load fonts for status message and final score
         String fontFile = gameProps.getProperty("font");
-        this.STATUS_FONT = new Font(fontFile,
+        this.STATUS_FONT = new GameFont(fontFile,
                 Integer.parseInt(gameProps.getProperty("gameEnd.status.fontSize")));
-        this.SCORE_FONT = new Font(fontFile,
+        this.SCORE_FONT = new GameFont(fontFile,
                 Integer.parseInt(gameProps.getProperty("gameEnd.scores.fontSize")));
     }
 
@@ -107,18 +133,24 @@ public class GameEndScreen extends AbstractScreen {
 
     /**
      * Sets the final score to be displayed on the end screen.
-     * The final score is calculated based on remaining time and points gained.
+     * The time bonus of a won game is already included by the level's {@link ScoreBoard}.
+     *
+     * @param finalScore The total points earned during the game.
+     */
+    public void setFinalScore(int finalScore) {
+        this.finalScore = finalScore;
+    }
+
+    /**
+     * Sets the best scores to be displayed on the end screen, e.g. from the {@link objects.HighScoreTable}.
+     * No best scores are displayed if there are none.
      *
-     * @param timeRemaining The remaining time in the game.
-     * @param gainedScore   The total points earned during the game.
-     */
-    public void setFinalScore(double timeRemaining, double gainedScore) {
-        // If the player won, add bonus points = remaining time * 3
-        if (isWon) {
-            this.finalScore = gainedScore + (TIME_WEIGHT * timeRemaining);
-        } else {
-            // If the player lost, just use the gained score
-            this.finalScore = gainedScore;
+     * @param bestScores The best scores, best first
+     */
+    public void setBestScores(List<HighScore> bestScores) {
+        this.bestScoreTexts = new String[Math.min(bestScores.size(), MAX_BEST_SCORES)];
+        for (int i = 0; i < bestScoreTexts.length; i++) {
+            bestScoreTexts[i] = (i + 1) + ". " + bestScores.get(i).getScore();
         }
     }
 
@@ -131,35 +163,60 @@ public class GameEndScreen extends AbstractScreen {
      */
     @Override
     public boolean update(Input input) {
+        // 1) Draw the outcome, the final score and the prompt
+        draw();
+
+        // 2) Check if the player presses SPACE to exit the end screen
+        if (input.wasPressed(Keys.SPACE)) {
+            return true;
+        }
+
+        // 3) Otherwise, remain on the game end screen
+        return false;
+    }
+
+    /**
+     * Draws the game end screen: the background, the best scores, the win/loss message, the final score
+     * and the prompt.
+     */
+    public void draw() {
         // 1) Draw the background image
         drawBackground();
 
-        // 2) Display game outcome message ("Game Won" or "Game Lost")
+        // 2) Display the best scores, if any, under their heading
+        if (bestScoreTexts.length > 0) {
+            SCORE_FONT.drawString(
+                    BEST_SCORES_TXT,
+                    Display.getWidth() / 2 - SCORE_FONT.getWidth(BEST_SCORES_TXT) / 2,
+                    SCORES_Y
+            );
+            for (int i = 0; i < bestScoreTexts.length; i++) {
+                SCORE_FONT.drawString(
+                        bestScoreTexts[i],
+                        Display.getWidth() / 2 - SCORE_FONT.getWidth(bestScoreTexts[i]) / 2,
+                        SCORES_Y + (i + 1) * BEST_SCORE_DIFF_Y
+                );
+            }
+        }
+
+        // 3) Display game outcome message ("Game Won" or "Game Lost")
         String statusText = isWon ? GAME_WON_TXT : GAME_LOST_TXT;
         STATUS_FONT.drawString(
                 statusText,
-                Window.getWidth() / 2 - STATUS_FONT.getWidth(statusText) / 2,
+                Display.getWidth() / 2 - STATUS_FONT.getWidth(statusText) / 2,
                 STATUS_Y
         );
 
-        // 3) Display the final score below the status message
-        String finalScoreText = SCORE_MESSAGE + " " + (int) finalScore;
-        double finalScoreX = Window.getWidth() / 2 - SCORE_FONT.getWidth(finalScoreText) / 2;
+        // 4) Display the final score below the status message
+        String finalScoreText = SCORE_MESSAGE + " " + finalScore;
+        double finalScoreX = Display.getWidth() / 2 - SCORE_FONT.getWidth(finalScoreText) / 2;
         double finalScoreY = STATUS_Y + MESSAGE_DIFF_Y_1;
         SCORE_FONT.drawString(finalScoreText, finalScoreX, finalScoreY);
 
-        // 4) Display a prompt instructing the player to continue
+        // 5) Display a prompt instructing the player to continue
         String promptText = CONTINUE_GAME_TXT;
-        double promptX = Window.getWidth() / 2 - SCORE_FONT.getWidth(promptText) / 2;
-        double promptY = Window.getHeight() - MESSAGE_DIFF_Y_2; // Positioned near the bottom
+        double promptX = Display.getWidth() / 2 - SCORE_FONT.getWidth(promptText) / 2;
+        double promptY = Display.getHeight() - MESSAGE_DIFF_Y_2; // Positioned near the bottom
         SCORE_FONT.drawString(promptText, promptX, promptY);
-
-        // 5) Check if the player presses SPACE to exit the end screen
-        if (input.wasPressed(Keys.SPACE)) {
-            return true;
-        }
-
-        // 6) Otherwise, remain on the game end screen
-        return false;
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,351 @@
+package screens;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import objects.Mario;
+import objects.Sprite;
+import objects.SpriteAtlas;
+
+/**
+ * A translucent ghost of Mario racing the player through a level: Mario as he was, frame by frame,
+ * in the fastest clear of the level so far. The best run is kept in a file of Mario's position and
+ * pose in every frame, and a loader thread streams it into a small ring of primitive arrays ahead
+ * of the frame being played, so the game thread never reads the file and never allocates. Frames
+ * the loader has not streamed in time are skipped rather than waited for.
+ *
+ * The ghost also records the player's run into arrays sized for the longest level once, when the
+ * level starts. When the level is over, the loader thread writes the run as the new best if it
+ * cleared the level faster, replacing the old file atomically.
+ *
+ * @author Minh Triet Pham
+ */
+public class Ghost {
+    /**
+     * The first bytes of a ghost file ("SDKG")
+     */
+    private static final int MAGIC = 0x53444B47;
+
+    /**
+     * The version of the ghost file format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The number of frames the ring holds ahead of the frame played, a power of two
+     */
+    private static final int CAPACITY = 256;
+
+    /**
+     * The mask turning a frame into a position in the ring
+     */
+    private static final int MASK = CAPACITY - 1;
+
+    /**
+     * The number of frames left in the ring when the loader is woken to fill it again
+     */
+    private static final int REFILL_FRAMES = CAPACITY / 2;
+
+    /**
+     * The images of Mario in each pose, in the order of {@link #poseOf(Mario)}
+     */
+    private static final String[] POSE_IMAGES = {
+            "res/mario_right.png", "res/mario_left.png",
+            "res/mario_hammer_right.png", "res/mario_hammer_left.png",
+            "res/mario_blaster_right.png", "res/mario_blaster_left.png"
+    };
+
+    /**
+     * The level the ghost races through
+     */
+    private final int LEVEL;
+
+    /**
+     * The file of the best run of the level
+     */
+    private final File FILE;
+
+    /**
+     * The opacity the ghost is drawn with, from 0 to 1
+     */
+    private final double OPACITY;
+
+    /**
+     * The sprite of each pose
+     */
+    private final Sprite[] SPRITES = new Sprite[POSE_IMAGES.length];
+
+    /**
+     * The x-coordinate of Mario in each frame of the ring
+     */
+    private final float[] XS = new float[CAPACITY];
+
+    /**
+     * The y-coordinate of Mario in each frame of the ring
+     */
+    private final float[] YS = new float[CAPACITY];
+
+    /**
+     * The pose of Mario in each frame of the ring
+     */
+    private final byte[] POSES = new byte[CAPACITY];
+
+    /**
+     * The frame after the last one streamed into the ring; only written by the loader thread
+     */
+    private final AtomicLong HEAD = new AtomicLong();
+
+    /**
+     * The frame after the last one played; only written by the game thread
+     */
+    private final AtomicLong TAIL = new AtomicLong();
+
+    /**
+     * The x-coordinate of Mario in each frame of the player's run
+     */
+    private final float[] RUN_XS;
+
+    /**
+     * The y-coordinate of Mario in each frame of the player's run
+     */
+    private final float[] RUN_YS;
+
+    /**
+     * The pose of Mario in each frame of the player's run
+     */
+    private final byte[] RUN_POSES;
+
+    /**
+     * The thread streaming the best run and writing the player's run
+     */
+    private final Thread LOADER;
+
+    /**
+     * The number of frames of the player's run recorded; only written by the game thread
+     */
+    private int runFrames = 0;
+
+    /**
+     * The number of frames the ghost was not drawn because the loader had not streamed them in time
+     */
+    private int missedFrames = 0;
+
+    /**
+     * The number of frames of the best run, or 0 while unknown or if there is none
+     */
+    private volatile int bestFrames = 0;
+
+    /**
+     * Whether the whole best run has been streamed, or there is none
+     */
+    private volatile boolean isStreamed = false;
+
+    /**
+     * Whether the player cleared the level, set once it is over
+     */
+    private volatile boolean isCleared = false;
+
+    /**
+     * Whether the level is over, so that the loader stops streaming and writes the run if it is the best
+     */
+    private volatile boolean isOver = false;
+
+    /**
+     * Starts racing the best run of a level, streaming it from its file in the background.
+     *
+     * @param dir       The directory of the best runs
+     * @param level     The level raced through
+     * @param maxFrames The most frames the level can last, i.e. the longest run recorded
+     * @param opacity   The opacity the ghost is drawn with, from 0 to 1
+     */
+    public Ghost(String dir, int level, int maxFrames, double opacity) {
+        this.LEVEL = level;
+        this.FILE = new File(dir, "level" + level + ".ghost");
+        this.OPACITY = opacity;
+        for (int i = 0; i < SPRITES.length; i++) {
+            SPRITES[i] = SpriteAtlas.get(POSE_IMAGES[i]);
+        }
+        this.RUN_XS = new float[maxFrames + 1];
+        this.RUN_YS = new float[maxFrames + 1];
+        this.RUN_POSES = new byte[maxFrames + 1];
+        this.LOADER = new Thread(this::load, "ghost-level" + level);
+        LOADER.setDaemon(true);
+        LOADER.start();
+    }
+
+    /**
+     * Starts racing the best run of a level, configured by the game properties.
+     *
+     * @param gameProps Properties containing the directory of the best runs and the ghost's opacity
+     * @param level     The level raced through
+     */
+    public Ghost(Properties gameProps, int level) {
+        this(gameProps.getProperty("ghost.dir", "ghosts"), level,
+                Integer.parseInt(gameProps.getProperty("gamePlay.maxFrames")),
+                Double.parseDouble(gameProps.getProperty("ghost.opacity", "0.4")));
+    }
+
+    /**
+     * Records where Mario is in the player's run, then draws the ghost where Mario was at the same
+     * frame of the best run, if it has been streamed. Called once per frame by the game thread,
+     * before Mario moves and is drawn, so that the ghost is drawn behind him.
+     *
+     * @param mario      The player's Mario
+     * @param isRendered Whether the frame is drawn
+     */
+    public void update(Mario mario, boolean isRendered) {
+        // 1) Record the player's run
+        int frame = runFrames;
+        if (frame < RUN_XS.length) {
+            RUN_XS[frame] = (float) mario.getX();
+            RUN_YS[frame] = (float) mario.getY();
+            RUN_POSES[frame] = poseOf(mario);
+            runFrames++;
+        }
+
+        // 2) Play the same frame of the best run, freeing its place in the ring
+        long head = HEAD.get();
+        if (frame < head) {
+            int at = frame & MASK;
+            if (isRendered) {
+                SPRITES[POSES[at]].draw(XS[at], YS[at], OPACITY);
+            }
+        } else if (frame < bestFrames) {
+            missedFrames++;
+        }
+        TAIL.lazySet(frame + 1);
+
+        // 3) Wake the loader once the ring is half empty
+        if (!isStreamed && head - frame <= REFILL_FRAMES) {
+            LockSupport.unpark(LOADER);
+        }
+    }
+
+    /**
+     * Ends the race once the level is over. The loader thread then writes the player's run as
+     * the new best in the background if it cleared the level faster; the game thread does not wait.
+     *
+     * @param isCleared Whether the player cleared the level
+     */
+    public void finish(boolean isCleared) {
+        this.isCleared = isCleared;
+        this.isOver = true;
+        LockSupport.unpark(LOADER);
+    }
+
+    /**
+     * Gets the number of frames the ghost was not drawn because the loader had not streamed them in time
+     *
+     * @return The number of frames missed
+     */
+    public int getMissedFrames() {
+        return missedFrames;
+    }
+
+    /**
+     * Gets the pose of Mario, i.e. which of his images he is drawn with.
+     *
+     * @param mario Mario
+     * @return The index of his image in {@link #POSE_IMAGES}
+     */
+    private static byte poseOf(Mario mario) {
+        int pose = mario.holdHammer() ? 2 : mario.holdBlaster() ? 4 : 0;
+        return (byte) (mario.isFacingRight() ? pose : pose + 1);
+    }
+
+    /**
+     * Streams the best run into the ring until it is over or the level is, then writes the
+     * player's run if it is the new best. Runs on the loader thread.
+     */
+    private void load() {
+        // 1) Stream the best run, keeping the ring filled ahead of the frame played
+        if (FILE.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FILE)))) {
+                int frameCount = readHeader(in);
+                bestFrames = frameCount;
+                long head = 0;
+                while (!isOver && head < frameCount) {
+                    if (head >= TAIL.get() + CAPACITY) {
+                        LockSupport.park(this);
+                        continue;
+                    }
+                    int at = (int) head & MASK;
+                    XS[at] = in.readFloat();
+                    YS[at] = in.readFloat();
+                    POSES[at] = (byte) Math.floorMod(in.readByte(), POSE_IMAGES.length);
+                    HEAD.lazySet(++head);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to read the ghost of level " + LEVEL + ": " + e.getMessage());
+                bestFrames = 0;
+            }
+        }
+        isStreamed = true;
+
+        // 2) Once the level is over, keep the player's run if it cleared the level faster than the best run
+        while (!isOver) {
+            LockSupport.park(this);
+        }
+        if (isCleared && (bestFrames == 0 || runFrames < bestFrames)) {
+            try {
+                write();
+            } catch (IOException e) {
+                System.err.println("Failed to write the ghost of level " + LEVEL + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the header of the best run's file.
+     *
+     * @param in The file
+     * @return The number of frames of the best run
+     * @throws IOException If the file cannot be read or is not a ghost of this level
+     */
+    private int readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException(FILE + " is not a ghost");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException(FILE + " is a ghost of unsupported version " + version);
+        }
+        if (in.readInt() != LEVEL) {
+            throw new IOException(FILE + " is a ghost of another level");
+        }
+        return in.readInt();
+    }
+
+    /**
+     * Writes the player's run as the best run, to a temporary file first so that the old best
+     * run is only replaced by a complete one.
+     *
+     * @throws IOException If the file cannot be written
+     */
+    private void write() throws IOException {
+        FILE.getAbsoluteFile().getParentFile().mkdirs();
+        File temporary = new File(FILE.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(LEVEL);
+            out.writeInt(runFrames);
+            for (int frame = 0; frame < runFrames; frame++) {
+                out.writeFloat(RUN_XS[frame]);
+                out.writeFloat(RUN_YS[frame]);
+                out.writeByte(RUN_POSES[frame]);
+            }
+        }
+        Files.move(temporary.toPath(), FILE.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -1,6 +1,8 @@
 package screens;
 import bagel.*;
 import java.util.Properties;
+import objects.Display;
+import objects.GameFont;
 
 /**
  * A class representing the home screen of the game.
@@ -22,12 +24,12 @@ public class HomeScreen extends AbstractScreen {
     /**
      * The font used for the title
      */
-    private final Font TITLE_FONT;
+    private final GameFont TITLE_FONT;
 
     /**
      * The font used for the prompt
      */
-    private final Font PROMPT_FONT;
+    private final GameFont PROMPT_FONT;
 
     /**
      * The vertical position of the title
@@ -53,14 +55,14 @@ public class HomeScreen extends AbstractScreen {
         PROMPT = msgProps.getProperty("home.prompt");   // e.g., "PRESS ENTER TO START"
 
         // Load title font and its position
-        TITLE_FONT = new Font(
+        TITLE_FONT = new GameFont(
                 gameProps.getProperty("font"),
                 Integer.parseInt(gameProps.getProperty("home.title.fontSize"))
         );
         TITLE_Y = Integer.parseInt(gameProps.getProperty("home.title.y"));
 
         // Load prompt font and its position
-        PROMPT_FONT = new Font(
+        PROMPT_FONT = new GameFont(
                 gameProps.getProperty("font"),
                 Integer.parseInt(gameProps.getProperty("home.prompt.fontSize"))
         );
@@ -76,23 +78,31 @@ public class HomeScreen extends AbstractScreen {
      */
     @Override
     public boolean update(Input input) {
+        // 1) Draw the background, title and prompt
+        draw();
+
+        // 2) If ENTER is pressed, transition from the home screen to the game
+        if (input.wasPressed(Keys.ENTER)) {
+            return true;
+        }
+
+        // 3) Otherwise, remain on the home screen
+        return false;
+    }
+
+    /**
+     * Draws the home screen: the background, the title and the prompt.
+     */
+    public void draw() {
         // 1) Draw the background image at the top-left corner
         drawBackground();
 
         // 2) Draw the game title, centered horizontally
-        double titleX = Window.getWidth() / 2 - TITLE_FONT.getWidth(TITLE) / 2;
+        double titleX = Display.getWidth() / 2 - TITLE_FONT.getWidth(TITLE) / 2;
         TITLE_FONT.drawString(TITLE, titleX, TITLE_Y);
 
         // 3) Draw the prompt text (e.g., "PRESS ENTER TO START"), centered horizontally
-        double promptX = Window.getWidth() / 2 - PROMPT_FONT.getWidth(PROMPT) / 2;
+        double promptX = Display.getWidth() / 2 - PROMPT_FONT.getWidth(PROMPT) / 2;
         PROMPT_FONT.drawString(PROMPT, promptX, PROMPT_Y);
-
-        // 4) If ENTER is pressed, transition from the home screen to the game
-        if (input.wasPressed(Keys.ENTER)) {
-            return true;
-        }
-
-        // 5) Otherwise, remain on the home screen
-        return false;
     }
 }
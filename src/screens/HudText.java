@@ -0,0 +1,77 @@
+package screens;
+import objects.GameFont;
+
+/**
+ * A single line of HUD text made of a fixed label followed by a number, e.g. "SCORE 120".
+ * The text is rebuilt in a reusable buffer only when the number changes, so drawing an
+ * unchanged value every frame does not create any new strings.
+ *
+ * @author Minh Triet Pham
+ */
+public class HudText {
+    /**
+     * The font used to draw the text
+     */
+    private final GameFont FONT;
+
+    /**
+     * The x coordinate of the text
+     */
+    private final double X;
+
+    /**
+     * The y coordinate of the text
+     */
+    private final double Y;
+
+    /**
+     * The length of the fixed label at the start of the buffer
+     */
+    private final int LABEL_LENGTH;
+
+    /**
+     * The reusable buffer holding the label followed by the current value
+     */
+    private final StringBuilder buffer;
+
+    /**
+     * The value shown by the current text
+     */
+    private int value;
+
+    /**
+     * The laid out text, or null if no value has been drawn yet
+     */
+    private String text;
+
+    /**
+     * Constructs a HUD text line with a fixed label at the given position.
+     *
+     * @param font  The font used to draw the text
+     * @param label The label drawn before the value (e.g. "SCORE ")
+     * @param x     The x coordinate of the text
+     * @param y     The y coordinate of the text
+     */
+    public HudText(GameFont font, String label, double x, double y) {
+        this.FONT = font;
+        this.X = x;
+        this.Y = y;
+        this.LABEL_LENGTH = label.length();
+        this.buffer = new StringBuilder(label);
+    }
+
+    /**
+     * Draws the label and value, rebuilding the text only if the value has changed.
+     *
+     * @param value The value to display
+     */
+    public void draw(int value) {
+        if (text == null || value != this.value) {
+            buffer.setLength(LABEL_LENGTH);
+            buffer.append(value);
+            text = buffer.toString();
+            this.value = value;
+        }
+        FONT.drawString(text, X, Y);
+    }
+}
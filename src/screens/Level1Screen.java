@@ -1,12 +1,18 @@
 package screens;
 import bagel.*;
 import java.util.Properties;
+import java.util.function.Consumer;
 import objects.Mario;
 import objects.Barrel;
 import objects.Ladder;
 import objects.Platform;
 import objects.Hammer;
 import objects.Donkey;
+import objects.EntityStore;
+import objects.Controls;
+import objects.Display;
+import objects.GameFont;
+import objects.StaticOnPlatformEntity;
 
 /**
  * Represents the main gameplay screen where the player controls Mario.
@@ -14,7 +20,7 @@ import objects.Donkey;
  * 
  * @author Minh Triet Pham
  */
-public class Level1Screen extends AbstractScreen {
+public class Level1Screen extends LevelScreen {
     /**
      * The properties file containing game settings
      */
@@ -50,6 +56,16 @@ public class Level1Screen extends AbstractScreen {
      */
     private Platform[] platforms; 
 
+    /**
+     * The state of every entity of the level, whose falling entities are integrated together once per frame
+     */
+    private final EntityStore store;
+
+    /**
+     * The landing system, resting every landing entity on the platform it fell onto this frame
+     */
+    private final Consumer<StaticOnPlatformEntity> LAND_ON_PLATFORMS = entity -> entity.land(platforms);
+
     /**
      * The current frame number
      */
@@ -60,10 +76,25 @@ public class Level1Screen extends AbstractScreen {
      */
     private final int MAX_FRAMES; 
 
+    /**
+     * The timers of the level, advanced once per frame
+     */
+    private final TimerWheel timers = new TimerWheel();
+
+    /**
+     * The timer ending the level once its time limit is reached
+     */
+    private final TimerWheel.Timer timeLimitTimer;
+
+    /**
+     * Whether the level's time limit has been reached
+     */
+    private boolean isTimeUp = false;
+
     /**
      * The font used for displaying the score
      */
-    private final Font STATUS_FONT;
+    private final GameFont STATUS_FONT;
 
     /**
      * The x coordinate of the score
@@ -85,31 +116,36 @@ public class Level1Screen extends AbstractScreen {
      */
     private static final String TIME_MESSAGE = "Time Left ";
 
-    /**
-     * The score for destroying a barrel with hammer
-     */
-    private static final int BARREL_SCORE = 100;        
-
     /**
      * The vertical offset for time display
      */
     private static final int TIME_DISPLAY_DIFF_Y = 30; 
     
     /**
-     * The score for jumping over a barrel
+     * The score board that collects the scoring events of the level
      */
-    private static final int BARREL_CROSS_SCORE = 30;   
-
-    /**
-     * The player's current score
-     */
-    private int score = 0;      
+    private final ScoreBoard scoreBoard;
     
     /**
      * Indicates if the game is over
      */
     private boolean isGameOver = false;                
 
+    /**
+     * The number of barrels Mario has jumped over, tracked only while the level's events are recorded
+     */
+    private int barrelsJumped = 0;
+
+    /**
+     * Whether Mario held the hammer at the end of the last recorded frame
+     */
+    private boolean hadHammer = false;
+
+    /**
+     * Donkey Kong's health at the end of the last recorded frame, or -1 before the first
+     */
+    private int lastDonkeyHealth = -1;
+
     /**
      * The message displayed for Donkey Kong's health
      */ 
@@ -125,13 +161,24 @@ public class Level1Screen extends AbstractScreen {
      */
     private final int DONKEY_HEALTH_Y;
 
+    /**
+     * The HUD line displaying the score
+     */
+    private final HudText SCORE_TEXT;
+
+    /**
+     * The HUD line displaying the time left
+     */
+    private final HudText TIME_TEXT;
+
     /**
      * Returns the player's current score.
      *
      * @return The player's score.
      */
+    @Override
     public int getScore() {
-        return score;
+        return scoreBoard.getScore();
     }
 
     /**
@@ -151,10 +198,14 @@ public class Level1Screen extends AbstractScreen {
     public Level1Screen(Properties gameProps) {
         super(gameProps);
         this.GAME_PROPS = gameProps;
+        this.scoreBoard = new ScoreBoard();
+
+        this.store = new EntityStore();
 
         // Load game parameters
         this.MAX_FRAMES = Integer.parseInt(gameProps.getProperty("gamePlay.maxFrames"));
-        this.STATUS_FONT = new Font(
+        this.timeLimitTimer = timers.schedule(MAX_FRAMES, timer -> isTimeUp = true);
+        this.STATUS_FONT = new GameFont(
                 gameProps.getProperty("font"),
                 Integer.parseInt(gameProps.getProperty("gamePlay.score.fontSize"))
         );
@@ -166,10 +217,76 @@ public class Level1Screen extends AbstractScreen {
         this.DONKEY_HEALTH_Y = Integer.parseInt(healthCoords[0]);
         this.DONKEY_HEALTH_X = Integer.parseInt(healthCoords[1]);
 
+        // Create the HUD lines for the score and the time left
+        this.SCORE_TEXT = new HudText(STATUS_FONT, SCORE_MESSAGE, SCORE_X, SCORE_Y);
+        this.TIME_TEXT = new HudText(STATUS_FONT, TIME_MESSAGE, SCORE_X, SCORE_Y + TIME_DISPLAY_DIFF_Y);
+
+        // Without a display the level is only simulated
+        store.setHeadless(!Display.isEnabled());
+
         // Initialize game objects
         initializeGameObjects();
     }
 
+    /**
+     * Constructs a fork of a level, e.g. for a keyframe of a replay.
+     * The entity store is forked copy-on-write and the entity objects are copied as views of the
+     * fork, except the platforms, which never change and are shared, so a fork costs a small object
+     * per entity up front, then the pages of the entities it moves. Forks do not record telemetry.
+     *
+     * @param original The level to fork
+     */
+    private Level1Screen(Level1Screen original) {
+        super(original);
+        this.GAME_PROPS = original.GAME_PROPS;
+        this.MAX_FRAMES = original.MAX_FRAMES;
+        this.STATUS_FONT = original.STATUS_FONT;
+        this.SCORE_X = original.SCORE_X;
+        this.SCORE_Y = original.SCORE_Y;
+        this.DONKEY_HEALTH_X = original.DONKEY_HEALTH_X;
+        this.DONKEY_HEALTH_Y = original.DONKEY_HEALTH_Y;
+        this.SCORE_TEXT = original.SCORE_TEXT;
+        this.TIME_TEXT = original.TIME_TEXT;
+        this.scoreBoard = new ScoreBoard(original.scoreBoard);
+        this.currFrame = original.currFrame;
+        this.isGameOver = original.isGameOver;
+        this.isTimeUp = original.isTimeUp;
+
+        // 1) Fork the store, then copy each entity as a view of the same slot in the fork
+        this.store = original.store.fork();
+        this.platforms = original.platforms;
+        this.mario = new Mario(original.mario, store);
+        this.donkey = new Donkey(original.donkey, store);
+        this.hammer = original.hammer == null ? null : new Hammer(original.hammer, store);
+        this.ladders = new Ladder[original.ladders.length];
+        for (int i = 0; i < ladders.length; i++) {
+            ladders[i] = original.ladders[i] == null ? null : new Ladder(original.ladders[i], store);
+        }
+        this.barrels = new Barrel[original.barrels.length];
+        for (int i = 0; i < barrels.length; i++) {
+            barrels[i] = original.barrels[i] == null ? null : new Barrel(original.barrels[i], store);
+        }
+
+        // 2) Schedule the time limit with the ticks it has left in the original
+        if (original.timeLimitTimer.isScheduled()) {
+            long ticksLeft = original.timeLimitTimer.getExpiryTick() - original.timers.getCurrentTick();
+            this.timeLimitTimer = timers.schedule((int) ticksLeft, timer -> isTimeUp = true);
+        } else {
+            this.timeLimitTimer = original.timeLimitTimer;
+        }
+    }
+
+    /**
+     * Forks the level. The original level is not affected by anything played on the fork, and vice versa.
+     * Forking writes to the original's store, see {@link LevelScreen#fork()}.
+     *
+     * @return The fork of the level
+     */
+    @Override
+    public Level1Screen fork() {
+        return new Level1Screen(this);
+    }
+
     /**
      * Initializes game objects such as Mario, Donkey Kong, barrels, ladders, platforms, and the hammer.
      * Objects are created based on coordinates and counts specified in the properties file.
@@ -179,13 +296,13 @@ public class Level1Screen extends AbstractScreen {
         String[] marioCoords = GAME_PROPS.getProperty("mario.level1").split(",");
         double marioX = Double.parseDouble(marioCoords[0]);
         double marioY = Double.parseDouble(marioCoords[1]);
-        this.mario = new Mario(marioX, marioY);
+        this.mario = new Mario(marioX, marioY, store);
 
         // Initialize Donkey Kong at Level 1 position
         String[] donkeyCoords = GAME_PROPS.getProperty("donkey.level1").split(",");
         double donkeyX = Double.parseDouble(donkeyCoords[0]);
         double donkeyY = Double.parseDouble(donkeyCoords[1]);
-        this.donkey = new Donkey(donkeyX, donkeyY);
+        this.donkey = new Donkey(donkeyX, donkeyY, store);
 
         // Initialize barrels with positions from properties file
         int barrelCount = Integer.parseInt(GAME_PROPS.getProperty("barrel.level1.count"));
@@ -196,7 +313,7 @@ public class Level1Screen extends AbstractScreen {
                 String[] coords = barrelData.split(",");
                 double barrelX = Double.parseDouble(coords[0]);
                 double barrelY = Double.parseDouble(coords[1]);
-                barrels[i-1] = new Barrel(barrelX, barrelY);
+                barrels[i-1] = new Barrel(barrelX, barrelY, store);
             }
         }
 
@@ -209,7 +326,7 @@ public class Level1Screen extends AbstractScreen {
                 String[] coords = ladderData.split(",");
                 double ladderX = Double.parseDouble(coords[0]);
                 double ladderY = Double.parseDouble(coords[1]);
-                ladders[i-1] = new Ladder(ladderX, ladderY);
+                ladders[i-1] = new Ladder(ladderX, ladderY, store);
             }
         }
 
@@ -222,7 +339,7 @@ public class Level1Screen extends AbstractScreen {
                 String[] coords = platformEntries[i].split(",");
                 double x = Double.parseDouble(coords[0]);
                 double y = Double.parseDouble(coords[1]);
-                platforms[i] = new Platform(x, y);
+                platforms[i] = new Platform(x, y, store);
             }
         }
 
@@ -232,101 +349,153 @@ public class Level1Screen extends AbstractScreen {
             String[] hammerCoords = GAME_PROPS.getProperty("hammer.level1.1").split(",");
             double hammerX = Double.parseDouble(hammerCoords[0]);
             double hammerY = Double.parseDouble(hammerCoords[1]);
-            this.hammer = new Hammer(hammerX, hammerY);
+            this.hammer = new Hammer(hammerX, hammerY, store);
         }
     }
 
     /**
      * Updates game state each frame, handling object interactions, collision detection,
-     * scoring, and win/lose conditions.
+     * scoring, and win/lose conditions. A headless level is simulated without drawing anything.
      *
-     * @param input The current player input.
+     * @param controls The keys steering Mario this frame.
      * @return {@code true} if the game ends, {@code false} otherwise.
      */
     @Override
-    public boolean update(Input input) {
+    public boolean update(Controls controls) {
         currFrame++;
+        timers.advance();
+        boolean isRendered = !store.isHeadless();
 
         // Draw background
-        drawBackground();
-
-        // Draw all platforms
-        for (Platform platform : platforms) {
-            if (platform != null) {
-                platform.draw();
-            }
+        if (isRendered) {
+            drawBackground();
         }
 
-        // Update ladders with platform collision detection
-        for (Ladder ladder : ladders) {
-            if (ladder != null) {
-                ladder.update(platforms);
-            }
-        }
-
-        // Update barrels and check for collision with Mario
+        // Check barrels for collision with Mario where they were at the end of the last frame
         for (Barrel barrel : barrels) {
             if (barrel == null) continue;
 
             // Award points if Mario jumps over a barrel
             if (mario.jumpOver(barrel)) {
-                score += BARREL_CROSS_SCORE;
+                scoreBoard.post(ScoreEvent.BARREL_JUMPED);
+                record(TelemetryEvent.BARREL_JUMPED, currFrame, ++barrelsJumped);
             }
 
             // Handle barrel collision with Mario
             if (!barrel.isDestroyed() && mario.isTouchingBarrel(barrel)) {
                 if (!mario.holdHammer()) {
                     // Mario dies if touching barrel without hammer
-                    isGameOver = true;
+                    die(TelemetryEvent.DIED_BARREL, 0);
                 } else {
                     // Mario destroys barrel with hammer and gets points
                     barrel.destroy();
-                    score += BARREL_SCORE;
+                    scoreBoard.post(ScoreEvent.BARREL_SMASHED);
+                }
+            }
+        }
+
+        // Move every falling object, then land the ones that reached a platform: after the barrels
+        // are checked, as each barrel used to fall right after its check, and before Donkey Kong and Mario move
+        updateGravity();
+
+        // Draw the scenery: platforms, then ladders, then the barrels
+        store.draw(EntityStore.SCENERY);
+        if (isRendered) {
+            for (Barrel barrel : barrels) {
+                if (barrel != null) {
+                    barrel.draw();
                 }
             }
-            barrel.update(platforms);
         }
 
         // Check for game timeout condition
         if (checkingGameTime()) {
-            isGameOver = true;
+            die(TelemetryEvent.TIMED_OUT, 0);
         }
 
-        // Update Donkey Kong position and state
-        donkey.update(platforms);
-
         // Draw hammer and Donkey Kong
-        hammer.draw();
-        donkey.draw();
+        if (isRendered) {
+            hammer.draw();
+            donkey.draw();
+        }
 
-        // Update Mario with all game object interactions
-        mario.update(input, ladders, platforms, hammer, null, donkey, null); // Level 1 has no blasters or monkeys
+        // Draw the ghost of the best run behind Mario, then update Mario with all game object interactions
+        updateGhost(isRendered);
+        mario.update(controls, ladders, platforms, hammer, null, donkey, null); // Level 1 has no blasters or monkeys
 
         // Check win/lose condition: Mario reaches Donkey without hammer = game over
         if (mario.hasReached(donkey) && !mario.holdHammer()) {
-            isGameOver = true;
+            die(TelemetryEvent.DIED_DONKEY, 0);
+        }
+
+        // Award the time bonus when the level is cleared, then apply this frame's score events
+        if (isLevelCompleted()) {
+            scoreBoard.post(ScoreEvent.LEVEL_CLEARED, getSecondsLeft());
+        }
+        scoreBoard.tally();
+        if (isRecorded()) {
+            recordChanges();
         }
 
         // Display score, time and other game information
-        displayInfo();
+        if (isRendered) {
+            displayInfo();
+        }
 
         // Return true if game is over (either win or lose condition met)
         return isGameOver || isLevelCompleted();
     }
 
+    /**
+     * Ends the game, recording the cause the first time.
+     *
+     * @param cause The cause of the game over: the way Mario died, or the time running out
+     * @param value The number of the event recorded
+     */
+    private void die(TelemetryEvent cause, int value) {
+        if (!isGameOver) {
+            record(cause, currFrame, value);
+        }
+        isGameOver = true;
+    }
+
+    /**
+     * Records the pickups, the changes of Donkey Kong's health and the clearing of the level
+     * that happened this frame.
+     */
+    private void recordChanges() {
+        if (mario.holdHammer() && !hadHammer) {
+            record(TelemetryEvent.HAMMER_PICKED_UP, currFrame, 1);
+        }
+        hadHammer = mario.holdHammer();
+        if (donkey.getHealth() != lastDonkeyHealth) {
+            lastDonkeyHealth = donkey.getHealth();
+            record(TelemetryEvent.DONKEY_HEALTH, currFrame, lastDonkeyHealth);
+        }
+        if (isLevelCompleted()) {
+            record(TelemetryEvent.LEVEL_CLEARED, currFrame, getScore());
+        }
+    }
+
+    /**
+     * Integrates every falling entity of the level in one pass, then lands each landing entity
+     * (ladders, barrels, Donkey Kong) on the platform it reached during the frame.
+     */
+    private void updateGravity() {
+        store.integrate();
+        store.forEach(EntityStore.LANDING, LAND_ON_PLATFORMS);
+    }
+
     /**
      * Displays the player's score, time remaining, and Donkey's health on the screen.
      * Updates every frame to show current game status.
      */
     public void displayInfo() {
         // Display current score
-        STATUS_FONT.drawString(SCORE_MESSAGE + score, SCORE_X, SCORE_Y);
+        SCORE_TEXT.draw(scoreBoard.getScore());
 
         // Display time remaining in seconds
-        int secondsLeft = (MAX_FRAMES - currFrame) / 60;
-        int TIME_X = SCORE_X;
-        int TIME_Y = SCORE_Y + TIME_DISPLAY_DIFF_Y;
-        STATUS_FONT.drawString(TIME_MESSAGE + secondsLeft, TIME_X, TIME_Y);
+        TIME_TEXT.draw(getSecondsLeft());
 
         // Display Donkey Kong's health
         STATUS_FONT.drawString(DONKEY_HEALTH_MESSAGE, DONKEY_HEALTH_X, DONKEY_HEALTH_Y);
@@ -344,16 +513,55 @@ public class Level1Screen extends AbstractScreen {
     }
 
     /**
-     * Checks if the game has reached its time limit by comparing the current frame count
-     * against the maximum allowed frames. If the limit is reached, the game may trigger
-     * a timeout condition.
+     * Makes the level simulated without drawing anything, or drawn again.
+     *
+     * @param headless Whether the level is simulated without drawing anything.
+     */
+    @Override
+    public void setHeadless(boolean headless) {
+        store.setHeadless(headless);
+    }
+
+    /**
+     * Gets Mario.
+     *
+     * @return The Mario of the level.
+     */
+    @Override
+    public Mario getMario() {
+        return mario;
+    }
+
+    /**
+     * Gets the number of the level.
+     *
+     * @return 1
+     */
+    @Override
+    public int getLevel() {
+        return 1;
+    }
+
+    /**
+     * Checks whether the level has been won, by reaching Donkey Kong with the hammer.
      *
-     * @return {@code true} if the current frame count has reached or exceeded
-     *         the maximum allowed frames, indicating the time limit has been reached;
-     *         {@code false} otherwise.
+     * @return {@code true} if the level is completed, {@code false} otherwise.
+     */
+    @Override
+    public boolean isWon() {
+        return isLevelCompleted();
+    }
+
+    /**
+     * Checks if the game has reached its time limit. The limit is a timer scheduled
+     * for the maximum number of frames when the level is created. If the limit is reached,
+     * the game may trigger a timeout condition.
+     *
+     * @return {@code true} if the time limit timer has expired, indicating the time
+     *         limit has been reached; {@code false} otherwise.
      */
     public boolean checkingGameTime() {
-        return currFrame >= MAX_FRAMES;
+        return isTimeUp;
     }
 
     /**
@@ -362,6 +570,7 @@ public class Level1Screen extends AbstractScreen {
      *
      * @return {@code true} if game over is caused by timeout, {@code false} otherwise.
      */
+    @Override
     public boolean isTimeOut() {
         return checkingGameTime();
     }
@@ -3,19 +3,25 @@ import bagel.*;
 import java.util.Properties;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
 import objects.Mario;
 import objects.Barrel;
 import objects.Ladder;
 import objects.Platform;
+import objects.PlatformIndex;
 import objects.Hammer;
 import objects.Donkey;
+import objects.EntityStore;
+import objects.StaticOnPlatformEntity;
 import objects.Blaster;
 import objects.NormalMonkey;
 import objects.IntelligentMonkey;
 import objects.Banana;
 import objects.Physics;
+import objects.Controls;
+import objects.Display;
+import objects.GameFont;
 
 /**
  * Level2Screen handles the game logic for the second level of the Donkey Kong game.
@@ -24,7 +30,7 @@ import objects.Physics;
  * 
  * @author Minh Triet Pham 
  */
-public class Level2Screen extends AbstractScreen {
+public class Level2Screen extends LevelScreen {
     /**
      * The properties for the game
      */
@@ -60,6 +66,21 @@ public class Level2Screen extends AbstractScreen {
      */
     private Platform[] platforms;
 
+    /**
+     * The state of every entity of the level, whose falling entities are integrated together once per frame
+     */
+    private final EntityStore store;
+
+    /**
+     * The landing system, resting every landing entity on the platform it fell onto this frame
+     */
+    private final Consumer<StaticOnPlatformEntity> LAND_ON_PLATFORMS = entity -> entity.land(platforms);
+
+    /**
+     * The patrol landing system, starting the patrol of every monkey that landed on a platform this frame
+     */
+    private final Consumer<NormalMonkey> LAND_PATROLLERS = NormalMonkey::land;
+
     /**
      * The array of blasters in the game
      */
@@ -75,21 +96,46 @@ public class Level2Screen extends AbstractScreen {
      */
     private IntelligentMonkey[] intelligentMonkeys;
 
+    /**
+     * Every monkey of the level, normal and intelligent, combined once for Mario's bullets
+     */
+    private NormalMonkey[] allMonkeys;
+
     /**
      * The list of active bananas in the game - to track the bananas that are currently active
      */
     private List<Banana> activeBananas;
 
     /**
-     * The map of intelligent monkeys and their shooting cooldowns
+     * The timers of the level (time limit and banana throws), advanced once per frame
      */
-    private Map<IntelligentMonkey, Integer> monkeyShootCooldowns;
+    private final TimerWheel timers = new TimerWheel();
+
+    /**
+     * The timer of the level's time limit
+     */
+    private TimerWheel.Timer timeLimitTimer;
+
+    /**
+     * The banana timer of each intelligent monkey
+     */
+    private TimerWheel.Timer[] bananaTimers;
+
+    /**
+     * Whether the level's time limit has been reached
+     */
+    private boolean isTimeUp = false;
 
     /**
      * The interval between banana shots
      */
     private static final int BANANA_SHOOT_INTERVAL = Physics.BANANA_SHOOT_INTERVAL; // 5 seconds at 60fps
 
+    /**
+     * The range of the random offset used to stagger the first banana of each monkey
+     */
+    private static final int BANANA_SHOOT_STAGGER = 60;
+
     /**
      * The current frame - starts at 0, this is used to track the time that has passed
      */
@@ -103,7 +149,7 @@ public class Level2Screen extends AbstractScreen {
     /**
      * The font for the status text
      */
-    private final Font STATUS_FONT;
+    private final GameFont STATUS_FONT;
 
     /**
      * The x coordinate of the score
@@ -131,39 +177,49 @@ public class Level2Screen extends AbstractScreen {
     private static final String DONKEY_HEALTH_MESSAGE = "DONKEY HEALTH ";
 
     /**
-     * The score for destroying a barrel
+     * The y coordinate difference for the time display
      */
-    private static final int BARREL_SCORE = 100;
+    private static final int TIME_DISPLAY_DIFF_Y = 30;
 
     /**
-     * The score for destroying a monkey 
+     * The y coordinate difference for the bullet display
      */
-    private static final int MONKEY_SCORE = 100 ;
+    private static final int BULLET_DISPLAY_DIFF_Y = 30;
 
     /**
-     * The y coordinate difference for the time display
+     * The score board that collects the scoring events of the level
      */
-    private static final int TIME_DISPLAY_DIFF_Y = 30;
+    private final ScoreBoard scoreBoard;
 
     /**
-     * The score for jumping over a barrel
+     * Whether the game is over
      */
-    private static final int BARREL_CROSS_SCORE = 30;
+    private boolean isGameOver = false;
 
     /**
-     * The y coordinate difference for the bullet display
+     * The number of barrels Mario has jumped over, tracked only while the level's events are recorded
      */
-    private static final int BULLET_DISPLAY_DIFF_Y = 30;
+    private int barrelsJumped = 0;
 
     /**
-     * The current score for the game
+     * Whether Mario held the hammer at the end of the last recorded frame
      */
-    private int score = 0;
+    private boolean hadHammer = false;
 
     /**
-     * Whether the game is over
+     * Mario's bullet count at the end of the last recorded frame
      */
-    private boolean isGameOver = false;
+    private int lastBulletCount = 0;
+
+    /**
+     * Donkey Kong's health at the end of the last recorded frame, or -1 before the first
+     */
+    private int lastDonkeyHealth = -1;
+
+    /**
+     * Whether Donkey Kong has been beaten, by reaching him with the hammer or shooting him down
+     */
+    private boolean isLevelCleared = false;
 
     /**
      * The x coordinate of the Donkey's health message
@@ -191,9 +247,24 @@ public class Level2Screen extends AbstractScreen {
     private final int BULLET_Y;
 
     /**
-     * The list of monkeys that have already been counted for score
+     * The HUD line displaying the score
+     */
+    private final HudText SCORE_TEXT;
+
+    /**
+     * The HUD line displaying the time left
      */
-    private final List<NormalMonkey> monkeyDeathCounted = new ArrayList<>();
+    private final HudText TIME_TEXT;
+
+    /**
+     * The HUD line displaying the Donkey's health
+     */
+    private final HudText DONKEY_HEALTH_TEXT;
+
+    /**
+     * The HUD line displaying Mario's bullet count
+     */
+    private final HudText BULLET_TEXT;
 
     /**
      * Constructor for Level2Screen
@@ -202,12 +273,27 @@ public class Level2Screen extends AbstractScreen {
      * @param gameProps Properties containing game configuration data
      */
     public Level2Screen(Properties gameProps) {
+        this(gameProps, Math::random);
+    }
+
+    /**
+     * Constructor for Level2Screen with its own source of randomness, so that a simulated game
+     * can be replayed from its seed.
+     *
+     * @param gameProps Properties containing game configuration data
+     * @param random    The random numbers in [0, 1) of the level (e.g. the first banana of each monkey)
+     */
+    public Level2Screen(Properties gameProps, DoubleSupplier random) {
         super(gameProps);
         this.GAME_PROPS = gameProps;
+        this.scoreBoard = new ScoreBoard();
+
+        this.store = new EntityStore();
+        this.store.setHeadless(!Display.isEnabled());
 
         // Load game parameters
         this.MAX_FRAMES = Integer.parseInt(gameProps.getProperty("gamePlay.maxFrames"));
-        this.STATUS_FONT = new Font(
+        this.STATUS_FONT = new GameFont(
                 gameProps.getProperty("font"),
                 Integer.parseInt(gameProps.getProperty("gamePlay.score.fontSize"))
         );
@@ -223,12 +309,135 @@ public class Level2Screen extends AbstractScreen {
         this.BULLET_X = this.DONKEY_HEALTH_X;
         this.BULLET_Y = this.DONKEY_HEALTH_Y + BULLET_DISPLAY_DIFF_Y;
 
-        // Initialize active bananas list and cooldown map
+        // Create the HUD lines, which only rebuild their text when the shown value changes
+        this.SCORE_TEXT = new HudText(STATUS_FONT, SCORE_MESSAGE, SCORE_X, SCORE_Y);
+        this.TIME_TEXT = new HudText(STATUS_FONT, TIME_MESSAGE, SCORE_X, SCORE_Y + TIME_DISPLAY_DIFF_Y);
+        this.DONKEY_HEALTH_TEXT = new HudText(STATUS_FONT, DONKEY_HEALTH_MESSAGE,
+                DONKEY_HEALTH_X, DONKEY_HEALTH_Y);
+        this.BULLET_TEXT = new HudText(STATUS_FONT, BULLET_MESSAGE, BULLET_X, BULLET_Y);
+
+        // Initialize active bananas list
         this.activeBananas = new ArrayList<>();
-        this.monkeyShootCooldowns = new HashMap<>();
 
         // Initialize game objects
         initializeGameObjects();
+
+        // Schedule the time limit and the first banana of each intelligent monkey
+        this.timeLimitTimer = timers.schedule(MAX_FRAMES, timer -> isTimeUp = true);
+        this.bananaTimers = new TimerWheel.Timer[intelligentMonkeys.length];
+        for (int i = 0; i < intelligentMonkeys.length; i++) {
+            IntelligentMonkey monkey = intelligentMonkeys[i];
+            // Stagger the first shot by a random offset of 0-60 frames
+            int firstShotDelay = BANANA_SHOOT_INTERVAL - (int) (random.getAsDouble() * BANANA_SHOOT_STAGGER);
+            bananaTimers[i] = timers.schedule(firstShotDelay, timer -> throwBanana(monkey, timer));
+        }
+    }
+
+    /**
+     * Constructs a fork of a level, for lookahead search over inputs.
+     * The entity store is forked copy-on-write, so the fork shares every page of entity state with
+     * the original until one of them changes it. The entity objects are light views over the store;
+     * they are copied, except the platforms, which never change and are shared. A fork therefore
+     * costs a small object per entity up front, then the pages of the entities it moves
+     * ({@code ForkBenchmark} measures both).
+     *
+     * @param original The level to fork
+     */
+    private Level2Screen(Level2Screen original) {
+        super(original);
+        this.GAME_PROPS = original.GAME_PROPS;
+        this.MAX_FRAMES = original.MAX_FRAMES;
+        this.STATUS_FONT = original.STATUS_FONT;
+        this.SCORE_X = original.SCORE_X;
+        this.SCORE_Y = original.SCORE_Y;
+        this.DONKEY_HEALTH_X = original.DONKEY_HEALTH_X;
+        this.DONKEY_HEALTH_Y = original.DONKEY_HEALTH_Y;
+        this.BULLET_X = original.BULLET_X;
+        this.BULLET_Y = original.BULLET_Y;
+        this.SCORE_TEXT = original.SCORE_TEXT;
+        this.TIME_TEXT = original.TIME_TEXT;
+        this.DONKEY_HEALTH_TEXT = original.DONKEY_HEALTH_TEXT;
+        this.BULLET_TEXT = original.BULLET_TEXT;
+        this.scoreBoard = new ScoreBoard(original.scoreBoard);
+        this.currFrame = original.currFrame;
+        this.isGameOver = original.isGameOver;
+        this.isLevelCleared = original.isLevelCleared;
+        this.isTimeUp = original.isTimeUp;
+
+        // 1) Fork the store, then copy each entity as a view of the same slot in the fork
+        this.store = original.store.fork();
+        this.platforms = original.platforms;
+        this.mario = new Mario(original.mario, store);
+        this.donkey = new Donkey(original.donkey, store);
+        this.hammer = original.hammer == null ? null : new Hammer(original.hammer, store);
+        this.ladders = new Ladder[original.ladders.length];
+        for (int i = 0; i < ladders.length; i++) {
+            ladders[i] = new Ladder(original.ladders[i], store);
+        }
+        this.barrels = new Barrel[original.barrels.length];
+        for (int i = 0; i < barrels.length; i++) {
+            barrels[i] = new Barrel(original.barrels[i], store);
+        }
+        this.blasters = new Blaster[original.blasters.length];
+        for (int i = 0; i < blasters.length; i++) {
+            blasters[i] = new Blaster(original.blasters[i], store);
+        }
+        this.normalMonkeys = new NormalMonkey[original.normalMonkeys.length];
+        for (int i = 0; i < normalMonkeys.length; i++) {
+            normalMonkeys[i] = new NormalMonkey(original.normalMonkeys[i], store);
+        }
+        this.intelligentMonkeys = new IntelligentMonkey[original.intelligentMonkeys.length];
+        for (int i = 0; i < intelligentMonkeys.length; i++) {
+            intelligentMonkeys[i] = new IntelligentMonkey(original.intelligentMonkeys[i], store);
+        }
+        this.allMonkeys = combineMonkeys(normalMonkeys, intelligentMonkeys);
+        this.activeBananas = new ArrayList<>(original.activeBananas.size());
+        for (Banana banana : original.activeBananas) {
+            activeBananas.add(new Banana(banana, store));
+        }
+
+        // 2) Schedule the timers still waiting in the original, with the ticks they have left
+        long now = original.timers.getCurrentTick();
+        if (original.timeLimitTimer.isScheduled()) {
+            this.timeLimitTimer = timers.schedule((int) (original.timeLimitTimer.getExpiryTick() - now),
+                    timer -> isTimeUp = true);
+        } else {
+            this.timeLimitTimer = original.timeLimitTimer;
+        }
+        this.bananaTimers = new TimerWheel.Timer[intelligentMonkeys.length];
+        for (int i = 0; i < intelligentMonkeys.length; i++) {
+            IntelligentMonkey monkey = intelligentMonkeys[i];
+            TimerWheel.Timer bananaTimer = original.bananaTimers[i];
+            if (bananaTimer.isScheduled()) {
+                bananaTimers[i] = timers.schedule((int) (bananaTimer.getExpiryTick() - now),
+                        timer -> throwBanana(monkey, timer));
+            } else {
+                bananaTimers[i] = bananaTimer;
+            }
+        }
+    }
+
+    /**
+     * Forks the level, so that a search can play a branch of inputs on the fork and discard it.
+     * The original level is not affected by anything played on the fork, and vice versa.
+     * Forking writes to the original's store, see {@link LevelScreen#fork()}.
+     *
+     * @return The fork of the level
+     */
+    @Override
+    public Level2Screen fork() {
+        return new Level2Screen(this);
+    }
+
+    /**
+     * Makes the level simulated without drawing anything, e.g. for the forks played by a search.
+     * A fork of a headless level is headless too.
+     *
+     * @param headless Whether the level is simulated without drawing anything
+     */
+    @Override
+    public void setHeadless(boolean headless) {
+        store.setHeadless(headless);
     }
 
     /**
@@ -241,13 +450,13 @@ public class Level2Screen extends AbstractScreen {
         String[] marioCoords = GAME_PROPS.getProperty("mario.level2").split(",");
         double marioX = Double.parseDouble(marioCoords[0]);
         double marioY = Double.parseDouble(marioCoords[1]);
-        this.mario = new Mario(marioX, marioY);
+        this.mario = new Mario(marioX, marioY, store);
 
         // 2) Create Donkey Kong
         String[] donkeyCoords = GAME_PROPS.getProperty("donkey.level2").split(",");
         double donkeyX = Double.parseDouble(donkeyCoords[0]);
         double donkeyY = Double.parseDouble(donkeyCoords[1]);
-        this.donkey = new Donkey(donkeyX, donkeyY);
+        this.donkey = new Donkey(donkeyX, donkeyY, store);
 
         // 3) Create Platforms
         String platformData = GAME_PROPS.getProperty("platforms.level2");
@@ -256,16 +465,18 @@ public class Level2Screen extends AbstractScreen {
         for (int i = 0; i < platformEntries.length; i++) {
             String[] coords = platformEntries[i].split(",");
             platforms[i] = new Platform(Double.parseDouble(coords[0]),
-                    Double.parseDouble(coords[1]));
+                    Double.parseDouble(coords[1]), store);
         }
 
+        PlatformIndex platformIndex = new PlatformIndex(platforms);
+
         // 4) Create Ladders
         int ladderCount = Integer.parseInt(GAME_PROPS.getProperty("ladder.level2.count"));
         this.ladders = new Ladder[ladderCount];
         for (int i = 1; i <= ladderCount; i++) {
             String[] coords = GAME_PROPS.getProperty("ladder.level2." + i).split(",");
             ladders[i-1] = new Ladder(Double.parseDouble(coords[0]),
-                    Double.parseDouble(coords[1]));
+                    Double.parseDouble(coords[1]), store);
         }
 
         // 5) Create Barrels
@@ -274,7 +485,7 @@ public class Level2Screen extends AbstractScreen {
         for (int i = 1; i <= barrelCount; i++) {
             String[] coords = GAME_PROPS.getProperty("barrel.level2." + i).split(",");
             barrels[i-1] = new Barrel(Double.parseDouble(coords[0]),
-                    Double.parseDouble(coords[1]));
+                    Double.parseDouble(coords[1]), store);
         }
 
         // 6) Create Hammer
@@ -282,7 +493,7 @@ public class Level2Screen extends AbstractScreen {
         if (hammerCount > 0) {
             String[] hammerCoords = GAME_PROPS.getProperty("hammer.level2.1").split(",");
             this.hammer = new Hammer(Double.parseDouble(hammerCoords[0]),
-                    Double.parseDouble(hammerCoords[1]));
+                    Double.parseDouble(hammerCoords[1]), store);
         }
 
         // 7) Create Blasters
@@ -291,7 +502,7 @@ public class Level2Screen extends AbstractScreen {
         for (int i = 1; i <= blasterCount; i++) {
             String[] coords = GAME_PROPS.getProperty("blaster.level2." + i).split(",");
             blasters[i-1] = new Blaster(Double.parseDouble(coords[0]),
-                    Double.parseDouble(coords[1]));
+                    Double.parseDouble(coords[1]), store);
         }
 
         // 8) Create Normal Monkeys
@@ -308,7 +519,7 @@ public class Level2Screen extends AbstractScreen {
             }
             normalMonkeys[i-1] = new NormalMonkey(Double.parseDouble(coords[0]),
                     Double.parseDouble(coords[1]),
-                    facingRight, route, platforms);
+                    facingRight, route, platformIndex, i - 1, store);
         }
 
         // 9) Create Intelligent Monkeys
@@ -325,8 +536,11 @@ public class Level2Screen extends AbstractScreen {
             }
             intelligentMonkeys[i-1] = new IntelligentMonkey(Double.parseDouble(coords[0]),
                     Double.parseDouble(coords[1]),
-                    facingRight, route, platforms);
+                    facingRight, route, platformIndex, normalMonkeyCount + i - 1, store);
         }
+
+        // 10) Combine every monkey once, so no array is allocated for Mario's update every frame
+        this.allMonkeys = combineMonkeys(normalMonkeys, intelligentMonkeys);
     }
 
     /**
@@ -334,66 +548,66 @@ public class Level2Screen extends AbstractScreen {
      * Donkey's health, and bullet count
      */
     public void displayInfo() {
-        STATUS_FONT.drawString(SCORE_MESSAGE + score, SCORE_X, SCORE_Y);
-
-        // Calculate the time left
-        int secondsLeft = (MAX_FRAMES - currFrame) / 60;
+        SCORE_TEXT.draw(scoreBoard.getScore());
 
         // Display the time left
-        int TIME_X = SCORE_X;
-        int TIME_Y = SCORE_Y + TIME_DISPLAY_DIFF_Y;
-        STATUS_FONT.drawString(TIME_MESSAGE + secondsLeft, TIME_X, TIME_Y);
+        TIME_TEXT.draw(getSecondsLeft());
 
         // Display Donkey's current health
-        STATUS_FONT.drawString(DONKEY_HEALTH_MESSAGE + donkey.getHealth(),
-                DONKEY_HEALTH_X, DONKEY_HEALTH_Y);
+        DONKEY_HEALTH_TEXT.draw(donkey.getHealth());
 
         // Display Mario's bullet count
-        int bulletCount = mario.getBulletCount();
-        STATUS_FONT.drawString(BULLET_MESSAGE + bulletCount, BULLET_X, BULLET_Y);
+        BULLET_TEXT.draw(mario.getBulletCount());
     }
 
     /**
-     * Main update method that runs every frame
-     * Updates all game objects, handles collisions, and checks win/lose conditions
+     * Updates all game objects, handles collisions, and checks win/lose conditions for one frame.
+     * A headless level is simulated without drawing anything.
      *
-     * @param input User input from keyboard
+     * @param controls The keys steering Mario this frame (the player's keyboard or a bot)
      * @return true if level is completed or game is over, false if level continues
      */
     @Override
-    public boolean update(Input input) {
+    public boolean update(Controls controls) {
         currFrame++;
+        boolean isRendered = !store.isHeadless();
 
         // Draw background
-        drawBackground();
-
-        // Draw platforms
-        for (Platform platform : platforms) {
-            platform.draw();
-        }
-
-        // Update ladders
-        for (Ladder ladder : ladders) {
-            ladder.update(platforms);
+        if (isRendered) {
+            drawBackground();
         }
 
-        // Update barrels and check collisions
+        // Check barrels for collision with Mario where they were at the end of the last frame
         for (Barrel barrel : barrels) {
             if (barrel == null) continue;
 
             if (mario.jumpOver(barrel)) {
-                score += BARREL_CROSS_SCORE;
+                scoreBoard.post(ScoreEvent.BARREL_JUMPED);
+                record(TelemetryEvent.BARREL_JUMPED, currFrame, ++barrelsJumped);
             }
 
             if (!barrel.isDestroyed() && mario.isTouchingBarrel(barrel)) {
                 if (!mario.holdHammer()) {
-                    isGameOver = true;
+                    die(TelemetryEvent.DIED_BARREL, 0);
                 } else {
                     barrel.destroy();
-                    score += BARREL_SCORE;
+                    scoreBoard.post(ScoreEvent.BARREL_SMASHED);
+                }
+            }
+        }
+
+        // Move every falling object, then land the ones that reached a platform: after the barrels
+        // are checked, as each barrel used to fall right after its check, and before the monkeys, Donkey Kong and Mario move
+        updateGravity();
+
+        // Draw the scenery: platforms, then ladders, then the barrels
+        store.draw(EntityStore.SCENERY);
+        if (isRendered) {
+            for (Barrel barrel : barrels) {
+                if (barrel != null) {
+                    barrel.draw();
                 }
             }
-            barrel.update(platforms);
         }
 
         // Update normal monkeys
@@ -403,49 +617,36 @@ public class Level2Screen extends AbstractScreen {
                 // Check collision with Mario
                 if (mario.getBoundingBox().intersects(monkey.getBoundingBox())) {
                     if (!mario.holdHammer()) {
-                        isGameOver = true;
+                        die(TelemetryEvent.DIED_MONKEY, monkey.getId());
                     } else {
                         monkey.hit();
-                        score += MONKEY_SCORE;
-                        // Add to death counted list to prevent duplicate score
-                        monkeyDeathCounted.add(monkey);
+                        scoreBoard.postOnce(ScoreEvent.MONKEY_KILLED, monkey.getId());
                     }
                 }
             }
         }
 
-        // Update intelligent monkeys and handle banana shooting
+        // Update intelligent monkeys
         for (IntelligentMonkey monkey : intelligentMonkeys) {
             if (monkey != null && monkey.isAlive()) {
                 // Update the monkey movement
                 monkey.update();
+            }
+        }
 
-                // Check if we need to initialize cooldown for this monkey
-                if (!monkeyShootCooldowns.containsKey(monkey)) {
-                    // Initialize with a random offset between 0-60 frames to stagger shots
-                    monkeyShootCooldowns.put(monkey, (int)(Math.random() * 60));
-                }
-
-                // Update cooldown and shoot banana if needed
-                int cooldown = monkeyShootCooldowns.get(monkey);
-                cooldown++;
-                if (cooldown >= BANANA_SHOOT_INTERVAL) {
-                    // Create and add a new banana
-                    Banana newBanana = new Banana(monkey.getX(), monkey.getY(), monkey.isFacingRight());
-                    activeBananas.add(newBanana);
-                    cooldown = 0;
-                }
-                monkeyShootCooldowns.put(monkey, cooldown);
+        // Fire the timers due this frame, throwing bananas from the monkeys' new positions
+        timers.advance();
 
+        // Check collisions between Mario and the intelligent monkeys
+        for (IntelligentMonkey monkey : intelligentMonkeys) {
+            if (monkey != null && monkey.isAlive()) {
                 // Check collision with Mario
                 if (mario.getBoundingBox().intersects(monkey.getBoundingBox())) {
                     if (!mario.holdHammer()) {
-                        isGameOver = true;
+                        die(TelemetryEvent.DIED_MONKEY, monkey.getId());
                     } else {
                         monkey.hit();
-                        score += MONKEY_SCORE;
-                        // Add to death counted list to prevent duplicate score
-                        monkeyDeathCounted.add(monkey);
+                        scoreBoard.postOnce(ScoreEvent.MONKEY_KILLED, monkey.getId());
                     }
                 }
             }
@@ -461,80 +662,154 @@ public class Level2Screen extends AbstractScreen {
                 continue;
             }
 
-            // Check collision with Mario
-            if (mario.getBoundingBox().intersects(banana.getBoundingBox())) {
+            // Check collision with Mario, including a banana that passed through him this frame
+            if (banana.isCollidingWithMario(mario)) {
                 // Regardless of hammer status, Mario dies when touching a banana
-                isGameOver = true;
+                die(TelemetryEvent.DIED_BANANA, 0);
                 break;
             }
         }
 
-        // Remove bananas that are no longer active
+        // Remove bananas that are no longer active, freeing their slots in the store
         activeBananas.removeAll(bananasToRemove);
+        for (Banana banana : bananasToRemove) {
+            banana.release();
+        }
 
         // Draw blasters
         for (Blaster blaster : blasters) {
-            if (blaster != null && !blaster.isCollected()) {
+            if (isRendered && blaster != null && !blaster.isCollected()) {
                 blaster.draw();
             }
         }
 
         // Check game conditions
         if (checkingGameTime()) {
-            isGameOver = true;
+            die(TelemetryEvent.TIMED_OUT, 0);
         }
 
         // Update remaining objects
-        donkey.update(platforms);
-        hammer.draw();
+        if (isRendered) {
+            donkey.draw();
+            hammer.draw();
+        }
 
-        // Update Mario with all Level 2 objects
-        mario.update(input, ladders, platforms, hammer, blasters, donkey,
-                combineMonkeys(normalMonkeys, intelligentMonkeys));
+        // Draw the ghost of the best run behind Mario, then update Mario with all Level 2 objects
+        updateGhost(isRendered);
+        mario.update(controls, ladders, platforms, hammer, blasters, donkey, allMonkeys);
 
-        // Check for monkeys killed by bullets (not by hammer)
+        // Score monkeys killed by bullets, the board ignores monkeys already scored by the hammer
         for (NormalMonkey monkey : normalMonkeys) {
-            if (monkey != null && !monkey.isAlive() && !monkeyDeathCounted.contains(monkey)) {
-                // This monkey was killed by a bullet, not by hammer collision
-                score += MONKEY_SCORE;
-                monkeyDeathCounted.add(monkey);
+            if (monkey != null && !monkey.isAlive()) {
+                scoreBoard.postOnce(ScoreEvent.MONKEY_KILLED, monkey.getId());
             }
         }
-
-        // Check intelligent monkeys killed by bullets (not by hammer)
         for (IntelligentMonkey monkey : intelligentMonkeys) {
-            if (monkey != null && !monkey.isAlive() && !monkeyDeathCounted.contains(monkey)) {
-                // This monkey was killed by a bullet, not by hammer collision
-                score += MONKEY_SCORE;
-                monkeyDeathCounted.add(monkey);
+            if (monkey != null && !monkey.isAlive()) {
+                scoreBoard.postOnce(ScoreEvent.MONKEY_KILLED, monkey.getId());
             }
         }
 
         // Check win/lose conditions
         if (mario.hasReached(donkey)) {
             if (mario.holdHammer()) {
-                return true; // Win condition 1: Reaching Donkey with hammer
+                isLevelCleared = true; // Win condition 1: Reaching Donkey with hammer
             } else {
-                isGameOver = true;
+                die(TelemetryEvent.DIED_DONKEY, 0);
             }
         }
 
         // Win condition 2: Killing Donkey with bullets
         if (!donkey.isAlive()) {
-            return true; // Win if Donkey is dead
+            isLevelCleared = true; // Win if Donkey is dead
         }
 
-        displayInfo();
+        // Award the time bonus for a win, then apply this frame's score events
+        if (isLevelCleared && !isGameOver) {
+            scoreBoard.post(ScoreEvent.LEVEL_CLEARED, getSecondsLeft());
+        }
+        scoreBoard.tally();
+        if (isRecorded()) {
+            recordChanges();
+        }
+        if (isLevelCleared) {
+            return true;
+        }
+
+        if (isRendered) {
+            displayInfo();
+        }
         return isGameOver;
     }
 
+    /**
+     * Ends the game, recording the cause the first time.
+     *
+     * @param cause The cause of the game over: the way Mario died, or the time running out
+     * @param value The number of the event recorded
+     */
+    private void die(TelemetryEvent cause, int value) {
+        if (!isGameOver) {
+            record(cause, currFrame, value);
+        }
+        isGameOver = true;
+    }
+
+    /**
+     * Records the pickups, the changes of Donkey Kong's health and the clearing of the level
+     * that happened this frame.
+     */
+    private void recordChanges() {
+        if (mario.holdHammer() && !hadHammer) {
+            record(TelemetryEvent.HAMMER_PICKED_UP, currFrame, 1);
+        }
+        hadHammer = mario.holdHammer();
+        if (mario.getBulletCount() > lastBulletCount) {
+            record(TelemetryEvent.BLASTER_PICKED_UP, currFrame, mario.getBulletCount());
+        }
+        lastBulletCount = mario.getBulletCount();
+        if (donkey.getHealth() != lastDonkeyHealth) {
+            lastDonkeyHealth = donkey.getHealth();
+            record(TelemetryEvent.DONKEY_HEALTH, currFrame, lastDonkeyHealth);
+        }
+        if (isLevelCleared && !isGameOver) {
+            record(TelemetryEvent.LEVEL_CLEARED, currFrame, getScore());
+        }
+    }
+
+    /**
+     * Integrates every falling entity of the level in one pass, then lands each landing entity
+     * (ladders, barrels, Donkey Kong) on the platform it reached during the frame and starts
+     * the patrol of each monkey that landed.
+     */
+    private void updateGravity() {
+        store.integrate();
+        store.forEach(EntityStore.LANDING, LAND_ON_PLATFORMS);
+        store.forEach(EntityStore.PATROL, LAND_PATROLLERS);
+    }
+
+    /**
+     * Throws a banana from an intelligent monkey and schedules its next throw.
+     * Dead monkeys stop throwing, so their timer is not rescheduled.
+     *
+     * @param monkey The monkey throwing the banana
+     * @param timer  The monkey's banana timer
+     */
+    private void throwBanana(IntelligentMonkey monkey, TimerWheel.Timer timer) {
+        if (!monkey.isAlive()) {
+            return;
+        }
+        activeBananas.add(new Banana(monkey.getX(), monkey.getY(), monkey.isFacingRight(), store));
+        timers.reschedule(timer, BANANA_SHOOT_INTERVAL);
+    }
+
     /**
      * Checks if the game time has run out
      *
-     * @return true if maximum frames have been exceeded, false otherwise
+     * @return true if the time limit timer has expired, false otherwise
      */
     private boolean checkingGameTime() {
-        return currFrame >= MAX_FRAMES;
+        return isTimeUp;
     }
 
     /**
@@ -557,8 +832,9 @@ public class Level2Screen extends AbstractScreen {
      *
      * @return Current score value
      */
+    @Override
     public int getScore() {
-        return score;
+        return scoreBoard.getScore();
     }
 
     /**
@@ -567,7 +843,7 @@ public class Level2Screen extends AbstractScreen {
      * @param initialScore The score carried over from Level 1.
      */
     public void setScore(int initialScore) {
-        this.score = initialScore;
+        scoreBoard.setScore(initialScore);
     }
 
     /**
@@ -579,6 +855,26 @@ public class Level2Screen extends AbstractScreen {
         return isGameOver;
     }
 
+    /**
+     * Gets the number of the level.
+     *
+     * @return 2
+     */
+    @Override
+    public int getLevel() {
+        return 2;
+    }
+
+    /**
+     * Checks whether the level has been won, by reaching Donkey Kong with the hammer or shooting him down
+     *
+     * @return true if the level is completed, false otherwise
+     */
+    @Override
+    public boolean isWon() {
+        return isLevelCleared && !isGameOver;
+    }
+
     /**
      * Calculates the remaining time left in seconds.
      *
@@ -588,11 +884,58 @@ public class Level2Screen extends AbstractScreen {
         return (MAX_FRAMES - currFrame) / 60;
     }
 
+    /**
+     * Gets Mario
+     *
+     * @return The Mario of the level
+     */
+    @Override
+    public Mario getMario() {
+        return mario;
+    }
+
+    /**
+     * Gets Donkey Kong
+     *
+     * @return The Donkey Kong of the level
+     */
+    public Donkey getDonkey() {
+        return donkey;
+    }
+
+    /**
+     * Gets the hammer
+     *
+     * @return The hammer of the level
+     */
+    public Hammer getHammer() {
+        return hammer;
+    }
+
+    /**
+     * Gets the blasters
+     *
+     * @return The blasters of the level
+     */
+    public Blaster[] getBlasters() {
+        return blasters;
+    }
+
+    /**
+     * Gets the ladders
+     *
+     * @return The ladders of the level
+     */
+    public Ladder[] getLadders() {
+        return ladders;
+    }
+
     /**
      * Checks if the game over is due to timeout rather than player death.
      *
      * @return {@code true} if game over is caused by timeout, {@code false} otherwise.
      */
+    @Override
     public boolean isTimeOut() {
         return checkingGameTime();
     }
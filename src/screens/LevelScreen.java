@@ -0,0 +1,197 @@
+package screens;
+import bagel.*;
+import java.util.Properties;
+import java.util.Random;
+import objects.Controls;
+import objects.KeyboardControls;
+import objects.Mario;
+
+/**
+ * Base class for the gameplay screens, whose Mario can be steered by any source of controls:
+ * the player's keyboard, a bot, a replay or random inputs. A level can also be simulated
+ * headless, without drawing anything.
+ *
+ * @author Minh Triet Pham
+ */
+public abstract class LevelScreen extends AbstractScreen {
+    /**
+     * The telemetry the level's gameplay events are recorded to, or null if they are not recorded
+     */
+    private Telemetry telemetry = null;
+
+    /**
+     * The ghost racing the player through the level, or null if there is none
+     */
+    private Ghost ghost = null;
+
+    /**
+     * The controls read from the player's keyboard, pointed at each frame's input
+     */
+    private final KeyboardControls KEYBOARD = new KeyboardControls();
+
+    /**
+     * Constructs a level with the background image of the game.
+     *
+     * @param gameProps Properties file containing image paths and other configuration.
+     */
+    public LevelScreen(Properties gameProps) {
+        super(gameProps);
+    }
+
+    /**
+     * Constructs a copy of a level sharing its background image, e.g. for a fork of the level.
+     *
+     * @param original The level to copy.
+     */
+    protected LevelScreen(LevelScreen original) {
+        super(original);
+    }
+
+    /**
+     * Creates a level from a seed, e.g. to simulate or replay a game. Playing the same keys on
+     * levels created from the same seed plays the same game.
+     *
+     * @param level     The level to create (1 or 2)
+     * @param seed      The seed of the level
+     * @param gameProps Properties containing game configuration data
+     * @return The level
+     */
+    public static LevelScreen create(int level, long seed, Properties gameProps) {
+        switch (level) {
+            case 1:
+                return new Level1Screen(gameProps);
+            case 2:
+                return new Level2Screen(gameProps, new Random(seed)::nextDouble);
+            default:
+                throw new IllegalArgumentException("There is no level " + level);
+        }
+    }
+
+    /**
+     * Records the level's gameplay events from now on, starting with the start of the level.
+     * Forks of the level do not record their events.
+     *
+     * @param telemetry The telemetry the events are recorded to
+     */
+    public void setTelemetry(Telemetry telemetry) {
+        this.telemetry = telemetry;
+        record(TelemetryEvent.LEVEL_STARTED, 0, getScore());
+    }
+
+    /**
+     * Races a ghost of the best run through the level from now on. Forks of the level have no ghost.
+     *
+     * @param ghost The ghost racing the player through the level
+     */
+    public void setGhost(Ghost ghost) {
+        this.ghost = ghost;
+    }
+
+    /**
+     * Records Mario's position for the ghost and draws the ghost, if the level has one.
+     * Called once per frame, before Mario moves and is drawn.
+     *
+     * @param isRendered Whether the frame is drawn
+     */
+    protected void updateGhost(boolean isRendered) {
+        if (ghost != null) {
+            ghost.update(getMario(), isRendered);
+        }
+    }
+
+    /**
+     * Checks whether the level's gameplay events are recorded, so that tracking them can be skipped otherwise.
+     *
+     * @return {@code true} if the events are recorded, {@code false} otherwise.
+     */
+    protected boolean isRecorded() {
+        return telemetry != null;
+    }
+
+    /**
+     * Records a gameplay event of the level, if its events are recorded.
+     *
+     * @param event The event
+     * @param frame The frame of the level it happened in
+     * @param value The number of the event
+     */
+    protected void record(TelemetryEvent event, int frame, int value) {
+        if (telemetry != null) {
+            telemetry.record(event, getLevel(), frame, value);
+        }
+    }
+
+    /**
+     * Updates the level for one frame, with Mario steered by the player's keyboard.
+     *
+     * @param input The current mouse/keyboard input.
+     * @return {@code true} if the level is completed or the game is over, {@code false} otherwise.
+     */
+    @Override
+    public boolean update(Input input) {
+        return update(KEYBOARD.read(input));
+    }
+
+    /**
+     * Updates the level for one frame. A headless level is simulated without drawing anything.
+     *
+     * @param controls The keys steering Mario this frame.
+     * @return {@code true} if the level is completed or the game is over, {@code false} otherwise.
+     */
+    public abstract boolean update(Controls controls);
+
+    /**
+     * Forks the level, copying its whole state, e.g. for a search over inputs or a keyframe of a replay.
+     * The original level is not affected by anything played on the fork, and vice versa.
+     *
+     * Forking is not a read of the original: it marks every page of the original's entity store
+     * shared, and copies an object per entity, so it costs time in the number of entities rather than
+     * in what changed. A level must not be forked while it is being played or forked on another thread.
+     * Forks of the same level may be played on different threads once they are made.
+     *
+     * @return The fork of the level
+     */
+    public abstract LevelScreen fork();
+
+    /**
+     * Makes the level simulated without drawing anything, or drawn again.
+     *
+     * @param headless Whether the level is simulated without drawing anything.
+     */
+    public abstract void setHeadless(boolean headless);
+
+    /**
+     * Gets the number of the level.
+     *
+     * @return The number of the level (1 or 2).
+     */
+    public abstract int getLevel();
+
+    /**
+     * Gets Mario.
+     *
+     * @return The Mario of the level.
+     */
+    public abstract Mario getMario();
+
+    /**
+     * Checks whether the level has been won.
+     *
+     * @return {@code true} if the level is completed, {@code false} otherwise.
+     */
+    public abstract boolean isWon();
+
+    /**
+     * Gets the current score.
+     *
+     * @return The current score.
+     */
+    public abstract int getScore();
+
+    /**
+     * Checks if the game over is due to timeout rather than player death.
+     *
+     * @return {@code true} if game over is caused by timeout, {@code false} otherwise.
+     */
+    public abstract boolean isTimeOut();
+}
@@ -0,0 +1,161 @@
+package screens;
+import java.util.Properties;
+import objects.Replay;
+
+/**
+ * Seeks to any frame of a replay without playing it from the start every time. The seeker keeps a
+ * keyframe every few frames: a fork of the level as it was at that frame. Seeking to a frame forks
+ * the nearest keyframe before it and plays at most one interval of frames on the fork.
+ *
+ * Keyframes are made the first time play goes past them, so opening a replay costs nothing, but
+ * the first seek far into a replay plays every frame up to there, like playing it from the start.
+ * Only the seeks after it are bounded by the interval. Keyframes are kept in memory, as forks
+ * sharing their unchanged entity pages copy-on-write, and there are never more than a given number
+ * of them: the interval is widened for long replays instead.
+ *
+ * A seeker is not thread-safe: a seek forks the keyframes, which writes to them, so seeks must not
+ * run at the same time.
+ *
+ * A level that ends before the end of its replay is never played past its end: seeking to a later
+ * frame gets the level as it was when it ended.
+ *
+ * @author Minh Triet Pham
+ */
+public class ReplaySeeker {
+    /**
+     * The replay sought through
+     */
+    private final Replay REPLAY;
+
+    /**
+     * The number of frames between two keyframes
+     */
+    private final int INTERVAL;
+
+    /**
+     * The level at every keyframe made so far; the level at frame {@code k * INTERVAL} is keyframe k
+     */
+    private final LevelScreen[] KEYFRAMES;
+
+    /**
+     * The number of keyframes made so far
+     */
+    private int keyframeCount;
+
+    /**
+     * The frame after the one the level ended in, or {@link Integer#MAX_VALUE} if no play has reached its end
+     */
+    private int endFrame = Integer.MAX_VALUE;
+
+    /**
+     * Constructs a seeker over a replay.
+     *
+     * @param replay       The replay to seek through
+     * @param gameProps    Properties containing game configuration data
+     * @param interval     The number of frames between two keyframes, widened if the replay would need
+     *                     more than the most keyframes kept
+     * @param maxKeyframes The most keyframes kept, including the one at the start of the replay
+     */
+    public ReplaySeeker(Replay replay, Properties gameProps, int interval, int maxKeyframes) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Keyframe interval must be positive, not " + interval);
+        }
+        if (maxKeyframes <= 0) {
+            throw new IllegalArgumentException("A seeker keeps at least one keyframe, not " + maxKeyframes);
+        }
+        this.REPLAY = replay;
+        this.INTERVAL = Math.max(interval, replay.getFrameCount() / maxKeyframes + 1);
+        this.KEYFRAMES = new LevelScreen[replay.getFrameCount() / INTERVAL + 1];
+        LevelScreen start = LevelScreen.create(replay.getLevel(), replay.getSeed(), gameProps);
+        start.setHeadless(true);
+        KEYFRAMES[0] = start;
+        this.keyframeCount = 1;
+    }
+
+    /**
+     * Gets the level as it is after some frames of the replay have been played, or as it was when
+     * it ended if it ended before them. The level is a headless fork, which the caller may draw or
+     * keep playing.
+     *
+     * @param frame The number of frames played, from 0 to the number of frames of the replay
+     * @return The level after the frames
+     */
+    public LevelScreen seek(int frame) {
+        if (frame < 0 || frame > REPLAY.getFrameCount()) {
+            throw new IndexOutOfBoundsException("Frame " + frame + " of a replay of "
+                    + REPLAY.getFrameCount() + " frames");
+        }
+
+        // 1) Make the keyframes up to the one before the frame, each played on from a fork of the
+        // previous one, until the level ends
+        int keyframe = keyframeBefore(frame);
+        while (keyframeCount <= keyframe) {
+            LevelScreen next = KEYFRAMES[keyframeCount - 1].fork();
+            play(next, (keyframeCount - 1) * INTERVAL, keyframeCount * INTERVAL);
+            if (endFrame <= keyframeCount * INTERVAL) {
+                keyframe = keyframeBefore(frame);
+            } else {
+                KEYFRAMES[keyframeCount++] = next;
+            }
+        }
+
+        // 2) Play the rest of the way on a fork of that keyframe, which stays as it is
+        LevelScreen level = KEYFRAMES[keyframe].fork();
+        play(level, keyframe * INTERVAL, Math.min(frame, endFrame));
+        return level;
+    }
+
+    /**
+     * Gets the number of keyframes made so far
+     *
+     * @return The number of keyframes made so far
+     */
+    public int getKeyframeCount() {
+        return keyframeCount;
+    }
+
+    /**
+     * Gets the number of frames between two keyframes, after widening it to keep the keyframes bounded
+     *
+     * @return The number of frames between two keyframes
+     */
+    public int getInterval() {
+        return INTERVAL;
+    }
+
+    /**
+     * Gets the replay sought through
+     *
+     * @return The replay
+     */
+    public Replay getReplay() {
+        return REPLAY;
+    }
+
+    /**
+     * Gets the keyframe a seek to a frame plays from: the last one at or before the frame, and
+     * before the end of the level if it is known to end by then.
+     *
+     * @param frame The frame sought
+     * @return The index of the keyframe
+     */
+    private int keyframeBefore(int frame) {
+        return frame < endFrame ? frame / INTERVAL : (endFrame - 1) / INTERVAL;
+    }
+
+    /**
+     * Plays frames of the replay on a level, stopping early if the level ends.
+     *
+     * @param level The level, which has played the frames before the first one
+     * @param from  The first frame played
+     * @param to    The frame after the last one played
+     */
+    private void play(LevelScreen level, int from, int to) {
+        for (int frame = from; frame < to; frame++) {
+            if (level.update(REPLAY.frame(frame))) {
+                endFrame = frame + 1;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package screens;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Keeps the score of a level.
+ * Game logic posts {@link ScoreEvent}s as they happen during a frame, and the board applies
+ * all of them in a single pass when {@link #tally()} is called. The queue is made of primitive
+ * arrays that are reused every frame, so posting events does not allocate.
+ *
+ * @author Minh Triet Pham
+ */
+public class ScoreBoard {
+    /**
+     * The initial capacity of the event queue
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The events queued during the current frame
+     */
+    private ScoreEvent[] queuedEvents = new ScoreEvent[INITIAL_CAPACITY];
+
+    /**
+     * The number of units of each queued event (e.g. seconds left for a cleared level)
+     */
+    private int[] queuedUnits = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of events queued during the current frame
+     */
+    private int queuedCount = 0;
+
+    /**
+     * The ids of the entities that have already been scored, to avoid scoring them twice
+     */
+    private final BitSet scoredEntities = new BitSet();
+
+    /**
+     * The current score
+     */
+    private int score = 0;
+
+    /**
+     * Constructs an empty score board with a score of 0.
+     */
+    public ScoreBoard() {
+    }
+
+    /**
+     * Constructs a copy of a score board, e.g. for a fork of its level.
+     *
+     * @param original The score board to copy
+     */
+    public ScoreBoard(ScoreBoard original) {
+        this.queuedEvents = original.queuedEvents.clone();
+        this.queuedUnits = original.queuedUnits.clone();
+        this.queuedCount = original.queuedCount;
+        this.scoredEntities.or(original.scoredEntities);
+        this.score = original.score;
+    }
+
+    /**
+     * Queues a single unit of an event.
+     *
+     * @param event The event that happened
+     */
+    public void post(ScoreEvent event) {
+        post(event, 1);
+    }
+
+    /**
+     * Queues an event worth several units (e.g. the seconds left when a level is cleared).
+     *
+     * @param event The event that happened
+     * @param units The number of units of the event
+     */
+    public void post(ScoreEvent event, int units) {
+        if (queuedCount == queuedEvents.length) {
+            queuedEvents = Arrays.copyOf(queuedEvents, queuedCount * 2);
+            queuedUnits = Arrays.copyOf(queuedUnits, queuedCount * 2);
+        }
+        queuedEvents[queuedCount] = event;
+        queuedUnits[queuedCount] = units;
+        queuedCount++;
+    }
+
+    /**
+     * Queues an event caused by an entity, unless that entity has already been scored.
+     *
+     * @param event    The event that happened
+     * @param entityId The id of the entity that caused the event
+     */
+    public void postOnce(ScoreEvent event, int entityId) {
+        if (!scoredEntities.get(entityId)) {
+            scoredEntities.set(entityId);
+            post(event);
+        }
+    }
+
+    /**
+     * Applies every queued event to the score and clears the queue.
+     * This is called once per frame, after all game logic has run.
+     */
+    public void tally() {
+        for (int i = 0; i < queuedCount; i++) {
+            score += queuedEvents[i].getPoints() * queuedUnits[i];
+        }
+        queuedCount = 0;
+    }
+
+    /**
+     * Gets the current score.
+     *
+     * @return The current score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Sets the score, typically to carry the score over from a previous level.
+     *
+     * @param score The new score
+     */
+    public void setScore(int score) {
+        this.score = score;
+    }
+}
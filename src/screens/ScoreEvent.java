@@ -0,0 +1,52 @@
+package screens;
+
+/**
+ * The kinds of events that award points during a level.
+ * Each event knows how many points it is worth, so every score rule lives in one place.
+ *
+ * @author Minh Triet Pham
+ */
+public enum ScoreEvent {
+    /**
+     * Mario jumped over a barrel
+     */
+    BARREL_JUMPED(30),
+
+    /**
+     * Mario smashed a barrel with the hammer
+     */
+    BARREL_SMASHED(100),
+
+    /**
+     * A monkey was killed by the hammer or a bullet
+     */
+    MONKEY_KILLED(100),
+
+    /**
+     * The level was cleared, worth a bonus for each second left
+     */
+    LEVEL_CLEARED(3);
+
+    /**
+     * The points awarded for each unit of this event
+     */
+    private final int POINTS;
+
+    /**
+     * Constructs a score event worth the given points per unit.
+     *
+     * @param points The points awarded for each unit of this event
+     */
+    ScoreEvent(int points) {
+        this.POINTS = points;
+    }
+
+    /**
+     * Gets the points awarded for each unit of this event.
+     *
+     * @return The points per unit
+     */
+    public int getPoints() {
+        return POINTS;
+    }
+}
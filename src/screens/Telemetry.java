@@ -0,0 +1,204 @@
+package screens;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the {@link TelemetryEvent}s of a play session to a gzipped file of JSON lines.
+ * The game thread records each event into a ring of primitive arrays allocated once, publishing it
+ * with a single ordered write, so recording neither locks nor allocates. A writer thread takes
+ * the events in batches, formats them and compresses them to the file, flushing the compressed
+ * stream after each batch so that a crash loses at most the last batch. When the writer falls a
+ * full ring behind, events are dropped and counted rather than waited for.
+ *
+ * Each line holds the level, the frame of the level, the event and its number, e.g.
+ * {@code {"level":2,"frame":812,"event":"DONKEY_HEALTH","value":3}}.
+ *
+ * @author Minh Triet Pham
+ */
+public class Telemetry implements AutoCloseable {
+    /**
+     * The number of events the ring holds, a power of two
+     */
+    private static final int CAPACITY = 4096;
+
+    /**
+     * The mask turning a sequence number into a position in the ring
+     */
+    private static final int MASK = CAPACITY - 1;
+
+    /**
+     * How long the writer waits for more events once the ring is empty, so that events are written in batches
+     */
+    private static final long BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    /**
+     * The size of the buffer in front of the compressor
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The events of the ring
+     */
+    private final TelemetryEvent[] EVENTS = new TelemetryEvent[CAPACITY];
+
+    /**
+     * The level of each event of the ring
+     */
+    private final int[] LEVELS = new int[CAPACITY];
+
+    /**
+     * The frame of each event of the ring
+     */
+    private final int[] FRAMES = new int[CAPACITY];
+
+    /**
+     * The number of each event of the ring
+     */
+    private final int[] VALUES = new int[CAPACITY];
+
+    /**
+     * The sequence number of the next event recorded; only written by the recording thread
+     */
+    private final AtomicLong HEAD = new AtomicLong();
+
+    /**
+     * The sequence number of the next event written; only written by the writer thread
+     */
+    private final AtomicLong TAIL = new AtomicLong();
+
+    /**
+     * The compressed file of the session
+     */
+    private final Writer OUT;
+
+    /**
+     * The thread writing the events
+     */
+    private final Thread WRITER;
+
+    /**
+     * The line being formatted by the writer thread
+     */
+    private final StringBuilder LINE = new StringBuilder();
+
+    /**
+     * The number of events dropped because the ring was full; only written by the recording thread
+     */
+    private volatile int dropped = 0;
+
+    /**
+     * Whether the session is over, so that the writer writes what is left and stops
+     */
+    private volatile boolean isClosing = false;
+
+    /**
+     * Starts a session, creating its file and its writer thread.
+     *
+     * @param dir The directory the file of the session is written to
+     * @throws IOException If the file cannot be created
+     */
+    public Telemetry(String dir) throws IOException {
+        new File(dir).mkdirs();
+        File file = new File(dir, "session-" + System.currentTimeMillis() + ".jsonl.gz");
+        OutputStream compressed = new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE, true);
+        this.OUT = new OutputStreamWriter(new BufferedOutputStream(compressed, BUFFER_SIZE), StandardCharsets.UTF_8);
+        this.WRITER = new Thread(this::write, "telemetry");
+        WRITER.setDaemon(true);
+        WRITER.start();
+    }
+
+    /**
+     * Records an event. Must only be called by one thread at a time, e.g. the game thread.
+     * Never waits: if the writer is a full ring behind, the event is dropped and counted.
+     *
+     * @param event The event
+     * @param level The level it happened in
+     * @param frame The frame of the level it happened in
+     * @param value The number of the event
+     */
+    public void record(TelemetryEvent event, int level, int frame, int value) {
+        long head = HEAD.get();
+        if (head - TAIL.get() == CAPACITY) {
+            dropped++;
+            return;
+        }
+        int at = (int) head & MASK;
+        EVENTS[at] = event;
+        LEVELS[at] = level;
+        FRAMES[at] = frame;
+        VALUES[at] = value;
+        HEAD.lazySet(head + 1);
+    }
+
+    /**
+     * Gets the number of events dropped because the writer was a full ring behind
+     *
+     * @return The number of events dropped
+     */
+    public int getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Writes every recorded event, then closes the file of the session.
+     *
+     * @throws InterruptedException If interrupted while waiting for the writer thread
+     */
+    @Override
+    public void close() throws InterruptedException {
+        isClosing = true;
+        LockSupport.unpark(WRITER);
+        WRITER.join();
+    }
+
+    /**
+     * Writes the recorded events in batches until the session is over. Runs on the writer thread.
+     */
+    private void write() {
+        try {
+            boolean isLast = false;
+            while (!isLast) {
+                isLast = isClosing;
+                long tail = TAIL.get();
+                long head = HEAD.get();
+                if (tail == head) {
+                    if (!isLast) {
+                        LockSupport.parkNanos(BATCH_NANOS);
+                    }
+                    continue;
+                }
+
+                // Format the batch, freeing each event's place in the ring once it is read
+                for (long sequence = tail; sequence < head; sequence++) {
+                    int at = (int) sequence & MASK;
+                    LINE.setLength(0);
+                    LINE.append("{\"level\":").append(LEVELS[at])
+                            .append(",\"frame\":").append(FRAMES[at])
+                            .append(",\"event\":\"").append(EVENTS[at].name())
+                            .append("\",\"value\":").append(VALUES[at]).append("}\n");
+                    TAIL.lazySet(sequence + 1);
+                    OUT.append(LINE);
+                }
+                OUT.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write telemetry: " + e.getMessage());
+        } finally {
+            try {
+                OUT.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close telemetry: " + e.getMessage());
+            }
+        }
+    }
+}
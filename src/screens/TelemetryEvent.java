@@ -0,0 +1,64 @@
+package screens;
+
+/**
+ * The kinds of gameplay events recorded for analytics during a level.
+ * Each event carries one number, whose meaning depends on the event.
+ *
+ * @author Minh Triet Pham
+ */
+public enum TelemetryEvent {
+    /**
+     * The level started; the number is the score carried into it
+     */
+    LEVEL_STARTED,
+
+    /**
+     * Mario jumped over a barrel; the number is how many barrels he has jumped over in the level
+     */
+    BARREL_JUMPED,
+
+    /**
+     * Mario picked up the hammer; the number is 1
+     */
+    HAMMER_PICKED_UP,
+
+    /**
+     * Mario picked up a blaster; the number is his bullet count afterwards
+     */
+    BLASTER_PICKED_UP,
+
+    /**
+     * Donkey Kong's health, at the start of the level and whenever it changes; the number is the health
+     */
+    DONKEY_HEALTH,
+
+    /**
+     * Mario died touching a barrel without the hammer; the number is 0
+     */
+    DIED_BARREL,
+
+    /**
+     * Mario died touching a monkey without the hammer; the number is the monkey's id
+     */
+    DIED_MONKEY,
+
+    /**
+     * Mario died hit by a banana; the number is 0
+     */
+    DIED_BANANA,
+
+    /**
+     * Mario died reaching Donkey Kong without the hammer; the number is 0
+     */
+    DIED_DONKEY,
+
+    /**
+     * The time of the level ran out; the number is 0
+     */
+    TIMED_OUT,
+
+    /**
+     * The level was cleared; the number is the score, including the time bonus
+     */
+    LEVEL_CLEARED
+}
@@ -0,0 +1,215 @@
+package screens;
+import java.util.Arrays;
+
+/**
+ * A hashed timer wheel that fires callbacks after a number of simulation ticks (frames).
+ * Timers are kept in slots indexed by their expiry tick, so advancing the wheel by one tick
+ * only looks at the timers in a single slot instead of at every timer in the level.
+ *
+ * @author Minh Triet Pham
+ */
+public class TimerWheel {
+    /**
+     * The number of slots in the wheel, must be a power of two
+     */
+    private static final int SLOT_COUNT = 256;
+
+    /**
+     * The mask used to map a tick onto its slot
+     */
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+
+    /**
+     * The first timer of each slot, timers in a slot form a linked list
+     */
+    private final Timer[] slots = new Timer[SLOT_COUNT];
+
+    /**
+     * The timers that expired on the current tick, reused every tick
+     */
+    private Timer[] expired = new Timer[SLOT_COUNT];
+
+    /**
+     * The number of timers that expired on the current tick
+     */
+    private int expiredCount = 0;
+
+    /**
+     * The number of ticks the wheel has advanced
+     */
+    private long currentTick = 0;
+
+    /**
+     * The callback run when a timer expires
+     */
+    public interface Callback {
+        /**
+         * Runs when the timer expires.
+         *
+         * @param timer The expired timer, which may be rescheduled from inside the callback
+         */
+        void onExpire(Timer timer);
+    }
+
+    /**
+     * A timer registered with the wheel. Timers can be rescheduled after they expire,
+     * so a repeating timer never needs a new object.
+     */
+    public static class Timer {
+        /**
+         * The callback run when the timer expires
+         */
+        private final Callback CALLBACK;
+
+        /**
+         * The tick at which the timer expires
+         */
+        private long expiryTick;
+
+        /**
+         * The next timer in the same slot
+         */
+        private Timer next;
+
+        /**
+         * The previous timer in the same slot
+         */
+        private Timer previous;
+
+        /**
+         * Signal of whether the timer is currently in the wheel
+         */
+        private boolean isScheduled = false;
+
+        /**
+         * Signal of whether the timer has expired and its callback is about to run
+         */
+        private boolean isFiring = false;
+
+        /**
+         * Constructs a timer with the given callback.
+         *
+         * @param callback The callback run when the timer expires
+         */
+        private Timer(Callback callback) {
+            this.CALLBACK = callback;
+        }
+
+        /**
+         * Checks whether the timer is still waiting to expire.
+         *
+         * @return True if the timer is in the wheel, false otherwise
+         */
+        public boolean isScheduled() {
+            return isScheduled;
+        }
+
+        /**
+         * Gets the tick at which the timer expires, if it is scheduled.
+         *
+         * @return The expiry tick of the timer
+         */
+        public long getExpiryTick() {
+            return expiryTick;
+        }
+    }
+
+    /**
+     * Registers a callback that runs once after the given number of ticks.
+     *
+     * @param delay    The number of ticks until the callback runs, at least 1
+     * @param callback The callback to run
+     * @return The timer, which can be cancelled or rescheduled
+     */
+    public Timer schedule(int delay, Callback callback) {
+        Timer timer = new Timer(callback);
+        reschedule(timer, delay);
+        return timer;
+    }
+
+    /**
+     * Schedules an existing timer to expire after the given number of ticks.
+     * If the timer is still waiting, its previous expiry is replaced.
+     *
+     * @param timer The timer to schedule
+     * @param delay The number of ticks until the timer expires, at least 1
+     */
+    public void reschedule(Timer timer, int delay) {
+        cancel(timer);
+        timer.expiryTick = currentTick + Math.max(1, delay);
+        int slot = (int) (timer.expiryTick & SLOT_MASK);
+        timer.previous = null;
+        timer.next = slots[slot];
+        if (slots[slot] != null) {
+            slots[slot].previous = timer;
+        }
+        slots[slot] = timer;
+        timer.isScheduled = true;
+    }
+
+    /**
+     * Removes a timer from the wheel so that it never expires.
+     *
+     * @param timer The timer to cancel
+     */
+    public void cancel(Timer timer) {
+        timer.isFiring = false;
+        if (!timer.isScheduled) {
+            return;
+        }
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            slots[(int) (timer.expiryTick & SLOT_MASK)] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.next = null;
+        timer.previous = null;
+        timer.isScheduled = false;
+    }
+
+    /**
+     * Advances the wheel by one tick and runs the callbacks of every timer that expires on it.
+     * Timers in the slot that belong to a later turn of the wheel are left untouched.
+     */
+    public void advance() {
+        currentTick++;
+
+        // 1) Take every timer that expires on this tick out of its slot
+        Timer timer = slots[(int) (currentTick & SLOT_MASK)];
+        while (timer != null) {
+            Timer next = timer.next;
+            if (timer.expiryTick == currentTick) {
+                cancel(timer);
+                timer.isFiring = true;
+                if (expiredCount == expired.length) {
+                    expired = Arrays.copyOf(expired, expiredCount * 2);
+                }
+                expired[expiredCount++] = timer;
+            }
+            timer = next;
+        }
+
+        // 2) Run their callbacks, which may schedule or cancel any timer
+        for (int i = 0; i < expiredCount; i++) {
+            Timer expiredTimer = expired[i];
+            expired[i] = null;
+            if (expiredTimer.isFiring) {
+                expiredTimer.isFiring = false;
+                expiredTimer.CALLBACK.onExpire(expiredTimer);
+            }
+        }
+        expiredCount = 0;
+    }
+
+    /**
+     * Gets the number of ticks the wheel has advanced.
+     *
+     * @return The current tick
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+}